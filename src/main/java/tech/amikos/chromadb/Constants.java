@@ -8,6 +8,11 @@ public class Constants {
     public static final String EF_PARAMS_MODEL = "modelName";
     public static final String EF_PARAMS_API_KEY = "apiKey";
     public static final String EF_PARAMS_API_KEY_FROM_ENV = "envAPIKey";
+    public static final String EF_PARAMS_HTTP_CLIENT = "httpClient";
+    public static final String EF_PARAMS_MAX_BATCH_SIZE = "maxBatchSize";
+    public static final String EF_PARAMS_MAX_CONCURRENCY = "maxConcurrency";
+    public static final String EF_PARAMS_RETRY_POLICY = "retryPolicy";
+    public static final String EF_PARAMS_RATE_BUDGET = "rateBudget";
     public static final String MODEL_NAME = "MODEL_NAME";
     public static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     public static final String HTTP_AGENT = "chroma-java-client";
@@ -0,0 +1,65 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.Embedding;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link EmbeddingFunction} that can also embed without blocking the calling thread.
+ *
+ * <p>Remote providers implement this natively: requests are dispatched with OkHttp
+ * {@code enqueue}, retries and rate-budget waits are scheduled rather than slept, and no thread
+ * is parked for the HTTP round trip. Local ONNX functions run on a dedicated inference executor.
+ * Any other function can be adapted with {@link #of(EmbeddingFunction)}.</p>
+ *
+ * <p>Returned futures complete exceptionally with the same {@link tech.amikos.chromadb.EFException}
+ * or {@link tech.amikos.chromadb.v2.ChromaException} the synchronous method would throw. Built-in
+ * remote providers throw argument validation errors directly; adapters report them through the
+ * future.</p>
+ */
+public interface AsyncEmbeddingFunction extends EmbeddingFunction {
+
+    /**
+     * Asynchronously embeds a single query string.
+     */
+    CompletableFuture<Embedding> embedQueryAsync(String query);
+
+    /**
+     * Asynchronously embeds document texts for storage/indexing.
+     */
+    CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents);
+
+    /**
+     * Asynchronously embeds query texts for search/ranking. Default behavior delegates to
+     * {@link #embedDocumentsAsync(List)}.
+     */
+    default CompletableFuture<List<Embedding>> embedQueriesAsync(List<String> queries) {
+        return embedDocumentsAsync(queries);
+    }
+
+    /**
+     * Returns {@code ef} itself if it is already asynchronous, otherwise an adapter that runs it on
+     * a shared, bounded pool of daemon threads.
+     */
+    static AsyncEmbeddingFunction of(EmbeddingFunction ef) {
+        if (ef instanceof AsyncEmbeddingFunction) {
+            return (AsyncEmbeddingFunction) ef;
+        }
+        return of(ef, ExecutorAsyncEmbeddingFunction.shared());
+    }
+
+    /**
+     * Returns an adapter that runs {@code ef} on {@code executor}.
+     */
+    static AsyncEmbeddingFunction of(EmbeddingFunction ef, Executor executor) {
+        if (ef == null) {
+            throw new IllegalArgumentException("ef must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        return new ExecutorAsyncEmbeddingFunction(ef, executor);
+    }
+}
@@ -4,7 +4,6 @@ import ai.djl.huggingface.tokenizers.Encoding;
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
 import ai.onnxruntime.*;
 
-import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
 import okhttp3.OkHttpClient;
@@ -20,17 +19,23 @@ import tech.amikos.chromadb.Embedding;
 import tech.amikos.chromadb.v2.ChromaException;
 
 import java.io.*;
+import java.nio.FloatBuffer;
 import java.nio.LongBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
-public class DefaultEmbeddingFunction implements EmbeddingFunction {
+/**
+ * Local all-MiniLM-L6-v2 ONNX embedding function. The {@code *Async} methods run on a dedicated
+ * inference thread.
+ */
+public class DefaultEmbeddingFunction implements AsyncEmbeddingFunction {
     private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(DefaultEmbeddingFunction.class.getName());
     public static final String MODEL_NAME = "all-MiniLM-L6-v2";
     private static final String ARCHIVE_FILENAME = "onnx.tar.gz";
@@ -47,10 +52,15 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
     public static final int DEFAULT_DOWNLOAD_TIMEOUT_SECONDS = 300;
 
     private static final Object MODEL_INIT_LOCK = new Object();
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final List<String> WARM_UP_BATCH = Collections.unmodifiableList(Arrays.asList(
+            "warm up", "the quick brown fox jumps over the lazy dog", "chroma", "embedding warm-up batch"));
 
     private final HuggingFaceTokenizer tokenizer;
     private final OrtEnvironment env;
     final OrtSession session;
+    final EncodingPipeline encodingPipeline;
 
     public static float[][] normalize(float[][] v) {
         int rows = v.length;
@@ -83,11 +93,62 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
         return normalized;
     }
 
+    /**
+     * Scales every row of {@code matrix} to unit L2 norm in place, with the same arithmetic as
+     * {@link #normalize(float[][])}.
+     */
+    static void normalizeRows(EmbeddingMatrix matrix) {
+        float[] data = matrix.data();
+        int cols = matrix.getDimension();
+        for (int start = 0; start < data.length; start += cols) {
+            float sum = 0;
+            for (int j = start; j < start + cols; j++) {
+                sum += data[j] * data[j];
+            }
+            float norm = (float) Math.sqrt(sum);
+            if (norm == 0) {
+                norm = 1e-12f;
+            }
+            for (int j = start; j < start + cols; j++) {
+                data[j] = data[j] / norm;
+            }
+        }
+    }
+
+    /**
+     * Returns a float tensor's values in row-major order. ONNX Runtime already copies them out of
+     * native memory into a heap buffer; its backing array is used as is.
+     */
+    static float[] floats(OnnxTensor tensor) {
+        FloatBuffer buffer = tensor.getFloatBuffer();
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        float[] values = new float[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
     public DefaultEmbeddingFunction() throws EFException {
         this(DEFAULT_DOWNLOAD_TIMEOUT_SECONDS);
     }
 
     public DefaultEmbeddingFunction(int downloadTimeoutSeconds) throws EFException {
+        this(downloadTimeoutSeconds, EncodingPipeline.DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Same as {@link #DefaultEmbeddingFunction(int)}, keeping up to {@code encodingCacheSize}
+     * tokenized inputs in an LRU cache so repeated texts skip the tokenizer. Each cached input holds
+     * its padded encoding, so size this for repeated inputs only; {@code 0} disables the cache.
+     *
+     * @throws IllegalArgumentException if {@code encodingCacheSize} is negative
+     */
+    public DefaultEmbeddingFunction(int downloadTimeoutSeconds, int encodingCacheSize) throws EFException {
+        if (encodingCacheSize < 0) {
+            throw new IllegalArgumentException("encodingCacheSize must be >= 0");
+        }
         try {
             ensureModelDownloaded(downloadTimeoutSeconds);
         } catch (ChromaException e) {
@@ -107,70 +168,145 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
         } catch (OrtException | IOException e) {
             throw new EFException(e);
         }
+        this.encodingPipeline = new EncodingPipeline(
+                tokenizer, encodingCacheSize, EncodingPipeline.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Downloads the model if needed, builds the session and runs {@link #warmUp()} on a background
+     * daemon thread, so startup can proceed while the model loads.
+     *
+     * @return future completed with a warmed-up instance, or exceptionally with the construction failure
+     */
+    public static CompletableFuture<DefaultEmbeddingFunction> preload() {
+        return preload(DEFAULT_DOWNLOAD_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Same as {@link #preload()} with a custom download timeout.
+     */
+    public static CompletableFuture<DefaultEmbeddingFunction> preload(final int downloadTimeoutSeconds) {
+        final CompletableFuture<DefaultEmbeddingFunction> ready = new CompletableFuture<DefaultEmbeddingFunction>();
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DefaultEmbeddingFunction ef = new DefaultEmbeddingFunction(downloadTimeoutSeconds);
+                    ef.warmUp();
+                    ready.complete(ef);
+                } catch (Throwable t) {
+                    ready.completeExceptionally(t);
+                }
+            }
+        }, "chroma-default-ef-preload");
+        loader.setDaemon(true);
+        loader.start();
+        return ready;
+    }
+
+    /**
+     * Runs a few representative inferences so the first real request does not pay JIT and
+     * ONNX Runtime initialization costs.
+     */
+    public void warmUp() throws EFException {
+        try {
+            forward(WARM_UP_BATCH.subList(0, 1));
+            forward(WARM_UP_BATCH);
+        } catch (OrtException e) {
+            throw new EFException(e);
+        }
     }
 
     public List<List<Float>> forward(List<String> documents) throws OrtException {
-        Encoding[] e = tokenizer.batchEncode(documents, true, false);
-        ArrayList<Long> inputIds = new ArrayList<>();
-        ArrayList<Long> attentionMask = new ArrayList<>();
-        ArrayList<Long> tokenIdtypes = new ArrayList<>();
+        EmbeddingMatrix embeddings = forwardMatrix(documents);
+        List<List<Float>> embeddingsList = new ArrayList<>(embeddings.rows());
+        for (int i = 0; i < embeddings.rows(); i++) {
+            embeddingsList.add(Floats.asList(embeddings.row(i)));
+        }
+        return embeddingsList;
+    }
+
+    private EmbeddingMatrix forwardMatrix(List<String> documents) throws OrtException {
+        return encodingPipeline.run(documents, new EncodingPipeline.BatchForward() {
+            @Override
+            public EmbeddingMatrix forward(Encoding[] batch) throws OrtException {
+                return forwardBatch(batch);
+            }
+        });
+    }
+
+    private EmbeddingMatrix forwardBatch(Encoding[] e) throws OrtException {
         int maxIds = 0;
         for (Encoding encoding : e) {
             maxIds = Math.max(maxIds, encoding.getIds().length);
-            inputIds.addAll(Arrays.asList(Arrays.stream(encoding.getIds()).boxed().toArray(Long[]::new)));
-            attentionMask.addAll(Arrays.asList(Arrays.stream(encoding.getAttentionMask()).boxed().toArray(Long[]::new)));
-            tokenIdtypes.addAll(Arrays.asList(Arrays.stream(encoding.getTypeIds()).boxed().toArray(Long[]::new)));
+        }
+        long[] inputIds = new long[e.length * maxIds];
+        long[] attentionMask = new long[e.length * maxIds];
+        long[] tokenIdtypes = new long[e.length * maxIds];
+        for (int i = 0; i < e.length; i++) {
+            long[] ids = e[i].getIds();
+            System.arraycopy(ids, 0, inputIds, i * maxIds, ids.length);
+            long[] mask = e[i].getAttentionMask();
+            System.arraycopy(mask, 0, attentionMask, i * maxIds, mask.length);
+            long[] types = e[i].getTypeIds();
+            System.arraycopy(types, 0, tokenIdtypes, i * maxIds, types.length);
         }
         long[] inputShape = new long[]{e.length, maxIds};
-        OnnxTensor inputTensor = OnnxTensor.createTensor(env, LongBuffer.wrap(inputIds.stream().mapToLong(i -> i).toArray()), inputShape);
-        OnnxTensor attentionTensor = OnnxTensor.createTensor(env, LongBuffer.wrap(attentionMask.stream().mapToLong(i -> i).toArray()), inputShape);
-        OnnxTensor _tokenIdtypes = OnnxTensor.createTensor(env, LongBuffer.wrap(tokenIdtypes.stream().mapToLong(i -> i).toArray()), inputShape);
+        OnnxTensor inputTensor = OnnxTensor.createTensor(env, LongBuffer.wrap(inputIds), inputShape);
+        OnnxTensor attentionTensor = OnnxTensor.createTensor(env, LongBuffer.wrap(attentionMask), inputShape);
+        OnnxTensor _tokenIdtypes = OnnxTensor.createTensor(env, LongBuffer.wrap(tokenIdtypes), inputShape);
         // Inputs for all-MiniLM-L6-v2 model
-        Map<String, ? extends OnnxTensorLike> inputs = Collections.unmodifiableMap(new HashMap<String, OnnxTensorLike>() {{
-            put("input_ids", inputTensor);
-            put("attention_mask", attentionTensor);
-            put("token_type_ids", _tokenIdtypes);
-        }});
+        Map<String, OnnxTensor> inputs = new HashMap<String, OnnxTensor>();
+        inputs.put("input_ids", inputTensor);
+        inputs.put("attention_mask", attentionTensor);
+        inputs.put("token_type_ids", _tokenIdtypes);
         INDArray lastHiddenState = null;
         try (OrtSession.Result results = session.run(inputs)) {
-            lastHiddenState = Nd4j.create((float[][][]) results.get(0).getValue());
-
+            OnnxTensor output = (OnnxTensor) results.get(0);
+            lastHiddenState = Nd4j.create(floats(output), output.getInfo().getShape(), 'c');
+        } finally {
+            inputTensor.close();
+            attentionTensor.close();
+            _tokenIdtypes.close();
         }
-        INDArray attMask = Nd4j.create(attentionMask.stream().mapToDouble(i -> i).toArray(), inputShape, 'c');
+        double[] maskValues = new double[attentionMask.length];
+        for (int i = 0; i < attentionMask.length; i++) {
+            maskValues[i] = attentionMask[i];
+        }
+        INDArray attMask = Nd4j.create(maskValues, inputShape, 'c');
         INDArray expandedMask = Nd4j.expandDims(attMask, 2).broadcast(lastHiddenState.shape());
         INDArray summed = lastHiddenState.mul(expandedMask).sum(1);
         INDArray[] clippedSumMask = Nd4j.getExecutioner().exec(
                 new ClipByValue(expandedMask.sum(1), 1e-9, Double.MAX_VALUE)
         );
         INDArray embeddings = summed.div(clippedSumMask[0]);
-        float[][] embeddingsArray = normalize(embeddings.toFloatMatrix());
-        List<List<Float>> embeddingsList = new ArrayList<>();
-        for (float[] embedding : embeddingsArray) {
-            embeddingsList.add(Floats.asList(embedding));
-        }
-        return embeddingsList;
+        // Nd4j holds the result off-heap; ravel() is row-major, so one read fills the flat matrix.
+        EmbeddingMatrix matrix = EmbeddingMatrix.of(
+                embeddings.ravel().toFloatVector(), e.length, (int) embeddings.size(1));
+        normalizeRows(matrix);
+        return matrix;
     }
 
-    private static String getSHA256Checksum(String filePath) throws IOException, NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        try (FileInputStream fis = new FileInputStream(filePath)) {
-            byte[] byteArray = new byte[1024];
-            int bytesCount;
-            while ((bytesCount = fis.read(byteArray)) != -1) {
-                digest.update(byteArray, 0, bytesCount);
-            }
+    private static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            out[i * 2 + 1] = HEX[bytes[i] & 0x0f];
         }
-        byte[] bytes = digest.digest();
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+        return new String(out);
+    }
+
+    private static void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
         }
-        return sb.toString();
     }
 
     private static void extractTarGz(Path tarGzPath, Path extractDir) throws IOException {
-        try (InputStream fileIn = Files.newInputStream(tarGzPath);
-             GZIPInputStream gzipIn = new GZIPInputStream(fileIn);
+        byte[] buffer = new byte[IO_BUFFER_SIZE];
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(tarGzPath), IO_BUFFER_SIZE);
+             GZIPInputStream gzipIn = new GZIPInputStream(fileIn, IO_BUFFER_SIZE);
              TarArchiveInputStream tarIn = new TarArchiveInputStream(gzipIn)) {
 
             TarArchiveEntry entry;
@@ -184,11 +320,7 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
                 } else {
                     Files.createDirectories(entryPath.getParent());
                     try (OutputStream out = Files.newOutputStream(entryPath)) {
-                        byte[] buffer = new byte[1024];
-                        int len;
-                        while ((len = tarIn.read(buffer)) != -1) {
-                            out.write(buffer, 0, len);
-                        }
+                        copy(tarIn, out, buffer);
                     }
                 }
             }
@@ -237,8 +369,7 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
 
             // First attempt
             try {
-                attemptDownload(downloadClient, archivePath);
-                verifyAndExtract(archivePath);
+                verifyAndExtract(archivePath, attemptDownload(downloadClient, archivePath));
                 return;
             } catch (RetryableDownloadException e) {
                 LOG.warning("DefaultEmbeddingFunction: download attempt 1 failed (" + e.getMessage() + "), retrying...");
@@ -248,8 +379,7 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
 
             // Second attempt (final)
             try {
-                attemptDownload(downloadClient, archivePath);
-                verifyAndExtract(archivePath);
+                verifyAndExtract(archivePath, attemptDownload(downloadClient, archivePath));
             } catch (RetryableDownloadException e) {
                 throw new ChromaException(
                     "DefaultEmbeddingFunction: model download failed after 2 attempts. "
@@ -263,7 +393,13 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
         }
     }
 
-    private static void attemptDownload(OkHttpClient client, Path archivePath)
+    /**
+     * Streams the archive to {@code archivePath}, hashing it on the way so the file does not have
+     * to be re-read for verification.
+     *
+     * @return lowercase hex SHA-256 of the downloaded bytes
+     */
+    private static String attemptDownload(OkHttpClient client, Path archivePath)
             throws RetryableDownloadException, NonRetryableDownloadException {
         Request request = new Request.Builder().url(modelDownloadUrl).get().build();
         try {
@@ -284,9 +420,14 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
                     throw new RetryableDownloadException(
                         "DefaultEmbeddingFunction: model download returned empty body (HTTP " + code + ")");
                 }
-                try (InputStream in = response.body().byteStream()) {
-                    Files.copy(in, archivePath, StandardCopyOption.REPLACE_EXISTING);
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream in = new DigestInputStream(response.body().byteStream(), digest);
+                     OutputStream out = Files.newOutputStream(archivePath)) {
+                    copy(in, out, new byte[IO_BUFFER_SIZE]);
                 }
+                return toHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new NonRetryableDownloadException("Failed to verify model: " + e.getMessage(), e);
             } finally {
                 response.close();
             }
@@ -299,9 +440,9 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
         }
     }
 
-    private static void verifyAndExtract(Path archivePath) throws NonRetryableDownloadException {
+    private static void verifyAndExtract(Path archivePath, String actualChecksum) throws NonRetryableDownloadException {
         try {
-            if (!MODEL_SHA256_CHECKSUM.equals(getSHA256Checksum(archivePath.toString()))) {
+            if (!MODEL_SHA256_CHECKSUM.equals(actualChecksum)) {
                 // Delete corrupt archive
                 if (!archivePath.toFile().delete()) {
                     LOG.warning("Failed to delete corrupt archive at " + archivePath);
@@ -317,7 +458,7 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
             }
         } catch (NonRetryableDownloadException e) {
             throw e;
-        } catch (IOException | NoSuchAlgorithmException e) {
+        } catch (IOException e) {
             throw new NonRetryableDownloadException("Failed to verify/extract model: " + e.getMessage(), e);
         }
     }
@@ -328,7 +469,8 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
             throw new ChromaException("DefaultEmbeddingFunction: query must not be null");
         }
         try {
-            return Embedding.fromList(forward(Collections.singletonList(query)).get(0));
+            // A one-row matrix's backing array is exactly the vector.
+            return new Embedding(forwardMatrix(Collections.singletonList(query)).data());
         } catch (OrtException e) {
             throw new EFException(e);
         }
@@ -336,6 +478,20 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
 
     @Override
     public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        return embedMatrix(documents).toEmbeddings();
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        return embedMatrix(documents);
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return embedBatch(queries);
+    }
+
+    private EmbeddingMatrix embedMatrix(List<String> documents) throws EFException {
         if (documents == null) {
             throw new ChromaException("DefaultEmbeddingFunction: documents must not be null");
         }
@@ -343,7 +499,7 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
             throw new ChromaException("DefaultEmbeddingFunction: documents must not be empty");
         }
         try {
-            return forward(documents).stream().map(Embedding::new).collect(Collectors.toList());
+            return forwardMatrix(documents);
         } catch (OrtException e) {
             throw new EFException(e);
         }
@@ -354,6 +510,16 @@ public class DefaultEmbeddingFunction implements EmbeddingFunction {
         return embedDocuments(Arrays.asList(documents));
     }
 
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        return ExecutorAsyncEmbeddingFunction.submit(() -> embedQuery(query), InferenceExecutor.shared());
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        return ExecutorAsyncEmbeddingFunction.submit(() -> embedDocuments(documents), InferenceExecutor.shared());
+    }
+
     @Override
     public List<Embedding> embedQueries(List<String> queries) throws EFException {
         return embedDocuments(queries);
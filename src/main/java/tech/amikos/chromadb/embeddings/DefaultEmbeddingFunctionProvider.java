@@ -0,0 +1,23 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.EFException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in {@link EmbeddingFunctionProvider} for the {@code default} descriptor.
+ */
+public final class DefaultEmbeddingFunctionProvider implements EmbeddingFunctionProvider {
+
+    @Override
+    public List<String> names() {
+        return Collections.singletonList("default");
+    }
+
+    @Override
+    public EmbeddingFunction create(Map<String, Object> config) throws EFException {
+        return new DefaultEmbeddingFunction();
+    }
+}
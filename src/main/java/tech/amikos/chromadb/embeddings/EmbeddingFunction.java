@@ -40,4 +40,24 @@ public interface EmbeddingFunction {
     default List<Embedding> embedQueries(String[] queries) throws EFException {
         return embedQueries(Arrays.asList(queries));
     }
+
+    /**
+     * Embeds document texts into one flat {@link EmbeddingMatrix}, avoiding an {@link Embedding}
+     * object per vector.
+     *
+     * <p>Default behavior adapts {@link #embedDocuments(List)}; built-in providers implement it natively.</p>
+     */
+    default EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        return EmbeddingMatrix.fromEmbeddings(embedDocuments(documents));
+    }
+
+    /**
+     * Embeds query texts into one flat {@link EmbeddingMatrix}. Collections call this for
+     * {@code queryTexts}.
+     *
+     * <p>Default behavior adapts {@link #embedQueries(List)}; built-in providers implement it natively.</p>
+     */
+    default EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return EmbeddingMatrix.fromEmbeddings(embedQueries(queries));
+    }
 }
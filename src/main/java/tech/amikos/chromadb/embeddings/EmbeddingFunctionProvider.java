@@ -0,0 +1,44 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.EFException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service-provider interface that builds an {@link EmbeddingFunction} from a persisted
+ * {@code embedding_function} descriptor.
+ *
+ * <p>Implementations are discovered with {@link java.util.ServiceLoader}: list the class in
+ * {@code META-INF/services/tech.amikos.chromadb.embeddings.EmbeddingFunctionProvider}. Keep the
+ * provider class itself free of heavy dependencies; the embedding function class, and whatever
+ * native libraries it pulls in, should only be touched from {@link #create(Map)}.</p>
+ *
+ * <p>When several providers claim the same name, the one with the highest {@link #priority()}
+ * wins, so third parties can replace a built-in implementation.</p>
+ *
+ * @see EmbeddingFunctionRegistry
+ */
+public interface EmbeddingFunctionProvider {
+
+    /**
+     * Descriptor names handled by this provider, matched case-insensitively. The first entry is the
+     * canonical name.
+     */
+    List<String> names();
+
+    /**
+     * Builds an embedding function from the descriptor {@code config}, which may be null.
+     *
+     * @throws EFException              if the embedding function cannot be initialized
+     * @throws IllegalArgumentException if {@code config} holds invalid values
+     */
+    EmbeddingFunction create(Map<String, Object> config) throws EFException;
+
+    /**
+     * Precedence among providers sharing a name; higher wins. Built-in providers use {@code 0}.
+     */
+    default int priority() {
+        return 0;
+    }
+}
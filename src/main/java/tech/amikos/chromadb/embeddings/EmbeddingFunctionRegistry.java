@@ -0,0 +1,110 @@
+package tech.amikos.chromadb.embeddings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of {@link EmbeddingFunctionProvider}s keyed by descriptor name.
+ *
+ * <p>Providers are discovered with {@link ServiceLoader} on first lookup. Only the small provider
+ * classes are loaded then; an embedding function class (e.g. the ONNX-backed
+ * {@link DefaultEmbeddingFunction}) is linked the first time its provider's
+ * {@link EmbeddingFunctionProvider#create(Map)} runs, so resolving a remote provider never pays
+ * for ONNX Runtime or tokenizer natives.</p>
+ */
+public final class EmbeddingFunctionRegistry {
+
+    private static final Logger LOG = Logger.getLogger(EmbeddingFunctionRegistry.class.getName());
+
+    private EmbeddingFunctionRegistry() {}
+
+    /**
+     * Returns the provider registered under {@code name} (case-insensitive), or null.
+     */
+    public static EmbeddingFunctionProvider find(String name) {
+        if (name == null) {
+            return null;
+        }
+        return Holder.PROVIDERS.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Canonical names of all registered providers, in discovery order.
+     */
+    public static List<String> names() {
+        List<String> names = new ArrayList<String>();
+        synchronized (Holder.PROVIDERS) {
+            for (Map.Entry<String, EmbeddingFunctionProvider> entry : Holder.PROVIDERS.entrySet()) {
+                String canonical = canonicalName(entry.getValue());
+                if (entry.getKey().equals(canonical) && !names.contains(canonical)) {
+                    names.add(canonical);
+                }
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Registers a provider programmatically, subject to the same {@link EmbeddingFunctionProvider#priority()}
+     * rules as discovered providers.
+     *
+     * @throws IllegalArgumentException if {@code provider} is null or declares no names
+     */
+    public static void register(EmbeddingFunctionProvider provider) {
+        add(Holder.PROVIDERS, provider);
+    }
+
+    private static void add(Map<String, EmbeddingFunctionProvider> providers, EmbeddingFunctionProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("provider must not be null");
+        }
+        List<String> names = provider.names();
+        if (names == null || names.isEmpty()) {
+            throw new IllegalArgumentException("provider " + provider.getClass().getName() + " declares no names");
+        }
+        synchronized (providers) {
+            for (String name : names) {
+                String key = name.trim().toLowerCase(Locale.ROOT);
+                EmbeddingFunctionProvider existing = providers.get(key);
+                if (existing == null || provider.priority() > existing.priority()) {
+                    providers.put(key, provider);
+                }
+            }
+        }
+    }
+
+    private static String canonicalName(EmbeddingFunctionProvider provider) {
+        return provider.names().get(0).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Holder {
+        private static final Map<String, EmbeddingFunctionProvider> PROVIDERS = load();
+
+        private static Map<String, EmbeddingFunctionProvider> load() {
+            Map<String, EmbeddingFunctionProvider> providers =
+                    Collections.synchronizedMap(new LinkedHashMap<String, EmbeddingFunctionProvider>());
+            Iterator<EmbeddingFunctionProvider> it = ServiceLoader.load(
+                    EmbeddingFunctionProvider.class, EmbeddingFunctionRegistry.class.getClassLoader()).iterator();
+            while (true) {
+                try {
+                    if (!it.hasNext()) {
+                        break;
+                    }
+                    add(providers, it.next());
+                } catch (ServiceConfigurationError | RuntimeException e) {
+                    LOG.log(Level.WARNING, "Skipping embedding function provider that failed to load", e);
+                }
+            }
+            return providers;
+        }
+    }
+}
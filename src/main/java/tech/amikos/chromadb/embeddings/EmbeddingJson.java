@@ -0,0 +1,242 @@
+package tech.amikos.chromadb.embeddings;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Streaming readers for embedding vectors in provider responses.
+ *
+ * <p>Vectors are read token by token straight into {@code float[]}, without materializing the
+ * response body as a string or boxing each component.</p>
+ */
+public final class EmbeddingJson {
+
+    private static final int INITIAL_CAPACITY = 384;
+
+    private EmbeddingJson() {}
+
+    /**
+     * Reads a JSON array of numbers, e.g. {@code [0.1, -0.2, 0.3]}.
+     */
+    public static float[] readFloatArray(JsonReader in) throws IOException {
+        float[] values = new float[INITIAL_CAPACITY];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = (float) in.nextDouble();
+        }
+        in.endArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a JSON array of number arrays, e.g. {@code [[0.1, 0.2], [0.3, 0.4]]}.
+     */
+    public static List<float[]> readFloatArrays(JsonReader in) throws IOException {
+        List<float[]> vectors = new ArrayList<float[]>();
+        in.beginArray();
+        while (in.hasNext()) {
+            vectors.add(readFloatArray(in));
+        }
+        in.endArray();
+        return vectors;
+    }
+
+    /**
+     * Reads a JSON array of equally sized number arrays straight into one row-major
+     * {@link EmbeddingMatrix}, without a {@code float[]} per row.
+     *
+     * @throws IllegalArgumentException if the rows differ in length
+     */
+    public static EmbeddingMatrix readFloatMatrix(JsonReader in) throws IOException {
+        RowBuffer rows = new RowBuffer();
+        in.beginArray();
+        while (in.hasNext()) {
+            rows.readRow(in);
+        }
+        in.endArray();
+        return rows.toMatrix();
+    }
+
+    /**
+     * Reads one vector encoded either as a number array or as a base64 string of little-endian
+     * float32 values (OpenAI {@code encoding_format=base64}).
+     */
+    public static float[] readVector(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            return decodeBase64Floats(in.nextString());
+        }
+        return readFloatArray(in);
+    }
+
+    /**
+     * Decodes a base64 string of little-endian float32 values.
+     *
+     * @throws IllegalArgumentException if the input is not valid base64 or not a whole number of floats
+     */
+    public static float[] decodeBase64Floats(String encoded) {
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        if (bytes.length % 4 != 0) {
+            throw new IllegalArgumentException("base64 embedding length " + bytes.length + " is not a multiple of 4 bytes");
+        }
+        float[] values = new float[bytes.length / 4];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Collects equally sized embedding rows from a response into one growing row-major array.
+     *
+     * <p>The first row fixes the dimension; every later row is parsed or decoded directly into the
+     * shared array at its offset. Used by provider response readers that see one row at a time.</p>
+     */
+    public static final class RowBuffer {
+
+        private static final int INITIAL_ROWS = 16;
+
+        private float[] data = new float[0];
+        private int rows;
+        private int dimension = -1;
+
+        /**
+         * Appends one row encoded either as a number array or as a base64 string of little-endian
+         * float32 values.
+         *
+         * @throws IllegalArgumentException if the row length differs from the first row, or the
+         *                                  base64 value is invalid
+         */
+        public void readRow(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                appendBase64(in.nextString());
+            } else if (dimension < 0) {
+                append(readFloatArray(in));
+            } else {
+                readArrayRow(in);
+            }
+        }
+
+        /** Number of rows read so far. */
+        public int rows() {
+            return rows;
+        }
+
+        /** Returns the rows as a matrix, trimming spare capacity. The buffer must not be reused. */
+        public EmbeddingMatrix toMatrix() {
+            if (rows == 0) {
+                return EmbeddingMatrix.of(new float[0], 0, 0);
+            }
+            int length = rows * dimension;
+            return EmbeddingMatrix.of(length == data.length ? data : Arrays.copyOf(data, length), rows, dimension);
+        }
+
+        private void readArrayRow(JsonReader in) throws IOException {
+            int offset = reserve(dimension);
+            int count = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (count == dimension) {
+                    throw new IllegalArgumentException("embedding at index " + rows + " has more than "
+                            + dimension + " values");
+                }
+                data[offset + count++] = (float) in.nextDouble();
+            }
+            in.endArray();
+            if (count != dimension) {
+                throw rowLength(count);
+            }
+            rows++;
+        }
+
+        private void appendBase64(String encoded) {
+            byte[] bytes = Base64.getDecoder().decode(encoded);
+            if (bytes.length % 4 != 0) {
+                throw new IllegalArgumentException("base64 embedding length " + bytes.length + " is not a multiple of 4 bytes");
+            }
+            int length = bytes.length / 4;
+            if (dimension < 0) {
+                dimension = length;
+            } else if (length != dimension) {
+                throw rowLength(length);
+            }
+            int offset = reserve(length);
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(data, offset, length);
+            rows++;
+        }
+
+        private void append(float[] row) {
+            dimension = row.length;
+            int offset = reserve(row.length);
+            System.arraycopy(row, 0, data, offset, row.length);
+            rows++;
+        }
+
+        /** Ensures room for one more row of {@code length} values and returns its offset. */
+        private int reserve(int length) {
+            int offset = rows * dimension;
+            if (offset + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, INITIAL_ROWS * length));
+            }
+            return offset;
+        }
+
+        private IllegalArgumentException rowLength(int length) {
+            return new IllegalArgumentException("embedding at index " + rows + " has " + length
+                    + " values, expected " + dimension);
+        }
+    }
+
+    /**
+     * Unboxes legacy {@code List<List<Float>>} embeddings.
+     */
+    public static List<float[]> toArrays(List<? extends List<? extends Number>> lists) {
+        List<float[]> vectors = new ArrayList<float[]>(lists.size());
+        for (List<? extends Number> list : lists) {
+            vectors.add(toArray(list));
+        }
+        return vectors;
+    }
+
+    /**
+     * Unboxes one vector.
+     */
+    public static float[] toArray(List<? extends Number> list) {
+        float[] vector = new float[list.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = list.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Boxes vectors for the legacy {@code List<List<Float>>} response getters.
+     */
+    public static List<List<Float>> toLists(List<float[]> vectors) {
+        List<List<Float>> lists = new ArrayList<List<Float>>(vectors.size());
+        for (float[] vector : vectors) {
+            lists.add(toList(vector));
+        }
+        return lists;
+    }
+
+    /**
+     * Boxes one vector.
+     */
+    public static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<Float>(vector.length);
+        for (float value : vector) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,215 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.Embedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of equally sized embeddings stored row-major in one flat {@code float[]}.
+ *
+ * <p>Returned by {@link EmbeddingFunction#embedBatch(List)} and
+ * {@link EmbeddingFunction#embedQueryBatch(List)} so bulk callers avoid one {@link Embedding}
+ * object per vector and can post-process the whole batch in a single loop. Collection
+ * {@code queryTexts} are embedded through {@code embedQueryBatch} and sent straight from
+ * {@link #data()}.</p>
+ */
+public final class EmbeddingMatrix {
+
+    private final float[] data;
+    private final int rows;
+    private final int dimension;
+
+    private EmbeddingMatrix(float[] data, int rows, int dimension) {
+        this.data = data;
+        this.rows = rows;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Wraps a row-major array without copying.
+     *
+     * @throws IllegalArgumentException if {@code data} is null, {@code dimension} is negative, or
+     *                                  the array length is not {@code rows * dimension}
+     */
+    public static EmbeddingMatrix of(float[] data, int rows, int dimension) {
+        if (data == null) {
+            throw new IllegalArgumentException("data must not be null");
+        }
+        if (rows < 0 || dimension < 0) {
+            throw new IllegalArgumentException("rows and dimension must be >= 0");
+        }
+        if ((long) rows * dimension != data.length) {
+            throw new IllegalArgumentException("data length " + data.length + " does not match "
+                    + rows + " rows of dimension " + dimension);
+        }
+        return new EmbeddingMatrix(data, rows, dimension);
+    }
+
+    /**
+     * Packs row vectors into a matrix.
+     *
+     * @throws IllegalArgumentException if {@code vectors} or any row is null, or rows differ in length
+     */
+    public static EmbeddingMatrix fromRows(List<float[]> vectors) {
+        if (vectors == null) {
+            throw new IllegalArgumentException("embedding function returned null");
+        }
+        int rows = vectors.size();
+        int dimension = -1;
+        float[] data = null;
+        for (int i = 0; i < rows; i++) {
+            float[] vector = vectors.get(i);
+            if (vector == null) {
+                throw new IllegalArgumentException("embedding function returned null vector at index " + i);
+            }
+            if (data == null) {
+                dimension = vector.length;
+                data = new float[rows * dimension];
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("embedding function returned " + vector.length
+                        + "-dimensional vector at index " + i + ", expected " + dimension);
+            }
+            System.arraycopy(vector, 0, data, i * dimension, dimension);
+        }
+        return data == null ? new EmbeddingMatrix(new float[0], 0, 0) : new EmbeddingMatrix(data, rows, dimension);
+    }
+
+    /**
+     * Packs {@link Embedding}s into a matrix; the adapter behind the default batch methods.
+     *
+     * @throws IllegalArgumentException if {@code embeddings}, any element or its vector is null, or
+     *                                  rows differ in length
+     */
+    public static EmbeddingMatrix fromEmbeddings(List<Embedding> embeddings) {
+        if (embeddings == null) {
+            throw new IllegalArgumentException("embedding function returned null");
+        }
+        List<float[]> vectors = new ArrayList<float[]>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            Embedding embedding = embeddings.get(i);
+            if (embedding == null) {
+                throw new IllegalArgumentException("embedding function returned null at index " + i);
+            }
+            vectors.add(embedding.asArray());
+        }
+        return fromRows(vectors);
+    }
+
+    /**
+     * Stacks matrices of the same dimension, e.g. the per-request results of a chunked call. A
+     * single part is returned as is; otherwise each part is copied into the result as one block.
+     *
+     * @throws IllegalArgumentException if {@code parts} or any part is null, or non-empty parts
+     *                                  differ in dimension
+     */
+    public static EmbeddingMatrix concat(List<EmbeddingMatrix> parts) {
+        if (parts == null) {
+            throw new IllegalArgumentException("parts must not be null");
+        }
+        if (parts.size() == 1 && parts.get(0) != null) {
+            return parts.get(0);
+        }
+        int rows = 0;
+        int dimension = -1;
+        for (int i = 0; i < parts.size(); i++) {
+            EmbeddingMatrix part = parts.get(i);
+            if (part == null) {
+                throw new IllegalArgumentException("embedding function returned null at part " + i);
+            }
+            if (part.rows == 0) {
+                continue;
+            }
+            if (dimension < 0) {
+                dimension = part.dimension;
+            } else if (part.dimension != dimension) {
+                throw new IllegalArgumentException("embedding function returned " + part.dimension
+                        + "-dimensional vectors in part " + i + ", expected " + dimension);
+            }
+            rows += part.rows;
+        }
+        if (dimension < 0) {
+            return new EmbeddingMatrix(new float[0], 0, 0);
+        }
+        float[] data = new float[rows * dimension];
+        int offset = 0;
+        for (EmbeddingMatrix part : parts) {
+            System.arraycopy(part.data, 0, data, offset, part.data.length);
+            offset += part.data.length;
+        }
+        return new EmbeddingMatrix(data, rows, dimension);
+    }
+
+    /** Number of embeddings. */
+    public int rows() {
+        return rows;
+    }
+
+    /** Length of each embedding; {@code 0} for an empty matrix. */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the backing row-major array. Row {@code i} starts at {@code i * getDimension()}.
+     * Writes are visible through this matrix.
+     */
+    public float[] data() {
+        return data;
+    }
+
+    /** Returns a copy of row {@code index}. */
+    public float[] row(int index) {
+        checkRow(index);
+        return Arrays.copyOfRange(data, index * dimension, (index + 1) * dimension);
+    }
+
+    /** Copies every row into its own array. */
+    public List<float[]> toRows() {
+        List<float[]> result = new ArrayList<float[]>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(row(i));
+        }
+        return result;
+    }
+
+    /** Converts every row to an {@link Embedding}. */
+    public List<Embedding> toEmbeddings() {
+        List<Embedding> result = new ArrayList<Embedding>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(new Embedding(row(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy with every row scaled to unit L2 norm. All-zero rows are left unchanged.
+     */
+    public EmbeddingMatrix normalized() {
+        float[] out = new float[data.length];
+        for (int r = 0; r < rows; r++) {
+            int start = r * dimension;
+            double sum = 0d;
+            for (int i = start; i < start + dimension; i++) {
+                sum += (double) data[i] * data[i];
+            }
+            float scale = sum > 0d ? (float) (1d / Math.sqrt(sum)) : 1f;
+            for (int i = start; i < start + dimension; i++) {
+                out[i] = data[i] * scale;
+            }
+        }
+        return new EmbeddingMatrix(out, rows, dimension);
+    }
+
+    private void checkRow(int index) {
+        if (index < 0 || index >= rows) {
+            throw new IndexOutOfBoundsException("row " + index + " out of range [0, " + rows + ")");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddingMatrix{rows=" + rows + ", dimension=" + dimension + '}';
+    }
+}
@@ -0,0 +1,187 @@
+package tech.amikos.chromadb.embeddings;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OrtException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tokenization front-end shared by the local ONNX embedding functions.
+ *
+ * <p>When enabled, repeated texts are served from a bounded LRU cache of {@link Encoding} results.
+ * The cache is off by default because padded encodings are large (tens of kilobytes each at 256
+ * tokens). Inputs larger than one inference batch are split; up to {@link #PREFETCH_BATCHES}
+ * upcoming batches are tokenized on a shared daemon pool while the current batch runs through the
+ * model, so tokenization overlaps with inference without holding the whole input's encodings.</p>
+ */
+final class EncodingPipeline {
+
+    /** Default number of cached encodings per embedding function instance; caching is opt-in. */
+    static final int DEFAULT_CACHE_SIZE = 0;
+    /** Default number of texts per inference batch. */
+    static final int DEFAULT_BATCH_SIZE = 32;
+    /** Batches tokenized ahead of the one running through the model. */
+    static final int PREFETCH_BATCHES = 2;
+
+    private static final ExecutorService TOKENIZER_POOL = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors()),
+            new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "chroma-ef-tokenizer-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    /** Runs the model on one tokenized batch, returning one row per encoding. */
+    interface BatchForward {
+        EmbeddingMatrix forward(Encoding[] batch) throws OrtException;
+    }
+
+    private final HuggingFaceTokenizer tokenizer;
+    private final int batchSize;
+    private final Map<String, Encoding> cache;
+
+    EncodingPipeline(HuggingFaceTokenizer tokenizer, final int cacheSize, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be > 0");
+        }
+        this.tokenizer = tokenizer;
+        this.batchSize = batchSize;
+        this.cache = cacheSize <= 0 ? null : new LinkedHashMap<String, Encoding>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Encoding> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Tokenizes {@code texts}, consulting the cache first. Only cache misses reach the tokenizer,
+     * and duplicate misses within the call are tokenized once.
+     */
+    Encoding[] encode(List<String> texts) {
+        Encoding[] out = new Encoding[texts.size()];
+        if (cache == null) {
+            return tokenizer.batchEncode(texts, true, false);
+        }
+        Map<String, List<Integer>> misses = new LinkedHashMap<String, List<Integer>>();
+        synchronized (cache) {
+            for (int i = 0; i < out.length; i++) {
+                String text = texts.get(i);
+                Encoding hit = cache.get(text);
+                if (hit != null) {
+                    out[i] = hit;
+                } else {
+                    List<Integer> positions = misses.get(text);
+                    if (positions == null) {
+                        positions = new ArrayList<Integer>(1);
+                        misses.put(text, positions);
+                    }
+                    positions.add(i);
+                }
+            }
+        }
+        if (misses.isEmpty()) {
+            return out;
+        }
+        List<String> missTexts = new ArrayList<String>(misses.keySet());
+        Encoding[] encoded = tokenizer.batchEncode(missTexts, true, false);
+        synchronized (cache) {
+            for (int m = 0; m < encoded.length; m++) {
+                cache.put(missTexts.get(m), encoded[m]);
+            }
+        }
+        for (int m = 0; m < encoded.length; m++) {
+            for (Integer position : misses.get(missTexts.get(m))) {
+                out[position] = encoded[m];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Tokenizes and runs {@code texts} through {@code forward} in inference batches, returning one
+     * row per text in input order. A single batch's matrix is returned as is; larger inputs are
+     * copied batch by batch into one array sized once the first batch reveals the dimension.
+     */
+    EmbeddingMatrix run(List<String> texts, BatchForward forward) throws OrtException {
+        if (texts.size() <= batchSize) {
+            return forward.forward(encode(texts));
+        }
+        int batches = (texts.size() + batchSize - 1) / batchSize;
+        Deque<CompletableFuture<Encoding[]>> pending = new ArrayDeque<CompletableFuture<Encoding[]>>();
+        int submitted = 0;
+        float[] out = null;
+        int dimension = 0;
+        int rows = 0;
+        try {
+            while (rows < texts.size()) {
+                while (submitted < batches && pending.size() <= PREFETCH_BATCHES) {
+                    pending.add(tokenizeAsync(texts, submitted++));
+                }
+                EmbeddingMatrix batch = forward.forward(await(pending.poll()));
+                if (out == null) {
+                    dimension = batch.getDimension();
+                    out = new float[texts.size() * dimension];
+                } else if (batch.getDimension() != dimension) {
+                    throw new IllegalStateException("model produced " + batch.getDimension()
+                            + "-dimensional embeddings after " + dimension + "-dimensional ones");
+                }
+                System.arraycopy(batch.data(), 0, out, rows * dimension, batch.rows() * dimension);
+                rows += batch.rows();
+            }
+        } finally {
+            for (CompletableFuture<Encoding[]> next : pending) {
+                next.cancel(false);
+            }
+        }
+        return EmbeddingMatrix.of(out, rows, dimension);
+    }
+
+    private CompletableFuture<Encoding[]> tokenizeAsync(List<String> texts, int batch) {
+        int start = batch * batchSize;
+        final List<String> chunk = texts.subList(start, Math.min(start + batchSize, texts.size()));
+        return CompletableFuture.supplyAsync(() -> encode(chunk), TOKENIZER_POOL);
+    }
+
+    /** Returns the number of cached encodings. */
+    int cacheSize() {
+        if (cache == null) {
+            return 0;
+        }
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static Encoding[] await(CompletableFuture<Encoding[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tokenizing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Tokenization failed", cause);
+        }
+    }
+}
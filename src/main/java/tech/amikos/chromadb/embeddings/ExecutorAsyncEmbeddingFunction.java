@@ -0,0 +1,136 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bridges a synchronous {@link EmbeddingFunction} to {@link AsyncEmbeddingFunction} by running
+ * each call on an {@link Executor}.
+ */
+final class ExecutorAsyncEmbeddingFunction implements AsyncEmbeddingFunction {
+
+    /** A synchronous embedding call. */
+    interface Call<T> {
+        T call() throws EFException;
+    }
+
+    /**
+     * Size of the shared pool behind {@link AsyncEmbeddingFunction#of(EmbeddingFunction)}. Adapted
+     * functions are usually blocking remote calls, so several run side by side; local ONNX
+     * functions use {@link InferenceExecutor} instead.
+     */
+    static final int SHARED_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private static final ThreadPoolExecutor SHARED = newSharedPool();
+
+    private final EmbeddingFunction delegate;
+    private final Executor executor;
+
+    ExecutorAsyncEmbeddingFunction(EmbeddingFunction delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the bounded daemon pool that generic adapters run on.
+     */
+    static Executor shared() {
+        return SHARED;
+    }
+
+    private static ThreadPoolExecutor newSharedPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(SHARED_THREADS, SHARED_THREADS,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "chroma-ef-async-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Runs {@code call} on {@code executor}, completing the future with its result or exception.
+     */
+    static <T> CompletableFuture<T> submit(final Call<T> call, Executor executor) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(final String query) {
+        return submit(() -> delegate.embedQuery(query), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(final List<String> documents) {
+        return submit(() -> delegate.embedDocuments(documents), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedQueriesAsync(final List<String> queries) {
+        return submit(() -> delegate.embedQueries(queries), executor);
+    }
+
+    @Override
+    public Embedding embedQuery(String query) throws EFException {
+        return delegate.embedQuery(query);
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        return delegate.embedDocuments(documents);
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(String[] documents) throws EFException {
+        return delegate.embedDocuments(documents);
+    }
+
+    @Override
+    public List<Embedding> embedQueries(List<String> queries) throws EFException {
+        return delegate.embedQueries(queries);
+    }
+
+    @Override
+    public List<Embedding> embedQueries(String[] queries) throws EFException {
+        return delegate.embedQueries(queries);
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        return delegate.embedBatch(documents);
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return delegate.embedQueryBatch(queries);
+    }
+}
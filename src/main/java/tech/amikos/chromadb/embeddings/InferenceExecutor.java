@@ -0,0 +1,31 @@
+package tech.amikos.chromadb.embeddings;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated daemon executor for asynchronous local inference. A single thread is used because
+ * ONNX Runtime already spreads each batch across all cores; running sessions side by side only
+ * oversubscribes the CPU.
+ */
+final class InferenceExecutor {
+
+    private static final ExecutorService SHARED = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "chroma-ef-inference-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private InferenceExecutor() {}
+
+    static ExecutorService shared() {
+        return SHARED;
+    }
+}
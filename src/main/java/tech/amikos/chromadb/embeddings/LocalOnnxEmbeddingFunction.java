@@ -0,0 +1,491 @@
+package tech.amikos.chromadb.embeddings;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OnnxJavaType;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local embedding function for any sentence-transformers style ONNX export, including
+ * dynamically quantized (INT8) variants.
+ *
+ * <p>Unlike {@link DefaultEmbeddingFunction}, nothing is downloaded: the model file and tokenizer
+ * directory must already be on disk, which makes this suitable for air-gapped deployments.</p>
+ *
+ * <p>The {@code *Async} methods run on a dedicated inference thread.</p>
+ *
+ * <pre>{@code
+ * LocalOnnxEmbeddingFunction ef = LocalOnnxEmbeddingFunction.builder()
+ *     .modelPath(Paths.get("/models/bge-small/onnx/model_quantized.onnx"))
+ *     .tokenizerPath(Paths.get("/models/bge-small"))
+ *     .pooling(LocalOnnxEmbeddingFunction.Pooling.CLS)
+ *     .maxLength(512)
+ *     .dimension(384)
+ *     .build();
+ * }</pre>
+ */
+public final class LocalOnnxEmbeddingFunction implements AsyncEmbeddingFunction, AutoCloseable {
+
+    /** Default maximum token length per input. */
+    public static final int DEFAULT_MAX_LENGTH = 256;
+
+    private static final String INPUT_IDS = "input_ids";
+    private static final String ATTENTION_MASK = "attention_mask";
+    private static final String TOKEN_TYPE_IDS = "token_type_ids";
+    private static final List<String> TOKEN_OUTPUT_NAMES = Arrays.asList("last_hidden_state", "token_embeddings");
+
+    /** Strategy used to reduce per-token hidden states to a single sentence vector. */
+    public enum Pooling {
+        /** Attention-mask weighted mean of token states (sentence-transformers default). */
+        MEAN,
+        /** Hidden state of the first ({@code [CLS]}) token. */
+        CLS,
+        /** Element-wise max over non-padding token states. */
+        MAX
+    }
+
+    private final HuggingFaceTokenizer tokenizer;
+    private final OrtEnvironment env;
+    final OrtSession session;
+    private final Pooling pooling;
+    private final boolean normalize;
+    private final Integer dimension;
+    private final boolean needsTokenTypeIds;
+    private final String outputName;
+    private final EncodingPipeline encodingPipeline;
+
+    private LocalOnnxEmbeddingFunction(Builder builder) throws EFException {
+        this.pooling = builder.pooling;
+        this.normalize = builder.normalize;
+        this.dimension = builder.dimension;
+
+        Map<String, String> tokenizerConfig = new HashMap<String, String>();
+        // Padding is applied per inference batch in forward() so cached encodings stay batch-independent.
+        tokenizerConfig.put("padding", "false");
+        tokenizerConfig.put("truncation", "true");
+        tokenizerConfig.put("maxLength", String.valueOf(builder.maxLength));
+
+        try {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(builder.tokenizerPath, tokenizerConfig);
+        } catch (IOException e) {
+            throw new EFException(e);
+        }
+        this.env = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            if (builder.intraOpThreads > 0) {
+                options.setIntraOpNumThreads(builder.intraOpThreads);
+            }
+            this.session = env.createSession(builder.modelPath.toString(), options);
+        } catch (OrtException e) {
+            tokenizer.close();
+            throw new EFException(e);
+        } catch (RuntimeException e) {
+            tokenizer.close();
+            throw e;
+        }
+
+        Set<String> inputs = session.getInputNames();
+        if (!inputs.contains(INPUT_IDS) || !inputs.contains(ATTENTION_MASK)) {
+            close();
+            throw new EFException("LocalOnnxEmbeddingFunction: model must accept '" + INPUT_IDS
+                    + "' and '" + ATTENTION_MASK + "' inputs, found " + inputs);
+        }
+        this.needsTokenTypeIds = inputs.contains(TOKEN_TYPE_IDS);
+        this.outputName = selectOutput(session.getOutputNames());
+        this.encodingPipeline = new EncodingPipeline(tokenizer, builder.encodingCacheSize, builder.batchSize);
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs the model on the given texts and returns one pooled (and optionally normalized) vector per text.
+     */
+    public float[][] forward(List<String> texts) throws OrtException {
+        return forwardMatrix(texts).toRows().toArray(new float[0][]);
+    }
+
+    private EmbeddingMatrix forwardMatrix(List<String> texts) throws OrtException {
+        return encodingPipeline.run(texts, new EncodingPipeline.BatchForward() {
+            @Override
+            public EmbeddingMatrix forward(Encoding[] batch) throws OrtException {
+                return forwardBatch(batch);
+            }
+        });
+    }
+
+    private EmbeddingMatrix forwardBatch(Encoding[] encodings) throws OrtException {
+        int batch = encodings.length;
+        int seqLen = 0;
+        for (Encoding encoding : encodings) {
+            seqLen = Math.max(seqLen, encoding.getIds().length);
+        }
+        long[] ids = new long[batch * seqLen];
+        long[] mask = new long[batch * seqLen];
+        long[] typeIds = needsTokenTypeIds ? new long[batch * seqLen] : null;
+        for (int i = 0; i < batch; i++) {
+            long[] encIds = encodings[i].getIds();
+            System.arraycopy(encIds, 0, ids, i * seqLen, encIds.length);
+            long[] encMask = encodings[i].getAttentionMask();
+            System.arraycopy(encMask, 0, mask, i * seqLen, encMask.length);
+            if (typeIds != null) {
+                long[] encTypes = encodings[i].getTypeIds();
+                System.arraycopy(encTypes, 0, typeIds, i * seqLen, encTypes.length);
+            }
+        }
+        long[] shape = new long[]{batch, seqLen};
+
+        Map<String, OnnxTensor> inputs = new HashMap<String, OnnxTensor>();
+        try {
+            inputs.put(INPUT_IDS, OnnxTensor.createTensor(env, LongBuffer.wrap(ids), shape));
+            inputs.put(ATTENTION_MASK, OnnxTensor.createTensor(env, LongBuffer.wrap(mask), shape));
+            if (typeIds != null) {
+                inputs.put(TOKEN_TYPE_IDS, OnnxTensor.createTensor(env, LongBuffer.wrap(typeIds), shape));
+            }
+            EmbeddingMatrix pooled;
+            try (OrtSession.Result results = session.run(inputs, Collections.singleton(outputName))) {
+                OnnxValue output = results.get(0);
+                TensorInfo info = output instanceof OnnxTensor ? ((OnnxTensor) output).getInfo() : null;
+                long[] outputShape = info != null && info.type == OnnxJavaType.FLOAT ? info.getShape() : null;
+                if (outputShape != null && outputShape.length == 3) {
+                    pooled = pool(DefaultEmbeddingFunction.floats((OnnxTensor) output), batch,
+                            (int) outputShape[1], (int) outputShape[2], mask, seqLen, pooling);
+                } else if (outputShape != null && outputShape.length == 2) {
+                    // Export already includes a pooling head (e.g. "sentence_embedding").
+                    pooled = EmbeddingMatrix.of(DefaultEmbeddingFunction.floats((OnnxTensor) output),
+                            batch, (int) outputShape[1]);
+                } else {
+                    throw new ChromaException("LocalOnnxEmbeddingFunction: unsupported output type for '"
+                            + outputName + "': " + output.getInfo());
+                }
+            }
+            if (normalize) {
+                DefaultEmbeddingFunction.normalizeRows(pooled);
+            }
+            return pooled;
+        } finally {
+            for (OnnxTensor tensor : inputs.values()) {
+                tensor.close();
+            }
+        }
+    }
+
+    @Override
+    public Embedding embedQuery(String query) throws EFException {
+        if (query == null) {
+            throw new ChromaException("LocalOnnxEmbeddingFunction: query must not be null");
+        }
+        // A one-row matrix's backing array is exactly the vector.
+        return new Embedding(embedMatrix(Collections.singletonList(query)).data());
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        if (documents == null) {
+            throw new ChromaException("LocalOnnxEmbeddingFunction: documents must not be null");
+        }
+        if (documents.isEmpty()) {
+            throw new ChromaException("LocalOnnxEmbeddingFunction: documents must not be empty");
+        }
+        return embedMatrix(documents).toEmbeddings();
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(String[] documents) throws EFException {
+        return embedDocuments(Arrays.asList(documents));
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        if (documents == null) {
+            throw new ChromaException("LocalOnnxEmbeddingFunction: documents must not be null");
+        }
+        if (documents.isEmpty()) {
+            throw new ChromaException("LocalOnnxEmbeddingFunction: documents must not be empty");
+        }
+        return embedMatrix(documents);
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return embedBatch(queries);
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        return ExecutorAsyncEmbeddingFunction.submit(() -> embedQuery(query), InferenceExecutor.shared());
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        return ExecutorAsyncEmbeddingFunction.submit(() -> embedDocuments(documents), InferenceExecutor.shared());
+    }
+
+    /**
+     * Releases the ONNX session and tokenizer native resources.
+     */
+    @Override
+    public void close() {
+        try {
+            session.close();
+        } catch (OrtException ignored) {
+            // best-effort native cleanup
+        }
+        tokenizer.close();
+    }
+
+    private EmbeddingMatrix embedMatrix(List<String> texts) throws EFException {
+        EmbeddingMatrix vectors;
+        try {
+            vectors = forwardMatrix(texts);
+        } catch (OrtException e) {
+            throw new EFException(e);
+        }
+        if (dimension != null && vectors.rows() > 0 && vectors.getDimension() != dimension.intValue()) {
+            throw new ChromaException("LocalOnnxEmbeddingFunction: model produced " + vectors.getDimension()
+                    + "-dimensional embeddings but dimension " + dimension + " was configured");
+        }
+        return vectors;
+    }
+
+    private static String selectOutput(Set<String> outputNames) {
+        for (String candidate : TOKEN_OUTPUT_NAMES) {
+            if (outputNames.contains(candidate)) {
+                return candidate;
+            }
+        }
+        return outputNames.iterator().next();
+    }
+
+    /**
+     * Reduces row-major {@code [batch][tokens][dim]} token states to a {@code [batch][dim]} matrix
+     * using a flat row-major attention mask of width {@code seqLen}.
+     */
+    static EmbeddingMatrix pool(float[] hidden, int batch, int tokens, int dim, long[] mask, int seqLen,
+                                Pooling pooling) {
+        float[] out = new float[batch * dim];
+        for (int b = 0; b < batch; b++) {
+            int states = b * tokens * dim;
+            int row = b * dim;
+            int base = b * seqLen;
+            switch (pooling) {
+                case CLS:
+                    System.arraycopy(hidden, states, out, row, dim);
+                    break;
+                case MAX:
+                    Arrays.fill(out, row, row + dim, Float.NEGATIVE_INFINITY);
+                    boolean any = false;
+                    for (int t = 0; t < tokens; t++) {
+                        if (mask[base + t] == 0) {
+                            continue;
+                        }
+                        any = true;
+                        int token = states + t * dim;
+                        for (int d = 0; d < dim; d++) {
+                            if (hidden[token + d] > out[row + d]) {
+                                out[row + d] = hidden[token + d];
+                            }
+                        }
+                    }
+                    if (!any) {
+                        Arrays.fill(out, row, row + dim, 0f);
+                    }
+                    break;
+                case MEAN:
+                default:
+                    float count = 0f;
+                    for (int t = 0; t < tokens; t++) {
+                        if (mask[base + t] == 0) {
+                            continue;
+                        }
+                        count++;
+                        int token = states + t * dim;
+                        for (int d = 0; d < dim; d++) {
+                            out[row + d] += hidden[token + d];
+                        }
+                    }
+                    float divisor = Math.max(count, 1e-9f);
+                    for (int d = 0; d < dim; d++) {
+                        out[row + d] /= divisor;
+                    }
+                    break;
+            }
+        }
+        return EmbeddingMatrix.of(out, batch, dim);
+    }
+
+    /**
+     * Builder for {@link LocalOnnxEmbeddingFunction}.
+     */
+    public static final class Builder {
+
+        private Path modelPath;
+        private Path tokenizerPath;
+        private Pooling pooling = Pooling.MEAN;
+        private int maxLength = DEFAULT_MAX_LENGTH;
+        private Integer dimension;
+        private boolean normalize = true;
+        private int intraOpThreads;
+        private int encodingCacheSize = EncodingPipeline.DEFAULT_CACHE_SIZE;
+        private int batchSize = EncodingPipeline.DEFAULT_BATCH_SIZE;
+
+        private Builder() {}
+
+        /**
+         * Sets the ONNX model file (FP32 or quantized INT8 export).
+         *
+         * @throws IllegalArgumentException if {@code modelPath} is null
+         */
+        public Builder modelPath(Path modelPath) {
+            if (modelPath == null) {
+                throw new IllegalArgumentException("modelPath must not be null");
+            }
+            this.modelPath = modelPath;
+            return this;
+        }
+
+        /**
+         * Sets the directory containing {@code tokenizer.json} (or the file itself).
+         *
+         * @throws IllegalArgumentException if {@code tokenizerPath} is null
+         */
+        public Builder tokenizerPath(Path tokenizerPath) {
+            if (tokenizerPath == null) {
+                throw new IllegalArgumentException("tokenizerPath must not be null");
+            }
+            this.tokenizerPath = tokenizerPath;
+            return this;
+        }
+
+        /**
+         * Sets the pooling strategy applied to token-level outputs. Default is {@link Pooling#MEAN}.
+         * Ignored when the model already emits pooled sentence embeddings.
+         *
+         * @throws IllegalArgumentException if {@code pooling} is null
+         */
+        public Builder pooling(Pooling pooling) {
+            if (pooling == null) {
+                throw new IllegalArgumentException("pooling must not be null");
+            }
+            this.pooling = pooling;
+            return this;
+        }
+
+        /**
+         * Sets the maximum token length; longer inputs are truncated. Default is {@value #DEFAULT_MAX_LENGTH}.
+         *
+         * @throws IllegalArgumentException if {@code maxLength} is not positive
+         */
+        public Builder maxLength(int maxLength) {
+            if (maxLength <= 0) {
+                throw new IllegalArgumentException("maxLength must be > 0");
+            }
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * Sets the expected output dimension. Embeddings of any other size are rejected.
+         *
+         * @throws IllegalArgumentException if {@code dimension} is not positive
+         */
+        public Builder dimension(int dimension) {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("dimension must be > 0");
+            }
+            this.dimension = dimension;
+            return this;
+        }
+
+        /**
+         * Sets whether output vectors are L2-normalized. Default is {@code true}.
+         */
+        public Builder normalize(boolean normalize) {
+            this.normalize = normalize;
+            return this;
+        }
+
+        /**
+         * Sets the ONNX Runtime intra-op thread count. Non-positive values keep the runtime default.
+         */
+        public Builder intraOpThreads(int intraOpThreads) {
+            this.intraOpThreads = intraOpThreads;
+            return this;
+        }
+
+        /**
+         * Sets how many tokenized inputs are kept in the LRU encoding cache. Default is 0 (no cache);
+         * each cached input holds its padded encoding, so size this for repeated inputs only.
+         *
+         * @throws IllegalArgumentException if {@code encodingCacheSize} is negative
+         */
+        public Builder encodingCacheSize(int encodingCacheSize) {
+            if (encodingCacheSize < 0) {
+                throw new IllegalArgumentException("encodingCacheSize must be >= 0");
+            }
+            this.encodingCacheSize = encodingCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of texts per inference batch. Larger inputs are split and the next batch
+         * is tokenized while the current one runs. Default is 32.
+         *
+         * @throws IllegalArgumentException if {@code batchSize} is not positive
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be > 0");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Loads the tokenizer and model.
+         *
+         * @throws IllegalArgumentException if the model or tokenizer path is missing or does not exist
+         * @throws EFException if the tokenizer or ONNX session cannot be created
+         */
+        public LocalOnnxEmbeddingFunction build() throws EFException {
+            if (modelPath == null) {
+                throw new IllegalArgumentException("modelPath must be set");
+            }
+            if (tokenizerPath == null) {
+                throw new IllegalArgumentException("tokenizerPath must be set");
+            }
+            if (!Files.isRegularFile(modelPath)) {
+                throw new IllegalArgumentException("modelPath does not exist or is not a file: " + modelPath);
+            }
+            if (!Files.exists(tokenizerPath)) {
+                throw new IllegalArgumentException("tokenizerPath does not exist: " + tokenizerPath);
+            }
+            return new LocalOnnxEmbeddingFunction(this);
+        }
+    }
+}
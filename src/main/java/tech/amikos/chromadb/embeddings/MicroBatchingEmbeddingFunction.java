@@ -0,0 +1,365 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedding function decorator that coalesces concurrent {@link #embedQuery(String)} calls into
+ * a single batched call to the delegate.
+ *
+ * <p>Each caller is queued and blocks on its own future. A background flusher thread drains the
+ * queue and sends one {@link EmbeddingFunction#embedQueries(List)} call to the delegate when either
+ * {@code maxBatch} queries are pending or {@code maxWaitMicros} has elapsed since the oldest pending
+ * query arrived. Results are then handed back to each waiting caller in order.</p>
+ *
+ * <p>Batches run on a pool of {@code maxInFlight} dispatcher threads, so up to that many delegate
+ * calls are in flight at once. While all are busy, the flusher waits and new queries keep queueing,
+ * which makes the next batch larger.</p>
+ *
+ * <p>Batch calls ({@link #embedDocuments(List)}, {@link #embedQueries(List)}) are already batched
+ * and pass straight through to the delegate.</p>
+ *
+ * <p>{@link #embedQueryAsync(String)} joins the same batches without blocking the caller. The
+ * asynchronous batch calls go through {@link AsyncEmbeddingFunction#of(EmbeddingFunction)} on the
+ * delegate.</p>
+ *
+ * <pre>{@code
+ * MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(new DefaultEmbeddingFunction())
+ *     .maxBatch(64)
+ *     .maxWaitMicros(2000)
+ *     .maxInFlight(4)
+ *     .build();
+ * }</pre>
+ *
+ * <p>Instances own daemon threads; call {@link #close()} when done.</p>
+ */
+public final class MicroBatchingEmbeddingFunction implements AsyncEmbeddingFunction, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(MicroBatchingEmbeddingFunction.class.getName());
+
+    public static final int DEFAULT_MAX_BATCH = 32;
+    public static final long DEFAULT_MAX_WAIT_MICROS = 1000L;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private final EmbeddingFunction delegate;
+    private final AsyncEmbeddingFunction asyncDelegate;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingQuery> queue = new LinkedBlockingQueue<PendingQuery>();
+    private final Thread flusher;
+    private final ExecutorService dispatcher;
+    private final Semaphore inFlight;
+    private volatile boolean closed;
+
+    private MicroBatchingEmbeddingFunction(Builder builder) {
+        this.delegate = builder.delegate;
+        this.asyncDelegate = AsyncEmbeddingFunction.of(builder.delegate);
+        this.maxBatch = builder.maxBatch;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(builder.maxWaitMicros);
+        this.inFlight = new Semaphore(builder.maxInFlight);
+        this.dispatcher = Executors.newFixedThreadPool(builder.maxInFlight, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "chroma-ef-microbatch-dispatch-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "chroma-ef-microbatch");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Returns a new {@link Builder} wrapping the given delegate.
+     *
+     * @throws IllegalArgumentException if {@code delegate} is null
+     */
+    public static Builder builder(EmbeddingFunction delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public Embedding embedQuery(String query) throws EFException {
+        PendingQuery pending = enqueue(query);
+        try {
+            return pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EFException("Interrupted while waiting for batched embedding", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EFException) {
+                throw (EFException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new EFException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        try {
+            return enqueue(query).future;
+        } catch (EFException | RuntimeException e) {
+            CompletableFuture<Embedding> failed = new CompletableFuture<Embedding>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        return asyncDelegate.embedDocumentsAsync(documents);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedQueriesAsync(List<String> queries) {
+        return asyncDelegate.embedQueriesAsync(queries);
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        return delegate.embedDocuments(documents);
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(String[] documents) throws EFException {
+        return delegate.embedDocuments(documents);
+    }
+
+    @Override
+    public List<Embedding> embedQueries(List<String> queries) throws EFException {
+        return delegate.embedQueries(queries);
+    }
+
+    @Override
+    public List<Embedding> embedQueries(String[] queries) throws EFException {
+        return delegate.embedQueries(queries);
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        return delegate.embedBatch(documents);
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return delegate.embedQueryBatch(queries);
+    }
+
+    /**
+     * Stops the flusher and dispatcher threads. Batches already sent to the delegate complete;
+     * queries still pending are failed with an {@link EFException}. The delegate is not closed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.interrupt();
+        dispatcher.shutdown();
+        failPending(new EFException("Micro-batching embedding function is closed"));
+    }
+
+    private PendingQuery enqueue(String query) throws EFException {
+        if (query == null) {
+            throw new ChromaException("Micro-batching embedding failed: query must not be null");
+        }
+        if (closed) {
+            throw new EFException("Micro-batching embedding function is closed");
+        }
+        PendingQuery pending = new PendingQuery(query);
+        queue.add(pending);
+        // Re-check after enqueue so a concurrent close() cannot strand this caller.
+        if (closed && queue.remove(pending)) {
+            throw new EFException("Micro-batching embedding function is closed");
+        }
+        return pending;
+    }
+
+    private void flushLoop() {
+        List<PendingQuery> batch = new ArrayList<PendingQuery>(maxBatch);
+        while (!closed) {
+            try {
+                PendingQuery first = queue.take();
+                batch.add(first);
+                long deadline = first.enqueuedAtNanos + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingQuery next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                failAll(batch, new EFException("Micro-batching embedding function is closed"));
+                batch.clear();
+                break;
+            }
+            final List<PendingQuery> ready = new ArrayList<PendingQuery>(batch);
+            batch.clear();
+            try {
+                dispatcher.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            dispatch(ready);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                failAll(ready, new EFException("Micro-batching embedding function is closed"));
+                break;
+            }
+        }
+        failPending(new EFException("Micro-batching embedding function is closed"));
+    }
+
+    private void dispatch(List<PendingQuery> batch) {
+        List<String> texts = new ArrayList<String>(batch.size());
+        for (PendingQuery pending : batch) {
+            texts.add(pending.text);
+        }
+        List<Embedding> embeddings;
+        try {
+            embeddings = delegate.embedQueries(texts);
+        } catch (Throwable t) {
+            failAll(batch, t);
+            return;
+        }
+        if (embeddings == null || embeddings.size() != batch.size()) {
+            int actual = embeddings == null ? 0 : embeddings.size();
+            failAll(batch, new ChromaException(
+                    "Micro-batching embedding failed: delegate returned " + actual
+                            + " embeddings for " + batch.size() + " inputs"));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(embeddings.get(i));
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Flushed micro-batch of " + batch.size() + " queries");
+        }
+    }
+
+    private void failPending(Throwable cause) {
+        List<PendingQuery> remaining = new ArrayList<PendingQuery>();
+        queue.drainTo(remaining);
+        failAll(remaining, cause);
+    }
+
+    private static void failAll(List<PendingQuery> batch, Throwable cause) {
+        for (PendingQuery pending : batch) {
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    private static final class PendingQuery {
+        private final String text;
+        private final long enqueuedAtNanos = System.nanoTime();
+        private final CompletableFuture<Embedding> future = new CompletableFuture<Embedding>();
+
+        private PendingQuery(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Builder for {@link MicroBatchingEmbeddingFunction}.
+     */
+    public static final class Builder {
+
+        private final EmbeddingFunction delegate;
+        private int maxBatch = DEFAULT_MAX_BATCH;
+        private long maxWaitMicros = DEFAULT_MAX_WAIT_MICROS;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+        private Builder(EmbeddingFunction delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("delegate must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets the maximum number of queries sent to the delegate in one call.
+         *
+         * @throws IllegalArgumentException if {@code maxBatch} is not positive
+         */
+        public Builder maxBatch(int maxBatch) {
+            if (maxBatch <= 0) {
+                throw new IllegalArgumentException("maxBatch must be > 0");
+            }
+            this.maxBatch = maxBatch;
+            return this;
+        }
+
+        /**
+         * Sets how long the oldest pending query may wait for more queries before a flush.
+         *
+         * @throws IllegalArgumentException if {@code maxWaitMicros} is negative
+         */
+        public Builder maxWaitMicros(long maxWaitMicros) {
+            if (maxWaitMicros < 0) {
+                throw new IllegalArgumentException("maxWaitMicros must be >= 0");
+            }
+            this.maxWaitMicros = maxWaitMicros;
+            return this;
+        }
+
+        /**
+         * Sets how many batches may be running on the delegate at once.
+         *
+         * @throws IllegalArgumentException if {@code maxInFlight} is not positive
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("maxInFlight must be > 0");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Builds the decorator and starts its flusher and dispatcher threads.
+         */
+        public MicroBatchingEmbeddingFunction build() {
+            return new MicroBatchingEmbeddingFunction(this);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tech.amikos.chromadb.embeddings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for reading persisted {@code embedding_function} descriptor configs in
+ * {@link EmbeddingFunctionProvider} implementations.
+ */
+public final class ProviderConfig {
+
+    private ProviderConfig() {}
+
+    /**
+     * Maps the config keys shared by remote providers ({@code base_url}, {@code model_name},
+     * {@code api_key}, {@code api_key_env_var} and their aliases) to {@link WithParam}s.
+     *
+     * <p>When no API key or key variable is configured, {@code defaultApiKeyEnv} (if non-null) is
+     * used as the key variable.</p>
+     *
+     * @throws IllegalArgumentException if a recognized key holds a non-string value
+     */
+    public static List<WithParam> commonParams(Map<String, Object> config, String defaultApiKeyEnv) {
+        List<WithParam> params = new ArrayList<WithParam>();
+        if (config != null) {
+            String baseUrl = getString(config, "base_url", "base_api", "baseAPI");
+            if (baseUrl != null) {
+                params.add(WithParam.baseAPI(baseUrl));
+            }
+            String modelName = getString(config, "model_name", "model");
+            if (modelName != null) {
+                params.add(WithParam.model(modelName));
+            }
+            String apiKey = getString(config, "api_key", "apiKey");
+            if (apiKey != null) {
+                params.add(WithParam.apiKey(apiKey));
+            } else {
+                String apiKeyEnv = getString(config, "api_key_env_var", "apiKeyEnvVar");
+                if (apiKeyEnv != null) {
+                    params.add(WithParam.apiKeyFromEnv(apiKeyEnv));
+                } else if (defaultApiKeyEnv != null) {
+                    params.add(WithParam.apiKeyFromEnv(defaultApiKeyEnv));
+                }
+            }
+        } else if (defaultApiKeyEnv != null) {
+            params.add(WithParam.apiKeyFromEnv(defaultApiKeyEnv));
+        }
+        return params;
+    }
+
+    /**
+     * Returns the first non-blank string stored under one of {@code keys}, trimmed, or null.
+     *
+     * @throws IllegalArgumentException if a present value is not a string
+     */
+    public static String getString(Map<String, Object> config, String... keys) {
+        for (String key : keys) {
+            if (!config.containsKey(key)) {
+                continue;
+            }
+            Object value = config.get(key);
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof String)) {
+                throw new IllegalArgumentException(key + " must be a string");
+            }
+            String normalized = ((String) value).trim();
+            if (!normalized.isEmpty()) {
+                return normalized;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first integral number stored under one of {@code keys}, or null. JSON numbers
+     * decoded as {@code Double} are accepted when they have no fractional part.
+     *
+     * @throws IllegalArgumentException if a present value is not an integer
+     */
+    public static Integer getInteger(Map<String, Object> config, String... keys) {
+        for (String key : keys) {
+            Object value = config.get(key);
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof Number)) {
+                throw new IllegalArgumentException(key + " must be a number");
+            }
+            double number = ((Number) value).doubleValue();
+            if (number != Math.rint(number) || number > Integer.MAX_VALUE || number < Integer.MIN_VALUE) {
+                throw new IllegalArgumentException(key + " must be an integer");
+            }
+            return (int) number;
+        }
+        return null;
+    }
+
+    /**
+     * Converts a parameter list for a provider constructor.
+     */
+    public static WithParam[] toArray(List<WithParam> params) {
+        return params.toArray(new WithParam[params.size()]);
+    }
+}
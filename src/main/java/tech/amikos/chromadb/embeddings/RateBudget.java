@@ -0,0 +1,118 @@
+package tech.amikos.chromadb.embeddings;
+
+/**
+ * Client-side tokens-per-minute (TPM) and requests-per-minute (RPM) quota for a remote embedding
+ * provider.
+ *
+ * <p>When configured with {@link WithParam#rateBudget(RateBudget)}, requests are admitted against a
+ * sliding one-minute window shared by every embedding function that uses the same provider endpoint,
+ * API key and limits. A request that would exceed either limit waits until enough of the window has
+ * expired, so sustained throughput stays just under the quota instead of bouncing off 429s. Chunks
+ * are also sized so that none exceeds the TPM limit on its own.</p>
+ *
+ * <pre>{@code
+ * new OpenAIEmbeddingFunction(
+ *     WithParam.apiKey(key),
+ *     WithParam.rateBudget(RateBudget.builder().tokensPerMinute(1_000_000).requestsPerMinute(3_000).build()));
+ * }</pre>
+ */
+public final class RateBudget {
+
+    private final int tokensPerMinute;
+    private final int requestsPerMinute;
+    private final TokenEstimator tokenEstimator;
+
+    private RateBudget(Builder builder) {
+        this.tokensPerMinute = builder.tokensPerMinute;
+        this.requestsPerMinute = builder.requestsPerMinute;
+        this.tokenEstimator = builder.tokenEstimator;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Token limit per minute, or {@code 0} if unlimited. */
+    public int getTokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    /** Request limit per minute, or {@code 0} if unlimited. */
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    /** Estimator used to cost each request. */
+    public TokenEstimator getTokenEstimator() {
+        return tokenEstimator;
+    }
+
+    @Override
+    public String toString() {
+        return "RateBudget{tokensPerMinute=" + tokensPerMinute + ", requestsPerMinute=" + requestsPerMinute + '}';
+    }
+
+    /**
+     * Builder for {@link RateBudget}.
+     */
+    public static final class Builder {
+
+        private int tokensPerMinute;
+        private int requestsPerMinute;
+        private TokenEstimator tokenEstimator = TokenEstimator.heuristic();
+
+        private Builder() {}
+
+        /**
+         * Sets the tokens-per-minute limit.
+         *
+         * @throws IllegalArgumentException if {@code tokensPerMinute} is not positive
+         */
+        public Builder tokensPerMinute(int tokensPerMinute) {
+            if (tokensPerMinute <= 0) {
+                throw new IllegalArgumentException("tokensPerMinute must be > 0");
+            }
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        /**
+         * Sets the requests-per-minute limit.
+         *
+         * @throws IllegalArgumentException if {@code requestsPerMinute} is not positive
+         */
+        public Builder requestsPerMinute(int requestsPerMinute) {
+            if (requestsPerMinute <= 0) {
+                throw new IllegalArgumentException("requestsPerMinute must be > 0");
+            }
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+
+        /**
+         * Sets the token estimator. Defaults to {@link TokenEstimator#heuristic()}.
+         *
+         * @throws IllegalArgumentException if {@code tokenEstimator} is null
+         */
+        public Builder tokenEstimator(TokenEstimator tokenEstimator) {
+            if (tokenEstimator == null) {
+                throw new IllegalArgumentException("tokenEstimator must not be null");
+            }
+            this.tokenEstimator = tokenEstimator;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if neither limit was set
+         */
+        public RateBudget build() {
+            if (tokensPerMinute == 0 && requestsPerMinute == 0) {
+                throw new IllegalArgumentException("at least one of tokensPerMinute or requestsPerMinute must be set");
+            }
+            return new RateBudget(this);
+        }
+    }
+}
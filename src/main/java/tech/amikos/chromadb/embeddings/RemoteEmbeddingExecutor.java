@@ -0,0 +1,652 @@
+package tech.amikos.chromadb.embeddings;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import tech.amikos.chromadb.Constants;
+import tech.amikos.chromadb.EFException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared execution layer for remote embedding providers.
+ *
+ * <p>Splits inputs into provider-sized chunks, runs up to {@code maxConcurrency} chunk requests in
+ * parallel, and reassembles the results in input order. All providers share one
+ * {@link OkHttpClient} (and therefore one connection pool) unless a client is supplied with
+ * {@link WithParam#httpClient(OkHttpClient)}.</p>
+ *
+ * <p>Chunking and concurrency are configured per embedding function with
+ * {@link WithParam#maxBatchSize(int)} and {@link WithParam#maxConcurrency(int)}. Individual
+ * requests are retried according to the configured {@link RetryPolicy}
+ * ({@link WithParam#retryPolicy(RetryPolicy)}).</p>
+ *
+ * <p>With a {@link RateBudget} ({@link WithParam#rateBudget(RateBudget)}), chunks are additionally
+ * sized to fit the token budget and each chunk waits for admission against the per-key sliding
+ * window before it is sent.</p>
+ *
+ * <p>The {@code *Async} variants never block: requests go through OkHttp {@code enqueue}, and
+ * retry backoff and rate-budget waits are scheduled on a timer thread.</p>
+ */
+public final class RemoteEmbeddingExecutor {
+
+    private static final Logger LOG = Logger.getLogger(RemoteEmbeddingExecutor.class.getName());
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    /** Default number of chunk requests in flight per embed call. */
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private static final OkHttpClient SHARED_HTTP_CLIENT = newSharedHttpClient();
+
+    private static final ExecutorService CHUNK_POOL = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "chroma-ef-remote-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "chroma-ef-remote-scheduler");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /** Embeds one chunk of inputs with a single provider request. */
+    public interface ChunkCall<R> {
+        List<R> call(List<String> chunk) throws EFException;
+    }
+
+    /** Asynchronously embeds one chunk of inputs with a single provider request. */
+    public interface AsyncChunkCall<R> {
+        CompletableFuture<List<R>> call(List<String> chunk);
+    }
+
+    /** Reads a provider response; the executor closes the response afterwards. */
+    public interface ResponseReader<T> {
+        T read(Response response) throws IOException;
+    }
+
+    private final OkHttpClient httpClient;
+    private final int maxBatchSize;
+    private final int maxConcurrency;
+    private final RetryPolicy retryPolicy;
+    private final TokenEstimator tokenEstimator;
+    private final SlidingWindowLimiter limiter;
+
+    RemoteEmbeddingExecutor(OkHttpClient httpClient, int maxBatchSize, int maxConcurrency,
+                            RetryPolicy retryPolicy, RateBudget rateBudget, SlidingWindowLimiter limiter) {
+        this.httpClient = httpClient;
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrency = maxConcurrency;
+        this.retryPolicy = retryPolicy;
+        this.tokenEstimator = rateBudget != null ? rateBudget.getTokenEstimator() : null;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Builds an executor from an embedding function's config params.
+     *
+     * @param configParams          params populated by {@link WithParam}s
+     * @param defaultMaxBatchSize   provider request limit used when no {@code maxBatchSize} is configured
+     */
+    public static RemoteEmbeddingExecutor fromConfig(Map<String, Object> configParams, int defaultMaxBatchSize) {
+        Object client = configParams.get(Constants.EF_PARAMS_HTTP_CLIENT);
+        Object retryPolicy = configParams.get(Constants.EF_PARAMS_RETRY_POLICY);
+        Object budget = configParams.get(Constants.EF_PARAMS_RATE_BUDGET);
+        RateBudget rateBudget = budget instanceof RateBudget ? (RateBudget) budget : null;
+        SlidingWindowLimiter limiter = null;
+        if (rateBudget != null) {
+            Object apiKey = configParams.get(Constants.EF_PARAMS_API_KEY);
+            limiter = SlidingWindowLimiter.shared(
+                    String.valueOf(configParams.get(Constants.EF_PARAMS_BASE_API)),
+                    apiKey != null ? apiKey.toString() : null,
+                    rateBudget);
+        }
+        return new RemoteEmbeddingExecutor(
+                client instanceof OkHttpClient ? (OkHttpClient) client : SHARED_HTTP_CLIENT,
+                intParam(configParams, Constants.EF_PARAMS_MAX_BATCH_SIZE, defaultMaxBatchSize),
+                intParam(configParams, Constants.EF_PARAMS_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY),
+                retryPolicy instanceof RetryPolicy ? (RetryPolicy) retryPolicy : RetryPolicy.defaults(),
+                rateBudget,
+                limiter
+        );
+    }
+
+    /**
+     * Returns the client shared by all remote embedding functions that were not given their own.
+     */
+    public static OkHttpClient sharedHttpClient() {
+        return SHARED_HTTP_CLIENT;
+    }
+
+    /** Returns the HTTP client provider requests should use. */
+    public OkHttpClient httpClient() {
+        return httpClient;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Blocks until a request embedding {@code texts} fits the configured {@link RateBudget}; returns
+     * immediately when no budget is configured. {@link #execute} admits each chunk itself, so this is
+     * only needed for requests sent outside it, such as single-query embeds.
+     */
+    public void admit(List<String> texts) throws EFException {
+        if (limiter == null) {
+            return;
+        }
+        int tokens = 0;
+        for (String text : texts) {
+            tokens += tokenEstimator.estimate(text);
+        }
+        acquire(tokens);
+    }
+
+    /**
+     * Non-blocking {@link #admit(List)}: completes once the request fits the budget, waiting on a
+     * timer rather than a parked thread.
+     */
+    public CompletableFuture<Void> admitAsync(List<String> texts) {
+        if (limiter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int tokens = 0;
+        for (String text : texts) {
+            tokens += tokenEstimator.estimate(text);
+        }
+        return admitAsync(tokens);
+    }
+
+    private void acquireAsync(final int tokens, final CompletableFuture<Void> admitted) {
+        if (admitted.isDone()) {
+            return;
+        }
+        long waitNanos = limiter.tryAcquire(tokens);
+        if (waitNanos == 0L) {
+            admitted.complete(null);
+        } else {
+            SCHEDULER.schedule(() -> acquireAsync(tokens, admitted), waitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void acquire(int tokens) throws EFException {
+        try {
+            limiter.acquire(tokens);
+        } catch (InterruptedIOException e) {
+            throw new EFException(e);
+        }
+    }
+
+    /**
+     * Executes {@code request}, retrying throttled, transient-server and network failures within the
+     * {@link RetryPolicy} budget.
+     *
+     * <p>Returns the first successful or non-retryable response, or the last retryable response once
+     * the budget is spent; the caller must close it and handle non-2xx codes. If the final attempt
+     * fails at the network level, its {@link IOException} is thrown.</p>
+     */
+    public Response call(Request request) throws IOException {
+        long waitedMillis = 0L;
+        for (int retry = 0; ; retry++) {
+            Response response = null;
+            IOException failure = null;
+            try {
+                response = httpClient.newCall(request).execute();
+            } catch (IOException e) {
+                if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                failure = e;
+            }
+            long delay = retryDelayMillis(request, response, failure, retry, waitedMillis);
+            if (delay < 0) {
+                if (response != null) {
+                    return response;
+                }
+                throw failure;
+            }
+            if (response != null) {
+                response.close();
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException("Interrupted while backing off");
+                interrupted.initCause(e);
+                throw interrupted;
+            }
+            waitedMillis += delay;
+        }
+    }
+
+    /**
+     * Executes {@code request} like {@link #call(Request)} and reads the final response with
+     * {@code reader}, closing it afterwards. I/O failures are wrapped in {@link EFException}.
+     */
+    public <T> T call(Request request, ResponseReader<T> reader) throws EFException {
+        try (Response response = call(request)) {
+            return reader.read(response);
+        } catch (IOException e) {
+            throw new EFException(e);
+        }
+    }
+
+    /**
+     * Non-blocking {@link #call(Request)}: dispatches with OkHttp {@code enqueue} and schedules
+     * retries instead of sleeping. Cancelling the future cancels the in-flight request.
+     */
+    public CompletableFuture<Response> callAsync(Request request) {
+        CompletableFuture<Response> result = new CompletableFuture<Response>();
+        attemptAsync(request, 0, 0L, result);
+        return result;
+    }
+
+    /**
+     * Non-blocking {@link #call(Request, ResponseReader)}. The future fails with
+     * {@link EFException} on I/O errors, or with whatever runtime exception {@code reader} throws.
+     */
+    public <T> CompletableFuture<T> callAsync(Request request, final ResponseReader<T> reader) {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        callAsync(request).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            try (Response r = response) {
+                result.complete(reader.read(r));
+            } catch (IOException e) {
+                result.completeExceptionally(new EFException(e));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    private void attemptAsync(final Request request, final int retry, final long waitedMillis,
+                              final CompletableFuture<Response> result) {
+        if (result.isDone()) {
+            return;
+        }
+        final Call httpCall = httpClient.newCall(request);
+        result.whenComplete((r, t) -> {
+            if (result.isCancelled()) {
+                httpCall.cancel();
+            }
+        });
+        httpCall.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                retryOrComplete(null, e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                retryOrComplete(response, null);
+            }
+
+            private void retryOrComplete(Response response, IOException failure) {
+                long delay = result.isDone() ? -1L : retryDelayMillis(request, response, failure, retry, waitedMillis);
+                if (delay < 0) {
+                    boolean delivered = response != null ? result.complete(response) : result.completeExceptionally(failure);
+                    if (!delivered && response != null) {
+                        response.close();
+                    }
+                    return;
+                }
+                if (response != null) {
+                    response.close();
+                }
+                SCHEDULER.schedule(() -> attemptAsync(request, retry + 1, waitedMillis + delay, result),
+                        delay, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Returns how long to wait before retrying an attempt that produced {@code response} or
+     * {@code failure}, or {@code -1} if it must not be retried.
+     */
+    private long retryDelayMillis(Request request, Response response, IOException failure, int retry, long waitedMillis) {
+        boolean retryable = response == null || RetryPolicy.isRetryableStatus(response.code());
+        if (!retryable || retry >= retryPolicy.getMaxRetries()) {
+            return -1L;
+        }
+        long delay = response == null ? -1L : serverDelayMillis(response.headers(), System.currentTimeMillis());
+        if (delay < 0) {
+            delay = retryPolicy.backoffMillis(retry, ThreadLocalRandom.current().nextDouble());
+        }
+        if (waitedMillis + delay > retryPolicy.getMaxRetryDelayMillis()) {
+            return -1L;
+        }
+        LOG.fine("Retrying " + request.url().host() + " after "
+                + (response != null ? "HTTP " + response.code() : failure.getClass().getSimpleName())
+                + " in " + delay + "ms (retry " + (retry + 1) + "/" + retryPolicy.getMaxRetries() + ")");
+        return delay;
+    }
+
+    /**
+     * Extracts the server-requested delay from rate-limit headers, or {@code -1} if none is present.
+     *
+     * <p>Precedence: {@code retry-after-ms}, {@code Retry-After} (seconds or HTTP date), then
+     * {@code x-ratelimit-reset-requests}/{@code x-ratelimit-reset-tokens} (Go-style durations such
+     * as {@code 1s}, {@code 6m0s}, {@code 20ms}). When the matching {@code x-ratelimit-remaining-*}
+     * header shows which limit is exhausted only that reset is used; otherwise the longest reset wins.</p>
+     */
+    static long serverDelayMillis(Headers headers, long nowMillis) {
+        String retryAfterMs = headers.get("retry-after-ms");
+        if (retryAfterMs != null) {
+            try {
+                return Math.max(0L, (long) Double.parseDouble(retryAfterMs.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall through to other headers
+            }
+        }
+        String retryAfter = headers.get("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Math.max(0L, (long) (Double.parseDouble(retryAfter.trim()) * 1000d));
+            } catch (NumberFormatException e) {
+                Date date = headers.getDate("Retry-After");
+                if (date != null) {
+                    return Math.max(0L, date.getTime() - nowMillis);
+                }
+            }
+        }
+        long requestsReset = parseDurationMillis(headers.get("x-ratelimit-reset-requests"));
+        long tokensReset = parseDurationMillis(headers.get("x-ratelimit-reset-tokens"));
+        boolean requestsExhausted = "0".equals(trimmed(headers.get("x-ratelimit-remaining-requests")));
+        boolean tokensExhausted = "0".equals(trimmed(headers.get("x-ratelimit-remaining-tokens")));
+        if (requestsExhausted || tokensExhausted) {
+            return Math.max(requestsExhausted ? requestsReset : -1L, tokensExhausted ? tokensReset : -1L);
+        }
+        return Math.max(requestsReset, tokensReset);
+    }
+
+    /**
+     * Parses a duration such as {@code 1.5s}, {@code 6m0s}, {@code 20ms} or a bare number of seconds.
+     *
+     * @return milliseconds, or {@code -1} if absent or unparseable
+     */
+    static long parseDurationMillis(String value) {
+        String v = trimmed(value);
+        if (v == null || v.isEmpty()) {
+            return -1L;
+        }
+        try {
+            return (long) (Double.parseDouble(v) * 1000d);
+        } catch (NumberFormatException ignored) {
+            // not a bare number
+        }
+        Matcher m = DURATION_PART.matcher(v);
+        double millis = 0d;
+        int end = 0;
+        while (m.find()) {
+            if (m.start() != end) {
+                return -1L;
+            }
+            double amount = Double.parseDouble(m.group(1));
+            String unit = m.group(2);
+            if ("h".equals(unit)) {
+                millis += amount * 3_600_000d;
+            } else if ("m".equals(unit)) {
+                millis += amount * 60_000d;
+            } else if ("s".equals(unit)) {
+                millis += amount * 1000d;
+            } else {
+                millis += amount;
+            }
+            end = m.end();
+        }
+        return end == v.length() && end > 0 ? (long) Math.ceil(millis) : -1L;
+    }
+
+    private static String trimmed(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Runs {@code call} over {@code inputs} in chunks of at most {@link #getMaxBatchSize()} and
+     * returns the concatenated results in input order. The first failing chunk aborts the rest and
+     * its exception is rethrown.
+     *
+     * <p>With a {@link RateBudget}, chunks are also cut so their estimated tokens stay within the
+     * per-minute token limit, and every chunk is admitted by the limiter before it is sent.</p>
+     */
+    public <R> List<R> execute(List<String> inputs, final ChunkCall<R> call) throws EFException {
+        if (limiter == null && inputs.size() <= maxBatchSize) {
+            return call.call(inputs);
+        }
+        final List<List<String>> chunks = new ArrayList<List<String>>();
+        final List<Integer> chunkTokens = new ArrayList<Integer>();
+        split(inputs, chunks, chunkTokens);
+        if (chunks.size() == 1) {
+            return admitAndCall(call, chunks.get(0), chunkTokens.get(0));
+        }
+        final List<List<R>> results = new ArrayList<List<R>>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            results.add(null);
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while (failure.get() == null && (index = next.getAndIncrement()) < chunks.size()) {
+                    try {
+                        List<R> chunkResult = admitAndCall(call, chunks.get(index), chunkTokens.get(index));
+                        synchronized (results) {
+                            results.set(index, chunkResult);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(maxConcurrency, chunks.size()) - 1;
+        List<Future<?>> futures = new ArrayList<Future<?>>(helpers);
+        for (int i = 0; i < helpers; i++) {
+            futures.add(CHUNK_POOL.submit(worker));
+        }
+        worker.run();
+        for (Future<?> future : futures) {
+            awaitQuietly(future);
+        }
+
+        Throwable t = failure.get();
+        if (t != null) {
+            if (t instanceof EFException) {
+                throw (EFException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new EFException(t);
+        }
+        List<R> merged = new ArrayList<R>(inputs.size());
+        synchronized (results) {
+            for (List<R> chunkResult : results) {
+                merged.addAll(chunkResult);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Non-blocking {@link #execute}: chunks are admitted and dispatched as earlier ones complete,
+     * keeping at most {@link #getMaxConcurrency()} in flight. The first failure fails the result.
+     */
+    public <R> CompletableFuture<List<R>> executeAsync(List<String> inputs, final AsyncChunkCall<R> call) {
+        final List<List<String>> chunks = new ArrayList<List<String>>();
+        final List<Integer> chunkTokens = new ArrayList<Integer>();
+        split(inputs, chunks, chunkTokens);
+        final List<List<R>> results = new ArrayList<List<R>>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            results.add(null);
+        }
+        final CompletableFuture<List<R>> result = new CompletableFuture<List<R>>();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger remaining = new AtomicInteger(chunks.size());
+        Runnable lane = new Runnable() {
+            @Override
+            public void run() {
+                final int index = next.getAndIncrement();
+                if (index >= chunks.size() || result.isDone()) {
+                    return;
+                }
+                final Runnable self = this;
+                admitAsync(chunkTokens.get(index)).thenCompose(v -> call.call(chunks.get(index)))
+                        .whenComplete((chunkResult, error) -> {
+                            if (error != null) {
+                                result.completeExceptionally(unwrap(error));
+                                return;
+                            }
+                            synchronized (results) {
+                                results.set(index, chunkResult);
+                            }
+                            if (remaining.decrementAndGet() == 0) {
+                                List<R> merged = new ArrayList<R>();
+                                synchronized (results) {
+                                    for (List<R> part : results) {
+                                        merged.addAll(part);
+                                    }
+                                }
+                                result.complete(merged);
+                            } else {
+                                self.run();
+                            }
+                        });
+            }
+        };
+        int lanes = Math.min(maxConcurrency, chunks.size());
+        for (int i = 0; i < lanes; i++) {
+            lane.run();
+        }
+        return result;
+    }
+
+    private CompletableFuture<Void> admitAsync(int tokens) {
+        if (limiter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> admitted = new CompletableFuture<Void>();
+        acquireAsync(tokens, admitted);
+        return admitted;
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    /**
+     * Cuts {@code inputs} into chunks of at most {@link #maxBatchSize} items and, with a token
+     * budget, at most the per-minute token limit. A single input over the limit gets its own chunk.
+     */
+    void split(List<String> inputs, List<List<String>> chunks, List<Integer> chunkTokens) {
+        int tokenLimit = limiter != null && limiter.getTokensPerWindow() > 0 ? limiter.getTokensPerWindow() : Integer.MAX_VALUE;
+        int start = 0;
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            int cost = tokenEstimator != null ? tokenEstimator.estimate(inputs.get(i)) : 0;
+            boolean full = i - start >= maxBatchSize || (i > start && (long) tokens + cost > tokenLimit);
+            if (full) {
+                chunks.add(inputs.subList(start, i));
+                chunkTokens.add(tokens);
+                start = i;
+                tokens = 0;
+            }
+            tokens += cost;
+        }
+        chunks.add(inputs.subList(start, inputs.size()));
+        chunkTokens.add(tokens);
+    }
+
+    private <R> List<R> admitAndCall(ChunkCall<R> call, List<String> chunk, int tokens) throws EFException {
+        if (limiter != null) {
+            acquire(tokens);
+        }
+        return call.call(chunk);
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                // worker records failures itself
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int intParam(Map<String, Object> configParams, String key, int defaultValue) {
+        Object value = configParams.get(key);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    private static OkHttpClient newSharedHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(64);
+        dispatcher.setMaxRequestsPerHost(16);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(16, 5, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .build();
+    }
+}
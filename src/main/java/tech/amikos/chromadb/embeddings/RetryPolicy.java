@@ -0,0 +1,178 @@
+package tech.amikos.chromadb.embeddings;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry settings for remote embedding provider requests.
+ *
+ * <p>Throttled ({@code 429}), timed-out ({@code 408}) and transient server ({@code 500}, {@code 502},
+ * {@code 503}, {@code 504}) responses as well as network failures are retried with exponential
+ * backoff and jitter. Server hints in {@code Retry-After}, {@code retry-after-ms} and
+ * {@code x-ratelimit-reset-*} headers take precedence over the computed backoff.</p>
+ *
+ * <p>Each request has a retry budget: at most {@link #getMaxRetries()} retries, and no more than
+ * {@link #getMaxRetryDelayMillis()} spent waiting in total. Once the budget is spent the last
+ * provider error is surfaced.</p>
+ *
+ * <pre>{@code
+ * new OpenAIEmbeddingFunction(
+ *     WithParam.apiKey(key),
+ *     WithParam.retryPolicy(RetryPolicy.builder().maxRetries(8).maxRetryDelay(5, TimeUnit.MINUTES).build()));
+ * }</pre>
+ */
+public final class RetryPolicy {
+
+    private static final RetryPolicy DEFAULT = builder().build();
+    private static final RetryPolicy NONE = builder().maxRetries(0).build();
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxRetryDelayMillis;
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+        this.maxRetryDelayMillis = builder.maxRetryDelayMillis;
+    }
+
+    /**
+     * Returns a new {@link Builder} initialized with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Default policy: 3 retries, 250ms initial backoff, 20s max backoff, 2 minute retry budget.
+     */
+    public static RetryPolicy defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Policy that never retries.
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public long getMaxRetryDelayMillis() {
+        return maxRetryDelayMillis;
+    }
+
+    /**
+     * Returns whether a response with the given HTTP status may be retried.
+     */
+    public static boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Computes the backoff before retry number {@code retry} (0-based): exponential growth capped at
+     * {@link #getMaxBackoffMillis()}, with the upper half jittered.
+     */
+    long backoffMillis(int retry, double random) {
+        long ceiling = initialBackoffMillis;
+        for (int i = 0; i < retry && ceiling < maxBackoffMillis; i++) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, maxBackoffMillis);
+        long half = ceiling / 2;
+        return half + (long) (random * (ceiling - half));
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxRetries=" + maxRetries
+                + ", initialBackoffMillis=" + initialBackoffMillis
+                + ", maxBackoffMillis=" + maxBackoffMillis
+                + ", maxRetryDelayMillis=" + maxRetryDelayMillis + '}';
+    }
+
+    /**
+     * Builder for {@link RetryPolicy}.
+     */
+    public static final class Builder {
+
+        private int maxRetries = 3;
+        private long initialBackoffMillis = 250L;
+        private long maxBackoffMillis = 20_000L;
+        private long maxRetryDelayMillis = 120_000L;
+
+        private Builder() {}
+
+        /**
+         * Sets the maximum number of retries per request. Zero disables retries.
+         *
+         * @throws IllegalArgumentException if {@code maxRetries} is negative
+         */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries must be >= 0");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Sets the backoff before the first retry; it doubles on every further retry.
+         *
+         * @throws IllegalArgumentException if {@code duration} is not positive or {@code unit} is null
+         */
+        public Builder initialBackoff(long duration, TimeUnit unit) {
+            this.initialBackoffMillis = toPositiveMillis(duration, unit, "initialBackoff");
+            return this;
+        }
+
+        /**
+         * Caps the computed backoff between two attempts. Server-provided delays are not capped.
+         *
+         * @throws IllegalArgumentException if {@code duration} is not positive or {@code unit} is null
+         */
+        public Builder maxBackoff(long duration, TimeUnit unit) {
+            this.maxBackoffMillis = toPositiveMillis(duration, unit, "maxBackoff");
+            return this;
+        }
+
+        /**
+         * Sets the total time a single request may spend waiting between retries.
+         *
+         * @throws IllegalArgumentException if {@code duration} is not positive or {@code unit} is null
+         */
+        public Builder maxRetryDelay(long duration, TimeUnit unit) {
+            this.maxRetryDelayMillis = toPositiveMillis(duration, unit, "maxRetryDelay");
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxBackoffMillis < initialBackoffMillis) {
+                throw new IllegalArgumentException("maxBackoff must be >= initialBackoff");
+            }
+            return new RetryPolicy(this);
+        }
+
+        private static long toPositiveMillis(long duration, TimeUnit unit, String fieldName) {
+            if (unit == null) {
+                throw new IllegalArgumentException(fieldName + " unit must not be null");
+            }
+            if (duration <= 0) {
+                throw new IllegalArgumentException(fieldName + " must be > 0");
+            }
+            return Math.max(1L, unit.toMillis(duration));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package tech.amikos.chromadb.embeddings;
+
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Sliding-window admission control for {@link RateBudget}. One limiter exists per provider
+ * endpoint, API key and budget, shared by every embedding function configured with that triple.
+ * API keys are only kept as SHA-256 digests.
+ */
+final class SlidingWindowLimiter {
+
+    private static final Logger LOG = Logger.getLogger(SlidingWindowLimiter.class.getName());
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final ConcurrentMap<String, SlidingWindowLimiter> SHARED =
+            new ConcurrentHashMap<String, SlidingWindowLimiter>();
+    /** Budget first registered per endpoint and key digest, to warn about conflicting budgets. */
+    private static final ConcurrentMap<String, String> BUDGETS = new ConcurrentHashMap<String, String>();
+
+    private final int tokensPerWindow;
+    private final int requestsPerWindow;
+    private final long windowNanos;
+    private final ArrayDeque<long[]> admitted = new ArrayDeque<long[]>();
+    private long tokensInWindow;
+
+    SlidingWindowLimiter(int tokensPerWindow, int requestsPerWindow, long windowNanos) {
+        this.tokensPerWindow = tokensPerWindow;
+        this.requestsPerWindow = requestsPerWindow;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * Returns the limiter shared by {@code endpoint}, {@code apiKey} and the limits of
+     * {@code budget}, creating it on first use. Embedding functions with different budgets for the
+     * same endpoint and key get separate windows, so a warning is logged: together they can exceed
+     * either budget.
+     */
+    static SlidingWindowLimiter shared(String endpoint, String apiKey, RateBudget budget) {
+        String scope = endpoint + "|" + sha256Hex(apiKey);
+        String limits = budget.getTokensPerMinute() + "tpm/" + budget.getRequestsPerMinute() + "rpm";
+        String registered = BUDGETS.putIfAbsent(scope, limits);
+        if (registered != null && !registered.equals(limits)) {
+            LOG.warning("Rate budget " + limits + " for " + endpoint + " differs from the " + registered
+                    + " budget already used with the same API key; each budget gets its own window");
+        }
+        String key = scope + "|" + limits;
+        SlidingWindowLimiter limiter = SHARED.get(key);
+        if (limiter == null) {
+            SlidingWindowLimiter created = new SlidingWindowLimiter(
+                    budget.getTokensPerMinute(), budget.getRequestsPerMinute(), WINDOW_NANOS);
+            limiter = SHARED.putIfAbsent(key, created);
+            if (limiter == null) {
+                limiter = created;
+            }
+        }
+        return limiter;
+    }
+
+    private static String sha256Hex(String value) {
+        if (value == null) {
+            return "none";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Blocks until a request costing {@code tokens} fits in the window, then records it.
+     * A request larger than the whole token budget is admitted once the window is empty.
+     */
+    synchronized void acquire(int tokens) throws InterruptedIOException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire(tokens)) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for rate budget");
+                interrupted.initCause(e);
+                throw interrupted;
+            }
+        }
+    }
+
+    /**
+     * Records the request and returns {@code 0} if it fits now; otherwise records nothing and
+     * returns the nanoseconds until the oldest admission leaves the window.
+     */
+    synchronized long tryAcquire(int tokens) {
+        long now = System.nanoTime();
+        evict(now);
+        if (fits(tokens)) {
+            admitted.addLast(new long[]{now, tokens});
+            tokensInWindow += tokens;
+            return 0L;
+        }
+        return Math.max(admitted.peekFirst()[0] + windowNanos - now, 1L);
+    }
+
+    int getTokensPerWindow() {
+        return tokensPerWindow;
+    }
+
+    synchronized long tokensInWindow() {
+        evict(System.nanoTime());
+        return tokensInWindow;
+    }
+
+    private boolean fits(int tokens) {
+        if (admitted.isEmpty()) {
+            return true;
+        }
+        if (requestsPerWindow > 0 && admitted.size() + 1 > requestsPerWindow) {
+            return false;
+        }
+        return tokensPerWindow <= 0 || tokensInWindow + tokens <= tokensPerWindow;
+    }
+
+    private void evict(long now) {
+        long[] head;
+        while ((head = admitted.peekFirst()) != null && now - head[0] >= windowNanos) {
+            admitted.removeFirst();
+            tokensInWindow -= head[1];
+        }
+    }
+}
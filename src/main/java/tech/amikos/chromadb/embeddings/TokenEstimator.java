@@ -0,0 +1,39 @@
+package tech.amikos.chromadb.embeddings;
+
+/**
+ * Estimates how many provider tokens a text will be billed as, for client-side rate budgeting.
+ *
+ * <p>The built-in {@link #heuristic()} is fast and close enough for quota scheduling on English
+ * text. Plug in a real tokenizer when inputs are code, non-Latin scripts or otherwise far from
+ * the heuristic's assumptions.</p>
+ */
+@FunctionalInterface
+public interface TokenEstimator {
+
+    /**
+     * Returns the estimated token count for {@code text}; never negative.
+     */
+    int estimate(String text);
+
+    /**
+     * Heuristic estimator: roughly four characters per token, at least one token per non-empty text.
+     */
+    static TokenEstimator heuristic() {
+        return HeuristicTokenEstimator.INSTANCE;
+    }
+}
+
+final class HeuristicTokenEstimator implements TokenEstimator {
+
+    static final HeuristicTokenEstimator INSTANCE = new HeuristicTokenEstimator();
+
+    private HeuristicTokenEstimator() {}
+
+    @Override
+    public int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + 3) / 4;
+    }
+}
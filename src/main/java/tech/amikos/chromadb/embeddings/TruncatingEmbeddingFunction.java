@@ -0,0 +1,221 @@
+package tech.amikos.chromadb.embeddings;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Embedding function decorator that keeps only the first {@code dimension} components of each
+ * delegate embedding and, by default, rescales the result to unit L2 norm.
+ *
+ * <p>Matryoshka-trained models (e.g. OpenAI {@code text-embedding-3-*}, nomic-embed) front-load
+ * information so a prefix is still a useful embedding. Shorter vectors shrink storage and speed up
+ * distance computations. When the provider can shorten server-side (see
+ * {@link tech.amikos.chromadb.embeddings.openai.OpenAIEmbeddingFunction.WithDimensions}) prefer
+ * that; this decorator works with any provider, local or remote.</p>
+ *
+ * <p>Batch calls truncate the whole {@link EmbeddingMatrix} in one pass. A collection created with
+ * a fixed dimension rejects query embeddings of any other length, so set {@code dimension} to the
+ * collection's {@code getDimension()}.</p>
+ *
+ * <p>Asynchronous calls go through {@link AsyncEmbeddingFunction#of(EmbeddingFunction)} on the
+ * delegate and truncate when its future completes.</p>
+ *
+ * <pre>{@code
+ * EmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new DefaultEmbeddingFunction())
+ *     .dimension(256)
+ *     .build();
+ * }</pre>
+ */
+public final class TruncatingEmbeddingFunction implements AsyncEmbeddingFunction {
+
+    private final EmbeddingFunction delegate;
+    private final AsyncEmbeddingFunction asyncDelegate;
+    private final int dimension;
+    private final boolean normalize;
+
+    private TruncatingEmbeddingFunction(Builder builder) {
+        this.delegate = builder.delegate;
+        this.asyncDelegate = AsyncEmbeddingFunction.of(builder.delegate);
+        this.dimension = builder.dimension;
+        this.normalize = builder.normalize;
+    }
+
+    /**
+     * Returns a new {@link Builder} wrapping the given delegate.
+     *
+     * @throws IllegalArgumentException if {@code delegate} is null
+     */
+    public static Builder builder(EmbeddingFunction delegate) {
+        return new Builder(delegate);
+    }
+
+    /** Length of every embedding this function returns. */
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public Embedding embedQuery(String query) throws EFException {
+        Embedding embedding = delegate.embedQuery(query);
+        if (embedding == null) {
+            throw new ChromaException("Truncating embedding failed: delegate returned null");
+        }
+        return new Embedding(truncate(embedding.asArray()));
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        return asyncDelegate.embedQueryAsync(query).thenApply(embedding -> {
+            if (embedding == null) {
+                throw new ChromaException("Truncating embedding failed: delegate returned null");
+            }
+            return new Embedding(truncate(embedding.asArray()));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        return asyncDelegate.embedDocumentsAsync(documents).thenApply(this::truncateAll);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedQueriesAsync(List<String> queries) {
+        return asyncDelegate.embedQueriesAsync(queries).thenApply(this::truncateAll);
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        return embedBatch(documents).toEmbeddings();
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(String[] documents) throws EFException {
+        return embedDocuments(Arrays.asList(documents));
+    }
+
+    @Override
+    public List<Embedding> embedQueries(List<String> queries) throws EFException {
+        return embedQueryBatch(queries).toEmbeddings();
+    }
+
+    @Override
+    public List<Embedding> embedQueries(String[] queries) throws EFException {
+        return embedQueries(Arrays.asList(queries));
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        return truncate(delegate.embedBatch(documents));
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return truncate(delegate.embedQueryBatch(queries));
+    }
+
+    private EmbeddingMatrix truncate(EmbeddingMatrix matrix) {
+        if (matrix == null) {
+            throw new ChromaException("Truncating embedding failed: delegate returned null");
+        }
+        int rows = matrix.rows();
+        if (rows == 0) {
+            return EmbeddingMatrix.of(new float[0], 0, dimension);
+        }
+        checkSourceDimension(matrix.getDimension());
+        if (matrix.getDimension() == dimension && !normalize) {
+            return matrix;
+        }
+        float[] source = matrix.data();
+        int stride = matrix.getDimension();
+        float[] out = new float[rows * dimension];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(source, r * stride, out, r * dimension, dimension);
+        }
+        EmbeddingMatrix truncated = EmbeddingMatrix.of(out, rows, dimension);
+        return normalize ? truncated.normalized() : truncated;
+    }
+
+    private List<Embedding> truncateAll(List<Embedding> embeddings) {
+        if (embeddings == null) {
+            throw new ChromaException("Truncating embedding failed: delegate returned null");
+        }
+        List<Embedding> out = new ArrayList<Embedding>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            if (embedding == null) {
+                throw new ChromaException("Truncating embedding failed: delegate returned null");
+            }
+            out.add(new Embedding(truncate(embedding.asArray())));
+        }
+        return out;
+    }
+
+    private float[] truncate(float[] vector) {
+        checkSourceDimension(vector.length);
+        float[] out = Arrays.copyOf(vector, dimension);
+        return normalize ? EmbeddingMatrix.of(out, 1, dimension).normalized().data() : out;
+    }
+
+    private void checkSourceDimension(int sourceDimension) {
+        if (sourceDimension < dimension) {
+            throw new ChromaException("Truncating embedding failed: delegate returned "
+                    + sourceDimension + "-dimensional vectors, cannot truncate to " + dimension);
+        }
+    }
+
+    /**
+     * Builder for {@link TruncatingEmbeddingFunction}.
+     */
+    public static final class Builder {
+
+        private final EmbeddingFunction delegate;
+        private int dimension;
+        private boolean normalize = true;
+
+        private Builder(EmbeddingFunction delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("delegate must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets the number of leading components to keep. Required.
+         *
+         * @throws IllegalArgumentException if {@code dimension} is not positive
+         */
+        public Builder dimension(int dimension) {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("dimension must be > 0");
+            }
+            this.dimension = dimension;
+            return this;
+        }
+
+        /**
+         * Whether to rescale truncated vectors to unit L2 norm. Defaults to {@code true}; a prefix of
+         * a unit vector is no longer unit length, which skews cosine and inner-product distances.
+         */
+        public Builder normalize(boolean normalize) {
+            this.normalize = normalize;
+            return this;
+        }
+
+        /**
+         * Builds the decorator.
+         *
+         * @throws IllegalArgumentException if {@link #dimension(int)} was not set
+         */
+        public TruncatingEmbeddingFunction build() {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("dimension must be set");
+            }
+            return new TruncatingEmbeddingFunction(this);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package tech.amikos.chromadb.embeddings;
 
 
+import okhttp3.OkHttpClient;
 import tech.amikos.chromadb.Constants;
 import tech.amikos.chromadb.EFException;
 
@@ -33,6 +34,44 @@ public abstract class WithParam {
         return new WithDefaultModel(model);
     }
 
+    /**
+     * Uses the given client instead of the shared remote embedding client.
+     * Derive it from {@link RemoteEmbeddingExecutor#sharedHttpClient()} via {@code newBuilder()}
+     * to keep sharing the connection pool.
+     */
+    public static WithParam httpClient(OkHttpClient httpClient) {
+        return new WithHttpClient(httpClient);
+    }
+
+    /**
+     * Maximum number of inputs sent in a single provider request. Larger inputs are chunked.
+     */
+    public static WithParam maxBatchSize(int maxBatchSize) {
+        return new WithPositiveInt(Constants.EF_PARAMS_MAX_BATCH_SIZE, maxBatchSize);
+    }
+
+    /**
+     * Maximum number of chunk requests in flight at once for a single embed call.
+     */
+    public static WithParam maxConcurrency(int maxConcurrency) {
+        return new WithPositiveInt(Constants.EF_PARAMS_MAX_CONCURRENCY, maxConcurrency);
+    }
+
+    /**
+     * Retry policy for throttled and transient provider failures. Defaults to {@link RetryPolicy#defaults()}.
+     */
+    public static WithParam retryPolicy(RetryPolicy retryPolicy) {
+        return new WithRetryPolicy(retryPolicy);
+    }
+
+    /**
+     * Sets a client-side tokens/requests-per-minute budget shared by all embedding functions using
+     * the same endpoint, API key and limits.
+     */
+    public static WithParam rateBudget(RateBudget rateBudget) {
+        return new WithRateBudget(rateBudget);
+    }
+
 
 }
 
@@ -127,3 +166,69 @@ class WithEnvAPIKey extends WithParam {
         params.put(Constants.EF_PARAMS_API_KEY, System.getenv(apiKeyEnvVarName));
     }
 }
+
+class WithHttpClient extends WithParam {
+    private final OkHttpClient httpClient;
+
+    public WithHttpClient(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public void apply(Map<String, Object> params) throws EFException {
+        if (httpClient == null) {
+            throw new EFException("httpClient must not be null");
+        }
+        params.put(Constants.EF_PARAMS_HTTP_CLIENT, httpClient);
+    }
+}
+
+class WithPositiveInt extends WithParam {
+    private final String key;
+    private final int value;
+
+    public WithPositiveInt(String key, int value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public void apply(Map<String, Object> params) throws EFException {
+        if (value <= 0) {
+            throw new EFException(key + " must be > 0, got: " + value);
+        }
+        params.put(key, value);
+    }
+}
+
+class WithRetryPolicy extends WithParam {
+    private final RetryPolicy retryPolicy;
+
+    public WithRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public void apply(Map<String, Object> params) throws EFException {
+        if (retryPolicy == null) {
+            throw new EFException("retryPolicy must not be null");
+        }
+        params.put(Constants.EF_PARAMS_RETRY_POLICY, retryPolicy);
+    }
+}
+
+class WithRateBudget extends WithParam {
+    private final RateBudget rateBudget;
+
+    public WithRateBudget(RateBudget rateBudget) {
+        this.rateBudget = rateBudget;
+    }
+
+    @Override
+    public void apply(Map<String, Object> params) throws EFException {
+        if (rateBudget == null) {
+            throw new EFException("rateBudget must not be null");
+        }
+        params.put(Constants.EF_PARAMS_RATE_BUDGET, rateBudget);
+    }
+}
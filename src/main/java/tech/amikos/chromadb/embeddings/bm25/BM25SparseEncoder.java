@@ -0,0 +1,390 @@
+package tech.amikos.chromadb.embeddings.bm25;
+
+import tech.amikos.chromadb.v2.SparseVector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local sparse encoder producing BM25 or TF-IDF weighted {@link SparseVector}s for hybrid search.
+ *
+ * <p>Text is split into lowercase letter/digit runs. Each term maps to an index either by a stable
+ * 31-bit hash ({@link TermIds#HASHED}, the default, needing no shared state) or by a vocabulary
+ * learned in {@link #update(List)} ({@link TermIds#VOCABULARY}, dense ids but unknown terms are
+ * dropped). Output indices are sorted ascending.</p>
+ *
+ * <p>Document weights use corpus statistics (document count, average length, document frequency)
+ * gathered incrementally through {@link #update(List)}; before any update every term gets an IDF of
+ * {@code 1}. Query vectors carry raw term counts, so the dot product of a query and a document
+ * vector is the document's BM25 score. Document vectors reflect the statistics at encoding time.</p>
+ *
+ * <pre>{@code
+ * BM25SparseEncoder bm25 = BM25SparseEncoder.builder().build();
+ * bm25.update(documents);
+ * List<SparseVector> sparse = bm25.encodeDocuments(documents);
+ * // ... store under a sparse vector index key, then:
+ * Rrf rrf = Rrf.builder()
+ *     .rank(Knn.queryText("neural search"), 1.0)
+ *     .rank(Knn.querySparseVector(bm25.encodeQuery("neural search")).key("sparse"), 1.0)
+ *     .build();
+ * }</pre>
+ *
+ * <p>Instances are thread-safe: encoding runs concurrently, updates are exclusive.</p>
+ */
+public final class BM25SparseEncoder {
+
+    public static final float DEFAULT_K1 = 1.2f;
+    public static final float DEFAULT_B = 0.75f;
+
+    /**
+     * How terms are weighted in document vectors.
+     */
+    public enum Weighting {
+        /** Okapi BM25: {@code idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * len / avgLen))}. */
+        BM25,
+        /** Sublinear TF-IDF: {@code idf * (1 + ln tf)}. */
+        TF_IDF
+    }
+
+    /**
+     * How terms are mapped to sparse indices.
+     */
+    public enum TermIds {
+        /** Stable 31-bit hash of the term; no vocabulary to persist or share. */
+        HASHED,
+        /** Sequential ids assigned to terms seen by {@link #update(List)}; other terms are ignored. */
+        VOCABULARY
+    }
+
+    private final float k1;
+    private final float b;
+    private final Weighting weighting;
+    private final TermIds termIds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntIntMap documentFrequencies = new IntIntMap();
+    private final Map<String, Integer> vocabulary = new HashMap<String, Integer>();
+    private long documentCount;
+    private long totalLength;
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private BM25SparseEncoder(Builder builder) {
+        this.k1 = builder.k1;
+        this.b = builder.b;
+        this.weighting = builder.weighting;
+        this.termIds = builder.termIds;
+    }
+
+    /**
+     * Returns a new {@link Builder} with BM25 defaults ({@code k1=1.2}, {@code b=0.75}, hashed ids).
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Adds one document to the corpus statistics.
+     *
+     * @throws IllegalArgumentException if {@code document} is null
+     */
+    public void update(String document) {
+        requireText(document, "document");
+        Scratch s = scratch.get();
+        lock.writeLock().lock();
+        try {
+            s.count(document, true);
+            addStatistics(s);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds documents to the corpus statistics. Can be called repeatedly as the corpus grows.
+     *
+     * @throws IllegalArgumentException if {@code documents} or any element is null
+     */
+    public void update(List<String> documents) {
+        requireTexts(documents, "documents");
+        Scratch s = scratch.get();
+        lock.writeLock().lock();
+        try {
+            for (String document : documents) {
+                s.count(document, true);
+                addStatistics(s);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Encodes a document with the configured weighting.
+     *
+     * @throws IllegalArgumentException if {@code document} is null
+     */
+    public SparseVector encodeDocument(String document) {
+        requireText(document, "document");
+        Scratch s = scratch.get();
+        lock.readLock().lock();
+        try {
+            return encode(s, document, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Encodes documents in order, reusing per-thread buffers across the batch.
+     *
+     * @throws IllegalArgumentException if {@code documents} or any element is null
+     */
+    public List<SparseVector> encodeDocuments(List<String> documents) {
+        return encodeAll(documents, "documents", false);
+    }
+
+    /**
+     * Encodes a query as raw term counts.
+     *
+     * @throws IllegalArgumentException if {@code query} is null
+     */
+    public SparseVector encodeQuery(String query) {
+        requireText(query, "query");
+        Scratch s = scratch.get();
+        lock.readLock().lock();
+        try {
+            return encode(s, query, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Encodes queries in order.
+     *
+     * @throws IllegalArgumentException if {@code queries} or any element is null
+     */
+    public List<SparseVector> encodeQueries(List<String> queries) {
+        return encodeAll(queries, "queries", true);
+    }
+
+    /** Number of documents added through {@link #update(List)}. */
+    public long getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Average token count of the documents added so far; {@code 0} before any update. */
+    public double getAverageDocumentLength() {
+        lock.readLock().lock();
+        try {
+            return documentCount == 0 ? 0d : (double) totalLength / documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of distinct terms seen by {@link #update(List)}. */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return documentFrequencies.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<SparseVector> encodeAll(List<String> texts, String name, boolean query) {
+        requireTexts(texts, name);
+        List<SparseVector> result = new ArrayList<SparseVector>(texts.size());
+        Scratch s = scratch.get();
+        lock.readLock().lock();
+        try {
+            for (String text : texts) {
+                result.add(encode(s, text, query));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private void addStatistics(Scratch s) {
+        for (int id : s.frequencies.sortedKeys()) {
+            documentFrequencies.add(id, 1);
+        }
+        documentCount++;
+        totalLength += s.length;
+    }
+
+    private SparseVector encode(Scratch s, String text, boolean query) {
+        s.count(text, false);
+        int[] indices = s.frequencies.sortedKeys();
+        float[] values = new float[indices.length];
+        double lengthNorm = 1d;
+        if (!query && weighting == Weighting.BM25 && documentCount > 0) {
+            double averageLength = (double) totalLength / documentCount;
+            lengthNorm = 1d - b + b * s.length / averageLength;
+        }
+        for (int i = 0; i < indices.length; i++) {
+            float tf = s.frequencies.get(indices[i]);
+            if (query) {
+                values[i] = tf;
+                continue;
+            }
+            double idf = idf(indices[i]);
+            if (weighting == Weighting.BM25) {
+                values[i] = (float) (idf * tf * (k1 + 1d) / (tf + k1 * lengthNorm));
+            } else {
+                values[i] = (float) (idf * (1d + Math.log(tf)));
+            }
+        }
+        return SparseVector.of(indices, values);
+    }
+
+    private double idf(int id) {
+        if (documentCount == 0) {
+            return 1d;
+        }
+        int df = documentFrequencies.get(id);
+        return Math.log(1d + (documentCount - df + 0.5d) / (df + 0.5d));
+    }
+
+    private int termId(char[] chars, int length, boolean assign) {
+        if (termIds == TermIds.HASHED) {
+            return TextTokenizer.hash(chars, length);
+        }
+        String term = new String(chars, 0, length);
+        Integer id = vocabulary.get(term);
+        if (id == null && assign) {
+            id = vocabulary.size();
+            vocabulary.put(term, id);
+        }
+        return id == null ? -1 : id;
+    }
+
+    private static void requireText(String text, String name) {
+        if (text == null) {
+            throw new IllegalArgumentException(name + " must not be null");
+        }
+    }
+
+    private static void requireTexts(List<String> texts, String name) {
+        if (texts == null) {
+            throw new IllegalArgumentException(name + " must not be null");
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            if (texts.get(i) == null) {
+                throw new IllegalArgumentException(name + "[" + i + "] must not be null");
+            }
+        }
+    }
+
+    /**
+     * Per-thread tokenizer and term-frequency accumulator reused across calls.
+     */
+    private final class Scratch implements TextTokenizer.TermSink {
+        private final TextTokenizer tokenizer = new TextTokenizer();
+        private final IntFloatMap frequencies = new IntFloatMap(64);
+        private boolean assign;
+        private int length;
+
+        void count(String text, boolean assignIds) {
+            frequencies.clear();
+            assign = assignIds;
+            length = tokenizer.tokenize(text, this);
+        }
+
+        @Override
+        public void accept(char[] chars, int length) {
+            int id = termId(chars, length, assign);
+            if (id >= 0) {
+                frequencies.add(id, 1f);
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link BM25SparseEncoder}.
+     */
+    public static final class Builder {
+
+        private float k1 = DEFAULT_K1;
+        private float b = DEFAULT_B;
+        private Weighting weighting = Weighting.BM25;
+        private TermIds termIds = TermIds.HASHED;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets BM25 term-frequency saturation.
+         *
+         * @throws IllegalArgumentException if {@code k1} is negative or not finite
+         */
+        public Builder k1(float k1) {
+            if (!(k1 >= 0f) || Float.isInfinite(k1)) {
+                throw new IllegalArgumentException("k1 must be >= 0");
+            }
+            this.k1 = k1;
+            return this;
+        }
+
+        /**
+         * Sets BM25 document-length normalization, from {@code 0} (none) to {@code 1} (full).
+         *
+         * @throws IllegalArgumentException if {@code b} is outside {@code [0, 1]}
+         */
+        public Builder b(float b) {
+            if (!(b >= 0f && b <= 1f)) {
+                throw new IllegalArgumentException("b must be in [0, 1]");
+            }
+            this.b = b;
+            return this;
+        }
+
+        /**
+         * Sets the document weighting scheme. Defaults to {@link Weighting#BM25}.
+         *
+         * @throws IllegalArgumentException if {@code weighting} is null
+         */
+        public Builder weighting(Weighting weighting) {
+            if (weighting == null) {
+                throw new IllegalArgumentException("weighting must not be null");
+            }
+            this.weighting = weighting;
+            return this;
+        }
+
+        /**
+         * Sets how terms map to sparse indices. Defaults to {@link TermIds#HASHED}.
+         *
+         * @throws IllegalArgumentException if {@code termIds} is null
+         */
+        public Builder termIds(TermIds termIds) {
+            if (termIds == null) {
+                throw new IllegalArgumentException("termIds must not be null");
+            }
+            this.termIds = termIds;
+            return this;
+        }
+
+        public BM25SparseEncoder build() {
+            return new BM25SparseEncoder(this);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tech.amikos.chromadb.embeddings.bm25;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code int -> float} map with linear probing. Keys must be non-negative.
+ *
+ * <p>Used as the per-document term-frequency accumulator: {@link #clear()} keeps the backing
+ * arrays so one instance can be reused across a whole batch without allocating.</p>
+ */
+final class IntFloatMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private float[] values;
+    private int size;
+    private int mask;
+
+    IntFloatMap() {
+        this(16);
+    }
+
+    IntFloatMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /** Adds {@code delta} to the value stored under {@code key}, inserting it if absent. */
+    void add(int key, float delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > (mask + 1) * 3 / 4) {
+            rehash();
+        }
+    }
+
+    /** Returns the value stored under {@code key}, or {@code 0} if absent. */
+    float get(int key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0f;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /** Returns all keys in ascending order. */
+    int[] sortedKeys() {
+        int[] out = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                out[n++] = key;
+            }
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    private int find(int key) {
+        int slot = IntIntMap.mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,80 @@
+package tech.amikos.chromadb.embeddings.bm25;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code int -> int} map with linear probing. Keys must be non-negative.
+ *
+ * <p>Holds corpus document frequencies without boxing a key or value per term.</p>
+ */
+final class IntIntMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    IntIntMap() {
+        allocate(IntFloatMap.tableSizeFor(16));
+    }
+
+    /** Adds {@code delta} to the value stored under {@code key}, inserting it if absent. */
+    void add(int key, int delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > (mask + 1) * 3 / 4) {
+            rehash();
+        }
+    }
+
+    /** Returns the value stored under {@code key}, or {@code 0} if absent. */
+    int get(int key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /** Spreads sequential vocabulary ids and clustered hashes across the table. */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,75 @@
+package tech.amikos.chromadb.embeddings.bm25;
+
+/**
+ * Splits text into lowercase runs of letters and digits in a single pass over the characters.
+ *
+ * <p>Tokens are handed to a {@link TermSink} as a reused {@code char[]} slice, so hashed term
+ * ids can be computed without allocating a {@code String} per token. Not thread-safe; each
+ * thread uses its own instance.</p>
+ */
+final class TextTokenizer {
+
+    interface TermSink {
+        void accept(char[] chars, int length);
+    }
+
+    private char[] buffer = new char[32];
+
+    /**
+     * Tokenizes {@code text} and returns the number of tokens emitted.
+     */
+    int tokenize(String text, TermSink sink) {
+        int tokens = 0;
+        int length = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                    length = append(c, length);
+                    continue;
+                }
+                if (c >= 'A' && c <= 'Z') {
+                    length = append((char) (c + ('a' - 'A')), length);
+                    continue;
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                length = append(Character.toLowerCase(c), length);
+                continue;
+            }
+            if (length > 0) {
+                sink.accept(buffer, length);
+                tokens++;
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            sink.accept(buffer, length);
+            tokens++;
+        }
+        return tokens;
+    }
+
+    private int append(char c, int length) {
+        if (length == buffer.length) {
+            char[] grown = new char[length * 2];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length] = c;
+        return length + 1;
+    }
+
+    /**
+     * 32-bit FNV-1a over the UTF-16 code units, masked to a non-negative int. Stable across JVMs
+     * and releases so hashed ids stored in a collection stay valid.
+     */
+    static int hash(char[] chars, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            h = (h ^ (c & 0xFF)) * 0x01000193;
+            h = (h ^ (c >>> 8)) * 0x01000193;
+        }
+        return h & 0x7FFFFFFF;
+    }
+}
@@ -1,33 +1,37 @@
 package tech.amikos.chromadb.embeddings.cohere;
 
-import com.google.gson.Gson;
-import okhttp3.OkHttpClient;
+import com.google.gson.stream.JsonReader;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import org.jetbrains.annotations.NotNull;
 import tech.amikos.chromadb.*;
-import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.AsyncEmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
+import tech.amikos.chromadb.embeddings.RemoteEmbeddingExecutor;
 import tech.amikos.chromadb.embeddings.WithParam;
 import tech.amikos.chromadb.v2.ChromaException;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static tech.amikos.chromadb.Constants.JSON;
 
-public class CohereEmbeddingFunction implements EmbeddingFunction {
+public class CohereEmbeddingFunction implements AsyncEmbeddingFunction {
     public static final String DEFAULT_MODEL_NAME = "embed-english-v2.0";
     public static final String DEFAULT_BASE_API = "https://api.cohere.ai/v1/";
     public static final String COHERE_API_KEY_ENV = "COHERE_API_KEY";
+    /** Maximum number of texts the embed endpoint accepts per request. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 96;
 
-    private final OkHttpClient client = new OkHttpClient();
+    private final RemoteEmbeddingExecutor executor;
     private final Map<String, Object> configParams = new HashMap<>();
-    private static final Gson gson = new Gson();
 
 
     private static final List<WithParam> defaults = Arrays.asList(
@@ -41,6 +45,7 @@ public class CohereEmbeddingFunction implements EmbeddingFunction {
             param.apply(this.configParams);
         }
         WithParam.apiKeyFromEnv(COHERE_API_KEY_ENV).apply(this.configParams);
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     public CohereEmbeddingFunction(WithParam... params) throws EFException {
@@ -51,11 +56,23 @@ public class CohereEmbeddingFunction implements EmbeddingFunction {
         for (WithParam param : params) {
             param.apply(this.configParams);
         }
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
 
     public CreateEmbeddingResponse createEmbedding(CreateEmbeddingRequest req) throws EFException {
-        Request request = new Request.Builder()
+        return executor.call(buildRequest(req), this::readResponse);
+    }
+
+    /**
+     * Asynchronous {@link #createEmbedding(CreateEmbeddingRequest)}.
+     */
+    public CompletableFuture<CreateEmbeddingResponse> createEmbeddingAsync(CreateEmbeddingRequest req) {
+        return executor.callAsync(buildRequest(req), this::readResponse);
+    }
+
+    private Request buildRequest(CreateEmbeddingRequest req) {
+        return new Request.Builder()
                 .url(this.configParams.get(Constants.EF_PARAMS_BASE_API).toString() + "embed")
                 .post(RequestBody.create(req.json(), JSON))
                 .addHeader("Accept", "application/json")
@@ -64,65 +81,129 @@ public class CohereEmbeddingFunction implements EmbeddingFunction {
                 .addHeader("User-Agent", Constants.HTTP_AGENT)
                 .addHeader("Authorization", "Bearer " + configParams.get(Constants.EF_PARAMS_API_KEY).toString())
                 .build();
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new ChromaException(
-                    "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                    + response.code() + " " + response.message()
-                );
-            }
-
-            String responseData = response.body().string();
-
-            return gson.fromJson(responseData, CreateEmbeddingResponse.class);
-        } catch (ChromaException e) {
-            throw e;
-        } catch (IOException e) {
-            throw new EFException(e);
+    }
+
+    private CreateEmbeddingResponse readResponse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ChromaException(
+                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+                + response.code() + " " + response.message()
+            );
+        }
+        try (JsonReader reader = new JsonReader(response.body().charStream())) {
+            return CreateEmbeddingResponse.read(reader);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new ChromaException(
+                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): malformed response: "
+                + e.getMessage(), e
+            );
         }
     }
 
     @Override
     public Embedding embedQuery(String query) throws EFException {
-        if (query == null) {
-            throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): query must not be null");
-        }
-        CreateEmbeddingResponse response = createEmbedding(
-                new CreateEmbeddingRequest()
-                        .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
-                        .inputType("search_query")
-                        .texts(new String[]{query})
-        );
-        return new Embedding(response.getEmbeddings().get(0));
+        checkQuery(query);
+        executor.admit(Collections.singletonList(query));
+        return new Embedding(createEmbedding(request(Collections.singletonList(query), "search_query")).getVectors().get(0));
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        checkQuery(query);
+        return executor.admitAsync(Collections.singletonList(query))
+                .thenCompose(v -> createEmbeddingAsync(request(Collections.singletonList(query), "search_query")))
+                .thenApply(response -> new Embedding(response.getVectors().get(0)));
     }
 
     @Override
     public List<Embedding> embedDocuments(@NotNull List<String> documents) throws EFException {
-        if (documents == null) {
+        checkTexts(documents, "documents");
+        return executor.execute(documents, chunk -> embedChunk(chunk, "search_document"));
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        checkTexts(documents, "documents");
+        return executor.executeAsync(documents, chunk -> embedChunkAsync(chunk, "search_document"));
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        checkTexts(documents, "documents");
+        return embedMatrix(documents, "search_document");
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        checkTexts(queries, "queries");
+        return embedMatrix(queries, "search_query");
+    }
+
+    private EmbeddingMatrix embedMatrix(List<String> texts, String inputType) throws EFException {
+        return EmbeddingMatrix.concat(executor.execute(texts,
+                chunk -> Collections.singletonList(toMatrix(createEmbedding(request(chunk, inputType)), chunk.size()))));
+    }
+
+    private List<Embedding> embedChunk(List<String> texts, String inputType) throws EFException {
+        return toEmbeddings(createEmbedding(request(texts, inputType)), texts.size());
+    }
+
+    private CompletableFuture<List<Embedding>> embedChunkAsync(List<String> texts, String inputType) {
+        return createEmbeddingAsync(request(texts, inputType)).thenApply(response -> toEmbeddings(response, texts.size()));
+    }
+
+    private CreateEmbeddingRequest request(List<String> texts, String inputType) {
+        return new CreateEmbeddingRequest()
+                .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
+                .inputType(inputType)
+                .texts(texts.toArray(new String[0]));
+    }
+
+    private List<Embedding> toEmbeddings(CreateEmbeddingResponse response, int expected) {
+        return toVectors(response, expected).stream().map(Embedding::fromArray).collect(Collectors.toList());
+    }
+
+    private List<float[]> toVectors(CreateEmbeddingResponse response, int expected) {
+        List<float[]> result = response.getVectors();
+        if (result.size() != expected) {
+            throw wrongCount(expected, result.size());
+        }
+        return result;
+    }
+
+    private EmbeddingMatrix toMatrix(CreateEmbeddingResponse response, int expected) {
+        EmbeddingMatrix result = response.matrix();
+        if (result == null || result.rows() != expected) {
+            throw wrongCount(expected, result == null ? 0 : result.rows());
+        }
+        return result;
+    }
+
+    private ChromaException wrongCount(int expected, int actual) {
+        return new ChromaException(
+            "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+            + "expected " + expected + " embeddings, got " + actual
+        );
+    }
+
+    private void checkQuery(String query) {
+        if (query == null) {
             throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be null"
-            );
+                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): query must not be null");
         }
-        if (documents.isEmpty()) {
+    }
+
+    private void checkTexts(List<String> texts, String name) {
+        if (texts == null) {
             throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be empty"
+                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): " + name + " must not be null"
             );
         }
-        CreateEmbeddingResponse response = createEmbedding(
-                new CreateEmbeddingRequest()
-                        .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
-                        .inputType("search_document")
-                        .texts(documents.toArray(new String[0]))
-        );
-        List<Embedding> result = response.getEmbeddings().stream().map(Embedding::new).collect(Collectors.toList());
-        if (result.size() != documents.size()) {
+        if (texts.isEmpty()) {
             throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                + "expected " + documents.size() + " embeddings, got " + result.size()
+                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): " + name + " must not be empty"
             );
         }
-        return result;
     }
 
     @Override
@@ -132,30 +213,14 @@ public class CohereEmbeddingFunction implements EmbeddingFunction {
 
     @Override
     public List<Embedding> embedQueries(@NotNull List<String> queries) throws EFException {
-        if (queries == null) {
-            throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): queries must not be null"
-            );
-        }
-        if (queries.isEmpty()) {
-            throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): queries must not be empty"
-            );
-        }
-        CreateEmbeddingResponse response = createEmbedding(
-                new CreateEmbeddingRequest()
-                        .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
-                        .inputType("search_query")
-                        .texts(queries.toArray(new String[0]))
-        );
-        List<Embedding> result = response.getEmbeddings().stream().map(Embedding::new).collect(Collectors.toList());
-        if (result.size() != queries.size()) {
-            throw new ChromaException(
-                "Cohere embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                + "expected " + queries.size() + " embeddings, got " + result.size()
-            );
-        }
-        return result;
+        checkTexts(queries, "queries");
+        return executor.execute(queries, chunk -> embedChunk(chunk, "search_query"));
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedQueriesAsync(List<String> queries) {
+        checkTexts(queries, "queries");
+        return executor.executeAsync(queries, chunk -> embedChunkAsync(chunk, "search_query"));
     }
 
     @Override
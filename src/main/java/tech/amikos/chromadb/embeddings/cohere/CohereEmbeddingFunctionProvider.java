@@ -0,0 +1,27 @@
+package tech.amikos.chromadb.embeddings.cohere;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingFunctionProvider;
+import tech.amikos.chromadb.embeddings.ProviderConfig;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in {@link EmbeddingFunctionProvider} for the {@code cohere} descriptor.
+ */
+public final class CohereEmbeddingFunctionProvider implements EmbeddingFunctionProvider {
+
+    @Override
+    public List<String> names() {
+        return Collections.singletonList("cohere");
+    }
+
+    @Override
+    public EmbeddingFunction create(Map<String, Object> config) throws EFException {
+        return new CohereEmbeddingFunction(ProviderConfig.toArray(
+                ProviderConfig.commonParams(config, CohereEmbeddingFunction.COHERE_API_KEY_ENV)));
+    }
+}
@@ -3,11 +3,17 @@ package tech.amikos.chromadb.embeddings.cohere;
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.stream.JsonReader;
+import tech.amikos.chromadb.embeddings.EmbeddingJson;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
 
+import java.io.IOException;
 import java.util.List;
 
 public class CreateEmbeddingResponse {
 
+    private static final Gson GSON = new Gson();
+
     @SerializedName("id")
     public String id;
 
@@ -17,6 +23,10 @@ public class CreateEmbeddingResponse {
     @SerializedName("embeddings")
     public List<List<Float>> embeddings;
 
+    private transient List<float[]> vectors;
+
+    private transient EmbeddingMatrix matrix;
+
     @SerializedName("meta")
     public LinkedTreeMap<String, Object> meta;
 
@@ -31,14 +41,64 @@ public class CreateEmbeddingResponse {
     }
 
     public List<List<Float>> getEmbeddings() {
+        if (embeddings == null && getVectors() != null) {
+            embeddings = EmbeddingJson.toLists(vectors);
+        }
         return embeddings;
     }
 
+    /**
+     * Returns the embeddings as primitive arrays.
+     */
+    public List<float[]> getVectors() {
+        if (vectors == null && matrix != null) {
+            vectors = matrix.toRows();
+        } else if (vectors == null && embeddings != null) {
+            vectors = EmbeddingJson.toArrays(embeddings);
+        }
+        return vectors;
+    }
+
+    /**
+     * Returns the embeddings as one row-major matrix, or {@code null} if the response has none.
+     */
+    EmbeddingMatrix matrix() {
+        if (matrix == null && getVectors() != null) {
+            matrix = EmbeddingMatrix.fromRows(vectors);
+        }
+        return matrix;
+    }
+
     public LinkedTreeMap<String, Object> getMeta() {
         return meta;
     }
 
 
+    /**
+     * Streams a response body, reading embeddings straight into one row-major matrix.
+     */
+    static CreateEmbeddingResponse read(JsonReader in) throws IOException {
+        CreateEmbeddingResponse response = new CreateEmbeddingResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("embeddings".equals(name)) {
+                response.matrix = EmbeddingJson.readFloatMatrix(in);
+            } else if ("id".equals(name)) {
+                response.id = in.nextString();
+            } else if ("texts".equals(name)) {
+                response.texts = GSON.fromJson(in, String[].class);
+            } else if ("meta".equals(name)) {
+                response.meta = GSON.fromJson(in, LinkedTreeMap.class);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+
     @Override
     public String toString() {
         return new Gson().toJson(this);
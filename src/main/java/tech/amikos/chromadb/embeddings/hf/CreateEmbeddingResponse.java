@@ -1,20 +1,69 @@
 package tech.amikos.chromadb.embeddings.hf;
 
 import com.google.gson.Gson;
+import tech.amikos.chromadb.embeddings.EmbeddingJson;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
 
 import java.util.List;
 
 public class CreateEmbeddingResponse {
     public List<List<Float>> embeddings;
 
+    private transient List<float[]> vectors;
+
+    private transient EmbeddingMatrix matrix;
+
     public List<List<Float>> getEmbeddings() {
+        if (embeddings == null && getVectors() != null) {
+            embeddings = EmbeddingJson.toLists(vectors);
+        }
         return embeddings;
     }
 
+    /**
+     * Returns the embeddings as primitive arrays.
+     */
+    public List<float[]> getVectors() {
+        if (vectors == null && matrix != null) {
+            vectors = matrix.toRows();
+        } else if (vectors == null && embeddings != null) {
+            vectors = EmbeddingJson.toArrays(embeddings);
+        }
+        return vectors;
+    }
+
+    /**
+     * Returns the embeddings as one row-major matrix, or {@code null} if the response has none.
+     */
+    EmbeddingMatrix matrix() {
+        if (matrix == null && getVectors() != null) {
+            matrix = EmbeddingMatrix.fromRows(vectors);
+        }
+        return matrix;
+    }
+
     public CreateEmbeddingResponse(List<List<Float>> embeddings) {
         this.embeddings = embeddings;
     }
 
+    /**
+     * Creates a response from primitive vectors; the boxed view is built only if requested.
+     */
+    public static CreateEmbeddingResponse fromVectors(List<float[]> vectors) {
+        CreateEmbeddingResponse response = new CreateEmbeddingResponse(null);
+        response.vectors = vectors;
+        return response;
+    }
+
+    /**
+     * Creates a response from a row-major matrix read off the wire.
+     */
+    static CreateEmbeddingResponse fromMatrix(EmbeddingMatrix matrix) {
+        CreateEmbeddingResponse response = new CreateEmbeddingResponse(null);
+        response.matrix = matrix;
+        return response;
+    }
+
     @Override
     public String toString() {
         return new Gson().toJson(this);
@@ -1,29 +1,34 @@
 package tech.amikos.chromadb.embeddings.hf;
 
 
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import okhttp3.*;
 import org.jetbrains.annotations.NotNull;
 import tech.amikos.chromadb.*;
-import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.AsyncEmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
+import tech.amikos.chromadb.embeddings.EmbeddingJson;
+import tech.amikos.chromadb.embeddings.RemoteEmbeddingExecutor;
 import tech.amikos.chromadb.embeddings.WithParam;
 import tech.amikos.chromadb.v2.ChromaException;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static tech.amikos.chromadb.Constants.JSON;
 
-public class HuggingFaceEmbeddingFunction implements EmbeddingFunction {
+public class HuggingFaceEmbeddingFunction implements AsyncEmbeddingFunction {
     public static final String DEFAULT_MODEL_NAME = "sentence-transformers/all-MiniLM-L6-v2";
     public static final String DEFAULT_BASE_API = "https://api-inference.huggingface.co/pipeline/feature-extraction/";
     public static final String HFEI_API_PATH = "/embed";
     public static final String HF_API_KEY_ENV = "HF_API_KEY";
     public static final String API_TYPE_CONFIG_KEY = "apiType";
-    private final OkHttpClient client = new OkHttpClient();
+    /** Default inputs per request; matches the text-embeddings-inference default client batch limit. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    private final RemoteEmbeddingExecutor executor;
     private final Map<String, Object> configParams = new HashMap<>();
-    private static final Gson gson = new Gson();
 
     private static final List<WithParam> defaults = Arrays.asList(
             new WithAPIType(APIType.HF_API),
@@ -36,6 +41,7 @@ public class HuggingFaceEmbeddingFunction implements EmbeddingFunction {
             param.apply(this.configParams);
         }
         WithParam.apiKeyFromEnv(HF_API_KEY_ENV).apply(this.configParams);
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     public HuggingFaceEmbeddingFunction(WithParam... params) throws EFException {
@@ -47,9 +53,21 @@ public class HuggingFaceEmbeddingFunction implements EmbeddingFunction {
         for (WithParam param : params) {
             param.apply(this.configParams);
         }
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     public CreateEmbeddingResponse createEmbedding(CreateEmbeddingRequest req) throws EFException {
+        return executor.call(buildRequest(req), this::readResponse);
+    }
+
+    /**
+     * Asynchronous {@link #createEmbedding(CreateEmbeddingRequest)}.
+     */
+    public CompletableFuture<CreateEmbeddingResponse> createEmbeddingAsync(CreateEmbeddingRequest req) {
+        return executor.callAsync(buildRequest(req), this::readResponse);
+    }
+
+    private Request buildRequest(CreateEmbeddingRequest req) {
         Request.Builder rb = new Request.Builder()
 
                 .post(RequestBody.create(req.json(), JSON))
@@ -64,39 +82,112 @@ public class HuggingFaceEmbeddingFunction implements EmbeddingFunction {
         if (configParams.containsKey(Constants.EF_PARAMS_API_KEY)) {
             rb.addHeader("Authorization", "Bearer " + configParams.get(Constants.EF_PARAMS_API_KEY).toString());
         }
-        Request request = rb.build();
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new ChromaException(
-                    "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                    + response.code() + " " + response.message()
-                );
-            }
-
-            String responseData = response.body().string();
-
-            List parsedResponse = gson.fromJson(responseData, List.class);
-
-            return new CreateEmbeddingResponse(parsedResponse);
-        } catch (ChromaException e) {
-            throw e;
-        } catch (IOException e) {
-            throw new EFException(e);
+        return rb.build();
+    }
+
+    private CreateEmbeddingResponse readResponse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ChromaException(
+                "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+                + response.code() + " " + response.message()
+            );
+        }
+        try (JsonReader reader = new JsonReader(response.body().charStream())) {
+            return CreateEmbeddingResponse.fromMatrix(EmbeddingJson.readFloatMatrix(reader));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new ChromaException(
+                "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): malformed response: "
+                + e.getMessage(), e
+            );
         }
     }
 
     @Override
     public Embedding embedQuery(String query) throws EFException {
+        checkQuery(query);
+        executor.admit(Collections.singletonList(query));
+        return new Embedding(createEmbedding(request(Collections.singletonList(query))).getVectors().get(0));
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        checkQuery(query);
+        return executor.admitAsync(Collections.singletonList(query))
+                .thenCompose(v -> createEmbeddingAsync(request(Collections.singletonList(query))))
+                .thenApply(response -> new Embedding(response.getVectors().get(0)));
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(@NotNull List<String> documents) throws EFException {
+        checkDocuments(documents);
+        return executor.execute(documents, this::embedChunk);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        checkDocuments(documents);
+        return executor.executeAsync(documents, this::embedChunkAsync);
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        checkDocuments(documents);
+        return EmbeddingMatrix.concat(executor.execute(documents,
+                chunk -> Collections.singletonList(toMatrix(createEmbedding(request(chunk)), chunk.size()))));
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return embedBatch(queries);
+    }
+
+    private List<Embedding> embedChunk(List<String> documents) throws EFException {
+        return toEmbeddings(createEmbedding(request(documents)), documents.size());
+    }
+
+    private CompletableFuture<List<Embedding>> embedChunkAsync(List<String> documents) {
+        return createEmbeddingAsync(request(documents)).thenApply(response -> toEmbeddings(response, documents.size()));
+    }
+
+    private CreateEmbeddingRequest request(List<String> texts) {
+        return new CreateEmbeddingRequest().inputs(texts.toArray(new String[0]));
+    }
+
+    private List<Embedding> toEmbeddings(CreateEmbeddingResponse response, int expected) {
+        return toVectors(response, expected).stream().map(Embedding::fromArray).collect(Collectors.toList());
+    }
+
+    private List<float[]> toVectors(CreateEmbeddingResponse response, int expected) {
+        List<float[]> result = response.getVectors();
+        if (result.size() != expected) {
+            throw wrongCount(expected, result.size());
+        }
+        return result;
+    }
+
+    private EmbeddingMatrix toMatrix(CreateEmbeddingResponse response, int expected) {
+        EmbeddingMatrix result = response.matrix();
+        if (result == null || result.rows() != expected) {
+            throw wrongCount(expected, result == null ? 0 : result.rows());
+        }
+        return result;
+    }
+
+    private ChromaException wrongCount(int expected, int actual) {
+        return new ChromaException(
+            "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+            + "expected " + expected + " embeddings, got " + actual
+        );
+    }
+
+    private void checkQuery(String query) {
         if (query == null) {
             throw new ChromaException(
                 "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): query must not be null");
         }
-        CreateEmbeddingResponse response = this.createEmbedding(new CreateEmbeddingRequest().inputs(new String[]{query}));
-        return new Embedding(response.getEmbeddings().get(0));
     }
 
-    @Override
-    public List<Embedding> embedDocuments(@NotNull List<String> documents) throws EFException {
+    private void checkDocuments(List<String> documents) {
         if (documents == null) {
             throw new ChromaException(
                 "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be null"
@@ -107,15 +198,6 @@ public class HuggingFaceEmbeddingFunction implements EmbeddingFunction {
                 "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be empty"
             );
         }
-        CreateEmbeddingResponse response = this.createEmbedding(new CreateEmbeddingRequest().inputs(documents.toArray(new String[0])));
-        List<Embedding> result = response.getEmbeddings().stream().map(Embedding::fromList).collect(Collectors.toList());
-        if (result.size() != documents.size()) {
-            throw new ChromaException(
-                "HuggingFace embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                + "expected " + documents.size() + " embeddings, got " + result.size()
-            );
-        }
-        return result;
     }
 
     @Override
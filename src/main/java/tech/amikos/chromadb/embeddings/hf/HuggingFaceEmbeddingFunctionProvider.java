@@ -0,0 +1,45 @@
+package tech.amikos.chromadb.embeddings.hf;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingFunctionProvider;
+import tech.amikos.chromadb.embeddings.ProviderConfig;
+import tech.amikos.chromadb.embeddings.WithParam;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Built-in {@link EmbeddingFunctionProvider} for the {@code huggingface} descriptor
+ * (aliases {@code hugging_face}, {@code hf}).
+ */
+public final class HuggingFaceEmbeddingFunctionProvider implements EmbeddingFunctionProvider {
+
+    @Override
+    public List<String> names() {
+        return Arrays.asList("huggingface", "hugging_face", "hf");
+    }
+
+    @Override
+    public EmbeddingFunction create(Map<String, Object> config) throws EFException {
+        List<WithParam> params = ProviderConfig.commonParams(config, HuggingFaceEmbeddingFunction.HF_API_KEY_ENV);
+        if (config != null) {
+            String apiType = ProviderConfig.getString(config, "api_type", "apiType");
+            if (apiType != null) {
+                String normalized = apiType.trim().toUpperCase(Locale.ROOT);
+                HuggingFaceEmbeddingFunction.APIType type;
+                if ("HFEI_API".equals(normalized)) {
+                    type = HuggingFaceEmbeddingFunction.APIType.HFEI_API;
+                } else if ("HF_API".equals(normalized)) {
+                    type = HuggingFaceEmbeddingFunction.APIType.HF_API;
+                } else {
+                    throw new IllegalArgumentException("unsupported huggingface api_type: " + apiType);
+                }
+                params.add(new HuggingFaceEmbeddingFunction.WithAPIType(type));
+            }
+        }
+        return new HuggingFaceEmbeddingFunction(ProviderConfig.toArray(params));
+    }
+}
@@ -1,23 +1,27 @@
 package tech.amikos.chromadb.embeddings.ollama;
 
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import okhttp3.*;
 import tech.amikos.chromadb.*;
-import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.AsyncEmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
+import tech.amikos.chromadb.embeddings.RemoteEmbeddingExecutor;
 import tech.amikos.chromadb.embeddings.WithParam;
 import tech.amikos.chromadb.v2.ChromaException;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static tech.amikos.chromadb.Constants.JSON;
 
-public class OllamaEmbeddingFunction implements EmbeddingFunction {
+public class OllamaEmbeddingFunction implements AsyncEmbeddingFunction {
     public final static String DEFAULT_BASE_API = "http://localhost:11434/api/embed";
     public final static String DEFAULT_MODEL_NAME = "nomic-embed-text";
-    private final OkHttpClient client = new OkHttpClient();
-    private final Gson gson = new Gson();
+    /** Default inputs per request; Ollama has no hard limit, this bounds request size and latency. */
+    public final static int DEFAULT_MAX_BATCH_SIZE = 256;
+    private final RemoteEmbeddingExecutor executor;
     private final Map<String, Object> configParams = new HashMap<>();
 
     private static final List<WithParam> defaults = Arrays.asList(
@@ -29,6 +33,7 @@ public class OllamaEmbeddingFunction implements EmbeddingFunction {
         for (WithParam param : defaults) {
             param.apply(this.configParams);
         }
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     public OllamaEmbeddingFunction(WithParam... params) throws EFException {
@@ -40,49 +45,132 @@ public class OllamaEmbeddingFunction implements EmbeddingFunction {
         for (WithParam param : params) {
             param.apply(this.configParams);
         }
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     private CreateEmbeddingResponse createEmbedding(CreateEmbeddingRequest req) throws EFException {
-        Request request = new Request.Builder()
+        return executor.call(buildRequest(req), this::readResponse);
+    }
+
+    private CompletableFuture<CreateEmbeddingResponse> createEmbeddingAsync(CreateEmbeddingRequest req) {
+        return executor.callAsync(buildRequest(req), this::readResponse);
+    }
+
+    private Request buildRequest(CreateEmbeddingRequest req) {
+        return new Request.Builder()
                 .url(this.configParams.get(Constants.EF_PARAMS_BASE_API).toString())
                 .post(RequestBody.create(req.json(), JSON))
                 .addHeader("Accept", "application/json")
                 .addHeader("Content-Type", "application/json")
                 .addHeader("User-Agent", Constants.HTTP_AGENT)
                 .build();
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new ChromaException(
-                    "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                    + response.code() + " " + response.message()
-                );
-            }
-            String responseData = response.body().string();
-
-            return gson.fromJson(responseData, CreateEmbeddingResponse.class);
-        } catch (ChromaException e) {
-            throw e;
-        } catch (IOException e) {
-            throw new EFException(e);
+    }
+
+    private CreateEmbeddingResponse readResponse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ChromaException(
+                "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+                + response.code() + " " + response.message()
+            );
+        }
+        try (JsonReader reader = new JsonReader(response.body().charStream())) {
+            return CreateEmbeddingResponse.read(reader);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new ChromaException(
+                "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): malformed response: "
+                + e.getMessage(), e
+            );
         }
     }
 
     @Override
     public Embedding embedQuery(String query) throws EFException {
+        checkQuery(query);
+        executor.admit(Collections.singletonList(query));
+        return new Embedding(createEmbedding(request(Collections.singletonList(query))).getVectors().get(0));
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        checkQuery(query);
+        return executor.admitAsync(Collections.singletonList(query))
+                .thenCompose(v -> createEmbeddingAsync(request(Collections.singletonList(query))))
+                .thenApply(response -> new Embedding(response.getVectors().get(0)));
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        checkDocuments(documents);
+        return executor.execute(documents, this::embedChunk);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        checkDocuments(documents);
+        return executor.executeAsync(documents, this::embedChunkAsync);
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        checkDocuments(documents);
+        return EmbeddingMatrix.concat(executor.execute(documents,
+                chunk -> Collections.singletonList(toMatrix(createEmbedding(request(chunk)), chunk.size()))));
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return embedBatch(queries);
+    }
+
+    private List<Embedding> embedChunk(List<String> documents) throws EFException {
+        return toEmbeddings(createEmbedding(request(documents)), documents.size());
+    }
+
+    private CompletableFuture<List<Embedding>> embedChunkAsync(List<String> documents) {
+        return createEmbeddingAsync(request(documents)).thenApply(response -> toEmbeddings(response, documents.size()));
+    }
+
+    private CreateEmbeddingRequest request(List<String> texts) {
+        return new CreateEmbeddingRequest()
+                .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
+                .input(texts.toArray(new String[0]));
+    }
+
+    private List<Embedding> toEmbeddings(CreateEmbeddingResponse response, int expected) {
+        return toVectors(response, expected).stream().map(Embedding::fromArray).collect(Collectors.toList());
+    }
+
+    private List<float[]> toVectors(CreateEmbeddingResponse response, int expected) {
+        List<float[]> result = response.getVectors();
+        if (result.size() != expected) {
+            throw wrongCount(expected, result.size());
+        }
+        return result;
+    }
+
+    private EmbeddingMatrix toMatrix(CreateEmbeddingResponse response, int expected) {
+        EmbeddingMatrix result = response.matrix();
+        if (result == null || result.rows() != expected) {
+            throw wrongCount(expected, result == null ? 0 : result.rows());
+        }
+        return result;
+    }
+
+    private ChromaException wrongCount(int expected, int actual) {
+        return new ChromaException(
+            "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+            + "expected " + expected + " embeddings, got " + actual
+        );
+    }
+
+    private void checkQuery(String query) {
         if (query == null) {
             throw new ChromaException(
                 "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): query must not be null");
         }
-        CreateEmbeddingResponse response = createEmbedding(
-                new CreateEmbeddingRequest()
-                        .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
-                        .input(new String[]{query})
-        );
-        return new Embedding(response.getEmbeddings().get(0));
     }
 
-    @Override
-    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+    private void checkDocuments(List<String> documents) {
         if (documents == null) {
             throw new ChromaException(
                 "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be null"
@@ -93,19 +181,6 @@ public class OllamaEmbeddingFunction implements EmbeddingFunction {
                 "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be empty"
             );
         }
-        CreateEmbeddingResponse response = createEmbedding(
-                new CreateEmbeddingRequest()
-                        .model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString())
-                        .input(documents.toArray(new String[0]))
-        );
-        List<Embedding> result = response.getEmbeddings().stream().map(Embedding::new).collect(Collectors.toList());
-        if (result.size() != documents.size()) {
-            throw new ChromaException(
-                "Ollama embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                + "expected " + documents.size() + " embeddings, got " + result.size()
-            );
-        }
-        return result;
     }
 
     @Override
@@ -0,0 +1,26 @@
+package tech.amikos.chromadb.embeddings.ollama;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingFunctionProvider;
+import tech.amikos.chromadb.embeddings.ProviderConfig;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in {@link EmbeddingFunctionProvider} for the {@code ollama} descriptor.
+ */
+public final class OllamaEmbeddingFunctionProvider implements EmbeddingFunctionProvider {
+
+    @Override
+    public List<String> names() {
+        return Collections.singletonList("ollama");
+    }
+
+    @Override
+    public EmbeddingFunction create(Map<String, Object> config) throws EFException {
+        return new OllamaEmbeddingFunction(ProviderConfig.toArray(ProviderConfig.commonParams(config, null)));
+    }
+}
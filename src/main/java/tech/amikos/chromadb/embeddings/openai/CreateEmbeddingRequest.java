@@ -52,6 +52,12 @@ public class CreateEmbeddingRequest {
     @SerializedName("input")
     private Input input;
 
+    @SerializedName("encoding_format")
+    private String encodingFormat;
+
+    @SerializedName("dimensions")
+    private Integer dimensions;
+
     public CreateEmbeddingRequest() {
     }
 
@@ -86,6 +92,32 @@ public class CreateEmbeddingRequest {
         return input;
     }
 
+    /**
+     * Sets the response vector encoding: {@code "float"} or {@code "base64"}. Omitted when null,
+     * in which case the API returns floats.
+     */
+    public CreateEmbeddingRequest encodingFormat(String encodingFormat) {
+        this.encodingFormat = encodingFormat;
+        return this;
+    }
+
+    public String getEncodingFormat() {
+        return encodingFormat;
+    }
+
+    /**
+     * Sets the number of output dimensions ({@code text-embedding-3-*} models only). Omitted when null,
+     * in which case the model's native dimension is returned.
+     */
+    public CreateEmbeddingRequest dimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+        return this;
+    }
+
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
     public String getUser() {
         return user;
     }
@@ -103,6 +135,12 @@ public class CreateEmbeddingRequest {
             jsonObject.addProperty("user", req.getUser());
             JsonElement input = context.serialize(req.getInput().serialize());
             jsonObject.add("input", input);
+            if (req.getEncodingFormat() != null) {
+                jsonObject.addProperty("encoding_format", req.getEncodingFormat());
+            }
+            if (req.getDimensions() != null) {
+                jsonObject.addProperty("dimensions", req.getDimensions());
+            }
             return jsonObject;
         }
     }
@@ -2,7 +2,12 @@ package tech.amikos.chromadb.embeddings.openai;
 
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import tech.amikos.chromadb.embeddings.EmbeddingJson;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class CreateEmbeddingResponse {
@@ -19,10 +24,30 @@ public class CreateEmbeddingResponse {
     @SerializedName("usage")
     private Usage usage;
 
+    private transient EmbeddingMatrix matrix;
+
     public List<EmbeddingData> getData() {
         return data;
     }
 
+    /**
+     * Returns the embeddings of {@link #getData()}, in order, as one row-major matrix.
+     */
+    EmbeddingMatrix matrix() {
+        if (matrix == null && data != null) {
+            List<float[]> vectors = new ArrayList<float[]>(data.size());
+            for (EmbeddingData item : data) {
+                vectors.add(item.getVector());
+            }
+            matrix = EmbeddingMatrix.fromRows(vectors);
+        }
+        return matrix;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
     public static class EmbeddingData {
         @SerializedName("object")
         private String object;
@@ -33,11 +58,92 @@ public class CreateEmbeddingResponse {
         @SerializedName("embedding")
         private List<Float> embedding;
 
+        private transient float[] vector;
+
+        private transient EmbeddingMatrix matrix;
+
+        private transient int row;
+
+        public int getIndex() {
+            return index;
+        }
+
         public List<Float> getEmbedding() {
+            if (embedding == null && vector != null) {
+                embedding = EmbeddingJson.toList(vector);
+            }
             return embedding;
         }
+
+        /**
+         * Returns the embedding as a primitive array, decoded from either the float or base64 encoding.
+         */
+        public float[] getVector() {
+            if (vector == null && matrix != null) {
+                vector = matrix.row(row);
+            } else if (vector == null && embedding != null) {
+                vector = EmbeddingJson.toArray(embedding);
+            }
+            return vector;
+        }
     }
 
+    /**
+     * Streams a response body, decoding every item's embedding straight into one row-major matrix.
+     * Both the {@code float} and {@code base64} encodings are accepted.
+     */
+    static CreateEmbeddingResponse read(JsonReader in) throws IOException {
+        CreateEmbeddingResponse response = new CreateEmbeddingResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("data".equals(name)) {
+                response.data = new ArrayList<EmbeddingData>();
+                EmbeddingJson.RowBuffer rows = new EmbeddingJson.RowBuffer();
+                in.beginArray();
+                while (in.hasNext()) {
+                    response.data.add(readData(in, rows));
+                }
+                in.endArray();
+                response.matrix = rows.toMatrix();
+                for (EmbeddingData item : response.data) {
+                    item.matrix = response.matrix;
+                }
+            } else if ("object".equals(name)) {
+                response.object = in.nextString();
+            } else if ("model".equals(name)) {
+                response.model = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private static EmbeddingData readData(JsonReader in, EmbeddingJson.RowBuffer rows) throws IOException {
+        EmbeddingData item = new EmbeddingData();
+        item.row = -1;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("embedding".equals(name) && item.row < 0) {
+                item.row = rows.rows();
+                rows.readRow(in);
+            } else if ("index".equals(name)) {
+                item.index = in.nextInt();
+            } else if ("object".equals(name)) {
+                item.object = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        if (item.row < 0) {
+            throw new IllegalArgumentException("embedding missing at index " + rows.rows());
+        }
+        return item;
+    }
 
     @Override
     public String toString() {
@@ -1,35 +1,42 @@
 package tech.amikos.chromadb.embeddings.openai;
 
-import com.google.gson.Gson;
-import okhttp3.OkHttpClient;
+import com.google.gson.stream.JsonReader;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import tech.amikos.chromadb.*;
-import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.AsyncEmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
+import tech.amikos.chromadb.embeddings.RemoteEmbeddingExecutor;
 import tech.amikos.chromadb.embeddings.WithParam;
 import tech.amikos.chromadb.v2.ChromaException;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static tech.amikos.chromadb.Constants.JSON;
 
-public class OpenAIEmbeddingFunction implements EmbeddingFunction {
+public class OpenAIEmbeddingFunction implements AsyncEmbeddingFunction {
 
     public static final String DEFAULT_MODEL_NAME = "text-embedding-ada-002";
     public static final String DEFAULT_BASE_API = "https://api.openai.com/v1/embeddings";
     public static final String OPENAI_API_KEY_ENV = "OPENAI_API_KEY";
-    private final OkHttpClient client = new OkHttpClient();
-    private final Gson gson = new Gson();
+    /** Maximum number of inputs the embeddings endpoint accepts per request. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 2048;
+    public static final String ENCODING_FORMAT_CONFIG_KEY = "encodingFormat";
+    public static final String DIMENSIONS_CONFIG_KEY = "dimensions";
+    private final RemoteEmbeddingExecutor executor;
     private final Map<String, Object> configParams = new HashMap<>();
     private static final List<WithParam> defaults = Arrays.asList(
             WithParam.baseAPI(DEFAULT_BASE_API),
-            WithParam.defaultModel(DEFAULT_MODEL_NAME)
+            WithParam.defaultModel(DEFAULT_MODEL_NAME),
+            new WithEncodingFormat(EncodingFormat.BASE64)
     );
 
 
@@ -38,6 +45,7 @@ public class OpenAIEmbeddingFunction implements EmbeddingFunction {
             param.apply(this.configParams);
         }
         WithParam.apiKeyFromEnv(OPENAI_API_KEY_ENV).apply(this.configParams);
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     public OpenAIEmbeddingFunction(WithParam... params) throws EFException {
@@ -49,48 +57,159 @@ public class OpenAIEmbeddingFunction implements EmbeddingFunction {
         for (WithParam param : params) {
             param.apply(this.configParams);
         }
+        this.executor = RemoteEmbeddingExecutor.fromConfig(configParams, DEFAULT_MAX_BATCH_SIZE);
     }
 
     public CreateEmbeddingResponse createEmbedding(CreateEmbeddingRequest req) throws EFException {
-        Request request = new Request.Builder()
+        return executor.call(buildRequest(req), this::readResponse);
+    }
+
+    /**
+     * Asynchronous {@link #createEmbedding(CreateEmbeddingRequest)}.
+     */
+    public CompletableFuture<CreateEmbeddingResponse> createEmbeddingAsync(CreateEmbeddingRequest req) {
+        return executor.callAsync(buildRequest(req), this::readResponse);
+    }
+
+    private Request buildRequest(CreateEmbeddingRequest req) {
+        return new Request.Builder()
                 .url(this.configParams.get(Constants.EF_PARAMS_BASE_API).toString())
-                .post(RequestBody.create(req.json(), JSON))
+                .post(RequestBody.create(withDefaults(req).json(), JSON))
                 .addHeader("Accept", "application/json")
                 .addHeader("Content-Type", "application/json")
                 .addHeader("Authorization", "Bearer " + configParams.get(Constants.EF_PARAMS_API_KEY).toString())
                 .build();
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new ChromaException(
-                    "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                    + response.code() + " " + response.message()
-                );
-            }
+    }
 
-            String responseData = response.body().string();
+    /**
+     * Returns {@code req} with this function's encoding format and dimensions filled in where unset,
+     * copying it rather than changing a request the caller may reuse.
+     */
+    private CreateEmbeddingRequest withDefaults(CreateEmbeddingRequest req) {
+        boolean needsFormat = req.getEncodingFormat() == null;
+        boolean needsDimensions = req.getDimensions() == null && configParams.containsKey(DIMENSIONS_CONFIG_KEY);
+        if (!needsFormat && !needsDimensions) {
+            return req;
+        }
+        return new CreateEmbeddingRequest(req.getModel(), req.getUser())
+                .input(req.getInput())
+                .encodingFormat(needsFormat
+                        ? ((EncodingFormat) configParams.get(ENCODING_FORMAT_CONFIG_KEY)).value
+                        : req.getEncodingFormat())
+                .dimensions(needsDimensions
+                        ? (Integer) configParams.get(DIMENSIONS_CONFIG_KEY)
+                        : req.getDimensions());
+    }
 
-            return gson.fromJson(responseData, CreateEmbeddingResponse.class);
-        } catch (ChromaException e) {
-            throw e;
-        } catch (IOException e) {
-            throw new EFException(e);
+    private CreateEmbeddingResponse readResponse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ChromaException(
+                "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+                + response.code() + " " + response.message()
+            );
+        }
+        try (JsonReader reader = new JsonReader(response.body().charStream())) {
+            return CreateEmbeddingResponse.read(reader);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new ChromaException(
+                "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): malformed response: "
+                + e.getMessage(), e
+            );
         }
     }
 
     @Override
     public Embedding embedQuery(String query) throws EFException {
+        checkQuery(query);
+        executor.admit(Collections.singletonList(query));
+        return new Embedding(createEmbedding(queryRequest(query)).getData().get(0).getVector());
+    }
+
+    @Override
+    public CompletableFuture<Embedding> embedQueryAsync(String query) {
+        checkQuery(query);
+        return executor.admitAsync(Collections.singletonList(query))
+                .thenCompose(v -> createEmbeddingAsync(queryRequest(query)))
+                .thenApply(response -> new Embedding(response.getData().get(0).getVector()));
+    }
+
+    @Override
+    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+        checkDocuments(documents);
+        return executor.execute(documents, this::embedChunk);
+    }
+
+    @Override
+    public CompletableFuture<List<Embedding>> embedDocumentsAsync(List<String> documents) {
+        checkDocuments(documents);
+        return executor.executeAsync(documents, this::embedChunkAsync);
+    }
+
+    @Override
+    public EmbeddingMatrix embedBatch(List<String> documents) throws EFException {
+        checkDocuments(documents);
+        return EmbeddingMatrix.concat(executor.execute(documents,
+                chunk -> Collections.singletonList(toMatrix(createEmbedding(chunkRequest(chunk)), chunk.size()))));
+    }
+
+    @Override
+    public EmbeddingMatrix embedQueryBatch(List<String> queries) throws EFException {
+        return embedBatch(queries);
+    }
+
+    private List<Embedding> embedChunk(List<String> documents) throws EFException {
+        return toEmbeddings(createEmbedding(chunkRequest(documents)), documents.size());
+    }
+
+    private CompletableFuture<List<Embedding>> embedChunkAsync(List<String> documents) {
+        return createEmbeddingAsync(chunkRequest(documents)).thenApply(response -> toEmbeddings(response, documents.size()));
+    }
+
+    private CreateEmbeddingRequest queryRequest(String query) {
+        CreateEmbeddingRequest req = new CreateEmbeddingRequest().model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString());
+        return req.input(new CreateEmbeddingRequest.Input(query));
+    }
+
+    private CreateEmbeddingRequest chunkRequest(List<String> documents) {
+        CreateEmbeddingRequest req = new CreateEmbeddingRequest().model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString());
+        return req.input(new CreateEmbeddingRequest.Input(documents.toArray(new String[0])));
+    }
+
+    private List<Embedding> toEmbeddings(CreateEmbeddingResponse response, int expected) {
+        return toVectors(response, expected).stream().map(Embedding::fromArray).collect(Collectors.toList());
+    }
+
+    private List<float[]> toVectors(CreateEmbeddingResponse response, int expected) {
+        List<float[]> result = response.getData().stream().map(CreateEmbeddingResponse.EmbeddingData::getVector).collect(Collectors.toList());
+        if (result.size() != expected) {
+            throw wrongCount(expected, result.size());
+        }
+        return result;
+    }
+
+    private EmbeddingMatrix toMatrix(CreateEmbeddingResponse response, int expected) {
+        EmbeddingMatrix result = response.matrix();
+        if (result == null || result.rows() != expected) {
+            throw wrongCount(expected, result == null ? 0 : result.rows());
+        }
+        return result;
+    }
+
+    private ChromaException wrongCount(int expected, int actual) {
+        return new ChromaException(
+            "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
+            + "expected " + expected + " embeddings, got " + actual
+        );
+    }
+
+    private void checkQuery(String query) {
         if (query == null) {
             throw new ChromaException(
                 "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): query must not be null");
         }
-        CreateEmbeddingRequest req = new CreateEmbeddingRequest().model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString());
-        req.input(new CreateEmbeddingRequest.Input(query));
-        CreateEmbeddingResponse response = this.createEmbedding(req);
-        return new Embedding(response.getData().get(0).getEmbedding());
     }
 
-    @Override
-    public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+    private void checkDocuments(List<String> documents) {
         if (documents == null) {
             throw new ChromaException(
                 "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be null"
@@ -101,17 +220,6 @@ public class OpenAIEmbeddingFunction implements EmbeddingFunction {
                 "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): documents must not be empty"
             );
         }
-        CreateEmbeddingRequest req = new CreateEmbeddingRequest().model(this.configParams.get(Constants.EF_PARAMS_MODEL).toString());
-        req.input(new CreateEmbeddingRequest.Input(documents.toArray(new String[0])));
-        CreateEmbeddingResponse response = this.createEmbedding(req);
-        List<Embedding> result = response.getData().stream().map(emb -> new Embedding(emb.getEmbedding())).collect(Collectors.toList());
-        if (result.size() != documents.size()) {
-            throw new ChromaException(
-                "OpenAI embedding failed (model: " + configParams.get(Constants.EF_PARAMS_MODEL) + "): "
-                + "expected " + documents.size() + " embeddings, got " + result.size()
-            );
-        }
-        return result;
     }
 
     @Override
@@ -128,4 +236,62 @@ public class OpenAIEmbeddingFunction implements EmbeddingFunction {
     public List<Embedding> embedQueries(String[] queries) throws EFException {
         return embedQueries(Arrays.asList(queries));
     }
+
+    /**
+     * Wire encoding of response vectors. {@link #BASE64} is the default: it is about a quarter of
+     * the size of {@link #FLOAT} and decodes directly into {@code float[]}. Use {@link #FLOAT} for
+     * OpenAI-compatible servers that do not implement {@code encoding_format}.
+     */
+    public enum EncodingFormat {
+        FLOAT("float"),
+        BASE64("base64");
+
+        private final String value;
+
+        EncodingFormat(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public static class WithEncodingFormat extends WithParam {
+        private final EncodingFormat encodingFormat;
+
+        public WithEncodingFormat(EncodingFormat encodingFormat) {
+            this.encodingFormat = encodingFormat;
+        }
+
+        @Override
+        public void apply(Map<String, Object> params) throws EFException {
+            if (encodingFormat == null) {
+                throw new EFException("encodingFormat must not be null");
+            }
+            params.put(ENCODING_FORMAT_CONFIG_KEY, encodingFormat);
+        }
+    }
+
+    /**
+     * Asks the API to shorten embeddings to {@code dimensions} components. Only supported by
+     * {@code text-embedding-3-*} and later models; the server truncates and renormalizes, so less
+     * data crosses the wire than when truncating client-side with
+     * {@link tech.amikos.chromadb.embeddings.TruncatingEmbeddingFunction}.
+     */
+    public static class WithDimensions extends WithParam {
+        private final int dimensions;
+
+        public WithDimensions(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        @Override
+        public void apply(Map<String, Object> params) throws EFException {
+            if (dimensions <= 0) {
+                throw new EFException("dimensions must be > 0, got: " + dimensions);
+            }
+            params.put(DIMENSIONS_CONFIG_KEY, dimensions);
+        }
+    }
 }
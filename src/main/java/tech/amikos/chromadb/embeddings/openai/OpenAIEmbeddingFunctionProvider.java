@@ -0,0 +1,34 @@
+package tech.amikos.chromadb.embeddings.openai;
+
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingFunctionProvider;
+import tech.amikos.chromadb.embeddings.ProviderConfig;
+import tech.amikos.chromadb.embeddings.WithParam;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in {@link EmbeddingFunctionProvider} for the {@code openai} descriptor.
+ */
+public final class OpenAIEmbeddingFunctionProvider implements EmbeddingFunctionProvider {
+
+    @Override
+    public List<String> names() {
+        return Collections.singletonList("openai");
+    }
+
+    @Override
+    public EmbeddingFunction create(Map<String, Object> config) throws EFException {
+        List<WithParam> params = ProviderConfig.commonParams(config, OpenAIEmbeddingFunction.OPENAI_API_KEY_ENV);
+        if (config != null) {
+            Integer dimensions = ProviderConfig.getInteger(config, "dimensions");
+            if (dimensions != null) {
+                params.add(new OpenAIEmbeddingFunction.WithDimensions(dimensions));
+            }
+        }
+        return new OpenAIEmbeddingFunction(ProviderConfig.toArray(params));
+    }
+}
@@ -1,7 +1,5 @@
 package tech.amikos.chromadb.v2;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
@@ -15,6 +13,7 @@ import tech.amikos.chromadb.Constants;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -26,7 +25,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Package-private HTTP transport for the Chroma v2 REST API.
- * Owns the {@link Gson} instance and may own the {@link OkHttpClient} instance.
+ * Encodes and decodes bodies with a {@link JsonCodec} and may own the {@link OkHttpClient} instance.
  * If this client owns the HTTP client, {@link #close()} releases HTTP thread and
  * connection-pool resources; otherwise it leaves externally provided resources intact.
  *
@@ -44,7 +43,7 @@ class ChromaApiClient implements AutoCloseable {
     private final boolean ownsHttpClient;
     private final ChromaLogger logger;
     private final boolean loggingEnabled;
-    private final Gson gson;
+    private final JsonCodec codec;
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
     ChromaApiClient(String baseUrl, AuthProvider authProvider,
@@ -62,6 +61,15 @@ class ChromaApiClient implements AutoCloseable {
                     OkHttpClient httpClient,
                     boolean ownsHttpClient,
                     ChromaLogger logger) {
+        this(baseUrl, authProvider, defaultHeaders, httpClient, ownsHttpClient, logger, null);
+    }
+
+    ChromaApiClient(String baseUrl, AuthProvider authProvider,
+                    Map<String, String> defaultHeaders,
+                    OkHttpClient httpClient,
+                    boolean ownsHttpClient,
+                    ChromaLogger logger,
+                    JsonCodec codec) {
         if (baseUrl == null || baseUrl.trim().isEmpty()) {
             throw new IllegalArgumentException("baseUrl must not be blank");
         }
@@ -78,7 +86,7 @@ class ChromaApiClient implements AutoCloseable {
         this.ownsHttpClient = ownsHttpClient;
         this.logger = logger == null ? ChromaLogger.noop() : logger;
         this.loggingEnabled = !this.logger.isNoop();
-        this.gson = new GsonBuilder().create();
+        this.codec = codec == null ? JsonCodec.gson() : codec;
     }
 
     private static OkHttpClient buildHttpClient(Duration connectTimeout,
@@ -127,6 +135,17 @@ class ChromaApiClient implements AutoCloseable {
         return deserialize(response.body, responseType, response.statusCode);
     }
 
+    /** Posts an already encoded JSON body. */
+    <T> T postJson(String path, byte[] json, Type responseType) {
+        ensureOpen();
+        Request request = newRequest()
+                .url(buildUrl(path))
+                .post(RequestBody.create(json, Constants.JSON))
+                .build();
+        SuccessfulResponse response = execute(request);
+        return deserialize(response.body, responseType, response.statusCode);
+    }
+
     void post(String path, Object body) {
         ensureOpen();
         Request request = newRequest()
@@ -164,8 +183,8 @@ class ChromaApiClient implements AutoCloseable {
         execute(request);
     }
 
-    Gson gson() {
-        return gson;
+    JsonCodec codec() {
+        return codec;
     }
 
     /**
@@ -214,7 +233,7 @@ class ChromaApiClient implements AutoCloseable {
         return url;
     }
 
-    private <T> T deserialize(String body, Type type, int statusCode) {
+    private <T> T deserialize(byte[] body, Type type, int statusCode) {
         if (isBlank(body)) {
             throw new ChromaDeserializationException(
                     "Server returned a successful response (HTTP " + statusCode + ") with an empty response body",
@@ -222,19 +241,21 @@ class ChromaApiClient implements AutoCloseable {
             );
         }
         try {
-            T value = gson.fromJson(body, type);
+            T value = codec.decode(body, type);
             if (value == null) {
                 throw new ChromaDeserializationException(
                         "Server returned a successful response (HTTP " + statusCode + ") with a null deserialized payload. Body: "
-                                + truncateBody(body),
+                                + truncateBody(utf8(body)),
                         statusCode
                 );
             }
             return value;
-        } catch (JsonParseException e) {
+        } catch (ChromaException e) {
+            throw e;
+        } catch (RuntimeException e) {
             throw new ChromaDeserializationException(
                     "Server returned a successful response (HTTP " + statusCode + ") but the body could not be deserialized. Body: "
-                            + truncateBody(body),
+                            + truncateBody(utf8(body)),
                     statusCode,
                     e
             );
@@ -293,8 +314,9 @@ class ChromaApiClient implements AutoCloseable {
         try {
             int statusCode = response.code();
             ResponseBody responseBody = response.body();
-            String bodyString = responseBody != null ? responseBody.string() : null;
+            byte[] bodyBytes = responseBody != null ? responseBody.bytes() : null;
             long elapsedMillis = elapsedMillis(startNanos);
+            String bodyString = statusCode >= 200 && statusCode < 300 ? null : utf8(bodyBytes);
 
             if (statusCode >= 400) {
                 if (loggingEnabled) {
@@ -318,7 +340,7 @@ class ChromaApiClient implements AutoCloseable {
                 safeLog(() -> logger.debug("chroma.http.response",
                         logFields(request, Integer.valueOf(statusCode), Long.valueOf(elapsedMillis))));
             }
-            return new SuccessfulResponse(statusCode, bodyString);
+            return new SuccessfulResponse(statusCode, bodyBytes);
         } catch (ChromaException e) {
             throw e;
         } catch (IOException e) {
@@ -416,7 +438,13 @@ class ChromaApiClient implements AutoCloseable {
         if (body == null) {
             throw new IllegalArgumentException("request body must not be null");
         }
-        return RequestBody.create(gson.toJson(body), Constants.JSON);
+        if (codec instanceof GsonJsonCodec) {
+            RequestBody segmented = SegmentedJsonBody.createOrNull((GsonJsonCodec) codec, body);
+            if (segmented != null) {
+                return segmented;
+            }
+        }
+        return RequestBody.create(codec.encode(body), Constants.JSON);
     }
 
     private void ensureOpen() {
@@ -486,6 +514,23 @@ class ChromaApiClient implements AutoCloseable {
         return s == null || s.trim().isEmpty();
     }
 
+    private static boolean isBlank(byte[] bytes) {
+        if (bytes == null) {
+            return true;
+        }
+        for (byte b : bytes) {
+            // Same rule as String.trim(): ASCII control characters and space.
+            if (b < 0 || b > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String utf8(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
     private String truncateBody(String body) {
         if (body == null) {
             return "<null>";
@@ -508,9 +553,9 @@ class ChromaApiClient implements AutoCloseable {
 
     private static final class SuccessfulResponse {
         private final int statusCode;
-        private final String body;
+        private final byte[] body;
 
-        private SuccessfulResponse(int statusCode, String body) {
+        private SuccessfulResponse(int statusCode, byte[] body) {
             if (statusCode < 200 || statusCode >= 300) {
                 throw new IllegalArgumentException(
                         "SuccessfulResponse requires a 2xx status code, got: " + statusCode
@@ -84,6 +84,10 @@ public final class ChromaClient {
         private Path sslCertPath;
         private boolean insecure;
         private ChromaLogger logger;
+        private JsonCodec jsonCodec;
+        private Integer wirePrecision;
+        private int knownIdFilterExpectedIds;
+        private double knownIdFilterFalsePositiveRate;
 
         Builder() {}
 
@@ -202,6 +206,64 @@ public final class ChromaClient {
             return this;
         }
 
+        /**
+         * Sets the JSON codec used for request and response bodies.
+         *
+         * <p>Defaults to {@link JsonCodec#gson()}. Experimental: see {@link JsonCodec} for the DTO
+         * binding contract a custom codec must follow.</p>
+         */
+        public Builder jsonCodec(JsonCodec jsonCodec) {
+            this.jsonCodec = Objects.requireNonNull(jsonCodec, "jsonCodec");
+            return this;
+        }
+
+        /**
+         * Rounds embedding values to {@code significantDigits} significant decimal digits when
+         * encoding requests, to shrink add, upsert, update and query payloads.
+         *
+         * <p>By default each value is written with the shortest representation that round-trips
+         * to the same {@code float} (up to 9 digits). Rounding is lossy; 6 or 7 digits are usually
+         * below the noise of float32 embedding models. Applies to the default codec only.</p>
+         *
+         * <p>Search requests are not rounded: {@link Knn#queryEmbedding(float[])} vectors, in builder
+         * and prepared searches alike, are always written at full precision.</p>
+         *
+         * @throws IllegalArgumentException if {@code significantDigits} is not between 1 and 9
+         */
+        public Builder wirePrecision(int significantDigits) {
+            if (significantDigits < 1 || significantDigits > JsonFloats.MAX_SIGNIFICANT_DIGITS) {
+                throw new IllegalArgumentException(
+                        "wirePrecision must be between 1 and " + JsonFloats.MAX_SIGNIFICANT_DIGITS
+                );
+            }
+            this.wirePrecision = Integer.valueOf(significantDigits);
+            return this;
+        }
+
+        /**
+         * Keeps a Bloom filter of the IDs this client adds or upserts to each collection it creates
+         * with {@link Client#createCollection(String)}, so {@link Collection#exists(List)} reports IDs
+         * it never wrote as absent without a request.
+         *
+         * <p>Each filter is sized for {@code expectedIds} IDs per collection at the given false-positive
+         * rate (about 1.2 MB for one million IDs at 1%); beyond that, more absent IDs are checked on the
+         * server. Only enable this when this client is the only writer to the collections it creates:
+         * records written by other clients are not seen and would be reported absent. Forks of a
+         * tracked collection inherit its filter; collections this client did not create are always
+         * checked on the server. While any collection is tracked, {@link Client#deleteCollection(String)}
+         * looks the collection up first so its filter is dropped with it.</p>
+         *
+         * @throws IllegalArgumentException if {@code expectedIds <= 0}, {@code falsePositiveRate}
+         *                                  is not between 0 and 1 (exclusive), or the filter would
+         *                                  need more than about 17 GB
+         */
+        public Builder knownIdFilter(int expectedIds, double falsePositiveRate) {
+            IdBloomFilter.validate(expectedIds, falsePositiveRate);
+            this.knownIdFilterExpectedIds = expectedIds;
+            this.knownIdFilterFalsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
         /**
          * Resolves tenant value from an environment variable name.
          *
@@ -239,6 +301,7 @@ public final class ChromaClient {
             String effectiveBaseUrl = baseUrl != null ? baseUrl : DEFAULT_BASE_URL;
             Tenant effectiveTenant = tenant != null ? tenant : Tenant.defaultTenant();
             Database effectiveDatabase = database != null ? database : Database.defaultDatabase();
+            JsonCodec resolvedJsonCodec = resolveJsonCodec();
             OkHttpClient resolvedHttpClient = buildHttpClient();
             boolean ownsHttpClient = httpClient == null;
             ChromaApiClient apiClient = new ChromaApiClient(
@@ -247,8 +310,12 @@ public final class ChromaClient {
                     defaultHeaders,
                     resolvedHttpClient,
                     ownsHttpClient,
-                    logger);
-            return new ChromaClientImpl(apiClient, effectiveTenant, effectiveDatabase);
+                    logger,
+                    resolvedJsonCodec);
+            KnownIdFilters knownIds = knownIdFilterExpectedIds > 0
+                    ? new KnownIdFilters(knownIdFilterExpectedIds, knownIdFilterFalsePositiveRate)
+                    : null;
+            return new ChromaClientImpl(apiClient, effectiveTenant, effectiveDatabase, knownIds);
         }
 
         private Builder configureAuth(AuthProvider provider, String setterName) {
@@ -285,6 +352,16 @@ public final class ChromaClient {
             }
         }
 
+        private JsonCodec resolveJsonCodec() {
+            if (wirePrecision == null) {
+                return jsonCodec;
+            }
+            if (jsonCodec != null) {
+                throw new IllegalStateException("wirePrecision cannot be combined with a custom jsonCodec");
+            }
+            return GsonJsonCodec.withWirePrecision(wirePrecision.intValue());
+        }
+
         private OkHttpClient buildHttpClient() {
             if (httpClient != null) {
                 if (connectTimeout != null || readTimeout != null || writeTimeout != null) {
@@ -510,6 +587,10 @@ public final class ChromaClient {
         private String database;
         private Duration timeout;
         private ChromaLogger logger;
+        private JsonCodec jsonCodec;
+        private Integer wirePrecision;
+        private int knownIdFilterExpectedIds;
+        private double knownIdFilterFalsePositiveRate;
 
         CloudBuilder() {}
 
@@ -550,6 +631,45 @@ public final class ChromaClient {
             return this;
         }
 
+        /**
+         * Sets the JSON codec used for request and response bodies.
+         *
+         * <p>Defaults to {@link JsonCodec#gson()}. Experimental: see {@link JsonCodec} for the DTO
+         * binding contract a custom codec must follow.</p>
+         */
+        public CloudBuilder jsonCodec(JsonCodec jsonCodec) {
+            this.jsonCodec = Objects.requireNonNull(jsonCodec, "jsonCodec");
+            return this;
+        }
+
+        /**
+         * Rounds embedding values to {@code significantDigits} significant decimal digits when
+         * encoding add, upsert, update and query requests; search KNN vectors are not rounded.
+         *
+         * @see Builder#wirePrecision(int)
+         */
+        public CloudBuilder wirePrecision(int significantDigits) {
+            if (significantDigits < 1 || significantDigits > JsonFloats.MAX_SIGNIFICANT_DIGITS) {
+                throw new IllegalArgumentException(
+                        "wirePrecision must be between 1 and " + JsonFloats.MAX_SIGNIFICANT_DIGITS
+                );
+            }
+            this.wirePrecision = Integer.valueOf(significantDigits);
+            return this;
+        }
+
+        /**
+         * Keeps a Bloom filter of the IDs this client writes to each collection it creates.
+         *
+         * @see Builder#knownIdFilter(int, double)
+         */
+        public CloudBuilder knownIdFilter(int expectedIds, double falsePositiveRate) {
+            IdBloomFilter.validate(expectedIds, falsePositiveRate);
+            this.knownIdFilterExpectedIds = expectedIds;
+            this.knownIdFilterFalsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
         public Client build() {
             validateAuthConfiguration();
             if (authProvider == null) {
@@ -572,6 +692,15 @@ public final class ChromaClient {
             if (logger != null) {
                 delegate.logger(logger);
             }
+            if (jsonCodec != null) {
+                delegate.jsonCodec(jsonCodec);
+            }
+            if (wirePrecision != null) {
+                delegate.wirePrecision(wirePrecision.intValue());
+            }
+            if (knownIdFilterExpectedIds > 0) {
+                delegate.knownIdFilter(knownIdFilterExpectedIds, knownIdFilterFalsePositiveRate);
+            }
             return delegate.build();
         }
 
@@ -626,9 +755,11 @@ public final class ChromaClient {
 
         private final ChromaApiClient apiClient;
         private final AtomicReference<SessionContext> sessionContext;
+        private final KnownIdFilters knownIds;
 
-        ChromaClientImpl(ChromaApiClient apiClient, Tenant tenant, Database database) {
+        ChromaClientImpl(ChromaApiClient apiClient, Tenant tenant, Database database, KnownIdFilters knownIds) {
             this.apiClient = Objects.requireNonNull(apiClient, "apiClient");
+            this.knownIds = knownIds;
             this.sessionContext = new AtomicReference<SessionContext>(new SessionContext(
                     Objects.requireNonNull(tenant, "tenant"),
                     Objects.requireNonNull(database, "database")));
@@ -823,7 +954,8 @@ public final class ChromaClient {
                     apiClient,
                     context.tenant,
                     context.database,
-                    embeddingFunction
+                    embeddingFunction,
+                    knownIds
             );
         }
 
@@ -869,10 +1001,20 @@ public final class ChromaClient {
         public void deleteCollection(String name) {
             String collectionName = requireNonBlank("name", name);
             SessionContext context = sessionContext.get();
-            apiClient.delete(ChromaApiPaths.collectionByName(
+            String path = ChromaApiPaths.collectionByName(
                     context.tenant.getName(),
                     context.database.getName(),
-                    collectionName));
+                    collectionName);
+            // Deletes are by name, so look up the ID first to drop the collection's known-ID filter.
+            String collectionId = null;
+            if (knownIds != null && !knownIds.isEmpty()) {
+                ChromaDtos.CollectionResponse dto = apiClient.get(path, ChromaDtos.CollectionResponse.class);
+                collectionId = dto != null ? dto.id : null;
+            }
+            apiClient.delete(path);
+            if (collectionId != null) {
+                knownIds.unregister(collectionId);
+            }
         }
 
         @Override
@@ -903,12 +1045,17 @@ public final class ChromaClient {
                             ChromaDtos.toSchemaMap(schema),
                             getOrCreate),
                     ChromaDtos.CollectionResponse.class);
+            if (knownIds != null && !getOrCreate && dto != null && dto.id != null) {
+                // A collection created by this request is empty, so every later ID is seen here.
+                knownIds.registerNew(dto.id);
+            }
             return ChromaHttpCollection.from(
                     dto,
                     apiClient,
                     context.tenant,
                     context.database,
-                    embeddingFunction
+                    embeddingFunction,
+                    knownIds
             );
         }
 
@@ -928,7 +1075,7 @@ public final class ChromaClient {
                             200
                     );
                 }
-                result.add(ChromaHttpCollection.from(dto, apiClient, context.tenant, context.database, null));
+                result.add(ChromaHttpCollection.from(dto, apiClient, context.tenant, context.database, null, knownIds));
             }
             return result;
         }
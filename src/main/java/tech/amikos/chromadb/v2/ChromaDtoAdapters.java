@@ -0,0 +1,739 @@
+package tech.amikos.chromadb.v2;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming Gson adapters for the record-carrying DTOs in {@link ChromaDtos}.
+ *
+ * <p>Embeddings are written from and read into {@code float[]} rows directly, without reflection or
+ * boxing. The wire format matches reflective Gson binding of the same fields: {@code null} fields
+ * are omitted, unknown response fields are skipped, and metadata and filter maps are handled by
+ * Gson's own {@code Map<String, Object>} adapter.</p>
+ *
+ * <p>Float text goes through {@link JsonFloats}: each embedding row is formatted into one buffer and
+ * written as a single raw JSON value, and numeric response arrays skip {@code Double.parseDouble}
+ * whenever Clinger's fast path applies.</p>
+ */
+final class ChromaDtoAdapters implements TypeAdapterFactory {
+
+    static final ChromaDtoAdapters FACTORY = new ChromaDtoAdapters(0);
+
+    private static final TypeToken<Map<String, Object>> MAP_TYPE = new TypeToken<Map<String, Object>>() {};
+
+    private final int wirePrecision;
+
+    /**
+     * @param wirePrecision significant digits written per embedding value, or {@code 0} for the
+     *                      shortest round-trip representation
+     */
+    ChromaDtoAdapters(int wirePrecision) {
+        if (wirePrecision < 0 || wirePrecision > JsonFloats.MAX_SIGNIFICANT_DIGITS) {
+            throw new IllegalArgumentException(
+                    "wirePrecision must be 0 (shortest) or between 1 and " + JsonFloats.MAX_SIGNIFICANT_DIGITS
+            );
+        }
+        this.wirePrecision = wirePrecision;
+    }
+
+    /** Significant digits written per embedding value, or {@code 0} for the shortest form. */
+    int wirePrecision() {
+        return wirePrecision;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == ChromaDtos.AddRequest.class) {
+            return (TypeAdapter<T>) new AddRequestAdapter(
+                    reflective(gson, ChromaDtos.AddRequest.class), gson.getAdapter(MAP_TYPE), wirePrecision);
+        }
+        if (raw == ChromaDtos.UpsertRequest.class) {
+            return (TypeAdapter<T>) new UpsertRequestAdapter(
+                    reflective(gson, ChromaDtos.UpsertRequest.class), gson.getAdapter(MAP_TYPE), wirePrecision);
+        }
+        if (raw == ChromaDtos.UpdateRequest.class) {
+            return (TypeAdapter<T>) new UpdateRequestAdapter(
+                    reflective(gson, ChromaDtos.UpdateRequest.class), gson.getAdapter(MAP_TYPE), wirePrecision);
+        }
+        if (raw == ChromaDtos.QueryRequest.class) {
+            return (TypeAdapter<T>) new QueryRequestAdapter(
+                    reflective(gson, ChromaDtos.QueryRequest.class), gson.getAdapter(MAP_TYPE), wirePrecision);
+        }
+        if (type.equals(MAP_TYPE)) {
+            return (TypeAdapter<T>) new MemoizingMapAdapter(gson, gson.getDelegateAdapter(this, MAP_TYPE));
+        }
+        if (raw == MemoizedJsonMap.class) {
+            return (TypeAdapter<T>) new MemoizedJsonMapAdapter(gson.getAdapter(MAP_TYPE));
+        }
+        if (raw == ChromaDtos.GetResponse.class) {
+            return (TypeAdapter<T>) new GetResponseAdapter(
+                    reflective(gson, ChromaDtos.GetResponse.class), gson.getAdapter(MAP_TYPE));
+        }
+        if (raw == ChromaDtos.QueryResponse.class) {
+            return (TypeAdapter<T>) new QueryResponseAdapter(
+                    reflective(gson, ChromaDtos.QueryResponse.class), gson.getAdapter(MAP_TYPE));
+        }
+        if (raw == ChromaDtos.SearchResponse.class) {
+            return (TypeAdapter<T>) new SearchResponseAdapter(
+                    reflective(gson, ChromaDtos.SearchResponse.class), gson.getAdapter(MAP_TYPE));
+        }
+        return null;
+    }
+
+    /** Gson's reflective adapter for {@code type}, which handles the direction a DTO adapter skips. */
+    private <T> TypeAdapter<T> reflective(Gson gson, Class<T> type) {
+        return gson.getDelegateAdapter(this, TypeToken.get(type));
+    }
+
+    // --- Requests ---
+
+    private static final class AddRequestAdapter extends WriteOnlyAdapter<ChromaDtos.AddRequest> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+        private final int wirePrecision;
+
+        AddRequestAdapter(TypeAdapter<ChromaDtos.AddRequest> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter, int wirePrecision) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+            this.wirePrecision = wirePrecision;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChromaDtos.AddRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeStrings(out, "ids", value.ids);
+            writeEmbeddings(out, "embeddings", value.embeddings, wirePrecision);
+            writeStrings(out, "documents", value.documents);
+            writeMaps(out, "metadatas", value.metadatas, mapAdapter);
+            writeStrings(out, "uris", value.uris);
+            out.endObject();
+        }
+    }
+
+    private static final class UpsertRequestAdapter extends WriteOnlyAdapter<ChromaDtos.UpsertRequest> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+        private final int wirePrecision;
+
+        UpsertRequestAdapter(TypeAdapter<ChromaDtos.UpsertRequest> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter, int wirePrecision) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+            this.wirePrecision = wirePrecision;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChromaDtos.UpsertRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeStrings(out, "ids", value.ids);
+            writeEmbeddings(out, "embeddings", value.embeddings, wirePrecision);
+            writeStrings(out, "documents", value.documents);
+            writeMaps(out, "metadatas", value.metadatas, mapAdapter);
+            writeStrings(out, "uris", value.uris);
+            out.endObject();
+        }
+    }
+
+    private static final class UpdateRequestAdapter extends WriteOnlyAdapter<ChromaDtos.UpdateRequest> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+        private final int wirePrecision;
+
+        UpdateRequestAdapter(TypeAdapter<ChromaDtos.UpdateRequest> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter, int wirePrecision) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+            this.wirePrecision = wirePrecision;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChromaDtos.UpdateRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeStrings(out, "ids", value.ids);
+            writeEmbeddings(out, "embeddings", value.embeddings, wirePrecision);
+            writeStrings(out, "documents", value.documents);
+            writeMaps(out, "metadatas", value.metadatas, mapAdapter);
+            out.endObject();
+        }
+    }
+
+    private static final class QueryRequestAdapter extends WriteOnlyAdapter<ChromaDtos.QueryRequest> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+        private final int wirePrecision;
+
+        QueryRequestAdapter(TypeAdapter<ChromaDtos.QueryRequest> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter, int wirePrecision) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+            this.wirePrecision = wirePrecision;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChromaDtos.QueryRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeEmbeddings(out, "query_embeddings", value.queryEmbeddings, wirePrecision);
+            out.name("n_results").value(value.nResults);
+            if (value.where != null) {
+                mapAdapter.write(out.name("where"), value.where);
+            }
+            if (value.whereDocument != null) {
+                mapAdapter.write(out.name("where_document"), value.whereDocument);
+            }
+            writeStrings(out, "include", value.include);
+            out.endObject();
+        }
+    }
+
+    /**
+     * Adapter for {@code Map<String, Object>} that writes a {@link MemoizedJsonMap} from its cached
+     * JSON, serializing and caching it on first use. Plain maps and all reads go to Gson's own map
+     * adapter. Covers request fields and DTO adapters declared as maps; memoized maps nested in
+     * map or list values reach {@link MemoizedJsonMapAdapter} through Gson's runtime-type lookup.
+     */
+    private static final class MemoizingMapAdapter extends TypeAdapter<Map<String, Object>> {
+        private final Gson gson;
+        private final TypeAdapter<Map<String, Object>> delegate;
+
+        MemoizingMapAdapter(Gson gson, TypeAdapter<Map<String, Object>> delegate) {
+            this.gson = gson;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, Map<String, Object> value) throws IOException {
+            if (value instanceof MemoizedJsonMap) {
+                out.jsonValue(json((MemoizedJsonMap) value));
+            } else {
+                delegate.write(out, value);
+            }
+        }
+
+        @Override
+        public Map<String, Object> read(JsonReader in) throws IOException {
+            return delegate.read(in);
+        }
+
+        private String json(MemoizedJsonMap value) throws IOException {
+            String json = value.cachedJson();
+            if (json == null) {
+                StringWriter buffer = new StringWriter();
+                JsonWriter writer = gson.newJsonWriter(buffer);
+                delegate.write(writer, value.unwrap());
+                writer.flush();
+                json = buffer.toString();
+                value.cacheJson(json);
+            }
+            return json;
+        }
+    }
+
+    private static final class MemoizedJsonMapAdapter extends TypeAdapter<MemoizedJsonMap> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+
+        MemoizedJsonMapAdapter(TypeAdapter<Map<String, Object>> mapAdapter) {
+            this.mapAdapter = mapAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, MemoizedJsonMap value) throws IOException {
+            mapAdapter.write(out, value);
+        }
+
+        @Override
+        public MemoizedJsonMap read(JsonReader in) throws IOException {
+            Map<String, Object> map = mapAdapter.read(in);
+            return map == null ? null : (MemoizedJsonMap) MemoizedJsonMap.of(map);
+        }
+    }
+
+    // --- Responses ---
+
+    private static final class GetResponseAdapter extends ReadOnlyAdapter<ChromaDtos.GetResponse> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+
+        GetResponseAdapter(TypeAdapter<ChromaDtos.GetResponse> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+        }
+
+        @Override
+        public ChromaDtos.GetResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChromaDtos.GetResponse dto = new ChromaDtos.GetResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("ids".equals(name)) {
+                    dto.ids = readStrings(in);
+                } else if ("documents".equals(name)) {
+                    dto.documents = readStrings(in);
+                } else if ("metadatas".equals(name)) {
+                    dto.metadatas = readMaps(in, mapAdapter);
+                } else if ("embeddings".equals(name)) {
+                    dto.embeddings = readEmbeddings(in);
+                } else if ("uris".equals(name)) {
+                    dto.uris = readStrings(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+    }
+
+    private static final class QueryResponseAdapter extends ReadOnlyAdapter<ChromaDtos.QueryResponse> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+
+        QueryResponseAdapter(TypeAdapter<ChromaDtos.QueryResponse> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+        }
+
+        @Override
+        public ChromaDtos.QueryResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChromaDtos.QueryResponse dto = new ChromaDtos.QueryResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("ids".equals(name)) {
+                    dto.ids = readStringLists(in);
+                } else if ("documents".equals(name)) {
+                    dto.documents = readStringLists(in);
+                } else if ("metadatas".equals(name)) {
+                    dto.metadatas = readMapLists(in, mapAdapter);
+                } else if ("embeddings".equals(name)) {
+                    dto.embeddings = readEmbeddingLists(in);
+                } else if ("distances".equals(name)) {
+                    dto.distances = readFloatObjectLists(in);
+                } else if ("uris".equals(name)) {
+                    dto.uris = readStringLists(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+    }
+
+    private static final class SearchResponseAdapter extends ReadOnlyAdapter<ChromaDtos.SearchResponse> {
+        private final TypeAdapter<Map<String, Object>> mapAdapter;
+
+        SearchResponseAdapter(TypeAdapter<ChromaDtos.SearchResponse> reflective,
+                TypeAdapter<Map<String, Object>> mapAdapter) {
+            super(reflective);
+            this.mapAdapter = mapAdapter;
+        }
+
+        @Override
+        public ChromaDtos.SearchResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChromaDtos.SearchResponse dto = new ChromaDtos.SearchResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("ids".equals(name)) {
+                    dto.ids = readStringLists(in);
+                } else if ("documents".equals(name)) {
+                    dto.documents = readStringLists(in);
+                } else if ("metadatas".equals(name)) {
+                    dto.metadatas = readMapLists(in, mapAdapter);
+                } else if ("embeddings".equals(name)) {
+                    dto.embeddings = readEmbeddingLists(in);
+                } else if ("scores".equals(name)) {
+                    dto.scores = readDoubleObjectLists(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+    }
+
+    /** Streams writes; reads, which the client never does for requests, bind reflectively. */
+    private abstract static class WriteOnlyAdapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> reflective;
+
+        WriteOnlyAdapter(TypeAdapter<T> reflective) {
+            this.reflective = reflective;
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return reflective.read(in);
+        }
+    }
+
+    /** Streams reads; writes, which the client never does for responses, bind reflectively. */
+    private abstract static class ReadOnlyAdapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> reflective;
+
+        ReadOnlyAdapter(TypeAdapter<T> reflective) {
+            this.reflective = reflective;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            reflective.write(out, value);
+        }
+    }
+
+    /**
+     * Writes elements {@code [from, to)} of one record field of an add or upsert request as a JSON
+     * array, exactly as the request adapters write them. {@code field} is the wire name:
+     * {@code ids}, {@code embeddings}, {@code documents}, {@code metadatas} or {@code uris}.
+     */
+    @SuppressWarnings("unchecked")
+    void writeRecordSlice(Gson gson, JsonWriter out, String field, List<?> values, int from, int to)
+            throws IOException {
+        out.beginArray();
+        if ("embeddings".equals(field)) {
+            writeEmbeddingElements(out, (List<float[]>) values, from, to, wirePrecision);
+        } else if ("metadatas".equals(field)) {
+            writeMapElements(out, (List<Map<String, Object>>) values, from, to, gson.getAdapter(MAP_TYPE));
+        } else {
+            writeStringElements(out, (List<String>) values, from, to);
+        }
+        out.endArray();
+    }
+
+    // --- Writing ---
+
+    private static void writeStrings(JsonWriter out, String name, List<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        writeStringElements(out, values, 0, values.size());
+        out.endArray();
+    }
+
+    private static void writeStringElements(JsonWriter out, List<String> values, int from, int to)
+            throws IOException {
+        for (int i = from; i < to; i++) {
+            out.value(values.get(i));
+        }
+    }
+
+    private static void writeMaps(JsonWriter out, String name, List<Map<String, Object>> values,
+                TypeAdapter<Map<String, Object>> mapAdapter) throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        writeMapElements(out, values, 0, values.size(), mapAdapter);
+        out.endArray();
+    }
+
+    private static void writeMapElements(JsonWriter out, List<Map<String, Object>> values, int from, int to,
+                TypeAdapter<Map<String, Object>> mapAdapter) throws IOException {
+        for (int i = from; i < to; i++) {
+            mapAdapter.write(out, values.get(i));
+        }
+    }
+
+    private static void writeEmbeddings(JsonWriter out, String name, List<float[]> rows,
+                                        int wirePrecision) throws IOException {
+        if (rows == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        writeEmbeddingElements(out, rows, 0, rows.size(), wirePrecision);
+        out.endArray();
+    }
+
+    private static void writeEmbeddingElements(JsonWriter out, List<float[]> rows, int from, int to,
+                                               int wirePrecision) throws IOException {
+        StringBuilder row = new StringBuilder(256);
+        for (int i = from; i < to; i++) {
+            row.setLength(0);
+            if (appendEmbeddingRow(row, rows, i, wirePrecision)) {
+                out.jsonValue(row.toString());
+            } else {
+                out.nullValue();
+            }
+        }
+    }
+
+    /**
+     * Appends row {@code index} of {@code rows} like {@link #appendEmbeddingRow(StringBuilder, float[], int)},
+     * formatting {@link EmbeddingRows} straight from the matrix's backing array.
+     *
+     * @return {@code false}, appending nothing, if the row is {@code null}
+     */
+    static boolean appendEmbeddingRow(StringBuilder row, List<float[]> rows, int index, int wirePrecision) {
+        if (rows instanceof EmbeddingRows) {
+            EmbeddingMatrix matrix = ((EmbeddingRows) rows).matrix();
+            int dimension = matrix.getDimension();
+            appendEmbeddingRow(row, matrix.data(), index * dimension, dimension, wirePrecision);
+            return true;
+        }
+        float[] values = rows.get(index);
+        if (values == null) {
+            return false;
+        }
+        appendEmbeddingRow(row, values, 0, values.length, wirePrecision);
+        return true;
+    }
+
+    /** Appends {@code values} as a JSON array of numbers, as the request adapters write each row. */
+    static void appendEmbeddingRow(StringBuilder row, float[] values, int wirePrecision) {
+        appendEmbeddingRow(row, values, 0, values.length, wirePrecision);
+    }
+
+    private static void appendEmbeddingRow(StringBuilder row, float[] values, int offset, int length,
+                                           int wirePrecision) {
+        row.append('[');
+        for (int j = 0; j < length; j++) {
+            float value = values[offset + j];
+            if (Float.isNaN(value) || Float.isInfinite(value)) {
+                // Same failure as Gson's reflective float adapter.
+                throw new IllegalArgumentException(value
+                        + " is not a valid double value as per JSON specification. To override this"
+                        + " behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+            }
+            if (j > 0) {
+                row.append(',');
+            }
+            JsonFloats.append(row, value, wirePrecision);
+        }
+        row.append(']');
+    }
+
+    // --- Reading ---
+
+    private static boolean consumeNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    /** Reads a string the way Gson's {@code String} adapter does, accepting numbers and booleans. */
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<String> values = new ArrayList<String>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<List<String>> readStringLists(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<List<String>> values = new ArrayList<List<String>>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readStrings(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<Map<String, Object>> readMaps(JsonReader in,
+                TypeAdapter<Map<String, Object>> mapAdapter) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<Map<String, Object>> values = new ArrayList<Map<String, Object>>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(mapAdapter.read(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<List<Map<String, Object>>> readMapLists(JsonReader in,
+                TypeAdapter<Map<String, Object>> mapAdapter)
+            throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<List<Map<String, Object>>> values = new ArrayList<List<Map<String, Object>>>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readMaps(in, mapAdapter));
+        }
+        in.endArray();
+        return values;
+    }
+
+    /**
+     * Reads an array of embedding rows. Each row is first read into an array sized like the previous
+     * row, so rows of a fixed dimension are allocated exactly once.
+     */
+    private static List<float[]> readEmbeddings(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<float[]> rows = new ArrayList<float[]>();
+        int dimensionHint = 16;
+        in.beginArray();
+        while (in.hasNext()) {
+            float[] row = readFloats(in, dimensionHint);
+            if (row != null && row.length > 0) {
+                dimensionHint = row.length;
+            }
+            rows.add(row);
+        }
+        in.endArray();
+        return rows;
+    }
+
+    private static List<List<float[]>> readEmbeddingLists(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<List<float[]>> values = new ArrayList<List<float[]>>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readEmbeddings(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static float[] readFloats(JsonReader in, int capacity) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        float[] values = new float[capacity];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                throw new ChromaDeserializationException(
+                        "Server returned an embedding vector with a null value at index " + size,
+                        200
+                );
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, size * 2));
+            }
+            values[size++] = (float) readDouble(in);
+        }
+        in.endArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Equivalent to {@link JsonReader#nextDouble()}, with the number text parsed by {@link JsonFloats}.
+     */
+    private static double readDouble(JsonReader in) throws IOException {
+        double value = JsonFloats.parse(in.nextString());
+        if (!in.isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + value + " at path " + in.getPath());
+        }
+        return value;
+    }
+
+    private static List<List<Float>> readFloatObjectLists(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<List<Float>> values = new ArrayList<List<Float>>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (consumeNull(in)) {
+                values.add(null);
+                continue;
+            }
+            List<Float> inner = new ArrayList<Float>();
+            in.beginArray();
+            while (in.hasNext()) {
+                inner.add(consumeNull(in) ? null : Float.valueOf((float) readDouble(in)));
+            }
+            in.endArray();
+            values.add(inner);
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<List<Double>> readDoubleObjectLists(JsonReader in) throws IOException {
+        if (consumeNull(in)) {
+            return null;
+        }
+        List<List<Double>> values = new ArrayList<List<Double>>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (consumeNull(in)) {
+                values.add(null);
+                continue;
+            }
+            List<Double> inner = new ArrayList<Double>();
+            in.beginArray();
+            while (in.hasNext()) {
+                inner.add(consumeNull(in) ? null : Double.valueOf(readDouble(in)));
+            }
+            in.endArray();
+            values.add(inner);
+        }
+        in.endArray();
+        return values;
+    }
+}
@@ -96,12 +96,12 @@ final class ChromaDtos {
 
     static final class AddRequest {
         final List<String> ids;
-        final List<List<Float>> embeddings;
+        final List<float[]> embeddings;
         final List<String> documents;
         final List<Map<String, Object>> metadatas;
         final List<String> uris;
 
-        AddRequest(List<String> ids, List<List<Float>> embeddings,
+        AddRequest(List<String> ids, List<float[]> embeddings,
                    List<String> documents, List<Map<String, Object>> metadatas,
                    List<String> uris) {
             this.ids = ids;
@@ -114,7 +114,7 @@ final class ChromaDtos {
 
     static final class QueryRequest {
         @SerializedName("query_embeddings")
-        final List<List<Float>> queryEmbeddings;
+        final List<float[]> queryEmbeddings;
         @SerializedName("n_results")
         final int nResults;
         final Map<String, Object> where;
@@ -122,7 +122,7 @@ final class ChromaDtos {
         final Map<String, Object> whereDocument;
         final List<String> include;
 
-        QueryRequest(List<List<Float>> queryEmbeddings, int nResults,
+        QueryRequest(List<float[]> queryEmbeddings, int nResults,
                      Map<String, Object> where, Map<String, Object> whereDocument,
                      List<String> include) {
             this.queryEmbeddings = queryEmbeddings;
@@ -156,11 +156,11 @@ final class ChromaDtos {
 
     static final class UpdateRequest {
         final List<String> ids;
-        final List<List<Float>> embeddings;
+        final List<float[]> embeddings;
         final List<String> documents;
         final List<Map<String, Object>> metadatas;
 
-        UpdateRequest(List<String> ids, List<List<Float>> embeddings,
+        UpdateRequest(List<String> ids, List<float[]> embeddings,
                       List<String> documents, List<Map<String, Object>> metadatas) {
             this.ids = ids;
             this.embeddings = embeddings;
@@ -171,12 +171,12 @@ final class ChromaDtos {
 
     static final class UpsertRequest {
         final List<String> ids;
-        final List<List<Float>> embeddings;
+        final List<float[]> embeddings;
         final List<String> documents;
         final List<Map<String, Object>> metadatas;
         final List<String> uris;
 
-        UpsertRequest(List<String> ids, List<List<Float>> embeddings,
+        UpsertRequest(List<String> ids, List<float[]> embeddings,
                       List<String> documents, List<Map<String, Object>> metadatas,
                       List<String> uris) {
             this.ids = ids;
@@ -226,7 +226,7 @@ final class ChromaDtos {
         List<List<String>> ids;
         List<List<String>> documents;
         List<List<Map<String, Object>>> metadatas;
-        List<List<List<Float>>> embeddings;
+        List<List<float[]>> embeddings;
         List<List<Float>> distances;
         List<List<String>> uris;
     }
@@ -235,7 +235,7 @@ final class ChromaDtos {
         List<String> ids;
         List<String> documents;
         List<Map<String, Object>> metadatas;
-        List<List<Float>> embeddings;
+        List<float[]> embeddings;
         List<String> uris;
     }
 
@@ -284,28 +284,6 @@ final class ChromaDtos {
         return array;
     }
 
-    static List<List<Float>> toFloatLists(List<float[]> arrays) {
-        if (arrays == null) {
-            return null;
-        }
-        List<List<Float>> result = new ArrayList<List<Float>>(arrays.size());
-        for (float[] array : arrays) {
-            result.add(toFloatList(array));
-        }
-        return result;
-    }
-
-    static List<float[]> toFloatArrays(List<List<Float>> lists) {
-        if (lists == null) {
-            return null;
-        }
-        List<float[]> result = new ArrayList<float[]>(lists.size());
-        for (List<Float> list : lists) {
-            result.add(toFloatArray(list));
-        }
-        return result;
-    }
-
     static Map<String, Object> toConfigurationMap(CollectionConfiguration config) {
         if (config == null) {
             return null;
@@ -1700,7 +1678,7 @@ final class ChromaDtos {
         List<List<String>> ids;
         List<List<String>> documents;
         List<List<Map<String, Object>>> metadatas;
-        List<List<List<Float>>> embeddings;
+        List<List<float[]>> embeddings;
         List<List<Double>> scores;
     }
 
@@ -1779,7 +1757,7 @@ final class ChromaDtos {
             Map<String, Object> valK = new LinkedHashMap<String, Object>();
             valK.put("$val", (double) rrf.getK());
 
-            Map<String, Object> knnMap = buildKnnRankMap(ranks.get(i).getKnn());
+            Map<String, Object> knnMap = ranks.get(i).getKnn().toRankMap();
 
             // denominator = $sum[$val(k), $knn]
             List<Object> denomTerms = new ArrayList<Object>();
@@ -1821,9 +1799,9 @@ final class ChromaDtos {
 
         // rank — exactly one of knn or rrf must be present (enforced by Search.build())
         if (search.getKnn() != null) {
-            item.put("rank", buildKnnRankMap(search.getKnn()));
+            item.put("rank", search.getKnn().toRankMap());
         } else if (search.getRrf() != null) {
-            item.put("rank", buildRrfRankMap(search.getRrf()));
+            item.put("rank", search.getRrf().toRankMap());
         } else {
             throw new IllegalStateException(
                     "Search item has neither knn nor rrf ranking — this indicates a bug in Search construction");
@@ -1,16 +1,22 @@
 package tech.amikos.chromadb.v2;
 
 import tech.amikos.chromadb.EFException;
-import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
 /**
  * Package-private {@link Collection} implementation backed by HTTP transport.
@@ -24,6 +30,16 @@ final class ChromaHttpCollection implements Collection {
 
     private static final Logger LOG = Logger.getLogger(ChromaHttpCollection.class.getName());
 
+    /** Fields the server returns for get and query requests that send no {@code include}. */
+    private static final List<String> DEFAULT_GET_INCLUDE = Collections.unmodifiableList(Arrays.asList(
+            Include.METADATAS.getValue(), Include.DOCUMENTS.getValue()));
+    private static final List<String> DEFAULT_QUERY_INCLUDE = Collections.unmodifiableList(Arrays.asList(
+            Include.METADATAS.getValue(), Include.DOCUMENTS.getValue(), Include.DISTANCES.getValue()));
+
+    /** Empty {@code query_embeddings} array in an encoded query shape, replaced by prepared queries. */
+    private static final byte[] QUERY_EMBEDDINGS_SLOT = "[]".getBytes(StandardCharsets.UTF_8);
+    private static final int QUERY_EMBEDDINGS_SLOT_START = "{\"query_embeddings\":".length();
+
     private final ChromaApiClient apiClient;
     private final String id;
     private final Tenant tenant;
@@ -38,6 +54,7 @@ final class ChromaHttpCollection implements Collection {
     private volatile tech.amikos.chromadb.embeddings.EmbeddingFunction embeddingFunction;
     private volatile EmbeddingFunctionSpec embeddingFunctionSpec;
     private volatile boolean overrideWarningLogged = false;
+    private final KnownIdFilters knownIds;
 
     private ChromaHttpCollection(ChromaApiClient apiClient, String id, String name,
                                  Tenant tenant, Database database,
@@ -45,7 +62,8 @@ final class ChromaHttpCollection implements Collection {
                                  CollectionConfiguration configuration,
                                  Schema schema,
                                  tech.amikos.chromadb.embeddings.EmbeddingFunction embeddingFunction,
-                                 EmbeddingFunctionSpec embeddingFunctionSpec) {
+                                 EmbeddingFunctionSpec embeddingFunctionSpec,
+                                 KnownIdFilters knownIds) {
         this.apiClient = apiClient;
         this.id = id;
         this.name = name;
@@ -58,12 +76,25 @@ final class ChromaHttpCollection implements Collection {
         this.explicitEmbeddingFunction = embeddingFunction;
         this.embeddingFunction = embeddingFunction;
         this.embeddingFunctionSpec = embeddingFunctionSpec;
+        this.knownIds = knownIds;
     }
 
     static ChromaHttpCollection from(ChromaDtos.CollectionResponse dto,
                                      ChromaApiClient apiClient,
                                      Tenant tenant, Database database,
                                      tech.amikos.chromadb.embeddings.EmbeddingFunction explicitEmbeddingFunction) {
+        return from(dto, apiClient, tenant, database, explicitEmbeddingFunction, null);
+    }
+
+    /**
+     * @param knownIds the client's written-ID filters, or {@code null} when
+     *                 {@link ChromaClient.Builder#knownIdFilter(int, double)} is not enabled
+     */
+    static ChromaHttpCollection from(ChromaDtos.CollectionResponse dto,
+                                     ChromaApiClient apiClient,
+                                     Tenant tenant, Database database,
+                                     tech.amikos.chromadb.embeddings.EmbeddingFunction explicitEmbeddingFunction,
+                                     KnownIdFilters knownIds) {
         if (dto == null) {
             throw new ChromaDeserializationException(
                     "Server returned an empty collection payload",
@@ -102,7 +133,8 @@ final class ChromaHttpCollection implements Collection {
                 parsedConfiguration,
                 effectiveSchema,
                 explicitEmbeddingFunction,
-                effectiveSpec
+                effectiveSpec,
+                knownIds
         );
     }
 
@@ -169,6 +201,59 @@ final class ChromaHttpCollection implements Collection {
         return apiClient.get(path, Integer.class);
     }
 
+    @Override
+    public BitSet exists(List<String> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("ids must not be null");
+        }
+        IdBloomFilter filter = knownIds != null ? knownIds.filter(id) : null;
+        List<String> probe = new ArrayList<String>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String recordId = ids.get(i);
+            if (recordId == null) {
+                throw new IllegalArgumentException("ids[" + i + "] must not be null");
+            }
+            if (filter == null || filter.mightContain(recordId)) {
+                probe.add(recordId);
+            }
+        }
+        BitSet result = new BitSet(ids.size());
+        if (probe.isEmpty()) {
+            return result;
+        }
+        final String path = ChromaApiPaths.collectionGet(tenant.getName(), database.getName(), id);
+        final List<String> noFields = Collections.<String>emptyList();
+        List<ChromaDtos.GetResponse> parts = IdChunker.execute(
+                IdChunker.split(probe, IdChunker.CHUNK_SIZE),
+                chunk -> apiClient.<ChromaDtos.GetResponse>post(path, new ChromaDtos.GetRequest(
+                        chunk, null, null, noFields, null, null
+                ), ChromaDtos.GetResponse.class)
+        );
+        Set<String> found = new HashSet<String>();
+        for (ChromaDtos.GetResponse part : parts) {
+            if (part == null || part.ids == null) {
+                throw new ChromaDeserializationException(
+                        "Server returned get result without required ids field",
+                        200
+                );
+            }
+            found.addAll(part.ids);
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            if (found.contains(ids.get(i))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /** Adds written IDs to this collection's known-ID filter, before the request is sent. */
+    private void recordWrites(List<String> ids) {
+        if (knownIds != null) {
+            knownIds.recordWrites(id, ids);
+        }
+    }
+
     @Override
     public Collection fork(String newName) {
         String normalizedName = requireNonBlankArgument("newName", newName);
@@ -178,7 +263,12 @@ final class ChromaHttpCollection implements Collection {
                 new ChromaDtos.ForkCollectionRequest(normalizedName),
                 ChromaDtos.CollectionResponse.class
         );
-        return ChromaHttpCollection.from(resp, apiClient, tenant, database, explicitEmbeddingFunction);
+        ChromaHttpCollection forked = ChromaHttpCollection.from(
+                resp, apiClient, tenant, database, explicitEmbeddingFunction, knownIds);
+        if (knownIds != null) {
+            knownIds.registerFork(id, forked.getId());
+        }
+        return forked;
     }
 
     @Override
@@ -533,21 +623,12 @@ final class ChromaHttpCollection implements Collection {
 
         @Override
         public void execute() {
-            validateMetadataArrayTypes(metadatas);
-            List<String> resolvedIds = resolveIds(ids, idGenerator, documents, embeddings, metadatas, uris);
-            if (hasExplicitIds(ids)) {
-                checkForDuplicateIds(resolvedIds);
-            }
-            int idsSize = resolvedIds.size();
-            String countLabel = hasExplicitIds(ids) ? "ids size" : "record count";
-            validateSizeMatchesCount("embeddings", embeddings, idsSize, countLabel);
-            validateSizeMatchesCount("documents", documents, idsSize, countLabel);
-            validateSizeMatchesCount("metadatas", metadatas, idsSize, countLabel);
-            validateSizeMatchesCount("uris", uris, idsSize, countLabel);
+            List<String> resolvedIds = resolveWriteBatch(ids, idGenerator, embeddings, documents, metadatas, uris);
+            recordWrites(resolvedIds);
             String path = ChromaApiPaths.collectionAdd(tenant.getName(), database.getName(), id);
             apiClient.post(path, new ChromaDtos.AddRequest(
                     resolvedIds,
-                    ChromaDtos.toFloatLists(embeddings),
+                    embeddings,
                     documents,
                     metadatas,
                     uris
@@ -628,26 +709,72 @@ final class ChromaHttpCollection implements Collection {
 
         @Override
         public void execute() {
-            validateMetadataArrayTypes(metadatas);
-            List<String> resolvedIds = resolveIds(ids, idGenerator, documents, embeddings, metadatas, uris);
-            if (hasExplicitIds(ids)) {
-                checkForDuplicateIds(resolvedIds);
-            }
-            int idsSize = resolvedIds.size();
-            String countLabel = hasExplicitIds(ids) ? "ids size" : "record count";
-            validateSizeMatchesCount("embeddings", embeddings, idsSize, countLabel);
-            validateSizeMatchesCount("documents", documents, idsSize, countLabel);
-            validateSizeMatchesCount("metadatas", metadatas, idsSize, countLabel);
-            validateSizeMatchesCount("uris", uris, idsSize, countLabel);
+            List<String> resolvedIds = resolveWriteBatch(ids, idGenerator, embeddings, documents, metadatas, uris);
+            recordWrites(resolvedIds);
             String path = ChromaApiPaths.collectionUpsert(tenant.getName(), database.getName(), id);
             apiClient.post(path, new ChromaDtos.UpsertRequest(
                     resolvedIds,
-                    ChromaDtos.toFloatLists(embeddings),
+                    embeddings,
                     documents,
                     metadatas,
                     uris
             ));
         }
+
+        @Override
+        public UpsertResult executeChanged(UpsertDigestStore digests) {
+            Objects.requireNonNull(digests, "digests");
+            final List<String> resolvedIds = resolveWriteBatch(
+                    ids, idGenerator, embeddings, documents, metadatas, uris);
+            int count = resolvedIds.size();
+            final long[] keys = new long[count];
+            final long[] values = new long[count];
+            if (count < ContentHashIdGenerator.PARALLEL_THRESHOLD) {
+                for (int i = 0; i < count; i++) {
+                    digestAt(i, resolvedIds, keys, values);
+                }
+            } else {
+                IntStream.range(0, count).parallel().forEach(i -> digestAt(i, resolvedIds, keys, values));
+            }
+            long[] observed = new long[count];
+            int[] changed = digests.changed(keys, values, observed);
+            if (changed.length > 0) {
+                List<String> sentIds = pick(resolvedIds, changed);
+                recordWrites(sentIds);
+                String path = ChromaApiPaths.collectionUpsert(tenant.getName(), database.getName(), id);
+                apiClient.post(path, new ChromaDtos.UpsertRequest(
+                        sentIds,
+                        pick(embeddings, changed),
+                        pick(documents, changed),
+                        pick(metadatas, changed),
+                        pick(uris, changed)
+                ));
+                digests.record(keys, values, observed, changed);
+            }
+            return new UpsertResult(changed.length, count - changed.length);
+        }
+
+        private void digestAt(int index, List<String> resolvedIds, long[] keys, long[] values) {
+            keys[index] = RecordDigest.key(id, resolvedIds.get(index));
+            values[index] = RecordDigest.digest(
+                    documents != null ? documents.get(index) : null,
+                    metadatas != null ? metadatas.get(index) : null,
+                    embeddings != null ? embeddings.get(index) : null,
+                    uris != null ? uris.get(index) : null
+            );
+        }
+    }
+
+    /** Returns the elements of {@code values} at {@code positions}, or {@code values} if all are picked. */
+    private static <T> List<T> pick(List<T> values, int[] positions) {
+        if (values == null || positions.length == values.size()) {
+            return values;
+        }
+        List<T> picked = new ArrayList<T>(positions.length);
+        for (int position : positions) {
+            picked.add(values.get(position));
+        }
+        return picked;
     }
 
     private final class QueryBuilderImpl implements QueryBuilder {
@@ -713,6 +840,8 @@ final class ChromaHttpCollection implements Collection {
 
         @Override
         public QueryResult execute() {
+            Map<String, Object> whereMap = WhereOptimizer.optimize(requireNonNullMap(where, "where"));
+            Map<String, Object> whereDocumentMap = requireNonNullMap(whereDocument, "whereDocument");
             List<float[]> resolvedEmbeddings = queryEmbeddings;
             if ((resolvedEmbeddings == null || resolvedEmbeddings.isEmpty())
                     && queryTexts != null && !queryTexts.isEmpty()) {
@@ -725,25 +854,86 @@ final class ChromaHttpCollection implements Collection {
             if (resolvedEmbeddings == null || resolvedEmbeddings.isEmpty()) {
                 throw new IllegalArgumentException("queryEmbeddings must be provided");
             }
-            Map<String, Object> whereMap = requireNonNullMap(where, "where");
-            Map<String, Object> whereDocumentMap = requireNonNullMap(whereDocument, "whereDocument");
-            List<String> includeValues = null;
-            if (include != null) {
-                includeValues = new ArrayList<String>(include.size());
-                for (Include inc : include) {
-                    includeValues.add(inc.getValue());
-                }
+            if (whereMap == WhereOptimizer.UNSATISFIABLE) {
+                // No record can match. Texts are still embedded so embedding function and dimension
+                // errors surface as they would with a satisfiable filter; only the request is skipped.
+                return emptyQueryResult(resolvedEmbeddings.size(), includeValues(include));
             }
             String path = ChromaApiPaths.collectionQuery(tenant.getName(), database.getName(), id);
             ChromaDtos.QueryResponse dto = apiClient.post(path, new ChromaDtos.QueryRequest(
-                    ChromaDtos.toFloatLists(resolvedEmbeddings),
+                    resolvedEmbeddings,
                     nResults,
                     whereMap,
                     whereDocumentMap,
-                    includeValues
+                    includeValues(include)
             ), ChromaDtos.QueryResponse.class);
             return QueryResultImpl.from(dto);
         }
+
+        @Override
+        public PreparedQuery prepare() {
+            return new PreparedQueryImpl(
+                    nResults,
+                    WhereOptimizer.optimize(requireNonNullMap(where, "where")),
+                    requireNonNullMap(whereDocument, "whereDocument"),
+                    includeValues(include)
+            );
+        }
+    }
+
+    private final class PreparedQueryImpl implements PreparedQuery {
+        private final int nResults;
+        private final Map<String, Object> whereMap;
+        private final Map<String, Object> whereDocumentMap;
+        private final List<String> includeValues;
+        private final RequestTemplate template;
+
+        PreparedQueryImpl(int nResults, Map<String, Object> whereMap, Map<String, Object> whereDocumentMap,
+                          List<String> includeValues) {
+            this.nResults = nResults;
+            this.whereMap = whereMap;
+            this.whereDocumentMap = whereDocumentMap;
+            this.includeValues = includeValues == null ? null : Collections.unmodifiableList(includeValues);
+            this.template = queryTemplate();
+        }
+
+        /** Encodes the query with an empty embeddings slot, or returns null for a custom codec. */
+        private RequestTemplate queryTemplate() {
+            JsonCodec codec = apiClient.codec();
+            if (!(codec instanceof GsonJsonCodec) || whereMap == WhereOptimizer.UNSATISFIABLE) {
+                return null;
+            }
+            byte[] shape = codec.encode(request(Collections.<float[]>emptyList()));
+            return RequestTemplate.at(shape, QUERY_EMBEDDINGS_SLOT_START, QUERY_EMBEDDINGS_SLOT,
+                    ((GsonJsonCodec) codec).adapters().wirePrecision());
+        }
+
+        private ChromaDtos.QueryRequest request(List<float[]> queryEmbeddings) {
+            return new ChromaDtos.QueryRequest(queryEmbeddings, nResults, whereMap, whereDocumentMap, includeValues);
+        }
+
+        @Override
+        public QueryResult execute(float[]... queryEmbeddings) {
+            if (queryEmbeddings == null) {
+                throw new IllegalArgumentException("queryEmbeddings must be provided");
+            }
+            return execute(Arrays.asList(queryEmbeddings));
+        }
+
+        @Override
+        public QueryResult execute(List<float[]> queryEmbeddings) {
+            if (queryEmbeddings == null || queryEmbeddings.isEmpty()) {
+                throw new IllegalArgumentException("queryEmbeddings must be provided");
+            }
+            if (whereMap == WhereOptimizer.UNSATISFIABLE) {
+                return emptyQueryResult(queryEmbeddings.size(), includeValues);
+            }
+            String path = ChromaApiPaths.collectionQuery(tenant.getName(), database.getName(), id);
+            ChromaDtos.QueryResponse dto = template != null
+                    ? apiClient.postJson(path, template.fill(queryEmbeddings), ChromaDtos.QueryResponse.class)
+                    : apiClient.post(path, request(queryEmbeddings), ChromaDtos.QueryResponse.class);
+            return QueryResultImpl.from(dto);
+        }
     }
 
     private final class GetBuilderImpl implements GetBuilder {
@@ -804,19 +994,26 @@ final class ChromaHttpCollection implements Collection {
 
         @Override
         public GetResult execute() {
-            Map<String, Object> whereMap = requireNonNullMap(where, "where");
+            WhereOptimizer.IdScope scope = WhereOptimizer.pushDownIds(ids, requireNonNullMap(where, "where"));
             Map<String, Object> whereDocumentMap = requireNonNullMap(whereDocument, "whereDocument");
-            List<String> includeValues = null;
-            if (include != null) {
-                includeValues = new ArrayList<String>(include.size());
-                for (Include inc : include) {
-                    includeValues.add(inc.getValue());
-                }
+            final List<String> includeValues = includeValues(include);
+            if (scope == null) {
+                return emptyGetResult(includeValues);
+            }
+            final String path = ChromaApiPaths.collectionGet(tenant.getName(), database.getName(), id);
+            if (scope.ids != null && scope.ids.size() > IdChunker.CHUNK_SIZE && limit == null && offset == null) {
+                final Map<String, Object> whereMap = scope.where;
+                List<ChromaDtos.GetResponse> parts = IdChunker.execute(
+                        IdChunker.split(scope.ids, IdChunker.CHUNK_SIZE),
+                        chunk -> apiClient.<ChromaDtos.GetResponse>post(path, new ChromaDtos.GetRequest(
+                                chunk, whereMap, whereDocumentMap, includeValues, null, null
+                        ), ChromaDtos.GetResponse.class)
+                );
+                return GetResultImpl.from(IdChunker.mergeGetResponses(scope.ids, parts));
             }
-            String path = ChromaApiPaths.collectionGet(tenant.getName(), database.getName(), id);
             ChromaDtos.GetResponse dto = apiClient.post(path, new ChromaDtos.GetRequest(
-                    ids,
-                    whereMap,
+                    scope.ids,
+                    scope.where,
                     whereDocumentMap,
                     includeValues,
                     limit,
@@ -887,7 +1084,7 @@ final class ChromaHttpCollection implements Collection {
             String path = ChromaApiPaths.collectionUpdate(tenant.getName(), database.getName(), id);
             apiClient.post(path, new ChromaDtos.UpdateRequest(
                     ids,
-                    ChromaDtos.toFloatLists(embeddings),
+                    embeddings,
                     documents,
                     metadatas
             ));
@@ -931,12 +1128,26 @@ final class ChromaHttpCollection implements Collection {
                         "delete requires at least one criterion: ids, where, or whereDocument"
                 );
             }
-            Map<String, Object> whereMap = requireNonNullMap(where, "where");
+            WhereOptimizer.IdScope scope = WhereOptimizer.pushDownIds(ids, requireNonNullMap(where, "where"));
             Map<String, Object> whereDocumentMap = requireNonNullMap(whereDocument, "whereDocument");
-            String path = ChromaApiPaths.collectionDelete(tenant.getName(), database.getName(), id);
+            if (scope == null) {
+                return; // the filter matches no record
+            }
+            final String path = ChromaApiPaths.collectionDelete(tenant.getName(), database.getName(), id);
+            if (scope.ids != null && scope.ids.size() > IdChunker.CHUNK_SIZE) {
+                final Map<String, Object> whereMap = scope.where;
+                IdChunker.execute(
+                        IdChunker.split(scope.ids, IdChunker.CHUNK_SIZE),
+                        chunk -> {
+                            apiClient.post(path, new ChromaDtos.DeleteRequest(chunk, whereMap, whereDocumentMap));
+                            return null;
+                        }
+                );
+                return;
+            }
             apiClient.post(path, new ChromaDtos.DeleteRequest(
-                    ids,
-                    whereMap,
+                    scope.ids,
+                    scope.where,
                     whereDocumentMap
             ));
         }
@@ -1015,24 +1226,9 @@ final class ChromaHttpCollection implements Collection {
                         "At least one search must be specified via queryText(), queryEmbedding(), or searches()");
             }
 
-            // Build effective search list, applying global limit/offset where search has none
-            List<Search> effectiveSearches = new ArrayList<Search>(searches.size());
+            List<Map<String, Object>> searchItems = new ArrayList<Map<String, Object>>(searches.size());
             for (Search s : searches) {
-                boolean needsLimit = s.getLimit() == null && globalLimit != null;
-                boolean needsOffset = s.getOffset() == null && globalOffset != null;
-                if (needsLimit || needsOffset) {
-                    Search.Builder b = s.toBuilder();
-                    if (needsLimit) b.limit(globalLimit);
-                    if (needsOffset) b.offset(globalOffset);
-                    effectiveSearches.add(b.build());
-                } else {
-                    effectiveSearches.add(s);
-                }
-            }
-
-            List<Map<String, Object>> searchItems = new ArrayList<Map<String, Object>>(effectiveSearches.size());
-            for (Search s : effectiveSearches) {
-                searchItems.add(ChromaDtos.buildSearchItemMap(s, globalFilter));
+                searchItems.add(withGlobalPaging(s).toItemMap(globalFilter));
             }
             String rl = readLevel != null ? readLevel.getValue() : null;
             ChromaDtos.SearchRequest request = new ChromaDtos.SearchRequest(searchItems, rl);
@@ -1041,6 +1237,82 @@ final class ChromaHttpCollection implements Collection {
             ChromaDtos.SearchResponse dto = apiClient.post(path, request, ChromaDtos.SearchResponse.class);
             return SearchResultImpl.from(dto);
         }
+
+        @Override
+        public PreparedSearch prepare() {
+            if (searches == null || searches.size() != 1
+                    || searches.get(0).getKnn() == null
+                    || !(searches.get(0).getKnn().getQuery() instanceof float[])) {
+                throw new IllegalArgumentException(
+                        "prepare() requires exactly one search ranked by Knn.queryEmbedding(...)");
+            }
+            return new PreparedSearchImpl(
+                    withGlobalPaging(searches.get(0)),
+                    globalFilter,
+                    readLevel != null ? readLevel.getValue() : null
+            );
+        }
+
+        /** Applies the global limit/offset to a search that has none of its own. */
+        private Search withGlobalPaging(Search s) {
+            boolean needsLimit = s.getLimit() == null && globalLimit != null;
+            boolean needsOffset = s.getOffset() == null && globalOffset != null;
+            if (!needsLimit && !needsOffset) {
+                return s;
+            }
+            Search.Builder b = s.toBuilder();
+            if (needsLimit) b.limit(globalLimit);
+            if (needsOffset) b.offset(globalOffset);
+            return b.build();
+        }
+    }
+
+    private final class PreparedSearchImpl implements PreparedSearch {
+        private final Search search;
+        private final Where globalFilter;
+        private final String readLevel;
+        private final RequestTemplate template;
+
+        PreparedSearchImpl(Search search, Where globalFilter, String readLevel) {
+            this.search = search;
+            this.globalFilter = globalFilter;
+            this.readLevel = readLevel;
+            this.template = searchTemplate();
+        }
+
+        /**
+         * Encodes the search with a unique placeholder string as the KNN query, or returns null for a
+         * custom codec.
+         */
+        private RequestTemplate searchTemplate() {
+            JsonCodec codec = apiClient.codec();
+            if (!(codec instanceof GsonJsonCodec)) {
+                return null;
+            }
+            String placeholder = "chroma-query-embedding-" + UUID.randomUUID();
+            byte[] shape = codec.encode(request(placeholder));
+            // Full precision, like builder searches: wirePrecision does not apply to Knn vectors.
+            return RequestTemplate.around(shape, ("\"" + placeholder + "\"").getBytes(StandardCharsets.UTF_8), 0);
+        }
+
+        private ChromaDtos.SearchRequest request(Object query) {
+            Search withQuery = search.toBuilder().knn(search.getKnn().withQuery(query)).build();
+            return new ChromaDtos.SearchRequest(
+                    Collections.singletonList(withQuery.toItemMap(globalFilter)), readLevel);
+        }
+
+        @Override
+        public SearchResult execute(float[] queryEmbedding) {
+            if (queryEmbedding == null) {
+                throw new IllegalArgumentException("queryEmbedding must not be null");
+            }
+            String path = ChromaApiPaths.collectionSearch(tenant.getName(), database.getName(), id);
+            ChromaDtos.SearchResponse dto = template != null
+                    ? apiClient.postJson(path, template.fill(queryEmbedding), ChromaDtos.SearchResponse.class)
+                    : apiClient.post(path, request(Arrays.copyOf(queryEmbedding, queryEmbedding.length)),
+                            ChromaDtos.SearchResponse.class);
+            return SearchResultImpl.from(dto);
+        }
     }
 
     private static String requireNonBlankField(String fieldName, String value) {
@@ -1157,6 +1429,22 @@ final class ChromaHttpCollection implements Collection {
         return count.intValue();
     }
 
+    /**
+     * Whether a generator class supplies its own {@link IdGenerator#generateBatch}. Generators that
+     * rely on the per-record default are called record by record so failures report their index.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_GENERATE_BATCH = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("generateBatch", int.class, List.class, List.class)
+                        .getDeclaringClass() != IdGenerator.class;
+            } catch (NoSuchMethodException e) {
+                return Boolean.FALSE;
+            }
+        }
+    };
+
     /**
      * Generates IDs for records using the provided generator, with client-side validation.
      *
@@ -1168,90 +1456,167 @@ final class ChromaHttpCollection implements Collection {
     private static List<String> generateIds(IdGenerator generator, int count,
                                              List<String> documents,
                                              List<Map<String, Object>> metadatas) {
-        List<String> ids = new ArrayList<String>(count);
-        Map<String, List<Integer>> indexesById = new LinkedHashMap<String, List<Integer>>();
-        boolean hasDuplicate = false;
-        for (int i = 0; i < count; i++) {
-            String doc = documents != null ? documents.get(i) : null;
-            Map<String, Object> meta = metadatas != null ? metadatas.get(i) : null;
-            String generated;
+        List<String> ids;
+        if (OVERRIDES_GENERATE_BATCH.get(generator.getClass())) {
             try {
-                generated = generator.generate(doc, meta);
+                ids = generator.generateBatch(count, documents, metadatas);
             } catch (RuntimeException e) {
                 throw new ChromaException(
-                        "IdGenerator threw an exception at record index " + i + ": " + e.toString(),
+                        "IdGenerator threw an exception while generating " + count + " IDs: " + e.toString(),
                         e
                 );
             }
+        } else {
+            ids = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                String doc = documents != null ? documents.get(i) : null;
+                Map<String, Object> meta = metadatas != null ? metadatas.get(i) : null;
+                try {
+                    ids.add(generator.generate(doc, meta));
+                } catch (RuntimeException e) {
+                    throw new ChromaException(
+                            "IdGenerator threw an exception at record index " + i + ": " + e.toString(),
+                            e
+                    );
+                }
+            }
+        }
+        if (ids == null || ids.size() != count) {
+            throw new ChromaException(
+                    "IdGenerator returned " + (ids == null ? "null" : ids.size() + " IDs")
+                            + " for " + count + " records"
+            );
+        }
+        IdSet seen = new IdSet(count);
+        boolean hasDuplicate = false;
+        for (int i = 0; i < count; i++) {
+            String generated = ids.get(i);
             if (generated == null || generated.isEmpty()) {
                 throw new ChromaException(
                         "IdGenerator returned null or empty ID at index " + i
                 );
             }
-            List<Integer> indexes = indexesById.get(generated);
-            if (indexes == null) {
-                indexes = new ArrayList<Integer>();
-                indexesById.put(generated, indexes);
-            } else {
+            if (!seen.add(generated)) {
                 hasDuplicate = true;
             }
-            indexes.add(Integer.valueOf(i));
-            ids.add(generated);
         }
         if (hasDuplicate) {
-            throw new ChromaException(buildDuplicateIdsMessage(indexesById));
+            throw new ChromaException(
+                    "IdGenerator produced duplicate IDs in the same batch: " + describeDuplicateIds(ids)
+            );
         }
         return ids;
     }
 
-    private static String buildDuplicateIdsMessage(Map<String, List<Integer>> indexesById) {
-        List<String> details = new ArrayList<String>(indexesById.size());
-        for (Map.Entry<String, List<Integer>> entry : indexesById.entrySet()) {
-            if (entry.getValue().size() > 1) {
-                details.add("'" + entry.getKey() + "' at indexes " + entry.getValue());
+    /**
+     * Validates an add/upsert batch and returns its record IDs, generating them if needed.
+     *
+     * <p>A single pass over the records type-checks each record's metadata arrays and, for explicit
+     * IDs, inserts its ID into an {@link IdSet}; per-ID position lists are only built once a
+     * duplicate has been seen, to report it. Errors keep the precedence of separate passes: metadata
+     * type errors first (before any ID is generated), then ID resolution errors, then duplicate IDs,
+     * then field size mismatches.</p>
+     *
+     * @throws ChromaBadRequestException if a metadata array is mixed-type or contains nulls
+     * @throws IllegalArgumentException if IDs cannot be resolved or a data field size does not match
+     *                                  the record count
+     * @throws ChromaException if explicit IDs contain duplicates or the generator fails
+     */
+    private static List<String> resolveWriteBatch(List<String> ids, IdGenerator idGenerator,
+                                                  List<float[]> embeddings, List<String> documents,
+                                                  List<Map<String, Object>> metadatas, List<String> uris) {
+        boolean explicitIds = hasExplicitIds(ids);
+        int idCount = explicitIds ? ids.size() : 0;
+        int metadataCount = metadatas == null ? 0 : metadatas.size();
+        IdSet seen = idCount > 1 ? new IdSet(idCount) : null;
+        boolean hasDuplicate = false;
+        for (int i = 0, n = Math.max(idCount, metadataCount); i < n; i++) {
+            if (i < metadataCount) {
+                validateMetadataArrayTypes(metadatas.get(i), i);
+            }
+            if (seen != null && i < idCount && !seen.add(ids.get(i))) {
+                hasDuplicate = true;
             }
         }
-        if (details.isEmpty()) {
-            return "IdGenerator produced duplicate IDs in the same batch";
-        }
-        return "IdGenerator produced duplicate IDs in the same batch: " + String.join(", ", details);
+        List<String> resolvedIds = resolveIds(ids, idGenerator, documents, embeddings, metadatas, uris);
+        if (hasDuplicate) {
+            throw new ChromaException("Duplicate IDs in add/upsert batch: " + describeDuplicateIds(resolvedIds));
+        }
+        int count = resolvedIds.size();
+        String countLabel = explicitIds ? "ids size" : "record count";
+        validateSizeMatchesCount("embeddings", embeddings, count, countLabel);
+        validateSizeMatchesCount("documents", documents, count, countLabel);
+        validateSizeMatchesCount("metadatas", metadatas, count, countLabel);
+        validateSizeMatchesCount("uris", uris, count, countLabel);
+        return resolvedIds;
     }
 
     /**
-     * Checks explicit ID lists for duplicates before sending to server.
-     *
-     * <p>Uses O(n) detection via LinkedHashMap to preserve insertion order for error messages.</p>
-     *
-     * @throws ChromaException if duplicate IDs are found, listing the duplicate values and their indexes
+     * Lists each duplicated ID with the indexes it occurs at, in first-occurrence order.
+     * Only called once a duplicate is known to exist.
      */
-    private static void checkForDuplicateIds(List<String> ids) {
-        if (ids == null || ids.size() < 2) {
-            return;
-        }
+    private static String describeDuplicateIds(List<String> ids) {
         Map<String, List<Integer>> indexesById = new LinkedHashMap<String, List<Integer>>();
-        boolean hasDuplicate = false;
         for (int i = 0; i < ids.size(); i++) {
             String id = ids.get(i);
             List<Integer> indexes = indexesById.get(id);
             if (indexes == null) {
-                indexes = new ArrayList<Integer>();
+                indexes = new ArrayList<Integer>(2);
                 indexesById.put(id, indexes);
-            } else {
-                hasDuplicate = true;
             }
             indexes.add(Integer.valueOf(i));
         }
-        if (hasDuplicate) {
-            List<String> details = new ArrayList<String>();
-            for (Map.Entry<String, List<Integer>> entry : indexesById.entrySet()) {
-                if (entry.getValue().size() > 1) {
-                    details.add("'" + entry.getKey() + "' at indexes " + entry.getValue());
-                }
+        List<String> details = new ArrayList<String>();
+        for (Map.Entry<String, List<Integer>> entry : indexesById.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                details.add("'" + entry.getKey() + "' at indexes " + entry.getValue());
             }
-            throw new ChromaException(
-                    "Duplicate IDs in add/upsert batch: " + String.join(", ", details)
-            );
         }
+        return String.join(", ", details);
+    }
+
+    private static List<String> includeValues(List<Include> include) {
+        if (include == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<String>(include.size());
+        for (Include inc : include) {
+            values.add(inc.getValue());
+        }
+        return values;
+    }
+
+    /** Result for a get whose filter matches no record: included fields are present but empty. */
+    private static GetResult emptyGetResult(List<String> includeValues) {
+        List<String> fields = includeValues != null ? includeValues : DEFAULT_GET_INCLUDE;
+        ChromaDtos.GetResponse dto = new ChromaDtos.GetResponse();
+        dto.ids = Collections.<String>emptyList();
+        dto.documents = fields.contains(Include.DOCUMENTS.getValue()) ? Collections.<String>emptyList() : null;
+        dto.metadatas = fields.contains(Include.METADATAS.getValue())
+                ? Collections.<Map<String, Object>>emptyList() : null;
+        dto.embeddings = fields.contains(Include.EMBEDDINGS.getValue()) ? Collections.<float[]>emptyList() : null;
+        dto.uris = fields.contains(Include.URIS.getValue()) ? Collections.<String>emptyList() : null;
+        return GetResultImpl.from(dto);
+    }
+
+    /** Result for a query whose filter matches no record: one empty row per query embedding. */
+    private static QueryResult emptyQueryResult(int queryCount, List<String> includeValues) {
+        List<String> fields = includeValues != null ? includeValues : DEFAULT_QUERY_INCLUDE;
+        ChromaDtos.QueryResponse dto = new ChromaDtos.QueryResponse();
+        dto.ids = emptyRows(queryCount);
+        dto.documents = fields.contains(Include.DOCUMENTS.getValue()) ? ChromaHttpCollection.<String>emptyRows(queryCount) : null;
+        dto.metadatas = fields.contains(Include.METADATAS.getValue())
+                ? ChromaHttpCollection.<Map<String, Object>>emptyRows(queryCount) : null;
+        dto.embeddings = fields.contains(Include.EMBEDDINGS.getValue())
+                ? ChromaHttpCollection.<float[]>emptyRows(queryCount) : null;
+        dto.distances = fields.contains(Include.DISTANCES.getValue())
+                ? ChromaHttpCollection.<Float>emptyRows(queryCount) : null;
+        dto.uris = fields.contains(Include.URIS.getValue()) ? ChromaHttpCollection.<String>emptyRows(queryCount) : null;
+        return QueryResultImpl.from(dto);
+    }
+
+    private static <T> List<List<T>> emptyRows(int count) {
+        return Collections.nCopies(count, Collections.<T>emptyList());
     }
 
     private static Map<String, Object> requireNonNullMap(Where where, String fieldName) {
@@ -1324,45 +1689,41 @@ final class ChromaHttpCollection implements Collection {
 
     private List<float[]> embedQueryTexts(List<String> texts) {
         tech.amikos.chromadb.embeddings.EmbeddingFunction runtimeEmbeddingFunction = requireEmbeddingFunction();
-        List<Embedding> embeddings;
+        EmbeddingMatrix embeddings;
         try {
-            embeddings = runtimeEmbeddingFunction.embedQueries(texts);
+            embeddings = runtimeEmbeddingFunction.embedQueryBatch(texts);
         } catch (ChromaException e) {
             throw e;
         } catch (EFException e) {
             throw new ChromaException("Failed to embed queryTexts: " + e.toString(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ChromaException("Failed to embed queryTexts: " + e.getMessage(), e);
         } catch (RuntimeException e) {
             throw new ChromaException("Failed to embed queryTexts: " + e.toString(), e);
         }
         if (embeddings == null) {
             throw new ChromaException("Failed to embed queryTexts: embedding function returned null");
         }
-        if (embeddings.size() != texts.size()) {
+        if (embeddings.rows() != texts.size()) {
             throw new ChromaException(
                     "Failed to embed queryTexts: embedding function returned "
-                            + embeddings.size()
+                            + embeddings.rows()
                             + " embeddings for "
                             + texts.size()
                             + " query texts"
             );
         }
-        List<float[]> vectors = new ArrayList<float[]>(embeddings.size());
-        for (int i = 0; i < embeddings.size(); i++) {
-            Embedding embedding = embeddings.get(i);
-            if (embedding == null) {
-                throw new ChromaException(
-                        "Failed to embed queryTexts: embedding function returned null at index " + i
-                );
-            }
-            float[] vector = embedding.asArray();
-            if (vector == null) {
-                throw new ChromaException(
-                        "Failed to embed queryTexts: embedding function returned null vector at index " + i
-                );
-            }
-            vectors.add(vector);
+        Integer expectedDimension = dimension;
+        if (expectedDimension != null && embeddings.getDimension() != expectedDimension) {
+            throw new ChromaException(
+                    "Failed to embed queryTexts: embedding function returned "
+                            + embeddings.getDimension()
+                            + "-dimensional embeddings but collection dimension is "
+                            + expectedDimension
+            );
         }
-        return vectors;
+        // Rows are written to the request straight from the matrix, not copied out one by one.
+        return new EmbeddingRows(embeddings);
     }
 
     /**
@@ -1376,15 +1737,18 @@ final class ChromaHttpCollection implements Collection {
             return;
         }
         for (int i = 0; i < metadatas.size(); i++) {
-            Map<String, Object> meta = metadatas.get(i);
-            if (meta == null) {
-                continue;
-            }
-            for (Map.Entry<String, Object> entry : meta.entrySet()) {
-                Object value = entry.getValue();
-                if (value instanceof List) {
-                    validateHomogeneousList(entry.getKey(), (List<?>) value, i);
-                }
+            validateMetadataArrayTypes(metadatas.get(i), i);
+        }
+    }
+
+    private static void validateMetadataArrayTypes(Map<String, Object> meta, int recordIndex) {
+        if (meta == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : meta.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof List) {
+                validateHomogeneousList(entry.getKey(), (List<?>) value, recordIndex);
             }
         }
     }
@@ -1394,6 +1758,7 @@ final class ChromaHttpCollection implements Collection {
             return; // empty arrays are valid
         }
         Class<?> firstType = null;
+        Class<?> lastClass = null;
         for (int j = 0; j < list.size(); j++) {
             Object element = list.get(j);
             if (element == null) {
@@ -1403,7 +1768,12 @@ final class ChromaHttpCollection implements Collection {
                         "NULL_ARRAY_ELEMENT"
                 );
             }
-            Class<?> normalizedType = normalizeNumericType(element.getClass());
+            Class<?> elementClass = element.getClass();
+            if (elementClass == lastClass) {
+                continue; // same concrete class as the previous element, already accepted
+            }
+            lastClass = elementClass;
+            Class<?> normalizedType = normalizeNumericType(elementClass);
             if (firstType == null) {
                 firstType = normalizedType;
             } else if (!firstType.equals(normalizedType)) {
@@ -1,5 +1,6 @@
 package tech.amikos.chromadb.v2;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -171,6 +172,23 @@ public interface Collection {
      */
     int count();
 
+    /**
+     * Checks which of {@code ids} exist in this collection.
+     *
+     * <p>Sends get requests that return IDs only, in concurrent chunks of 1000 IDs. With
+     * {@link ChromaClient.Builder#knownIdFilter(int, double)} enabled and this collection created by
+     * the same client, IDs that client never added or upserted are reported absent without a
+     * request.</p>
+     *
+     * <p><strong>Availability:</strong> Self-hosted and Chroma Cloud.</p>
+     *
+     * @param ids record IDs to check; must not contain null
+     * @return bit {@code i} is set if and only if {@code ids.get(i)} exists
+     * @throws IllegalArgumentException if {@code ids} or any element is null
+     * @throws ChromaServerException on server errors
+     */
+    BitSet exists(List<String> ids);
+
     // --- Modification ---
 
     /**
@@ -327,6 +345,15 @@ public interface Collection {
          * @throws ChromaException if text-query embedding resolution or embedding generation fails
          */
         QueryResult execute();
+
+        /**
+         * Freezes {@code nResults}, filters and includes into a reusable {@link PreparedQuery}
+         * that takes the query embeddings per execution. Query texts or embeddings set on this
+         * builder are not part of the prepared query.
+         *
+         * @throws IllegalArgumentException if {@code where}/{@code whereDocument} return null from {@code toMap()}
+         */
+        PreparedQuery prepare();
     }
 
     interface GetBuilder {
@@ -338,6 +365,14 @@ public interface Collection {
         GetBuilder limit(int limit);
         GetBuilder offset(int offset);
         /**
+         * Fetches the matching records.
+         *
+         * <p>Without {@code limit}/{@code offset}, more than 1000 IDs (including IDs taken from a
+         * top-level {@link Where#idIn(String...)}) are fetched in concurrent chunks of 1000, each
+         * retried on network and 5xx errors, and the results are returned in the order of the IDs,
+         * each record once. Smaller requests return records in the order the server sends them,
+         * which need not match the order of the IDs.</p>
+         *
          * @throws IllegalArgumentException if {@code where}/{@code whereDocument} return null from {@code toMap()}
          * @throws ChromaBadRequestException if the request is invalid
          */
@@ -377,6 +412,20 @@ public interface Collection {
         UpsertBuilder uris(List<String> uris);
         /** @throws ChromaBadRequestException if the input is invalid */
         void execute();
+        /**
+         * Upserts only the records whose document, metadata, embedding or URI differ from when they
+         * were last upserted through {@code digests}, and records the sent ones once the request
+         * succeeds.
+         *
+         * <p>Skips the request entirely when nothing changed. Records are compared as given, so a
+         * record resent without a field it was previously sent with counts as changed.</p>
+         *
+         * @param digests store of record digests, typically kept across sync runs
+         * @return how many records were sent and skipped
+         * @throws NullPointerException      if {@code digests} is null
+         * @throws ChromaBadRequestException if the input is invalid
+         */
+        UpsertResult executeChanged(UpsertDigestStore digests);
     }
 
     interface DeleteBuilder {
@@ -390,6 +439,11 @@ public interface Collection {
         DeleteBuilder where(Where where);
         DeleteBuilder whereDocument(WhereDocument whereDocument);
         /**
+         * Deletes the matching records.
+         *
+         * <p>More than 1000 IDs are deleted in concurrent chunks of 1000, each retried on network
+         * and 5xx errors. If a chunk still fails, chunks that already succeeded stay deleted.</p>
+         *
          * @throws IllegalArgumentException if no criteria are provided or if {@code where}/{@code whereDocument}
          *                                  return null from {@code toMap()}
          * @throws ChromaBadRequestException if the filter is invalid
@@ -469,5 +523,15 @@ public interface Collection {
          * @throws ChromaException on other server errors
          */
         SearchResult execute();
+
+        /**
+         * Freezes the configured search into a reusable {@link PreparedSearch} that takes the query
+         * embedding per execution. Global filter, limit, offset and read level are applied as in
+         * {@link #execute()}.
+         *
+         * @throws IllegalArgumentException unless exactly one search is configured and it is ranked
+         *                                  by {@link Knn#queryEmbedding(float[])}
+         */
+        PreparedSearch prepare();
     }
 }
@@ -0,0 +1,182 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Shared base for generators that hash canonical record content.
+ *
+ * <p>The canonical content is {@code "doc:" + document} when the document is non-null, otherwise
+ * {@code "meta:" + serializeMetadata(metadata)}, encoded as UTF-8. It is written straight into a
+ * reused per-thread byte buffer, so hashing allocates nothing per record beyond the ID string.
+ * Batches of at least {@link #PARALLEL_THRESHOLD} records are hashed in parallel on the common
+ * fork-join pool.</p>
+ */
+abstract class ContentHashIdGenerator implements IdGenerator {
+
+    /** Minimum batch size hashed in parallel. */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<ContentBuffer> BUFFER = new ThreadLocal<ContentBuffer>() {
+        @Override
+        protected ContentBuffer initialValue() {
+            return new ContentBuffer();
+        }
+    };
+
+    @Override
+    public String generate(String document, Map<String, Object> metadata) {
+        if (document == null && metadata == null) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " requires a non-null document or metadata"
+            );
+        }
+        ContentBuffer buffer = BUFFER.get();
+        buffer.reset();
+        if (document != null) {
+            buffer.writeAscii("doc:");
+            buffer.writeUtf8(document);
+        } else {
+            buffer.writeAscii("meta:");
+            writeMetadata(buffer, metadata);
+        }
+        return hash(buffer.bytes, buffer.length);
+    }
+
+    @Override
+    public List<String> generateBatch(int count, final List<String> documents,
+                                      final List<Map<String, Object>> metadatas) {
+        final String[] ids = new String[count];
+        if (count < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < count; i++) {
+                ids[i] = generateAt(i, documents, metadatas);
+            }
+        } else {
+            IntStream.range(0, count).parallel().forEach(i -> ids[i] = generateAt(i, documents, metadatas));
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Hashes {@code length} bytes of canonical content and returns the ID string.
+     */
+    abstract String hash(byte[] content, int length);
+
+    private String generateAt(int index, List<String> documents, List<Map<String, Object>> metadatas) {
+        String document = documents != null ? documents.get(index) : null;
+        Map<String, Object> metadata = metadatas != null ? metadatas.get(index) : null;
+        try {
+            return generate(document, metadata);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " (record index " + index + ")", e);
+        }
+    }
+
+    /**
+     * Writes the bytes of {@link Sha256IdGenerator#serializeMetadata(Map)} without building the string.
+     */
+    private static void writeMetadata(ContentBuffer buffer, Map<String, Object> metadata) {
+        if (metadata.isEmpty()) {
+            return;
+        }
+        String[] keys = metadata.keySet().toArray(new String[metadata.size()]);
+        if (keys.length > 1) {
+            Arrays.sort(keys);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                buffer.writeByte(';');
+            }
+            buffer.writeUtf8(keys[i]);
+            buffer.writeByte('=');
+            Object value = metadata.get(keys[i]);
+            buffer.writeUtf8(value == null ? "null" : value instanceof String ? (String) value : value.toString());
+        }
+    }
+
+    static String hexEncode(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            chars[i * 2] = HEX[v >>> 4];
+            chars[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Growable byte buffer with an allocation-free UTF-8 encoder. Unpaired surrogates are encoded as
+     * {@code '?'}, matching {@code String.getBytes(StandardCharsets.UTF_8)}.
+     */
+    static final class ContentBuffer {
+        byte[] bytes = new byte[256];
+        int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        void writeAscii(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+        }
+
+        void writeUtf8(String s) {
+            int n = s.length();
+            ensure(n);
+            int i = 0;
+            // ASCII fast path.
+            while (i < n) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                bytes[length++] = (byte) c;
+                i++;
+            }
+            for (; i < n; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    ensure(1);
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    ensure(2);
+                    bytes[length++] = (byte) (0xC0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    ensure(4);
+                    bytes[length++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    ensure(1);
+                    bytes[length++] = (byte) '?';
+                } else {
+                    ensure(3);
+                    bytes[length++] = (byte) (0xE0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
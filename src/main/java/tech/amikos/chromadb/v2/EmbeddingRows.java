@@ -0,0 +1,37 @@
+package tech.amikos.chromadb.v2;
+
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only {@code List<float[]>} view of an {@link EmbeddingMatrix}.
+ *
+ * <p>Carries embedded {@code queryTexts} into a request without splitting the matrix into rows:
+ * the default codec's request writers and {@link RequestTemplate} format each row straight from
+ * the backing array. {@link #get(int)} copies the row for any other reader, such as a custom
+ * {@link JsonCodec}.</p>
+ */
+final class EmbeddingRows extends AbstractList<float[]> implements RandomAccess {
+
+    private final EmbeddingMatrix matrix;
+
+    EmbeddingRows(EmbeddingMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    EmbeddingMatrix matrix() {
+        return matrix;
+    }
+
+    @Override
+    public float[] get(int index) {
+        return matrix.row(index);
+    }
+
+    @Override
+    public int size() {
+        return matrix.rows();
+    }
+}
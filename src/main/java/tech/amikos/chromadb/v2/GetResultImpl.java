@@ -39,7 +39,7 @@ final class GetResultImpl implements GetResult {
                 dto.ids,
                 dto.documents,
                 dto.metadatas,
-                ChromaDtos.toFloatArrays(dto.embeddings),
+                dto.embeddings,
                 dto.uris
         );
     }
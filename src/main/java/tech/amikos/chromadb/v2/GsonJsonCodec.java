@@ -0,0 +1,79 @@
+package tech.amikos.chromadb.v2;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Default {@link JsonCodec}, backed by Gson with the {@link ChromaDtoAdapters} streaming adapters.
+ */
+final class GsonJsonCodec implements JsonCodec {
+
+    static final GsonJsonCodec INSTANCE = new GsonJsonCodec(ChromaDtoAdapters.FACTORY);
+
+    private final Gson gson;
+    private final ChromaDtoAdapters adapters;
+
+    private GsonJsonCodec(ChromaDtoAdapters adapters) {
+        this.adapters = adapters;
+        this.gson = new GsonBuilder()
+                .registerTypeAdapterFactory(adapters)
+                .create();
+    }
+
+    /**
+     * Returns a codec that writes embedding values rounded to {@code significantDigits} significant
+     * digits.
+     *
+     * @throws IllegalArgumentException if {@code significantDigits} is not between 1 and 9
+     */
+    static GsonJsonCodec withWirePrecision(int significantDigits) {
+        if (significantDigits < 1) {
+            throw new IllegalArgumentException(
+                    "wirePrecision must be between 1 and " + JsonFloats.MAX_SIGNIFICANT_DIGITS
+            );
+        }
+        return new GsonJsonCodec(new ChromaDtoAdapters(significantDigits));
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            gson.toJson(value, value == null ? Object.class : value.getClass(), writer);
+            writer.flush();
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw.
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] json, Type type) {
+        // fromJson(Reader) also rejects trailing content after the top-level value.
+        return gson.fromJson(
+                new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8),
+                type
+        );
+    }
+
+    Gson gson() {
+        return gson;
+    }
+
+    ChromaDtoAdapters adapters() {
+        return adapters;
+    }
+}
@@ -0,0 +1,121 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of record IDs.
+ *
+ * <p>{@link #mightContain(String)} never returns {@code false} for an added ID; it returns
+ * {@code true} for an ID that was never added with roughly the configured false-positive rate while
+ * at most the expected number of IDs have been added, and more often beyond that. IDs cannot be
+ * removed.</p>
+ */
+final class IdBloomFilter {
+
+    private static final long SECOND_HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /** Largest backing array the JVM reliably allocates, in 64-bit words. */
+    private static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    /**
+     * @param expectedIds       IDs the filter is sized for; must be {@code > 0}
+     * @param falsePositiveRate target false-positive rate at {@code expectedIds}; in {@code (0, 1)}
+     * @throws IllegalArgumentException as {@link #validate(int, double)}
+     */
+    IdBloomFilter(int expectedIds, double falsePositiveRate) {
+        int wordCount = validate(expectedIds, falsePositiveRate);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * Math.log(2)));
+    }
+
+    /**
+     * Checks a filter sizing without allocating it.
+     *
+     * @return the number of 64-bit words the filter needs
+     * @throws IllegalArgumentException if {@code expectedIds <= 0}, {@code falsePositiveRate} is not
+     *                                  in {@code (0, 1)}, or the filter would not fit in one array
+     */
+    static int validate(int expectedIds, double falsePositiveRate) {
+        if (expectedIds <= 0) {
+            throw new IllegalArgumentException("expectedIds must be > 0");
+        }
+        if (!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1 (exclusive)");
+        }
+        double ln2 = Math.log(2);
+        double bits = Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (ln2 * ln2));
+        double words = Math.max(1.0, Math.ceil(bits / 64.0));
+        if (words > MAX_WORDS) {
+            throw new IllegalArgumentException("A filter for " + expectedIds + " IDs at falsePositiveRate "
+                    + falsePositiveRate + " is too large; lower expectedIds or raise falsePositiveRate");
+        }
+        return (int) words;
+    }
+
+    private IdBloomFilter(IdBloomFilter source) {
+        this.words = new AtomicLongArray(source.words.length());
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, source.words.get(i));
+        }
+        this.bitCount = source.bitCount;
+        this.hashCount = source.hashCount;
+    }
+
+    /** Returns an independent filter with the same IDs. */
+    IdBloomFilter copy() {
+        return new IdBloomFilter(this);
+    }
+
+    void add(String id) {
+        long h1 = hash(id);
+        long h2 = fmix64(h1 ^ SECOND_HASH_SEED);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String id) {
+        long h1 = hash(id);
+        long h2 = fmix64(h1 ^ SECOND_HASH_SEED);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3 mixer. */
+    private static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,219 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits large ID lists of get and delete requests into bounded chunks and runs them concurrently.
+ *
+ * <p>Up to {@link #MAX_CONCURRENCY} chunk requests are in flight at once: the calling thread works
+ * through chunks alongside helpers from a shared daemon pool of at most {@link #POOL_SIZE} threads.
+ * When the pool is saturated a call gets fewer helpers, down to none, rather than queueing. Each chunk is retried up to
+ * {@link #MAX_ATTEMPTS} times on network and 5xx failures, which is safe because get and delete by ID
+ * are idempotent. The first chunk that still fails stops the remaining chunks and its exception is
+ * rethrown.</p>
+ */
+final class IdChunker {
+
+    /** IDs sent per request; requests with more IDs are chunked. */
+    static final int CHUNK_SIZE = 1000;
+
+    /** Chunk requests in flight per get or delete call. */
+    static final int MAX_CONCURRENCY = 4;
+
+    /** Attempts per chunk, including the first. */
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100L;
+
+    /** Helper threads shared by all get and delete calls; beyond this, callers run their chunks alone. */
+    static final int POOL_SIZE = 4 * MAX_CONCURRENCY;
+
+    private static final ExecutorService CHUNK_POOL = new ThreadPoolExecutor(
+            0, POOL_SIZE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "chroma-id-chunk-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /** Sends one request for a chunk of IDs. */
+    interface ChunkCall<R> {
+        R call(List<String> chunk);
+    }
+
+    private IdChunker() {}
+
+    /** Returns {@code ids} without duplicates, in first-occurrence order, split into chunks. */
+    static List<List<String>> split(List<String> ids, int chunkSize) {
+        List<String> unique = new ArrayList<String>(new LinkedHashSet<String>(ids));
+        List<List<String>> chunks = new ArrayList<List<String>>((unique.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < unique.size(); from += chunkSize) {
+            chunks.add(unique.subList(from, Math.min(unique.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    /** Runs {@code call} for every chunk and returns the results in chunk order. */
+    static <R> List<R> execute(final List<List<String>> chunks, final ChunkCall<R> call) {
+        final List<R> results = new ArrayList<R>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            results.add(null);
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while (failure.get() == null && (index = next.getAndIncrement()) < chunks.size()) {
+                    try {
+                        R result = callWithRetry(call, chunks.get(index));
+                        synchronized (results) {
+                            results.set(index, result);
+                        }
+                    } catch (Throwable e) {
+                        // Errors too: a helper's failure must reach the caller, not its Future.
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(MAX_CONCURRENCY, chunks.size()) - 1;
+        List<Future<?>> futures = new ArrayList<Future<?>>(helpers);
+        try {
+            for (int i = 0; i < helpers; i++) {
+                futures.add(CHUNK_POOL.submit(worker));
+            }
+        } catch (RejectedExecutionException saturated) {
+            // Every pooled thread is busy: the workers already started, and this thread, take the rest.
+        }
+        worker.run();
+        for (Future<?> future : futures) {
+            awaitQuietly(future);
+        }
+
+        Throwable thrown = failure.get();
+        if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        }
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        }
+        if (thrown != null) {
+            throw new ChromaException("ID chunk request failed: " + thrown, thrown);
+        }
+        synchronized (results) {
+            return new ArrayList<R>(results);
+        }
+    }
+
+    /**
+     * Merges chunked get responses into one response ordered like {@code ids}. IDs the server did
+     * not return are skipped, and each ID appears once.
+     */
+    static ChromaDtos.GetResponse mergeGetResponses(List<String> ids, List<ChromaDtos.GetResponse> parts) {
+        Map<String, int[]> rows = new HashMap<String, int[]>();
+        ChromaDtos.GetResponse merged = new ChromaDtos.GetResponse();
+        for (int p = 0; p < parts.size(); p++) {
+            ChromaDtos.GetResponse part = parts.get(p);
+            if (part == null || part.ids == null) {
+                throw new ChromaDeserializationException(
+                        "Server returned get result without required ids field",
+                        200
+                );
+            }
+            for (int r = 0; r < part.ids.size(); r++) {
+                rows.put(part.ids.get(r), new int[]{p, r});
+            }
+            if (part.documents != null && merged.documents == null) {
+                merged.documents = new ArrayList<String>();
+            }
+            if (part.metadatas != null && merged.metadatas == null) {
+                merged.metadatas = new ArrayList<Map<String, Object>>();
+            }
+            if (part.embeddings != null && merged.embeddings == null) {
+                merged.embeddings = new ArrayList<float[]>();
+            }
+            if (part.uris != null && merged.uris == null) {
+                merged.uris = new ArrayList<String>();
+            }
+        }
+        merged.ids = new ArrayList<String>(rows.size());
+        for (String id : new LinkedHashSet<String>(ids)) {
+            int[] row = rows.get(id);
+            if (row == null) {
+                continue;
+            }
+            ChromaDtos.GetResponse part = parts.get(row[0]);
+            merged.ids.add(id);
+            addRow(merged.documents, part.documents, row[1]);
+            addRow(merged.metadatas, part.metadatas, row[1]);
+            addRow(merged.embeddings, part.embeddings, row[1]);
+            addRow(merged.uris, part.uris, row[1]);
+        }
+        return merged;
+    }
+
+    private static <T> void addRow(List<T> target, List<T> source, int row) {
+        if (target != null) {
+            target.add(source != null && row < source.size() ? source.get(row) : null);
+        }
+    }
+
+    private static <R> R callWithRetry(ChunkCall<R> call, List<String> chunk) {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call(chunk);
+            } catch (ChromaConnectionException | ChromaServerException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                // worker records failures itself
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
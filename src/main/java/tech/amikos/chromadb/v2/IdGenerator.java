@@ -1,5 +1,7 @@
 package tech.amikos.chromadb.v2;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,4 +31,26 @@ public interface IdGenerator {
      * @return a non-null, non-empty ID string
      */
     String generate(String document, Map<String, Object> metadata);
+
+    /**
+     * Generates IDs for {@code count} records in one call.
+     *
+     * <p>The default calls {@link #generate(String, Map)} once per record. Generators with per-call
+     * setup cost (random sources, digests, clocks) override it to amortize that work across the
+     * batch. Add and upsert operations call this method once per request.</p>
+     *
+     * @param count     number of IDs to generate
+     * @param documents per-record document texts, or null; when non-null has at least {@code count} elements
+     * @param metadatas per-record metadata maps, or null; when non-null has at least {@code count} elements
+     * @return a list of exactly {@code count} IDs, in record order
+     */
+    default List<String> generateBatch(int count, List<String> documents, List<Map<String, Object>> metadatas) {
+        List<String> ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(generate(
+                    documents != null ? documents.get(i) : null,
+                    metadatas != null ? metadatas.get(i) : null));
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,54 @@
+package tech.amikos.chromadb.v2;
+
+/**
+ * Open-addressing string set used to detect duplicate record IDs in write batches.
+ *
+ * <p>Sized once for the batch, stores each ID reference and its cached {@link String#hashCode()}
+ * in parallel arrays, and allocates nothing per insert. Not thread-safe.</p>
+ */
+final class IdSet {
+
+    private final String[] keys;
+    private final int[] hashes;
+    private final int mask;
+    private boolean containsNull;
+
+    IdSet(int expectedSize) {
+        int capacity = 4;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds {@code id} and returns {@code true}, or returns {@code false} if an equal ID is already
+     * present.
+     */
+    boolean add(String id) {
+        if (id == null) {
+            boolean added = !containsNull;
+            containsNull = true;
+            return added;
+        }
+        int hash = id.hashCode();
+        int slot = spread(hash) & mask;
+        String existing;
+        while ((existing = keys[slot]) != null) {
+            if (hashes[slot] == hash && (existing == id || existing.equals(id))) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        hashes[slot] = hash;
+        return true;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,49 @@
+package tech.amikos.chromadb.v2;
+
+import java.lang.reflect.Type;
+
+/**
+ * JSON serializer used by the client transport for request and response bodies.
+ *
+ * <p>The default {@link #gson()} codec binds the client's package-private DTOs with streaming
+ * adapters for the record-carrying requests and responses. Integrators with stricter latency budgets
+ * can supply their own implementation via {@link ChromaClient.Builder#jsonCodec(JsonCodec)}; it must
+ * produce and accept the same wire format, including snake_case field names and omitted
+ * {@code null} fields.</p>
+ *
+ * <p><strong>Experimental.</strong> The values passed to {@link #encode(Object)} and the types
+ * passed to {@link #decode(byte[], Type)} are the client's internal DTO classes, which are not
+ * public API and may change in any release. The only supported contract is field binding: each DTO
+ * is a plain object whose non-transient fields carry the wire name, taken from Gson's
+ * {@code @SerializedName} when present, and whose {@code Map}, {@code List}, {@code float[]}, boxed
+ * number, {@code Boolean} and {@code String} values map to JSON as Gson's reflective binding maps
+ * them. A codec that binds fields that way, such as a plain {@code new Gson()}, conforms; one that
+ * relies on getters, constructors or class names does not.</p>
+ *
+ * <p>Implementations must be thread-safe.</p>
+ */
+public interface JsonCodec {
+
+    /**
+     * Encodes {@code value} as UTF-8 JSON.
+     *
+     * @throws IllegalArgumentException if the value cannot be represented as JSON
+     *                                  (for example a non-finite float)
+     */
+    byte[] encode(Object value);
+
+    /**
+     * Decodes UTF-8 JSON into an instance of {@code type}.
+     *
+     * <p>Malformed input or a shape mismatch may be reported with any unchecked exception; the
+     * transport converts it into a {@link ChromaDeserializationException} that keeps it as the
+     * cause. A {@link ChromaException} thrown by the codec is propagated unchanged.</p>
+     *
+     * @return the decoded value, or {@code null} if the JSON is the literal {@code null}
+     */
+    <T> T decode(byte[] json, Type type);
+
+    static JsonCodec gson() {
+        return GsonJsonCodec.INSTANCE;
+    }
+}
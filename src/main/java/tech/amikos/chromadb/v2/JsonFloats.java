@@ -0,0 +1,370 @@
+package tech.amikos.chromadb.v2;
+
+import java.math.BigInteger;
+
+/**
+ * Float text conversion for the JSON embedding path.
+ *
+ * <p>Formatting uses the Ryu algorithm (Adams, PLDI 2018) to find the shortest decimal that
+ * round-trips to the same {@code float}, choosing the closest one on ties, and lays it out like
+ * {@link Float#toString(float)}: plain notation for magnitudes in {@code [1e-3, 1e7)}, otherwise
+ * {@code d.dddE±n}. Unlike {@code Float.toString} on Java 8-18 it never emits extra digits, and it
+ * appends into a caller's buffer instead of allocating per value.</p>
+ *
+ * <p>Parsing takes Clinger's exact fast path (at most 19 significant digits, a mantissa of at most
+ * 2<sup>53</sup> and a decimal exponent within ±22) and falls back to {@link Double#parseDouble}
+ * otherwise, so results are always identical to {@code Double.parseDouble}.</p>
+ */
+final class JsonFloats {
+
+    /** Largest number of significant digits any {@code float} needs to round-trip. */
+    static final int MAX_SIGNIFICANT_DIGITS = 9;
+
+    private static final int MANTISSA_BITS = 23;
+    private static final int EXPONENT_BIAS = 127;
+    private static final int POW5_INV_BITCOUNT = 59;
+    private static final int POW5_BITCOUNT = 61;
+
+    private static final long[] POW5_INV_SPLIT = new long[32];
+    private static final long[] POW5_SPLIT = new long[48];
+
+    private static final double[] POW10 = new double[23];
+    private static final int[] INT_POW10 = {
+            1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+    static {
+        for (int i = 0; i < POW5_SPLIT.length; i++) {
+            BigInteger pow = BigInteger.valueOf(5).pow(i);
+            int shift = pow.bitLength() - POW5_BITCOUNT;
+            POW5_SPLIT[i] = (shift >= 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift)).longValue();
+            if (i < POW5_INV_SPLIT.length) {
+                int j = pow.bitLength() - 1 + POW5_INV_BITCOUNT;
+                POW5_INV_SPLIT[i] = BigInteger.ONE.shiftLeft(j).divide(pow).longValue() + 1;
+            }
+        }
+        double p = 1.0;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = p;
+            p *= 10.0;
+        }
+    }
+
+    private JsonFloats() {}
+
+    /**
+     * Appends the shortest round-trip representation of a finite {@code value}.
+     */
+    static void append(StringBuilder out, float value) {
+        append(out, value, 0);
+    }
+
+    /**
+     * Appends a finite {@code value} rounded to at most {@code significantDigits} significant digits
+     * (half-even on the shortest round-trip digits), or the shortest representation when
+     * {@code significantDigits} is {@code 0}.
+     */
+    static void append(StringBuilder out, float value, int significantDigits) {
+        int bits = Float.floatToRawIntBits(value);
+        if (bits < 0) {
+            out.append('-');
+        }
+        int ieeeExponent = (bits >>> MANTISSA_BITS) & 0xFF;
+        int ieeeMantissa = bits & ((1 << MANTISSA_BITS) - 1);
+        if (ieeeExponent == 0 && ieeeMantissa == 0) {
+            out.append("0.0");
+            return;
+        }
+        long packed = shortest(ieeeMantissa, ieeeExponent);
+        long digits = packed >>> 32;
+        int exponent = (int) packed;
+        int length = decimalLength(digits);
+        if (significantDigits > 0 && length > significantDigits) {
+            int drop = length - significantDigits;
+            long divisor = INT_POW10[drop];
+            long remainder = digits % divisor;
+            digits /= divisor;
+            if (remainder * 2 > divisor || (remainder * 2 == divisor && (digits & 1) != 0)) {
+                digits++;
+            }
+            exponent += drop;
+            while (digits % 10 == 0) {
+                digits /= 10;
+                exponent++;
+            }
+            length = decimalLength(digits);
+        }
+        layout(out, digits, length, exponent);
+    }
+
+    /**
+     * Parses a JSON number the same way {@link Double#parseDouble} does.
+     */
+    static double parse(String text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && text.charAt(0) == '-') {
+            negative = true;
+            i = 1;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+        boolean sawPoint = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (significant > 0 || c != '0') {
+                    if (++significant > 19) {
+                        return Double.parseDouble(text);
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (sawPoint) {
+                    exponent--;
+                }
+            } else if (c == '.' && !sawPoint) {
+                sawPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!sawDigit) {
+            return Double.parseDouble(text);
+        }
+        if (i < length) {
+            char c = text.charAt(i);
+            if (c != 'e' && c != 'E' || ++i == length) {
+                return Double.parseDouble(text);
+            }
+            boolean negativeExponent = false;
+            c = text.charAt(i);
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                if (++i == length) {
+                    return Double.parseDouble(text);
+                }
+            }
+            int explicit = 0;
+            for (; i < length; i++) {
+                c = text.charAt(i);
+                if (c < '0' || c > '9' || explicit > 100000) {
+                    return Double.parseDouble(text);
+                }
+                explicit = explicit * 10 + (c - '0');
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (mantissa > (1L << 53) || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(text);
+        }
+        double result = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        return negative ? -result : result;
+    }
+
+    // --- Ryu ---
+
+    /**
+     * Returns the shortest round-trip decimal {@code digits * 10^exponent} of a positive finite float,
+     * packed as {@code digits << 32 | exponent}.
+     */
+    private static long shortest(int ieeeMantissa, int ieeeExponent) {
+        int e2;
+        long m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+        }
+        boolean acceptBounds = (m2 & 1) == 0;
+
+        long mv = 4 * m2;
+        long mp = 4 * m2 + 2;
+        int mmShift = ieeeMantissa != 0 || ieeeExponent <= 1 ? 1 : 0;
+        long mm = 4 * m2 - 1 - mmShift;
+
+        long vr;
+        long vp;
+        long vm;
+        int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+        int lastRemovedDigit = 0;
+        if (e2 >= 0) {
+            int q = log10Pow2(e2);
+            e10 = q;
+            int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+            int i = -e2 + q + k;
+            vr = mulShift(mv, POW5_INV_SPLIT[q], i);
+            vp = mulShift(mp, POW5_INV_SPLIT[q], i);
+            vm = mulShift(mm, POW5_INV_SPLIT[q], i);
+            if (q != 0 && (vp - 1) / 10 <= vm / 10) {
+                int l = POW5_INV_BITCOUNT + pow5bits(q - 1) - 1;
+                lastRemovedDigit = (int) (mulShift(mv, POW5_INV_SPLIT[q - 1], -e2 + q - 1 + l) % 10);
+            }
+            if (q <= 9) {
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = pow5Factor(mv) >= q;
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = pow5Factor(mm) >= q;
+                } else if (pow5Factor(mp) >= q) {
+                    vp--;
+                }
+            }
+        } else {
+            int q = log10Pow5(-e2);
+            e10 = q + e2;
+            int i = -e2 - q;
+            int k = pow5bits(i) - POW5_BITCOUNT;
+            int j = q - k;
+            vr = mulShift(mv, POW5_SPLIT[i], j);
+            vp = mulShift(mp, POW5_SPLIT[i], j);
+            vm = mulShift(mm, POW5_SPLIT[i], j);
+            if (q != 0 && (vp - 1) / 10 <= vm / 10) {
+                j = q - 1 - (pow5bits(i + 1) - POW5_BITCOUNT);
+                lastRemovedDigit = (int) (mulShift(mv, POW5_SPLIT[i + 1], j) % 10);
+            }
+            if (q <= 1) {
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 31) {
+                vrIsTrailingZeros = (mv & ((1L << (q - 1)) - 1)) == 0;
+            }
+        }
+
+        int removed = 0;
+        long output;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int) (vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int) (vr % 10);
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                // Round to even when the exact value ends in ...50..0.
+                lastRemovedDigit = 4;
+            }
+            boolean roundUp = (vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5;
+            output = vr + (roundUp ? 1 : 0);
+        } else {
+            while (vp / 10 > vm / 10) {
+                lastRemovedDigit = (int) (vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + (vr == vm || lastRemovedDigit >= 5 ? 1 : 0);
+        }
+        return (output << 32) | ((e10 + removed) & 0xFFFFFFFFL);
+    }
+
+    /** Returns {@code (m * factor) >> shift} for {@code m < 2^32}, {@code factor < 2^63}, {@code shift > 32}. */
+    private static long mulShift(long m, long factor, int shift) {
+        long factorLo = factor & 0xFFFFFFFFL;
+        long factorHi = factor >>> 32;
+        long sum = ((m * factorLo) >>> 32) + m * factorHi;
+        return sum >>> (shift - 32);
+    }
+
+    /** Returns {@code ceil(log2(5^e))} for {@code e > 0}, and 1 for {@code e == 0}. */
+    private static int pow5bits(int e) {
+        return (int) (((e * 1217359L) >>> 19) + 1);
+    }
+
+    private static int log10Pow2(int e) {
+        return (int) ((e * 78913L) >>> 18);
+    }
+
+    private static int log10Pow5(int e) {
+        return (int) ((e * 732923L) >>> 20);
+    }
+
+    private static int pow5Factor(long value) {
+        int count = 0;
+        while (value > 0 && value % 5 == 0) {
+            value /= 5;
+            count++;
+        }
+        return count;
+    }
+
+    // --- Layout ---
+
+    private static int decimalLength(long digits) {
+        int length = 1;
+        while (length < INT_POW10.length && digits >= INT_POW10[length]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes {@code digits * 10^exponent} in the {@link Float#toString(float)} layout.
+     */
+    private static void layout(StringBuilder out, long digits, int length, int exponent) {
+        int scientific = exponent + length - 1;
+        if (scientific >= -3 && scientific < 7) {
+            if (scientific < 0) {
+                out.append("0.");
+                for (int z = -1; z > scientific; z--) {
+                    out.append('0');
+                }
+                appendDigits(out, digits, length, 0, length);
+            } else if (exponent >= 0) {
+                appendDigits(out, digits, length, 0, length);
+                for (int z = 0; z < exponent; z++) {
+                    out.append('0');
+                }
+                out.append(".0");
+            } else {
+                int integerDigits = scientific + 1;
+                appendDigits(out, digits, length, 0, integerDigits);
+                out.append('.');
+                appendDigits(out, digits, length, integerDigits, length);
+            }
+            return;
+        }
+        appendDigits(out, digits, length, 0, 1);
+        out.append('.');
+        if (length > 1) {
+            appendDigits(out, digits, length, 1, length);
+        } else {
+            out.append('0');
+        }
+        out.append('E').append(scientific);
+    }
+
+    /** Appends digit positions {@code [from, to)} of a {@code length}-digit number, most significant first. */
+    private static void appendDigits(StringBuilder out, long digits, int length, int from, int to) {
+        for (int position = from; position < to; position++) {
+            out.append((char) ('0' + (digits / INT_POW10[length - 1 - position]) % 10));
+        }
+    }
+}
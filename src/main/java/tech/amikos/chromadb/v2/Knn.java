@@ -1,6 +1,7 @@
 package tech.amikos.chromadb.v2;
 
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * KNN (K-Nearest Neighbor) ranking expression for the Search API.
@@ -26,6 +27,7 @@ public final class Knn {
     private final Integer limit;
     private final Double defaultScore;
     private final boolean returnRank;
+    private volatile Map<String, Object> rankMap;
 
     private Knn(Object query, String key, Integer limit, Double defaultScore, boolean returnRank) {
         this.query = query;
@@ -143,6 +145,26 @@ public final class Knn {
         return new Knn(this.query, this.key, this.limit, this.defaultScore, true);
     }
 
+    /**
+     * Returns a copy of this instance with a different query object. Package-private; used by
+     * prepared searches to swap the query embedding.
+     */
+    Knn withQuery(Object query) {
+        return new Knn(query, this.key, this.limit, this.defaultScore, this.returnRank);
+    }
+
+    /**
+     * Returns the {@code $knn} wire map, built on first use and shared by later requests.
+     */
+    Map<String, Object> toRankMap() {
+        Map<String, Object> map = rankMap;
+        if (map == null) {
+            map = MemoizedJsonMap.of(ChromaDtos.buildKnnRankMap(this));
+            rankMap = map;
+        }
+        return map;
+    }
+
     /**
      * Returns the query object (String, float[], or {@link SparseVector}).
      * When the query is a {@code float[]}, a defensive copy is returned.
@@ -0,0 +1,68 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-client registry of {@link IdBloomFilter}s for collections whose every ID this client has
+ * seen written.
+ *
+ * <p>A filter is registered when this client creates a collection, which is empty at that point,
+ * and is copied to forks of it. Adds and upserts through this client record their IDs. For a
+ * registered collection, an ID the filter has never seen was not written by this client and, as
+ * long as this client is the only writer, does not exist. Collections opened any other way have no
+ * filter, and a filter is dropped when this client deletes its collection.</p>
+ */
+final class KnownIdFilters {
+
+    private final int expectedIds;
+    private final double falsePositiveRate;
+    private final ConcurrentMap<String, IdBloomFilter> filters = new ConcurrentHashMap<String, IdBloomFilter>();
+
+    KnownIdFilters(int expectedIds, double falsePositiveRate) {
+        // Validates the sizing up front rather than on the first collection.
+        IdBloomFilter.validate(expectedIds, falsePositiveRate);
+        this.expectedIds = expectedIds;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /** Starts tracking a collection this client just created. */
+    void registerNew(String collectionId) {
+        filters.put(collectionId, new IdBloomFilter(expectedIds, falsePositiveRate));
+    }
+
+    /** Starts tracking {@code forkId} with the IDs known for {@code sourceId}, if any. */
+    void registerFork(String sourceId, String forkId) {
+        IdBloomFilter source = filters.get(sourceId);
+        if (source != null) {
+            filters.put(forkId, source.copy());
+        }
+    }
+
+    /** Stops tracking a collection that was deleted. */
+    void unregister(String collectionId) {
+        filters.remove(collectionId);
+    }
+
+    /** Returns whether any collection is tracked. */
+    boolean isEmpty() {
+        return filters.isEmpty();
+    }
+
+    /** Records IDs written to a collection; ignored for collections without a filter. */
+    void recordWrites(String collectionId, List<String> ids) {
+        IdBloomFilter filter = filters.get(collectionId);
+        if (filter == null) {
+            return;
+        }
+        for (String id : ids) {
+            filter.add(id);
+        }
+    }
+
+    /** Returns the filter of a tracked collection, or {@code null}. */
+    IdBloomFilter filter(String collectionId) {
+        return filters.get(collectionId);
+    }
+}
@@ -0,0 +1,80 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable request map that remembers its own JSON serialization.
+ *
+ * <p>Immutable filter and ranking objects ({@link Where}, {@link WhereDocument}, {@link Knn},
+ * {@link Rrf}, {@link Search}) expose their wire maps as instances of this class. The default
+ * codec writes the map once, keeps the JSON text here and then emits it verbatim on every later
+ * request, including when the map is nested inside another map. Other codecs see an ordinary
+ * read-only {@link Map}. Filter maps also keep their {@link WhereOptimizer} result.</p>
+ */
+final class MemoizedJsonMap extends AbstractMap<String, Object> {
+
+    private final Map<String, Object> map;
+    private volatile String json;
+    private volatile Map<String, Object> optimized;
+
+    private MemoizedJsonMap(Map<String, Object> map) {
+        this.map = map;
+    }
+
+    /**
+     * Wraps {@code map}, which the caller must no longer modify, or returns it unchanged if it is
+     * already memoized.
+     */
+    static Map<String, Object> of(Map<String, Object> map) {
+        if (map instanceof MemoizedJsonMap) {
+            return map;
+        }
+        return new MemoizedJsonMap(Collections.unmodifiableMap(map));
+    }
+
+    /** Returns the cached JSON text, or {@code null} if the map has not been serialized yet. */
+    String cachedJson() {
+        return json;
+    }
+
+    void cacheJson(String json) {
+        this.json = json;
+    }
+
+    /** Returns the cached {@link WhereOptimizer} result, or {@code null} if not computed yet. */
+    Map<String, Object> cachedOptimized() {
+        return optimized;
+    }
+
+    void cacheOptimized(Map<String, Object> optimized) {
+        this.optimized = optimized;
+    }
+
+    /** Returns the wrapped map, for serializers that must walk the entries. */
+    Map<String, Object> unwrap() {
+        return map;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return map.entrySet();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map.get(key);
+    }
+}
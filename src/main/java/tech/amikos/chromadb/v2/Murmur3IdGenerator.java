@@ -0,0 +1,131 @@
+package tech.amikos.chromadb.v2;
+
+/**
+ * Generates deterministic IDs from a 128-bit MurmurHash3 (x64 variant, seed 0) of the record
+ * content.
+ *
+ * <p>Hashes the same canonical content as {@link Sha256IdGenerator} ({@code doc:} or {@code meta:}
+ * prefix, sorted metadata) and follows the same null rules, but is several times faster. The
+ * result is a 32-character lowercase hex string of the 16 hash bytes in little-endian order
+ * (the layout used by Guava's {@code murmur3_128} and Python's {@code mmh3.hash_bytes}).</p>
+ *
+ * <p>Not a cryptographic hash: use it for content-addressed deduplication of trusted input, and
+ * {@link Sha256IdGenerator} when IDs must resist deliberately crafted collisions.</p>
+ *
+ * <p>Thread-safe. Use the {@link #INSTANCE} singleton.</p>
+ */
+public final class Murmur3IdGenerator extends ContentHashIdGenerator {
+
+    public static final Murmur3IdGenerator INSTANCE = new Murmur3IdGenerator();
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3IdGenerator() {
+    }
+
+    @Override
+    String hash(byte[] content, int length) {
+        long h1 = 0L;
+        long h2 = 0L;
+        int blocks = length >>> 4;
+        for (int b = 0; b < blocks; b++) {
+            int offset = b << 4;
+            long k1 = getLongLE(content, offset);
+            long k2 = getLongLE(content, offset + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks << 4;
+        long k1 = 0L;
+        long k2 = 0L;
+        switch (length & 15) {
+            case 15: k2 ^= (long) (content[tail + 14] & 0xFF) << 48;
+            case 14: k2 ^= (long) (content[tail + 13] & 0xFF) << 40;
+            case 13: k2 ^= (long) (content[tail + 12] & 0xFF) << 32;
+            case 12: k2 ^= (long) (content[tail + 11] & 0xFF) << 24;
+            case 11: k2 ^= (long) (content[tail + 10] & 0xFF) << 16;
+            case 10: k2 ^= (long) (content[tail + 9] & 0xFF) << 8;
+            case 9:
+                k2 ^= (long) (content[tail + 8] & 0xFF);
+                h2 ^= mixK2(k2);
+            case 8: k1 ^= (long) (content[tail + 7] & 0xFF) << 56;
+            case 7: k1 ^= (long) (content[tail + 6] & 0xFF) << 48;
+            case 6: k1 ^= (long) (content[tail + 5] & 0xFF) << 40;
+            case 5: k1 ^= (long) (content[tail + 4] & 0xFF) << 32;
+            case 4: k1 ^= (long) (content[tail + 3] & 0xFF) << 24;
+            case 3: k1 ^= (long) (content[tail + 2] & 0xFF) << 16;
+            case 2: k1 ^= (long) (content[tail + 1] & 0xFF) << 8;
+            case 1:
+                k1 ^= (long) (content[tail] & 0xFF);
+                h1 ^= mixK1(k1);
+            default:
+                break;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        char[] chars = new char[32];
+        writeHexLE(h1, chars, 0);
+        writeHexLE(h2, chars, 16);
+        return new String(chars);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLongLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24
+                | (bytes[offset + 4] & 0xFFL) << 32
+                | (bytes[offset + 5] & 0xFFL) << 40
+                | (bytes[offset + 6] & 0xFFL) << 48
+                | (bytes[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static void writeHexLE(long value, char[] chars, int offset) {
+        for (int i = 0; i < 8; i++) {
+            int b = (int) (value >>> (8 * i)) & 0xFF;
+            chars[offset + 2 * i] = HEX[b >>> 4];
+            chars[offset + 2 * i + 1] = HEX[b & 0x0F];
+        }
+    }
+}
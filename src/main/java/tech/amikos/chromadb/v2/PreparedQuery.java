@@ -0,0 +1,42 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.List;
+
+/**
+ * A query whose filters, result count and includes are fixed, executed with new query embeddings.
+ *
+ * <p>Created by {@link Collection.QueryBuilder#prepare()}. With the default codec the request
+ * body is serialized once at preparation time except for the {@code query_embeddings} slot, so
+ * each execution only formats the embedding values. Use it for hot endpoints that run the same
+ * filter shape many times.</p>
+ *
+ * <pre>{@code
+ * PreparedQuery byTopic = collection.query()
+ *     .where(Where.eq("topic", "news"))
+ *     .nResults(10)
+ *     .include(Include.DOCUMENTS, Include.DISTANCES)
+ *     .prepare();
+ *
+ * QueryResult result = byTopic.execute(embedding);
+ * }</pre>
+ *
+ * <p>Thread-safe; a single instance can be shared by concurrent callers.</p>
+ */
+public interface PreparedQuery {
+
+    /**
+     * Executes the query for one or more query embeddings.
+     *
+     * @throws IllegalArgumentException if no embeddings are given or a value is NaN or infinite
+     * @throws ChromaBadRequestException if the query is invalid
+     */
+    QueryResult execute(float[]... queryEmbeddings);
+
+    /**
+     * Executes the query for one or more query embeddings.
+     *
+     * @throws IllegalArgumentException if no embeddings are given or a value is NaN or infinite
+     * @throws ChromaBadRequestException if the query is invalid
+     */
+    QueryResult execute(List<float[]> queryEmbeddings);
+}
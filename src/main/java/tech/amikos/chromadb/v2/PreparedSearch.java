@@ -0,0 +1,36 @@
+package tech.amikos.chromadb.v2;
+
+/**
+ * A single KNN search whose ranking options, filters, projection and paging are fixed, executed
+ * with a new query embedding.
+ *
+ * <p>Created by {@link Collection.SearchBuilder#prepare()} from a search ranked by
+ * {@link Knn#queryEmbedding(float[])}; that embedding marks the slot and is replaced on each
+ * execution. With the default codec the request body is serialized once at preparation time, so
+ * each execution only formats the embedding values.</p>
+ *
+ * <pre>{@code
+ * PreparedSearch techSearch = collection.search()
+ *     .searches(Search.builder()
+ *         .knn(Knn.queryEmbedding(new float[0]).limit(50))
+ *         .where(Where.eq("category", "tech"))
+ *         .select(Select.ID, Select.SCORE)
+ *         .limit(10)
+ *         .build())
+ *     .prepare();
+ *
+ * SearchResult result = techSearch.execute(embedding);
+ * }</pre>
+ *
+ * <p>Thread-safe; a single instance can be shared by concurrent callers.</p>
+ */
+public interface PreparedSearch {
+
+    /**
+     * Executes the search for {@code queryEmbedding}.
+     *
+     * @throws IllegalArgumentException if {@code queryEmbedding} is null or a value is NaN or infinite
+     * @throws ChromaBadRequestException if the search request is invalid
+     */
+    SearchResult execute(float[] queryEmbedding);
+}
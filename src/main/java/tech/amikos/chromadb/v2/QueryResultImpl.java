@@ -38,18 +38,11 @@ final class QueryResultImpl implements QueryResult {
                     200
             );
         }
-        List<List<float[]>> embeddings = null;
-        if (dto.embeddings != null) {
-            embeddings = new ArrayList<List<float[]>>(dto.embeddings.size());
-            for (List<List<Float>> inner : dto.embeddings) {
-                embeddings.add(ChromaDtos.toFloatArrays(inner));
-            }
-        }
         return new QueryResultImpl(
                 dto.ids,
                 dto.documents,
                 dto.metadatas,
-                embeddings,
+                dto.embeddings,
                 dto.distances,
                 dto.uris
         );
@@ -0,0 +1,146 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64-bit keys and content digests of upsert records for {@link UpsertDigestStore}.
+ *
+ * <p>A key hashes the collection ID and record ID, so one store can serve several collections and a
+ * recreated collection, which gets a new ID, starts with no known records. A digest hashes which
+ * fields are present and their values: the document, the metadata with keys sorted and values
+ * tagged by type, the embedding bits and the URI. Neither is a cryptographic hash; two keys that
+ * collide only make both records be sent again.</p>
+ */
+final class RecordDigest {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final long NULL_TAG = 0x6E756C6CL;
+    private static final long STRING_TAG = 1L;
+    private static final long INTEGER_TAG = 2L;
+    private static final long FLOAT_TAG = 3L;
+    private static final long BOOLEAN_TAG = 4L;
+    private static final long LIST_TAG = 5L;
+    private static final long OTHER_TAG = 6L;
+
+    private long state;
+
+    private RecordDigest() {
+        state = SEED;
+    }
+
+    static long key(String collectionId, String recordId) {
+        RecordDigest digest = new RecordDigest();
+        digest.string(collectionId);
+        digest.string(recordId);
+        return digest.finish();
+    }
+
+    static long digest(String document, Map<String, Object> metadata, float[] embedding, String uri) {
+        RecordDigest digest = new RecordDigest();
+        digest.string(document);
+        digest.metadata(metadata);
+        digest.embedding(embedding);
+        digest.string(uri);
+        return digest.finish();
+    }
+
+    private void string(String value) {
+        if (value == null) {
+            absorb(NULL_TAG);
+            return;
+        }
+        int n = value.length();
+        absorb(STRING_TAG ^ ((long) n << 8));
+        int i = 0;
+        for (; i + 4 <= n; i += 4) {
+            absorb((long) value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+        long tail = 0L;
+        for (int shift = 0; i < n; i++, shift += 16) {
+            tail |= (long) value.charAt(i) << shift;
+        }
+        absorb(tail);
+    }
+
+    private void embedding(float[] embedding) {
+        if (embedding == null) {
+            absorb(NULL_TAG);
+            return;
+        }
+        absorb(FLOAT_TAG ^ ((long) embedding.length << 8));
+        int i = 0;
+        for (; i + 2 <= embedding.length; i += 2) {
+            absorb((Float.floatToIntBits(embedding[i]) & 0xFFFFFFFFL)
+                    | (long) Float.floatToIntBits(embedding[i + 1]) << 32);
+        }
+        if (i < embedding.length) {
+            absorb(Float.floatToIntBits(embedding[i]) & 0xFFFFFFFFL);
+        }
+    }
+
+    private void metadata(Map<String, Object> metadata) {
+        if (metadata == null) {
+            absorb(NULL_TAG);
+            return;
+        }
+        String[] keys = metadata.keySet().toArray(new String[metadata.size()]);
+        if (keys.length > 1) {
+            Arrays.sort(keys);
+        }
+        absorb(OTHER_TAG ^ ((long) keys.length << 8));
+        for (String key : keys) {
+            string(key);
+            value(metadata.get(key));
+        }
+    }
+
+    private void value(Object value) {
+        if (value == null) {
+            absorb(NULL_TAG);
+        } else if (value instanceof String) {
+            string((String) value);
+        } else if (value instanceof Boolean) {
+            absorb(BOOLEAN_TAG);
+            absorb(((Boolean) value).booleanValue() ? 1L : 0L);
+        } else if (value instanceof Float || value instanceof Double) {
+            absorb(FLOAT_TAG);
+            absorb(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Number) {
+            absorb(INTEGER_TAG);
+            absorb(((Number) value).longValue());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            absorb(LIST_TAG ^ ((long) list.size() << 8));
+            for (Object element : list) {
+                value(element);
+            }
+        } else {
+            absorb(OTHER_TAG);
+            string(value.toString());
+        }
+    }
+
+    private void absorb(long word) {
+        state = Long.rotateLeft((state ^ fmix64(word)) * MULTIPLIER, 29);
+    }
+
+    private long finish() {
+        return fmix64(state);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
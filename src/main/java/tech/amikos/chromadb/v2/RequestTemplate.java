@@ -0,0 +1,110 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.List;
+
+/**
+ * Request JSON encoded once around a single query-embedding slot.
+ *
+ * <p>Backs {@link PreparedQuery} and {@link PreparedSearch} with the default codec: everything
+ * except the embedding is serialized when the template is built, and each request only formats
+ * the embedding values between the stored prefix and suffix. The result is the same JSON the
+ * codec would produce for the complete request. Immutable and thread-safe.</p>
+ */
+final class RequestTemplate {
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final int wirePrecision;
+
+    private RequestTemplate(byte[] prefix, byte[] suffix, int wirePrecision) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.wirePrecision = wirePrecision;
+    }
+
+    /**
+     * Splits {@code json} around {@code slot}, which must start at {@code slotStart}.
+     *
+     * @return the template, or {@code null} if {@code slot} is not at {@code slotStart}
+     */
+    static RequestTemplate at(byte[] json, int slotStart, byte[] slot, int wirePrecision) {
+        if (slotStart < 0 || slotStart + slot.length > json.length || indexOf(json, slot, slotStart) != slotStart) {
+            return null;
+        }
+        byte[] prefix = new byte[slotStart];
+        System.arraycopy(json, 0, prefix, 0, slotStart);
+        int suffixStart = slotStart + slot.length;
+        byte[] suffix = new byte[json.length - suffixStart];
+        System.arraycopy(json, suffixStart, suffix, 0, suffix.length);
+        return new RequestTemplate(prefix, suffix, wirePrecision);
+    }
+
+    /**
+     * Splits {@code json} around the only occurrence of {@code slot}.
+     *
+     * @return the template, or {@code null} if {@code slot} does not occur exactly once
+     */
+    static RequestTemplate around(byte[] json, byte[] slot, int wirePrecision) {
+        int start = indexOf(json, slot, 0);
+        if (start < 0 || indexOf(json, slot, start + 1) >= 0) {
+            return null;
+        }
+        return at(json, start, slot, wirePrecision);
+    }
+
+    /**
+     * Returns the request with {@code rows} written into the slot as a JSON array of embeddings.
+     *
+     * @throws IllegalArgumentException if a value is NaN or infinite
+     */
+    byte[] fill(List<float[]> rows) {
+        StringBuilder json = new StringBuilder(rows.size() * 64 + 2);
+        json.append('[');
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (!ChromaDtoAdapters.appendEmbeddingRow(json, rows, i, wirePrecision)) {
+                json.append("null");
+            }
+        }
+        json.append(']');
+        return join(json);
+    }
+
+    /**
+     * Returns the request with {@code row} written into the slot as a single embedding.
+     *
+     * @throws IllegalArgumentException if a value is NaN or infinite
+     */
+    byte[] fill(float[] row) {
+        StringBuilder json = new StringBuilder(row.length * 12 + 2);
+        ChromaDtoAdapters.appendEmbeddingRow(json, row, wirePrecision);
+        return join(json);
+    }
+
+    /** Concatenates prefix, the ASCII-only slot text and suffix. */
+    private byte[] join(StringBuilder slot) {
+        int slotLength = slot.length();
+        byte[] bytes = new byte[prefix.length + slotLength + suffix.length];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        for (int i = 0; i < slotLength; i++) {
+            bytes[prefix.length + i] = (byte) slot.charAt(i);
+        }
+        System.arraycopy(suffix, 0, bytes, prefix.length + slotLength, suffix.length);
+        return bytes;
+    }
+
+    private static int indexOf(byte[] json, byte[] slot, int from) {
+        outer:
+        for (int i = from; i <= json.length - slot.length; i++) {
+            for (int j = 0; j < slot.length; j++) {
+                if (json[i + j] != slot[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
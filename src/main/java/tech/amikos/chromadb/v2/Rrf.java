@@ -3,6 +3,7 @@ package tech.amikos.chromadb.v2;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Reciprocal Rank Fusion (RRF) ranking expression that combines multiple KNN rankings.
@@ -24,6 +25,7 @@ public final class Rrf {
     private final List<RankWithWeight> ranks;
     private final int k;
     private final boolean normalize;
+    private volatile Map<String, Object> rankMap;
 
     private Rrf(List<RankWithWeight> ranks, int k, boolean normalize) {
         this.ranks = Collections.unmodifiableList(new ArrayList<RankWithWeight>(ranks));
@@ -59,6 +61,19 @@ public final class Rrf {
         return normalize;
     }
 
+    /**
+     * Returns the expanded rank expression wire map, built on first use and shared by later
+     * requests.
+     */
+    Map<String, Object> toRankMap() {
+        Map<String, Object> map = rankMap;
+        if (map == null) {
+            map = MemoizedJsonMap.of(ChromaDtos.buildRrfRankMap(this));
+            rankMap = map;
+        }
+        return map;
+    }
+
     /**
      * A KNN sub-ranking paired with a fusion weight.
      */
@@ -3,6 +3,7 @@ package tech.amikos.chromadb.v2;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -29,6 +30,7 @@ public final class Search {
     private final GroupBy groupBy;
     private final Integer limit;
     private final Integer offset;
+    private volatile Map<String, Object> itemMap;
 
     private Search(Builder builder) {
         this.knn = builder.knn;
@@ -98,6 +100,22 @@ public final class Search {
         return offset;
     }
 
+    /**
+     * Returns the wire map for this search combined with {@code globalFilter}. Without a global
+     * filter the map is built on first use and shared by later requests.
+     */
+    Map<String, Object> toItemMap(Where globalFilter) {
+        if (globalFilter != null) {
+            return ChromaDtos.buildSearchItemMap(this, globalFilter);
+        }
+        Map<String, Object> map = itemMap;
+        if (map == null) {
+            map = MemoizedJsonMap.of(ChromaDtos.buildSearchItemMap(this, null));
+            itemMap = map;
+        }
+        return map;
+    }
+
     /**
      * Returns a new {@link Builder} pre-populated with this instance's fields.
      * Useful for creating modified copies without manually copying every field.
@@ -55,18 +55,11 @@ final class SearchResultImpl implements SearchResult {
                 );
             }
         }
-        List<List<float[]>> embeddings = null;
-        if (dto.embeddings != null) {
-            embeddings = new ArrayList<List<float[]>>(dto.embeddings.size());
-            for (List<List<Float>> inner : dto.embeddings) {
-                embeddings.add(ChromaDtos.toFloatArrays(inner));
-            }
-        }
         return new SearchResultImpl(
                 dto.ids,
                 dto.documents,
                 dto.metadatas,
-                embeddings,
+                dto.embeddings,
                 dto.scores
         );
     }
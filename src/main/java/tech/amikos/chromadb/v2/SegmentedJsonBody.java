@@ -0,0 +1,206 @@
+package tech.amikos.chromadb.v2;
+
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import tech.amikos.chromadb.Constants;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Request body for large add and upsert batches, encoded in parallel by the default codec.
+ *
+ * <p>The {@code ids}, {@code embeddings}, {@code documents}, {@code metadatas} and {@code uris}
+ * arrays are split into segments of {@link #SEGMENT_RECORDS} records. Each segment is encoded on the
+ * common fork-join pool into its own okio {@link Buffer}, which draws its storage from okio's shared
+ * segment pool. {@link #writeTo(BufferedSink)} writes the field framing and segments in order
+ * and shares the buffered segments with the sink instead of copying them into one array. The bytes are
+ * identical to {@link GsonJsonCodec#encode(Object)} of the same request.</p>
+ *
+ * <p>Encoding finishes before the body is returned, so encoding errors surface from the calling
+ * thread as they do for the single-threaded path, the content length is known, and the body can be
+ * written again when OkHttp retries the request.</p>
+ */
+final class SegmentedJsonBody extends RequestBody {
+
+    /** Records per encoded segment. */
+    static final int SEGMENT_RECORDS = 1024;
+
+    /** Minimum record count encoded in parallel. */
+    static final int PARALLEL_THRESHOLD = 4 * SEGMENT_RECORDS;
+
+    private static final String[] FIELD_NAMES = {"ids", "embeddings", "documents", "metadatas", "uris"};
+
+    private final List<Object> parts;
+    private final long contentLength;
+
+    private SegmentedJsonBody(List<Object> parts, long contentLength) {
+        this.parts = parts;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Returns a parallel-encoded body for large add and upsert requests, or {@code null} when
+     * {@code body} should be encoded by {@link JsonCodec#encode(Object)}.
+     */
+    static RequestBody createOrNull(GsonJsonCodec codec, Object body) {
+        return createOrNull(codec, body, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    static RequestBody createOrNull(GsonJsonCodec codec, Object body, int parallelism) {
+        List<?>[] fields;
+        if (body instanceof ChromaDtos.AddRequest) {
+            ChromaDtos.AddRequest request = (ChromaDtos.AddRequest) body;
+            fields = new List<?>[]{request.ids, request.embeddings, request.documents, request.metadatas, request.uris};
+        } else if (body instanceof ChromaDtos.UpsertRequest) {
+            ChromaDtos.UpsertRequest request = (ChromaDtos.UpsertRequest) body;
+            fields = new List<?>[]{request.ids, request.embeddings, request.documents, request.metadatas, request.uris};
+        } else {
+            return null;
+        }
+        if (parallelism < 2 || maxSize(fields) < PARALLEL_THRESHOLD) {
+            return null;
+        }
+        return encode(codec, fields);
+    }
+
+    private static int maxSize(List<?>[] fields) {
+        int max = 0;
+        for (List<?> field : fields) {
+            if (field != null) {
+                max = Math.max(max, field.size());
+            }
+        }
+        return max;
+    }
+
+    private static SegmentedJsonBody encode(final GsonJsonCodec codec, List<?>[] fields) {
+        final List<Segment> segments = new ArrayList<Segment>();
+        List<Object> parts = new ArrayList<Object>();
+        StringBuilder framing = new StringBuilder("{");
+        boolean firstField = true;
+        for (int f = 0; f < FIELD_NAMES.length; f++) {
+            List<?> values = fields[f];
+            if (values == null) {
+                continue;
+            }
+            if (!firstField) {
+                framing.append(',');
+            }
+            firstField = false;
+            framing.append('"').append(FIELD_NAMES[f]).append("\":[");
+            for (int from = 0; from < values.size(); from += SEGMENT_RECORDS) {
+                if (from > 0) {
+                    framing.append(',');
+                }
+                parts.add(framing.toString());
+                framing.setLength(0);
+                Segment segment = new Segment(FIELD_NAMES[f], values, from, Math.min(values.size(), from + SEGMENT_RECORDS));
+                segments.add(segment);
+                parts.add(segment);
+            }
+            framing.append(']');
+        }
+        framing.append('}');
+        parts.add(framing.toString());
+
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        IntStream.range(0, segments.size()).parallel().forEach(i -> {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                segments.get(i).encode(codec);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        // Rethrown here rather than from the pool, which may wrap exceptions from worker threads.
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        long length = 0L;
+        for (int i = 0; i < parts.size(); i++) {
+            Object part = parts.get(i);
+            if (part instanceof String) {
+                byte[] bytes = ((String) part).getBytes(StandardCharsets.UTF_8);
+                parts.set(i, bytes);
+                length += bytes.length;
+            } else {
+                length += ((Segment) part).length();
+            }
+        }
+        return new SegmentedJsonBody(parts, length);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return Constants.JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        for (Object part : parts) {
+            if (part instanceof byte[]) {
+                sink.write((byte[]) part);
+            } else {
+                ((Segment) part).copyTo(sink);
+            }
+        }
+    }
+
+    /** One slice of a record field, encoded as a JSON array whose brackets are dropped on write. */
+    private static final class Segment {
+        private final String field;
+        private final List<?> values;
+        private final int from;
+        private final int to;
+        private Buffer json;
+
+        Segment(String field, List<?> values, int from, int to) {
+            this.field = field;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        void encode(GsonJsonCodec codec) {
+            Buffer buffer = new Buffer();
+            try {
+                JsonWriter writer = codec.gson().newJsonWriter(
+                        new OutputStreamWriter(buffer.outputStream(), StandardCharsets.UTF_8));
+                codec.adapters().writeRecordSlice(codec.gson(), writer, field, values, from, to);
+                writer.flush();
+            } catch (IOException e) {
+                // okio.Buffer does not throw.
+                throw new UncheckedIOException(e);
+            }
+            json = buffer;
+        }
+
+        long length() {
+            return json.size() - 2;
+        }
+
+        void copyTo(BufferedSink sink) throws IOException {
+            json.copyTo(sink.getBuffer(), 1L, length());
+            sink.emitCompleteSegments();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package tech.amikos.chromadb.v2;
 
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
@@ -24,42 +23,35 @@ import java.util.TreeMap;
  * deterministic string (sorted keys) and hashed. When both document and metadata are
  * null, throws {@link IllegalArgumentException}.</p>
  *
+ * <p>Each thread reuses its own {@link MessageDigest}; canonical content is encoded straight into
+ * the digest input without building intermediate strings, and large batches are hashed in
+ * parallel. For faster, non-cryptographic content IDs use {@link Murmur3IdGenerator}.</p>
+ *
  * <p>Thread-safe. Use the {@link #INSTANCE} singleton.</p>
  */
-public final class Sha256IdGenerator implements IdGenerator {
+public final class Sha256IdGenerator extends ContentHashIdGenerator {
 
     public static final Sha256IdGenerator INSTANCE = new Sha256IdGenerator();
 
-    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    };
 
     private Sha256IdGenerator() {
     }
 
     @Override
-    public String generate(String document, Map<String, Object> metadata) {
-        if (document == null && metadata == null) {
-            throw new IllegalArgumentException(
-                    "Sha256IdGenerator requires a non-null document or metadata"
-            );
-        }
-        String content = document != null ? ("doc:" + document) : ("meta:" + serializeMetadata(metadata));
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-            return hexEncode(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("SHA-256 not available", e);
-        }
-    }
-
-    private static String hexEncode(byte[] bytes) {
-        char[] chars = new char[bytes.length * 2];
-        for (int i = 0; i < bytes.length; i++) {
-            int v = bytes[i] & 0xFF;
-            chars[i * 2] = HEX[v >>> 4];
-            chars[i * 2 + 1] = HEX[v & 0x0F];
-        }
-        return new String(chars);
+    String hash(byte[] content, int length) {
+        MessageDigest digest = DIGEST.get();
+        digest.update(content, 0, length);
+        return hexEncode(digest.digest());
     }
 
     /**
@@ -68,7 +60,8 @@ public final class Sha256IdGenerator implements IdGenerator {
      * <p>Format: sorted key=value pairs joined by semicolons.
      * Keys are sorted lexicographically via {@link java.util.TreeMap}.
      * Values use {@code Object.toString()} (null values serialize as literal "null").
-     * This format is stable and documented; do not change without a version migration plan.</p>
+     * This format is stable and documented; do not change without a version migration plan.
+     * {@link #generate(String, Map)} hashes the same bytes without materializing this string.</p>
      *
      * @param metadata metadata map (may be null or empty)
      * @return deterministic string representation, empty string for null or empty maps
@@ -1,6 +1,8 @@
 package tech.amikos.chromadb.v2;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -10,24 +12,81 @@ import java.util.Map;
  * 48-bit millisecond timestamp followed by 16 characters of 80-bit cryptographic
  * randomness. ULIDs are lexicographically sortable by creation time.</p>
  *
- * <p>Thread-safe. Use the {@link #INSTANCE} singleton.</p>
+ * <p>Each thread draws randomness in bulk from its own {@link SecureRandom}, so concurrent
+ * ingestion threads never contend on a shared lock.</p>
+ *
+ * <p>{@link #MONOTONIC} follows the ULID monotonic variant: IDs generated by the same thread within
+ * one millisecond increment the previous random component instead of drawing a new one, so they
+ * also sort in generation order. Ordering across threads is by timestamp only. Each generator keeps
+ * its own per-thread state, so interleaved {@link #INSTANCE} calls do not affect this sequence.</p>
+ *
+ * <p>Thread-safe. Use the {@link #INSTANCE} or {@link #MONOTONIC} singleton.</p>
  */
 public final class UlidIdGenerator implements IdGenerator {
 
-    public static final UlidIdGenerator INSTANCE = new UlidIdGenerator();
+    public static final UlidIdGenerator INSTANCE = new UlidIdGenerator(false);
+
+    /** Generator whose IDs from one thread are strictly increasing. */
+    public static final UlidIdGenerator MONOTONIC = new UlidIdGenerator(true);
 
     private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int RANDOM_BYTES = 10;
+    private static final int POOL_IDS = 64;
+    private static final long HI_MASK = 0xFFFFL;
+
+    /** Per generator, so {@link #INSTANCE} calls never disturb the sequence of {@link #MONOTONIC}. */
+    private final ThreadLocal<State> state = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
 
-    private UlidIdGenerator() {
+    private final boolean monotonic;
+
+    private UlidIdGenerator(boolean monotonic) {
+        this.monotonic = monotonic;
     }
 
     @Override
     public String generate(String document, Map<String, Object> metadata) {
+        State state = this.state.get();
+        char[] chars = new char[26];
+        next(state, System.currentTimeMillis(), chars);
+        return new String(chars);
+    }
+
+    @Override
+    public List<String> generateBatch(int count, List<String> documents, List<Map<String, Object>> metadatas) {
+        List<String> ids = new ArrayList<String>(count);
+        State state = this.state.get();
+        char[] chars = new char[26];
         long timestamp = System.currentTimeMillis();
-        byte[] randomBytes = new byte[10]; // 80 bits
-        RANDOM.nextBytes(randomBytes);
-        return encode(timestamp, randomBytes);
+        for (int i = 0; i < count; i++) {
+            next(state, timestamp, chars);
+            ids.add(new String(chars));
+        }
+        return ids;
+    }
+
+    private void next(State state, long timestamp, char[] out) {
+        if (monotonic && timestamp <= state.lastTimestamp) {
+            // Same millisecond (or clock moved backwards): increment the 80-bit random component.
+            timestamp = state.lastTimestamp;
+            state.lo++;
+            if (state.lo == 0L) {
+                state.hi = (state.hi + 1) & HI_MASK;
+                if (state.hi == 0L) {
+                    // 80-bit overflow: move to the next millisecond with fresh randomness.
+                    timestamp++;
+                    state.draw();
+                }
+            }
+        } else {
+            state.draw();
+        }
+        state.lastTimestamp = timestamp;
+        encode(timestamp, state.hi, state.lo, out);
     }
 
     /**
@@ -38,42 +97,67 @@ public final class UlidIdGenerator implements IdGenerator {
         if (randomBytes == null) {
             throw new NullPointerException("randomBytes");
         }
-        if (randomBytes.length != 10) {
+        if (randomBytes.length != RANDOM_BYTES) {
             throw new IllegalArgumentException("randomBytes must be exactly 10 bytes");
         }
         char[] chars = new char[26];
+        encode(timestamp, readHi(randomBytes, 0), readLo(randomBytes, 2), chars);
+        return new String(chars);
+    }
 
-        // Encode 48-bit timestamp into 10 Crockford base32 characters (most significant first)
-        chars[0] = CROCKFORD[(int) ((timestamp >>> 45) & 0x1F)];
-        chars[1] = CROCKFORD[(int) ((timestamp >>> 40) & 0x1F)];
-        chars[2] = CROCKFORD[(int) ((timestamp >>> 35) & 0x1F)];
-        chars[3] = CROCKFORD[(int) ((timestamp >>> 30) & 0x1F)];
-        chars[4] = CROCKFORD[(int) ((timestamp >>> 25) & 0x1F)];
-        chars[5] = CROCKFORD[(int) ((timestamp >>> 20) & 0x1F)];
-        chars[6] = CROCKFORD[(int) ((timestamp >>> 15) & 0x1F)];
-        chars[7] = CROCKFORD[(int) ((timestamp >>> 10) & 0x1F)];
-        chars[8] = CROCKFORD[(int) ((timestamp >>> 5) & 0x1F)];
-        chars[9] = CROCKFORD[(int) (timestamp & 0x1F)];
-
-        // Encode 80-bit random into 16 Crockford base32 characters
-        // We treat the 10 bytes as a big-endian 80-bit integer
-        chars[10] = CROCKFORD[((randomBytes[0] & 0xFF) >>> 3)];
-        chars[11] = CROCKFORD[((randomBytes[0] & 0x07) << 2) | ((randomBytes[1] & 0xFF) >>> 6)];
-        chars[12] = CROCKFORD[((randomBytes[1] & 0x3E) >>> 1)];
-        chars[13] = CROCKFORD[((randomBytes[1] & 0x01) << 4) | ((randomBytes[2] & 0xFF) >>> 4)];
-        chars[14] = CROCKFORD[((randomBytes[2] & 0x0F) << 1) | ((randomBytes[3] & 0xFF) >>> 7)];
-        chars[15] = CROCKFORD[((randomBytes[3] & 0x7C) >>> 2)];
-        chars[16] = CROCKFORD[((randomBytes[3] & 0x03) << 3) | ((randomBytes[4] & 0xFF) >>> 5)];
-        chars[17] = CROCKFORD[(randomBytes[4] & 0x1F)];
-        chars[18] = CROCKFORD[((randomBytes[5] & 0xFF) >>> 3)];
-        chars[19] = CROCKFORD[((randomBytes[5] & 0x07) << 2) | ((randomBytes[6] & 0xFF) >>> 6)];
-        chars[20] = CROCKFORD[((randomBytes[6] & 0x3E) >>> 1)];
-        chars[21] = CROCKFORD[((randomBytes[6] & 0x01) << 4) | ((randomBytes[7] & 0xFF) >>> 4)];
-        chars[22] = CROCKFORD[((randomBytes[7] & 0x0F) << 1) | ((randomBytes[8] & 0xFF) >>> 7)];
-        chars[23] = CROCKFORD[((randomBytes[8] & 0x7C) >>> 2)];
-        chars[24] = CROCKFORD[((randomBytes[8] & 0x03) << 3) | ((randomBytes[9] & 0xFF) >>> 5)];
-        chars[25] = CROCKFORD[(randomBytes[9] & 0x1F)];
+    /**
+     * Encodes the 48-bit timestamp and the 80-bit random value {@code hi:lo} (16 + 64 bits,
+     * big-endian) as Crockford base32, most significant character first.
+     */
+    private static void encode(long timestamp, long hi, long lo, char[] chars) {
+        for (int i = 0; i < 10; i++) {
+            chars[i] = CROCKFORD[(int) ((timestamp >>> (45 - 5 * i)) & 0x1F)];
+        }
+        for (int i = 0; i < 16; i++) {
+            int shift = 75 - 5 * i;
+            long bits;
+            if (shift >= 64) {
+                bits = hi >>> (shift - 64);
+            } else if (shift > 59) {
+                bits = (hi << (64 - shift)) | (lo >>> shift);
+            } else {
+                bits = lo >>> shift;
+            }
+            chars[10 + i] = CROCKFORD[(int) (bits & 0x1F)];
+        }
+    }
 
-        return new String(chars);
+    private static long readHi(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFFL) << 8) | (bytes[offset + 1] & 0xFFL);
+    }
+
+    private static long readLo(byte[] bytes, int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+    /**
+     * Per-thread random source, entropy pool and last generated value.
+     */
+    private static final class State {
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] pool = new byte[RANDOM_BYTES * POOL_IDS];
+        private int position = pool.length;
+        private long lastTimestamp = Long.MIN_VALUE;
+        private long hi;
+        private long lo;
+
+        void draw() {
+            if (position == pool.length) {
+                random.nextBytes(pool);
+                position = 0;
+            }
+            hi = readHi(pool, position);
+            lo = readLo(pool, position + 2);
+            position += RANDOM_BYTES;
+        }
     }
 }
@@ -0,0 +1,301 @@
+package tech.amikos.chromadb.v2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Remembers a digest of each record as last upserted, so unchanged records can be skipped.
+ *
+ * <p>Used with {@link Collection.UpsertBuilder#executeChanged(UpsertDigestStore)}. Each entry maps a
+ * 64-bit hash of the collection ID and record ID to a 64-bit hash of the record's document,
+ * metadata, embedding and URI, in an open-addressing table of primitive {@code long}s (16 bytes per
+ * record). A record is only recorded after the upsert that sent it succeeded.</p>
+ *
+ * <p>{@link #inMemory()} keeps the table on the heap. {@link #open(Path)} keeps it in a
+ * memory-mapped file so it survives restarts of a sync job; the file grows as records are added and
+ * {@link #close()} forces it to disk. The store only knows what was upserted through it: after
+ * records are changed or deleted by other means, {@link #clear()} it so they are sent again.</p>
+ *
+ * <p>Thread-safe. Concurrent upserts of the same record through one store may each send it; when
+ * their contents differ, the store forgets the record rather than guess which request the server
+ * applied last, so it is sent again on the next upsert.</p>
+ */
+public final class UpsertDigestStore implements AutoCloseable {
+
+    private static final long MAGIC = 0x43484447_53543031L;
+    private static final int HEADER_LONGS = 4;
+    private static final int MAGIC_INDEX = 0;
+    private static final int CAPACITY_INDEX = 1;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    /** Largest table whose mapping stays under 2 GB: 32M records at half load. */
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final long EMPTY = 0L;
+    /** Digest of a record with no known content; stored digests are never this value. */
+    private static final long UNKNOWN = 0L;
+
+    private final FileChannel channel;
+    private MappedByteBuffer mapped;
+    private LongBuffer table;
+    private int capacity;
+    private int size;
+    private boolean closed;
+
+    private UpsertDigestStore(FileChannel channel, MappedByteBuffer mapped, LongBuffer table) {
+        this.channel = channel;
+        this.mapped = mapped;
+        this.table = table;
+        this.capacity = (int) table.get(CAPACITY_INDEX);
+        // Counted rather than stored, so a file from a process that died mid-write stays consistent.
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table.get(keyIndex(slot)) != EMPTY) {
+                size++;
+            }
+        }
+    }
+
+    /** Creates an empty store on the heap. */
+    public static UpsertDigestStore inMemory() {
+        LongBuffer table = LongBuffer.allocate(tableLongs(INITIAL_CAPACITY));
+        initialize(table, INITIAL_CAPACITY);
+        return new UpsertDigestStore(null, null, table);
+    }
+
+    /**
+     * Opens the store persisted in {@code file}, creating an empty one if the file does not exist or
+     * is empty.
+     *
+     * @throws NullPointerException     if {@code file} is null
+     * @throws IllegalArgumentException if the file cannot be opened or is not a digest store
+     */
+    public static UpsertDigestStore open(Path file) {
+        Objects.requireNonNull(file, "file");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer mapped;
+            if (channel.size() == 0L) {
+                mapped = map(channel, INITIAL_CAPACITY);
+                initialize(longs(mapped), INITIAL_CAPACITY);
+            } else {
+                LongBuffer header = channel.size() < HEADER_LONGS * 8L ? null : longs(map(channel, 0));
+                long storedCapacity = header == null ? 0L : header.get(CAPACITY_INDEX);
+                if (header == null || header.get(MAGIC_INDEX) != MAGIC
+                        || storedCapacity < INITIAL_CAPACITY || storedCapacity > MAX_CAPACITY
+                        || Long.bitCount(storedCapacity) != 1
+                        || channel.size() < tableLongs((int) storedCapacity) * 8L) {
+                    throw new IllegalArgumentException("Not an upsert digest store: " + file);
+                }
+                mapped = map(channel, (int) storedCapacity);
+            }
+            return new UpsertDigestStore(channel, mapped, longs(mapped));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new IllegalArgumentException(
+                    "Failed to open upsert digest store " + file + ": " + e.getMessage(),
+                    e
+            );
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /** Returns the number of records in the store. */
+    public synchronized int size() {
+        ensureOpen();
+        return size;
+    }
+
+    /** Forgets all records, so the next upsert of each record sends it. */
+    public synchronized void clear() {
+        ensureOpen();
+        for (int i = HEADER_LONGS, n = tableLongs(capacity); i < n; i++) {
+            table.put(i, EMPTY);
+        }
+        size = 0;
+    }
+
+    /**
+     * Forces a file-backed store to disk and releases it; the store cannot be used afterwards.
+     * Calling this more than once has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (channel != null) {
+            mapped.force();
+            closeQuietly(channel);
+        }
+        mapped = null;
+        table = null;
+    }
+
+    /**
+     * Returns the positions of records whose digest differs from the stored one, or that are not
+     * stored, in ascending order, and fills {@code observed} with the digest each record had, or
+     * {@link #UNKNOWN} if it had none, for {@link #record}.
+     */
+    synchronized int[] changed(long[] keys, long[] digests, long[] observed) {
+        ensureOpen();
+        int[] changed = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = find(keys[i]);
+            observed[i] = slot < 0 ? UNKNOWN : table.get(valueIndex(slot));
+            if (observed[i] != normalize(digests[i])) {
+                changed[count++] = i;
+            }
+        }
+        return count == keys.length ? changed : Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Stores the digests of records at {@code positions} after they were written, as long as each
+     * still holds the digest {@link #changed} observed. A record that another upsert recorded in
+     * between, with different content, is marked {@link #UNKNOWN}: either request may have landed
+     * last, so the record is sent again next time.
+     */
+    synchronized void record(long[] keys, long[] digests, long[] observed, int[] positions) {
+        ensureOpen();
+        for (int position : positions) {
+            long key = normalize(keys[position]);
+            long digest = normalize(digests[position]);
+            int slot = find(key);
+            long current = slot < 0 ? UNKNOWN : table.get(valueIndex(slot));
+            put(key, current == observed[position] || current == digest ? digest : UNKNOWN);
+        }
+    }
+
+    private void put(long key, long digest) {
+        if ((size + 1L) * 2L > capacity) {
+            grow();
+        }
+        int mask = capacity - 1;
+        int slot = spread(key) & mask;
+        long existing;
+        while ((existing = table.get(keyIndex(slot))) != EMPTY) {
+            if (existing == key) {
+                table.put(valueIndex(slot), digest);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table.put(keyIndex(slot), key);
+        table.put(valueIndex(slot), digest);
+        size++;
+    }
+
+    private int find(long key) {
+        key = normalize(key);
+        int mask = capacity - 1;
+        int slot = spread(key) & mask;
+        long existing;
+        while ((existing = table.get(keyIndex(slot))) != EMPTY) {
+            if (existing == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Upsert digest store is full (" + size + " records)");
+        }
+        long[] entries = new long[size * 2];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long key = table.get(keyIndex(slot));
+            if (key != EMPTY) {
+                entries[count++] = key;
+                entries[count++] = table.get(valueIndex(slot));
+            }
+        }
+        int newCapacity = capacity * 2;
+        if (channel == null) {
+            table = LongBuffer.allocate(tableLongs(newCapacity));
+        } else {
+            try {
+                mapped = map(channel, newCapacity);
+                table = longs(mapped);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to grow upsert digest store", e);
+            }
+        }
+        initialize(table, newCapacity);
+        capacity = newCapacity;
+        size = 0;
+        for (int i = 0; i < count; i += 2) {
+            put(entries[i], entries[i + 1]);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Upsert digest store is closed");
+        }
+    }
+
+    private static void initialize(LongBuffer table, int capacity) {
+        for (int i = 0, n = tableLongs(capacity); i < n; i++) {
+            table.put(i, EMPTY);
+        }
+        table.put(MAGIC_INDEX, MAGIC);
+        table.put(CAPACITY_INDEX, capacity);
+    }
+
+    /** Maps the header and, unless {@code capacity} is 0, a table of that many slots. */
+    private static MappedByteBuffer map(FileChannel channel, int capacity) throws IOException {
+        int longs = capacity == 0 ? HEADER_LONGS : tableLongs(capacity);
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0L, longs * 8L);
+    }
+
+    private static LongBuffer longs(MappedByteBuffer mapped) {
+        return mapped.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    private static int tableLongs(int capacity) {
+        return HEADER_LONGS + capacity * 2;
+    }
+
+    private static int keyIndex(int slot) {
+        return HEADER_LONGS + slot * 2;
+    }
+
+    private static int valueIndex(int slot) {
+        return HEADER_LONGS + slot * 2 + 1;
+    }
+
+    /** Reserves {@code 0} for empty slots and {@link #UNKNOWN} digests. */
+    private static long normalize(long key) {
+        return key == EMPTY ? 1L : key;
+    }
+
+    private static int spread(long key) {
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing useful to do
+            }
+        }
+    }
+}
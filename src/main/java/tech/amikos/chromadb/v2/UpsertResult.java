@@ -0,0 +1,45 @@
+package tech.amikos.chromadb.v2;
+
+/**
+ * Outcome of {@link Collection.UpsertBuilder#executeChanged(UpsertDigestStore)}.
+ *
+ * <p>Every record of the batch is counted once, as either sent or skipped.</p>
+ */
+public final class UpsertResult {
+
+    private final int sentCount;
+    private final int skippedCount;
+
+    UpsertResult(int sentCount, int skippedCount) {
+        this.sentCount = sentCount;
+        this.skippedCount = skippedCount;
+    }
+
+    /** Returns the number of new or changed records that were upserted. */
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    /** Returns the number of records skipped because they were unchanged since their last upsert. */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UpsertResult)) return false;
+        UpsertResult that = (UpsertResult) o;
+        return sentCount == that.sentCount && skippedCount == that.skippedCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sentCount + skippedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult{sentCount=" + sentCount + ", skippedCount=" + skippedCount + '}';
+    }
+}
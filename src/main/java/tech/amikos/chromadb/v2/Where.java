@@ -14,6 +14,12 @@ import java.util.Map;
  *
  * <p><strong>Compatibility:</strong> this DSL serializes to Chroma {@code where} JSON shape.
  * Operation support/semantics may vary by Chroma deployment and version.</p>
+ *
+ * <p>Get, query and delete requests send an equivalent simplified filter: nested {@code and}/
+ * {@code or} clauses are flattened, duplicates removed, {@code or} of equalities on one key becomes
+ * {@code $in}, and a top-level {@link #idIn(String...)} is moved into the request's {@code ids}. A
+ * filter that can match no record, such as {@code and(eq("k", "a"), eq("k", "b"))}, is answered with
+ * an empty result without contacting the server.</p>
  */
 public abstract class Where {
 
@@ -235,7 +241,12 @@ public abstract class Where {
      */
     public Where or(Where other) { return Where.or(this, other); }
 
-    /** Serialize to the Chroma filter JSON structure. */
+    /**
+     * Serialize to the Chroma filter JSON structure.
+     *
+     * <p>Filters built by the factory methods return the same immutable map on every call, and the
+     * default codec serializes it only once, so reusing a filter across requests is cheap.</p>
+     */
     public abstract Map<String, Object> toMap();
 
     private static Where metadataStringCondition(String key, String operator, String value) {
@@ -439,6 +450,9 @@ public abstract class Where {
     }
 
     private static Object immutableValueCopy(Object value) {
+        if (value instanceof MemoizedJsonMap) {
+            return value; // already immutable, keep its cached JSON
+        }
         if (value instanceof Map<?, ?>) {
             return immutableMapCopy((Map<?, ?>) value);
         }
@@ -458,12 +472,12 @@ public abstract class Where {
 
         /** Validates and deep-copies an untrusted map (used by {@link #fromMap}). */
         private MapWhere(Map<?, ?> map) {
-            this.map = immutableMapCopy(map);
+            this.map = MemoizedJsonMap.of(immutableMapCopy(map));
         }
 
         /** Trusted constructor for internally-built immutable maps (skips redundant copy). */
         private MapWhere(Map<String, Object> validatedMap, Void unused) {
-            this.map = validatedMap;
+            this.map = MemoizedJsonMap.of(validatedMap);
         }
 
         @Override
@@ -135,7 +135,12 @@ public abstract class WhereDocument {
      */
     public WhereDocument or(WhereDocument other) { return WhereDocument.or(this, other); }
 
-    /** Serialize to the Chroma filter JSON structure. */
+    /**
+     * Serialize to the Chroma filter JSON structure.
+     *
+     * <p>Filters built by the factory methods return the same immutable map on every call, and the
+     * default codec serializes it only once, so reusing a filter across requests is cheap.</p>
+     */
     public abstract Map<String, Object> toMap();
 
     // --- Private helpers ---
@@ -198,6 +203,9 @@ public abstract class WhereDocument {
     }
 
     private static Object immutableValueCopy(Object value) {
+        if (value instanceof MemoizedJsonMap) {
+            return value; // already immutable, keep its cached JSON
+        }
         if (value instanceof Map<?, ?>) {
             return immutableMapCopy((Map<?, ?>) value);
         }
@@ -217,12 +225,12 @@ public abstract class WhereDocument {
 
         /** Validates and deep-copies an untrusted map (used by {@link #fromMap}). */
         private MapWhereDocument(Map<?, ?> map) {
-            this.map = immutableMapCopy(map);
+            this.map = MemoizedJsonMap.of(immutableMapCopy(map));
         }
 
         /** Trusted constructor for internally-built immutable maps (skips redundant copy). */
         private MapWhereDocument(Map<String, Object> validatedMap, Void unused) {
-            this.map = validatedMap;
+            this.map = MemoizedJsonMap.of(validatedMap);
         }
 
         @Override
@@ -0,0 +1,400 @@
+package tech.amikos.chromadb.v2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites {@code where} filter maps into a smaller equivalent form before they are sent.
+ *
+ * <p>The pass flattens nested {@code $and}/{@code $or} nodes, drops duplicate clauses and
+ * duplicate {@code $in} values, merges {@code $eq}/{@code $in} clauses on one key under
+ * {@code $or} into a single {@code $in}, and intersects {@code $eq}/{@code $in}/{@code $ne}/
+ * {@code $nin} clauses on one key under {@code $and}. A filter that can match no record folds to
+ * {@link #UNSATISFIABLE}. Shapes are recognized however they were built, including raw maps
+ * passed to {@link Where#fromMap(Map)}; clauses it does not recognize, and logical nodes without
+ * children, are kept as they are.</p>
+ *
+ * <p>Operand values are only compared when every value on the key has the same Java type, so
+ * that {@code 1} and {@code 1.0f} are never treated as different values the server might consider
+ * equal. Clauses on float values are never merged or intersected, since {@code 0.0f} and
+ * {@code -0.0f} differ as Java objects but not on the server.</p>
+ */
+final class WhereOptimizer {
+
+    /** Result of {@link #optimize(Map)} for a filter that matches no record. Compare by identity. */
+    static final Map<String, Object> UNSATISFIABLE =
+            Collections.unmodifiableMap(new LinkedHashMap<String, Object>());
+
+    private static final String OP_AND = "$and";
+    private static final String OP_OR = "$or";
+    private static final String OP_EQ = "$eq";
+    private static final String OP_NE = "$ne";
+    private static final String OP_IN = "$in";
+    private static final String OP_NIN = "$nin";
+
+    private WhereOptimizer() {}
+
+    /**
+     * Returns the optimized form of {@code where}, {@code where} itself if nothing changed, or
+     * {@link #UNSATISFIABLE}. Results for filters built by {@link Where} are cached on the map.
+     */
+    static Map<String, Object> optimize(Map<String, Object> where) {
+        if (where == null) {
+            return null;
+        }
+        if (where instanceof MemoizedJsonMap) {
+            MemoizedJsonMap memoized = (MemoizedJsonMap) where;
+            Map<String, Object> optimized = memoized.cachedOptimized();
+            if (optimized == null) {
+                optimized = optimizeNode(where);
+                memoized.cacheOptimized(optimized);
+            }
+            return optimized;
+        }
+        return optimizeNode(where);
+    }
+
+    /**
+     * Optimizes {@code where} and lifts a top-level {@code #id $in} clause into the request's
+     * {@code ids} parameter. When {@code ids} is already set the lifted IDs are intersected with it,
+     * preserving the order of {@code ids}.
+     *
+     * @return the rewritten ids and filter, or {@code null} if the request can match no record
+     */
+    static IdScope pushDownIds(List<String> ids, Map<String, Object> where) {
+        Map<String, Object> optimized = optimize(where);
+        if (optimized == UNSATISFIABLE) {
+            return null;
+        }
+        if (optimized == null) {
+            return new IdScope(ids, null);
+        }
+        Map<String, Object> remaining;
+        List<?> idValues = idValues(optimized);
+        if (idValues != null) {
+            remaining = null;
+        } else {
+            List<Map<String, Object>> clauses = clauses(optimized, OP_AND);
+            if (clauses == null) {
+                return new IdScope(ids, optimized);
+            }
+            int idClause = -1;
+            for (int i = 0; i < clauses.size() && idClause < 0; i++) {
+                idValues = idValues(clauses.get(i));
+                if (idValues != null) {
+                    idClause = i;
+                }
+            }
+            if (idClause < 0) {
+                return new IdScope(ids, optimized);
+            }
+            List<Map<String, Object>> rest = new ArrayList<Map<String, Object>>(clauses);
+            rest.remove(idClause);
+            remaining = rest.size() == 1 ? rest.get(0) : logical(OP_AND, rest);
+        }
+
+        List<String> lifted = new ArrayList<String>(idValues.size());
+        if (ids == null || ids.isEmpty()) {
+            for (Object id : idValues) {
+                lifted.add((String) id);
+            }
+        } else {
+            Set<Object> allowed = new LinkedHashSet<Object>(idValues);
+            for (String id : ids) {
+                if (allowed.contains(id)) {
+                    lifted.add(id);
+                }
+            }
+            if (lifted.isEmpty()) {
+                return null;
+            }
+        }
+        return new IdScope(lifted, remaining);
+    }
+
+    /** Request ids and filter after {@link #pushDownIds(List, Map)}. */
+    static final class IdScope {
+        final List<String> ids;
+        final Map<String, Object> where;
+
+        IdScope(List<String> ids, Map<String, Object> where) {
+            this.ids = ids;
+            this.where = where;
+        }
+    }
+
+    private static Map<String, Object> optimizeNode(Map<String, Object> node) {
+        Map<String, Object> leaf = leafOperator(node);
+        if (leaf != null) {
+            return dedupeInValues(node, leaf);
+        }
+        String operator = logicalOperator(node);
+        // A logical node without children is left for the server to judge, not folded away.
+        if (operator == null || clauses(node, operator).isEmpty()) {
+            return node;
+        }
+        List<Map<String, Object>> clauses = new ArrayList<Map<String, Object>>();
+        boolean and = OP_AND.equals(operator);
+        for (Map<String, Object> child : clauses(node, operator)) {
+            Map<String, Object> optimized = optimizeNode(child);
+            if (optimized == UNSATISFIABLE) {
+                if (and) {
+                    return UNSATISFIABLE;
+                }
+                continue;
+            }
+            List<Map<String, Object>> nested = clauses(optimized, operator);
+            if (nested != null && !nested.isEmpty()) {
+                clauses.addAll(nested);
+            } else {
+                clauses.add(optimized);
+            }
+        }
+        clauses = new ArrayList<Map<String, Object>>(new LinkedHashSet<Map<String, Object>>(clauses));
+        clauses = and ? intersectByKey(clauses) : unionByKey(clauses);
+        if (clauses == null || clauses.isEmpty()) {
+            return UNSATISFIABLE;
+        }
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        if (clauses.equals(node.get(operator))) {
+            return node;
+        }
+        return logical(operator, clauses);
+    }
+
+    /** Merges {@code $eq}/{@code $in} clauses on the same key into one {@code $in}. */
+    private static List<Map<String, Object>> unionByKey(List<Map<String, Object>> clauses) {
+        Map<String, List<Integer>> byKey = groupByKey(clauses, OP_EQ, OP_IN);
+        if (byKey.isEmpty()) {
+            return clauses;
+        }
+        List<Map<String, Object>> merged = new ArrayList<Map<String, Object>>(clauses);
+        for (Map.Entry<String, List<Integer>> group : byKey.entrySet()) {
+            List<Integer> positions = group.getValue();
+            Set<Object> values = new LinkedHashSet<Object>();
+            for (int position : positions) {
+                values.addAll(operands(clauses.get(position)));
+            }
+            merged.set(positions.get(0), condition(group.getKey(), values));
+            for (int i = 1; i < positions.size(); i++) {
+                merged.set(positions.get(i), null);
+            }
+        }
+        merged.removeAll(Collections.singleton(null));
+        return merged;
+    }
+
+    /**
+     * Intersects {@code $eq}/{@code $in} clauses on the same key and removes values excluded by
+     * {@code $ne}/{@code $nin} clauses on it.
+     *
+     * @return the rewritten clauses, or {@code null} if a key can match no value
+     */
+    private static List<Map<String, Object>> intersectByKey(List<Map<String, Object>> clauses) {
+        Map<String, List<Integer>> byKey = groupByKey(clauses, OP_EQ, OP_IN, OP_NE, OP_NIN);
+        if (byKey.isEmpty()) {
+            return clauses;
+        }
+        List<Map<String, Object>> merged = new ArrayList<Map<String, Object>>(clauses);
+        for (Map.Entry<String, List<Integer>> group : byKey.entrySet()) {
+            Set<Object> allowed = null;
+            Set<Object> excluded = new LinkedHashSet<Object>();
+            int first = -1;
+            for (int position : group.getValue()) {
+                Map<String, Object> clause = clauses.get(position);
+                String op = leafOperator(clause).keySet().iterator().next();
+                if (OP_NE.equals(op) || OP_NIN.equals(op)) {
+                    excluded.addAll(operands(clause));
+                } else if (allowed == null) {
+                    allowed = new LinkedHashSet<Object>(operands(clause));
+                    first = position;
+                } else {
+                    allowed.retainAll(operands(clause));
+                }
+            }
+            if (allowed == null) {
+                continue; // only exclusions on this key; nothing to fold
+            }
+            allowed.removeAll(excluded);
+            if (allowed.isEmpty()) {
+                return null;
+            }
+            for (int position : group.getValue()) {
+                merged.set(position, null);
+            }
+            merged.set(first, condition(group.getKey(), allowed));
+        }
+        merged.removeAll(Collections.singleton(null));
+        return merged;
+    }
+
+    /**
+     * Groups single-key clauses using one of {@code operators} by key, keeping only keys with at
+     * least two clauses whose operand values all have the same non-floating-point type.
+     */
+    private static Map<String, List<Integer>> groupByKey(List<Map<String, Object>> clauses, String... operators) {
+        Map<String, List<Integer>> byKey = new LinkedHashMap<String, List<Integer>>();
+        Map<String, Class<?>> valueTypes = new LinkedHashMap<String, Class<?>>();
+        for (int i = 0; i < clauses.size(); i++) {
+            Map<String, Object> clause = clauses.get(i);
+            Map<String, Object> leaf = leafOperator(clause);
+            if (leaf == null || !isOneOf(leaf.keySet().iterator().next(), operators)) {
+                continue;
+            }
+            String key = clause.keySet().iterator().next();
+            Class<?> type = valueType(operands(clause));
+            if (type == null || type == Float.class || type == Double.class
+                    || (valueTypes.containsKey(key) && valueTypes.get(key) != type)) {
+                // Mixed types are never folded, nor are floats, whose equals() tells 0.0 from -0.0.
+                valueTypes.put(key, Void.class);
+                continue;
+            }
+            valueTypes.put(key, type);
+            List<Integer> positions = byKey.get(key);
+            if (positions == null) {
+                positions = new ArrayList<Integer>();
+                byKey.put(key, positions);
+            }
+            positions.add(i);
+        }
+        Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+        for (Map.Entry<String, List<Integer>> entry : byKey.entrySet()) {
+            if (entry.getValue().size() > 1 && valueTypes.get(entry.getKey()) != Void.class) {
+                groups.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return groups;
+    }
+
+    private static Map<String, Object> dedupeInValues(Map<String, Object> node, Map<String, Object> leaf) {
+        Object operand = leaf.get(OP_IN);
+        if (!(operand instanceof List)) {
+            return node;
+        }
+        List<?> values = (List<?>) operand;
+        Set<Object> unique = new LinkedHashSet<Object>(values);
+        if (unique.size() == values.size()) {
+            return node;
+        }
+        return operator(node.keySet().iterator().next(), OP_IN, new ArrayList<Object>(unique));
+    }
+
+    /** Returns the single operator map of a {@code {key: {op: operand}}} clause, or null. */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> leafOperator(Map<String, Object> clause) {
+        if (clause.size() != 1) {
+            return null;
+        }
+        Map.Entry<String, Object> entry = clause.entrySet().iterator().next();
+        if (entry.getKey().startsWith("$") || !(entry.getValue() instanceof Map)) {
+            return null;
+        }
+        Map<String, Object> operator = (Map<String, Object>) entry.getValue();
+        if (operator.size() != 1 || !(operator.keySet().iterator().next() instanceof String)) {
+            return null;
+        }
+        return operator;
+    }
+
+    private static String logicalOperator(Map<String, Object> node) {
+        if (node.size() != 1) {
+            return null;
+        }
+        String key = node.keySet().iterator().next();
+        if (!OP_AND.equals(key) && !OP_OR.equals(key)) {
+            return null;
+        }
+        return clauses(node, key) != null ? key : null;
+    }
+
+    /** Returns the child clauses of a {@code {operator: [...]}} node, or null for any other shape. */
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> clauses(Map<String, Object> node, String operator) {
+        if (node.size() != 1 || !(node.get(operator) instanceof List)) {
+            return null;
+        }
+        List<?> children = (List<?>) node.get(operator);
+        for (Object child : children) {
+            if (!(child instanceof Map)) {
+                return null;
+            }
+        }
+        return (List<Map<String, Object>>) children;
+    }
+
+    /** Returns the IDs of a {@code #id $eq/$in} clause, or null for any other clause. */
+    private static List<?> idValues(Map<String, Object> clause) {
+        Map<String, Object> leaf = leafOperator(clause);
+        if (leaf == null || !Where.KEY_ID.equals(clause.keySet().iterator().next())) {
+            return null;
+        }
+        String op = leaf.keySet().iterator().next();
+        if (!OP_EQ.equals(op) && !OP_IN.equals(op)) {
+            return null;
+        }
+        List<?> values = operands(clause);
+        return String.class == valueType(values) ? values : null;
+    }
+
+    /** Returns the operand values of an {@code $eq/$ne/$in/$nin} clause as a list. */
+    private static List<?> operands(Map<String, Object> clause) {
+        Map<String, Object> leaf = leafOperator(clause);
+        String op = leaf.keySet().iterator().next();
+        Object operand = leaf.get(op);
+        if (OP_IN.equals(op) || OP_NIN.equals(op)) {
+            return operand instanceof List ? (List<?>) operand : null;
+        }
+        return Collections.singletonList(operand);
+    }
+
+    /** Returns the common class of {@code values}, or null if empty, mixed, or containing null. */
+    private static Class<?> valueType(List<?> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Class<?> type = null;
+        for (Object value : values) {
+            if (value == null || (type != null && value.getClass() != type)) {
+                return null;
+            }
+            type = value.getClass();
+        }
+        return type;
+    }
+
+    private static boolean isOneOf(String operator, String... operators) {
+        for (String candidate : operators) {
+            if (candidate.equals(operator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Object> condition(String key, Set<Object> values) {
+        if (values.size() == 1) {
+            return operator(key, OP_EQ, values.iterator().next());
+        }
+        return operator(key, OP_IN, new ArrayList<Object>(values));
+    }
+
+    private static Map<String, Object> operator(String key, String operator, Object operand) {
+        Object value = operand instanceof List
+                ? Collections.unmodifiableList((List<?>) operand)
+                : operand;
+        return MemoizedJsonMap.of(Collections.<String, Object>singletonMap(
+                key, Collections.<String, Object>singletonMap(operator, value)));
+    }
+
+    private static Map<String, Object> logical(String operator, List<Map<String, Object>> clauses) {
+        return MemoizedJsonMap.of(Collections.<String, Object>singletonMap(
+                operator, Collections.unmodifiableList(new ArrayList<Map<String, Object>>(clauses))));
+    }
+}
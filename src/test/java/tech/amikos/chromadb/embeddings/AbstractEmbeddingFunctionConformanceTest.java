@@ -157,4 +157,14 @@ public abstract class AbstractEmbeddingFunctionConformanceTest {
         assertNotNull("Expected non-null result", result);
         assertEquals("Expected 2 embeddings for 2 inputs", 2, result.size());
     }
+
+    @Test
+    public void testEmbedBatchReturnsOneRowPerInput() throws EFException {
+        stubSuccess(2);
+        EmbeddingFunction ef = createEmbeddingFunction(baseUrl());
+        EmbeddingMatrix matrix = ef.embedBatch(Arrays.asList("hello", "world"));
+        assertEquals("Expected 2 rows for 2 inputs", 2, matrix.rows());
+        assertEquals(matrix.rows() * matrix.getDimension(), matrix.data().length);
+        assertArrayEquals(ef.embedDocuments(Arrays.asList("hello", "world")).get(1).asArray(), matrix.row(1), 0f);
+    }
 }
@@ -0,0 +1,233 @@
+package tech.amikos.chromadb.embeddings;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import org.junit.Rule;
+import org.junit.Test;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.embeddings.cohere.CohereEmbeddingFunction;
+import tech.amikos.chromadb.embeddings.openai.OpenAIEmbeddingFunction;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.*;
+
+public class AsyncEmbeddingFunctionTest {
+
+    @Rule
+    public WireMockRule wireMock = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private String openAIUrl() {
+        return "http://localhost:" + wireMock.port() + "/v1/embeddings";
+    }
+
+    private static String openAIBody(int count) {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) data.append(",");
+            data.append("{\"embedding\":[").append(i).append(",0.5],\"index\":").append(i).append("}");
+        }
+        return "{\"data\":[" + data + "],\"model\":\"m\"}";
+    }
+
+    @Test
+    public void testRemoteProvidersAreNativelyAsync() throws EFException {
+        EmbeddingFunction ef = new OpenAIEmbeddingFunction(WithParam.baseAPI(openAIUrl()), WithParam.apiKey("k"));
+        assertSame(ef, AsyncEmbeddingFunction.of(ef));
+    }
+
+    @Test
+    public void testOpenAIDocumentsAsyncChunksAndKeepsOrder() throws Exception {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(openAIBody(2))));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI(openAIUrl()),
+                WithParam.apiKey("k"),
+                WithParam.maxBatchSize(2),
+                new OpenAIEmbeddingFunction.WithEncodingFormat(OpenAIEmbeddingFunction.EncodingFormat.FLOAT));
+
+        List<Embedding> result = ef.embedDocumentsAsync(Arrays.asList("a", "b", "c", "d", "e", "f"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(6, result.size());
+        assertArrayEquals(new float[]{1f, 0.5f}, result.get(5).asArray(), 0f);
+        verify(3, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testOpenAIQueryAsyncRetriesThrottling() throws Exception {
+        stubFor(post(urlEqualTo("/v1/embeddings")).inScenario("throttle")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("retry-after-ms", "5"))
+                .willSetStateTo("recovered"));
+        stubFor(post(urlEqualTo("/v1/embeddings")).inScenario("throttle")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(openAIBody(1))));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(WithParam.baseAPI(openAIUrl()), WithParam.apiKey("k"));
+
+        Embedding embedding = ef.embedQueryAsync("a").get(10, TimeUnit.SECONDS);
+
+        assertArrayEquals(new float[]{0f, 0.5f}, embedding.asArray(), 0f);
+        verify(2, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testProviderErrorCompletesExceptionally() throws Exception {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse().withStatus(401).withBody("unauthorized")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(WithParam.baseAPI(openAIUrl()), WithParam.apiKey("k"));
+        try {
+            ef.embedDocumentsAsync(Collections.singletonList("a")).get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ChromaException);
+            assertTrue(e.getCause().getMessage().contains("401"));
+        }
+    }
+
+    @Test(expected = ChromaException.class)
+    public void testValidationErrorsAreThrownDirectly() throws EFException {
+        new OpenAIEmbeddingFunction(WithParam.baseAPI(openAIUrl()), WithParam.apiKey("k"))
+                .embedDocumentsAsync(Collections.<String>emptyList());
+    }
+
+    @Test
+    public void testCohereQueriesAsyncUseSearchQueryInputType() throws Exception {
+        stubFor(post(urlEqualTo("/v1/embed"))
+                .withRequestBody(matchingJsonPath("$.input_type", equalTo("search_query")))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"embeddings\":[[0.1,0.2],[0.3,0.4]]}")));
+        CohereEmbeddingFunction ef = new CohereEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/"),
+                WithParam.apiKey("k"));
+
+        assertEquals(2, ef.embedQueriesAsync(Arrays.asList("a", "b")).get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void testAdapterRunsSyncFunctionOnExecutor() throws Exception {
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        EmbeddingFunction sync = new StubEmbeddingFunction() {
+            @Override
+            public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+                threads.add(Thread.currentThread().getName());
+                return super.embedDocuments(documents);
+            }
+        };
+        AsyncEmbeddingFunction async = AsyncEmbeddingFunction.of(sync);
+        assertNotSame(sync, async);
+
+        assertEquals(2, async.embedDocumentsAsync(Arrays.asList("a", "b")).get(10, TimeUnit.SECONDS).size());
+        assertTrue(threads.get(0).startsWith("chroma-ef-async-"));
+    }
+
+    @Test
+    public void testAdaptersRunSideBySide() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        EmbeddingFunction blocking = new StubEmbeddingFunction() {
+            @Override
+            public Embedding embedQuery(String query) throws EFException {
+                bothStarted.countDown();
+                try {
+                    if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                        throw new EFException("adapter calls were serialized");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EFException(e);
+                }
+                return super.embedQuery(query);
+            }
+        };
+        CompletableFuture<Embedding> first = AsyncEmbeddingFunction.of(blocking).embedQueryAsync("a");
+        CompletableFuture<Embedding> second = AsyncEmbeddingFunction.of(blocking).embedQueryAsync("b");
+
+        assertNotNull(first.get(10, TimeUnit.SECONDS));
+        assertNotNull(second.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAdapterReportsFailuresThroughFuture() throws Exception {
+        EmbeddingFunction failing = new StubEmbeddingFunction() {
+            @Override
+            public Embedding embedQuery(String query) throws EFException {
+                throw new EFException("boom");
+            }
+        };
+        try {
+            AsyncEmbeddingFunction.of(failing, Runnable::run).embedQueryAsync("a").get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EFException);
+        }
+    }
+
+    @Test
+    public void testExecuteAsyncBoundsConcurrencyAndKeepsOrder() throws Exception {
+        java.util.Map<String, Object> params = new HashMap<String, Object>();
+        WithParam.maxBatchSize(1).apply(params);
+        WithParam.maxConcurrency(2).apply(params);
+        RemoteEmbeddingExecutor executor = RemoteEmbeddingExecutor.fromConfig(params, 96);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<String> result = executor.executeAsync(Arrays.asList("a", "b", "c", "d", "e"), chunk -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return chunk;
+            });
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), result);
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    private static class StubEmbeddingFunction implements EmbeddingFunction {
+        @Override
+        public Embedding embedQuery(String query) throws EFException {
+            return new Embedding(new float[]{1f});
+        }
+
+        @Override
+        public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+            List<Embedding> result = new ArrayList<Embedding>();
+            for (int i = 0; i < documents.size(); i++) {
+                result.add(new Embedding(new float[]{i}));
+            }
+            return result;
+        }
+
+        @Override
+        public List<Embedding> embedDocuments(String[] documents) throws EFException {
+            return embedDocuments(Arrays.asList(documents));
+        }
+    }
+}
@@ -3,10 +3,12 @@ package tech.amikos.chromadb.embeddings;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import org.junit.*;
 import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
 import tech.amikos.chromadb.v2.ChromaException;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -58,6 +60,28 @@ public class DefaultEmbeddingFunctionTest {
         }
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorRejectsNegativeEncodingCacheSize() throws Exception {
+        new DefaultEmbeddingFunction(60, -1);
+    }
+
+    @Test
+    public void testEncodingCacheServesRepeatedInputs() throws Exception {
+        boolean modelCached = DefaultEmbeddingFunction.MODEL_CACHE_DIR
+            .resolve("onnx").resolve("model.onnx").toFile().exists();
+        Assume.assumeTrue("Model not cached; skipping encoding cache test", modelCached);
+        DefaultEmbeddingFunction cached = new DefaultEmbeddingFunction(60, 8);
+        DefaultEmbeddingFunction uncached = new DefaultEmbeddingFunction(60);
+
+        List<Embedding> first = cached.embedDocuments(Arrays.asList("repeated text", "other text"));
+        List<Embedding> second = cached.embedDocuments(Arrays.asList("repeated text", "repeated text"));
+        uncached.embedDocuments(Arrays.asList("repeated text"));
+
+        assertEquals(2, cached.encodingPipeline.cacheSize());
+        assertArrayEquals(first.get(0).asArray(), second.get(1).asArray(), 0f);
+        assertEquals(0, uncached.encodingPipeline.cacheSize());
+    }
+
     @Test
     public void testConcurrentConstructionThreadSafety() throws Exception {
         boolean modelCached = DefaultEmbeddingFunction.MODEL_CACHE_DIR
@@ -191,4 +215,74 @@ public class DefaultEmbeddingFunctionTest {
             }
         }
     }
+
+    @Test
+    public void testChecksumMismatchIsNonRetryableAndDeletesArchive() {
+        DefaultEmbeddingFunction.modelDownloadUrl = wireMock.url("/model.tar.gz");
+
+        stubFor(get(urlEqualTo("/model.tar.gz"))
+            .willReturn(aResponse().withStatus(200).withBody("not a real model archive")));
+
+        Path modelOnnx = DefaultEmbeddingFunction.MODEL_CACHE_DIR.resolve("onnx").resolve("model.onnx");
+        boolean wasCached = modelOnnx.toFile().exists();
+        Path backup = null;
+        if (wasCached) {
+            backup = modelOnnx.resolveSibling("model.onnx.bak");
+            modelOnnx.toFile().renameTo(backup.toFile());
+        }
+        try {
+            new DefaultEmbeddingFunction(5);
+            fail("Expected EFException wrapping ChromaException for checksum mismatch");
+        } catch (EFException e) {
+            assertTrue("Cause should be ChromaException", e.getCause() instanceof ChromaException);
+            assertTrue("Message should mention checksum",
+                e.getCause().getMessage().contains("checksum does not match"));
+        } finally {
+            if (wasCached && backup != null) {
+                backup.toFile().renameTo(modelOnnx.toFile());
+            }
+        }
+        verify(1, getRequestedFor(urlEqualTo("/model.tar.gz")));
+        assertFalse("Corrupt archive should be deleted",
+            DefaultEmbeddingFunction.MODEL_CACHE_DIR.resolve("onnx.tar.gz").toFile().exists());
+    }
+
+    @Test
+    public void testPreloadCompletesExceptionallyOnDownloadFailure() throws Exception {
+        DefaultEmbeddingFunction.modelDownloadUrl = wireMock.url("/model.tar.gz");
+
+        stubFor(get(urlEqualTo("/model.tar.gz"))
+            .willReturn(aResponse().withStatus(404).withBody("Not Found")));
+
+        Path modelOnnx = DefaultEmbeddingFunction.MODEL_CACHE_DIR.resolve("onnx").resolve("model.onnx");
+        boolean wasCached = modelOnnx.toFile().exists();
+        Path backup = null;
+        if (wasCached) {
+            backup = modelOnnx.resolveSibling("model.onnx.bak");
+            modelOnnx.toFile().renameTo(backup.toFile());
+        }
+        try {
+            CompletableFuture<DefaultEmbeddingFunction> ready = DefaultEmbeddingFunction.preload(5);
+            try {
+                ready.get(30, TimeUnit.SECONDS);
+                fail("Expected preload to fail for 404");
+            } catch (ExecutionException e) {
+                assertTrue("Cause should be EFException", e.getCause() instanceof EFException);
+            }
+            assertTrue(ready.isCompletedExceptionally());
+        } finally {
+            if (wasCached && backup != null) {
+                backup.toFile().renameTo(modelOnnx.toFile());
+            }
+        }
+    }
+
+    @Test
+    public void testPreloadReturnsWarmInstanceWhenModelCached() throws Exception {
+        boolean modelCached = DefaultEmbeddingFunction.MODEL_CACHE_DIR
+            .resolve("onnx").resolve("model.onnx").toFile().exists();
+        Assume.assumeTrue("Model not cached; skipping preload test", modelCached);
+        DefaultEmbeddingFunction ef = DefaultEmbeddingFunction.preload().get(120, TimeUnit.SECONDS);
+        assertEquals(384, ef.embedQuery("hello").getDimensions());
+    }
 }
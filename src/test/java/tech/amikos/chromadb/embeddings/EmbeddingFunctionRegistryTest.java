@@ -0,0 +1,86 @@
+package tech.amikos.chromadb.embeddings;
+
+import org.junit.Test;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.embeddings.hf.HuggingFaceEmbeddingFunctionProvider;
+import tech.amikos.chromadb.embeddings.openai.OpenAIEmbeddingFunctionProvider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EmbeddingFunctionRegistryTest {
+
+    @Test
+    public void testBuiltInProvidersAreDiscovered() {
+        assertEquals(Arrays.asList("default", "openai", "cohere", "huggingface", "ollama"),
+                EmbeddingFunctionRegistry.names().subList(0, 5));
+        assertTrue(EmbeddingFunctionRegistry.find("OpenAI") instanceof OpenAIEmbeddingFunctionProvider);
+        assertTrue(EmbeddingFunctionRegistry.find(" hf ") instanceof HuggingFaceEmbeddingFunctionProvider);
+        assertNull(EmbeddingFunctionRegistry.find("consistent_hash"));
+        assertNull(EmbeddingFunctionRegistry.find(null));
+    }
+
+    @Test
+    public void testHigherPriorityProviderReplacesExisting() {
+        EmbeddingFunctionRegistry.register(new NamedProvider("registry-test", 0));
+        NamedProvider preferred = new NamedProvider("registry-test", 10);
+        EmbeddingFunctionRegistry.register(preferred);
+        EmbeddingFunctionRegistry.register(new NamedProvider("registry-test", 5));
+
+        assertSame(preferred, EmbeddingFunctionRegistry.find("registry-test"));
+        assertEquals(1, Collections.frequency(EmbeddingFunctionRegistry.names(), "registry-test"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProviderWithoutNamesIsRejected() {
+        EmbeddingFunctionRegistry.register(new NamedProvider(null, 0));
+    }
+
+    @Test
+    public void testProviderConfigReadsCommonKeys() {
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put("model_name", " m ");
+        config.put("api_key", "k");
+        config.put("dimensions", 64.0d);
+        assertEquals(2, ProviderConfig.commonParams(config, "ENV").size());
+        assertEquals("m", ProviderConfig.getString(config, "model", "model_name"));
+        assertEquals(Integer.valueOf(64), ProviderConfig.getInteger(config, "dimensions"));
+        assertNull(ProviderConfig.getInteger(config, "missing"));
+        assertEquals(1, ProviderConfig.commonParams(null, "ENV").size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProviderConfigRejectsNonStringValue() {
+        ProviderConfig.getString(Collections.<String, Object>singletonMap("api_key", 1), "api_key");
+    }
+
+    private static final class NamedProvider implements EmbeddingFunctionProvider {
+        private final String name;
+        private final int priority;
+
+        private NamedProvider(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public List<String> names() {
+            return name == null ? Collections.<String>emptyList() : Collections.singletonList(name);
+        }
+
+        @Override
+        public EmbeddingFunction create(Map<String, Object> config) throws EFException {
+            throw new EFException("not used");
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+    }
+}
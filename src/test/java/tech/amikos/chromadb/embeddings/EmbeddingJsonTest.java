@@ -0,0 +1,105 @@
+package tech.amikos.chromadb.embeddings;
+
+import com.google.gson.stream.JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EmbeddingJsonTest {
+
+    @Test
+    public void testReadFloatArray() throws IOException {
+        assertArrayEquals(new float[]{0.1f, -2f, 3.5e-3f},
+                EmbeddingJson.readFloatArray(reader("[0.1, -2, 3.5e-3]")), 0f);
+        assertEquals(0, EmbeddingJson.readFloatArray(reader("[]")).length);
+    }
+
+    @Test
+    public void testReadFloatArrayGrowsPastInitialCapacity() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1536; i++) {
+            if (i > 0) json.append(',');
+            json.append(i);
+        }
+        float[] values = EmbeddingJson.readFloatArray(reader(json.append(']').toString()));
+        assertEquals(1536, values.length);
+        assertEquals(1535f, values[1535], 0f);
+    }
+
+    @Test
+    public void testReadFloatArrays() throws IOException {
+        List<float[]> vectors = EmbeddingJson.readFloatArrays(reader("[[1,2],[3,4,5]]"));
+        assertEquals(2, vectors.size());
+        assertArrayEquals(new float[]{1f, 2f}, vectors.get(0), 0f);
+        assertArrayEquals(new float[]{3f, 4f, 5f}, vectors.get(1), 0f);
+    }
+
+    @Test
+    public void testReadVectorAcceptsBase64() throws IOException {
+        // little-endian float32 1.0f, -2.0f
+        assertArrayEquals(new float[]{1f, -2f}, EmbeddingJson.readVector(reader("\"AACAPwAAAMA=\"")), 0f);
+        assertArrayEquals(new float[]{1f, -2f}, EmbeddingJson.readVector(reader("[1,-2]")), 0f);
+    }
+
+    @Test
+    public void testReadFloatMatrixFillsOneArray() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 40; i++) {
+            if (i > 0) json.append(',');
+            json.append('[').append(i).append(',').append(-i).append(']');
+        }
+        EmbeddingMatrix matrix = EmbeddingJson.readFloatMatrix(reader(json.append(']').toString()));
+        assertEquals(40, matrix.rows());
+        assertEquals(2, matrix.getDimension());
+        assertEquals(80, matrix.data().length);
+        assertArrayEquals(new float[]{39f, -39f}, matrix.row(39), 0f);
+        assertEquals(0, EmbeddingJson.readFloatMatrix(reader("[]")).rows());
+    }
+
+    @Test
+    public void testReadFloatMatrixRejectsRaggedRows() throws IOException {
+        try {
+            EmbeddingJson.readFloatMatrix(reader("[[1,2],[3,4,5]]"));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("index 1"));
+        }
+        try {
+            EmbeddingJson.readFloatMatrix(reader("[[1,2],[3]]"));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("index 1"));
+        }
+    }
+
+    @Test
+    public void testRowBufferAcceptsBase64AndArrayRows() throws IOException {
+        EmbeddingJson.RowBuffer rows = new EmbeddingJson.RowBuffer();
+        rows.readRow(reader("\"AACAPwAAAMA=\""));
+        rows.readRow(reader("[3,4]"));
+        assertEquals(2, rows.rows());
+        assertArrayEquals(new float[]{1f, -2f, 3f, 4f}, rows.toMatrix().data(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBase64MustBeWholeFloats() {
+        EmbeddingJson.decodeBase64Floats("AAAAAAA=");
+    }
+
+    @Test
+    public void testBoxingRoundTrip() {
+        List<float[]> vectors = Arrays.asList(new float[]{1f, 2f}, new float[]{3f});
+        List<float[]> roundTrip = EmbeddingJson.toArrays(EmbeddingJson.toLists(vectors));
+        assertArrayEquals(vectors.get(0), roundTrip.get(0), 0f);
+        assertArrayEquals(vectors.get(1), roundTrip.get(1), 0f);
+    }
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+}
@@ -0,0 +1,126 @@
+package tech.amikos.chromadb.embeddings;
+
+import org.junit.Test;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EmbeddingMatrixTest {
+
+    @Test
+    public void testFromRowsPacksRowMajor() {
+        EmbeddingMatrix matrix = EmbeddingMatrix.fromRows(Arrays.asList(new float[]{1f, 2f}, new float[]{3f, 4f}));
+        assertEquals(2, matrix.rows());
+        assertEquals(2, matrix.getDimension());
+        assertArrayEquals(new float[]{1f, 2f, 3f, 4f}, matrix.data(), 0f);
+        assertArrayEquals(new float[]{3f, 4f}, matrix.row(1), 0f);
+        assertEquals(2, matrix.toEmbeddings().size());
+        assertArrayEquals(new float[]{1f, 2f}, matrix.toRows().get(0), 0f);
+    }
+
+    @Test
+    public void testEmptyMatrix() {
+        EmbeddingMatrix matrix = EmbeddingMatrix.fromRows(Collections.<float[]>emptyList());
+        assertEquals(0, matrix.rows());
+        assertEquals(0, matrix.getDimension());
+        assertTrue(matrix.toRows().isEmpty());
+    }
+
+    @Test
+    public void testOfWrapsWithoutCopy() {
+        float[] data = {1f, 2f, 3f, 4f, 5f, 6f};
+        EmbeddingMatrix matrix = EmbeddingMatrix.of(data, 2, 3);
+        assertSame(data, matrix.data());
+        assertArrayEquals(new float[]{4f, 5f, 6f}, matrix.row(1), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfRejectsLengthMismatch() {
+        EmbeddingMatrix.of(new float[5], 2, 3);
+    }
+
+    @Test
+    public void testRaggedRowsAreRejected() {
+        try {
+            EmbeddingMatrix.fromRows(Arrays.asList(new float[]{1f, 2f}, new float[]{3f}));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("index 1"));
+        }
+    }
+
+    @Test
+    public void testNullEmbeddingIsRejected() {
+        try {
+            EmbeddingMatrix.fromEmbeddings(Arrays.asList(new Embedding(new float[]{1f}), null));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("null at index 1"));
+        }
+    }
+
+    @Test
+    public void testConcatStacksParts() {
+        EmbeddingMatrix first = EmbeddingMatrix.of(new float[]{1f, 2f}, 1, 2);
+        assertSame(first, EmbeddingMatrix.concat(Collections.singletonList(first)));
+
+        EmbeddingMatrix matrix = EmbeddingMatrix.concat(Arrays.asList(
+                first,
+                EmbeddingMatrix.fromRows(Collections.<float[]>emptyList()),
+                EmbeddingMatrix.of(new float[]{3f, 4f, 5f, 6f}, 2, 2)));
+        assertEquals(3, matrix.rows());
+        assertArrayEquals(new float[]{1f, 2f, 3f, 4f, 5f, 6f}, matrix.data(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConcatRejectsDimensionMismatch() {
+        EmbeddingMatrix.concat(Arrays.asList(
+                EmbeddingMatrix.of(new float[]{1f, 2f}, 1, 2),
+                EmbeddingMatrix.of(new float[]{3f}, 1, 1)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowOutOfRange() {
+        EmbeddingMatrix.fromRows(Collections.singletonList(new float[]{1f})).row(1);
+    }
+
+    @Test
+    public void testNormalized() {
+        EmbeddingMatrix matrix = EmbeddingMatrix.fromRows(Arrays.asList(new float[]{3f, 4f}, new float[]{0f, 0f}));
+        EmbeddingMatrix normalized = matrix.normalized();
+        assertArrayEquals(new float[]{0.6f, 0.8f, 0f, 0f}, normalized.data(), 1e-6f);
+        assertArrayEquals(new float[]{3f, 4f, 0f, 0f}, matrix.data(), 0f);
+    }
+
+    @Test
+    public void testDefaultAdapterUsesEmbedDocumentsAndEmbedQueries() throws EFException {
+        EmbeddingFunction ef = new EmbeddingFunction() {
+            @Override
+            public Embedding embedQuery(String query) {
+                return new Embedding(new float[]{0f});
+            }
+
+            @Override
+            public List<Embedding> embedDocuments(List<String> documents) {
+                return Arrays.asList(new Embedding(new float[]{1f, 1f}), new Embedding(new float[]{2f, 2f}));
+            }
+
+            @Override
+            public List<Embedding> embedDocuments(String[] documents) {
+                return embedDocuments(Arrays.asList(documents));
+            }
+
+            @Override
+            public List<Embedding> embedQueries(List<String> queries) {
+                return Collections.singletonList(new Embedding(new float[]{9f, 9f}));
+            }
+        };
+        assertArrayEquals(new float[]{1f, 1f, 2f, 2f}, ef.embedBatch(Arrays.asList("a", "b")).data(), 0f);
+        assertArrayEquals(new float[]{9f, 9f}, ef.embedQueryBatch(Collections.singletonList("q")).data(), 0f);
+    }
+}
@@ -0,0 +1,127 @@
+package tech.amikos.chromadb.embeddings;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EncodingPipelineTest {
+
+    private static final String TOKENIZER_JSON = "{"
+            + "\"version\":\"1.0\",\"truncation\":null,\"padding\":null,\"added_tokens\":[],"
+            + "\"normalizer\":null,\"pre_tokenizer\":{\"type\":\"Whitespace\"},"
+            + "\"post_processor\":null,\"decoder\":null,"
+            + "\"model\":{\"type\":\"WordLevel\",\"vocab\":{\"[UNK]\":0,\"a\":1,\"b\":2,\"c\":3,\"d\":4,\"e\":5},"
+            + "\"unk_token\":\"[UNK]\"}}";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HuggingFaceTokenizer tokenizer;
+
+    @Before
+    public void setUp() throws Exception {
+        File file = tmp.newFile("tokenizer.json");
+        Files.write(file.toPath(), TOKENIZER_JSON.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> config = new HashMap<String, String>();
+        config.put("padding", "false");
+        tokenizer = HuggingFaceTokenizer.newInstance(file.toPath(), config);
+    }
+
+    @After
+    public void tearDown() {
+        if (tokenizer != null) {
+            tokenizer.close();
+        }
+    }
+
+    @Test
+    public void testRepeatedTextsHitCache() {
+        EncodingPipeline pipeline = new EncodingPipeline(tokenizer, 16, 8);
+        Encoding[] first = pipeline.encode(Arrays.asList("a b", "c", "a b"));
+        assertSame("duplicate inputs share one encoding", first[0], first[2]);
+        assertEquals(2, pipeline.cacheSize());
+
+        Encoding[] second = pipeline.encode(Collections.singletonList("c"));
+        assertSame(first[1], second[0]);
+        assertArrayEquals(new long[]{1, 2}, first[0].getIds());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        EncodingPipeline pipeline = new EncodingPipeline(tokenizer, 2, 8);
+        pipeline.encode(Arrays.asList("a", "b", "c", "d"));
+        assertEquals(2, pipeline.cacheSize());
+    }
+
+    @Test
+    public void testCacheDisabledWithZeroSize() {
+        EncodingPipeline pipeline = new EncodingPipeline(tokenizer, 0, 8);
+        Encoding[] encodings = pipeline.encode(Arrays.asList("a", "a"));
+        assertEquals(2, encodings.length);
+        assertEquals(0, pipeline.cacheSize());
+    }
+
+    @Test
+    public void testRunSplitsIntoBatchesAndPreservesOrder() throws Exception {
+        EncodingPipeline pipeline = new EncodingPipeline(tokenizer, 16, 2);
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        List<String> texts = Arrays.asList("a", "b", "c", "d", "e");
+        EmbeddingMatrix out = pipeline.run(texts, new EncodingPipeline.BatchForward() {
+            @Override
+            public EmbeddingMatrix forward(Encoding[] batch) {
+                batchSizes.add(batch.length);
+                float[] vectors = new float[batch.length * 2];
+                for (int i = 0; i < batch.length; i++) {
+                    vectors[i * 2] = batch[i].getIds()[0];
+                    vectors[i * 2 + 1] = -i;
+                }
+                return EmbeddingMatrix.of(vectors, batch.length, 2);
+            }
+        });
+        assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+        assertEquals(texts.size(), out.rows());
+        assertEquals(texts.size() * 2, out.data().length);
+        for (int i = 0; i < texts.size(); i++) {
+            assertArrayEquals(new float[]{i + 1, -(i % 2)}, out.row(i), 0f);
+        }
+    }
+
+    @Test
+    public void testRunTokenizesAtMostPrefetchBatchesAhead() throws Exception {
+        final EncodingPipeline pipeline = new EncodingPipeline(tokenizer, 16, 1);
+        final List<Integer> tokenizedAtForward = new ArrayList<Integer>();
+        pipeline.run(Arrays.asList("a", "b", "c", "d", "e", "a b", "b c", "c d"), new EncodingPipeline.BatchForward() {
+            @Override
+            public EmbeddingMatrix forward(Encoding[] batch) {
+                tokenizedAtForward.add(pipeline.cacheSize());
+                return EmbeddingMatrix.of(new float[]{0f}, 1, 1);
+            }
+        });
+        assertEquals(8, tokenizedAtForward.size());
+        for (int i = 0; i < tokenizedAtForward.size(); i++) {
+            assertTrue("batch " + i + " saw " + tokenizedAtForward.get(i) + " tokenized",
+                    tokenizedAtForward.get(i) <= i + 1 + EncodingPipeline.PREFETCH_BATCHES);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchSizeMustBePositive() {
+        new EncodingPipeline(tokenizer, 16, 0);
+    }
+}
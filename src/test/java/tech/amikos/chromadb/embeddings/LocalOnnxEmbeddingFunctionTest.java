@@ -0,0 +1,101 @@
+package tech.amikos.chromadb.embeddings;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LocalOnnxEmbeddingFunctionTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    // batch of 2, seq of 3, hidden of 2; second row has one padding token
+    private static final float[] HIDDEN = new float[]{
+            1f, 2f, 3f, 4f, 5f, 6f,
+            2f, 0f, 4f, -2f, 100f, 100f
+    };
+    private static final long[] MASK = new long[]{1, 1, 1, 1, 1, 0};
+
+    @Test
+    public void testMeanPoolingIgnoresPadding() {
+        EmbeddingMatrix pooled = LocalOnnxEmbeddingFunction.pool(HIDDEN, 2, 3, 2, MASK, 3, LocalOnnxEmbeddingFunction.Pooling.MEAN);
+        assertArrayEquals(new float[]{3f, 4f, 3f, -1f}, pooled.data(), 1e-6f);
+    }
+
+    @Test
+    public void testClsPoolingTakesFirstToken() {
+        EmbeddingMatrix pooled = LocalOnnxEmbeddingFunction.pool(HIDDEN, 2, 3, 2, MASK, 3, LocalOnnxEmbeddingFunction.Pooling.CLS);
+        assertArrayEquals(new float[]{1f, 2f}, pooled.row(0), 0f);
+        assertArrayEquals(new float[]{2f, 0f}, pooled.row(1), 0f);
+    }
+
+    @Test
+    public void testMaxPoolingIgnoresPadding() {
+        EmbeddingMatrix pooled = LocalOnnxEmbeddingFunction.pool(HIDDEN, 2, 3, 2, MASK, 3, LocalOnnxEmbeddingFunction.Pooling.MAX);
+        assertArrayEquals(new float[]{5f, 6f}, pooled.row(0), 0f);
+        assertArrayEquals(new float[]{4f, 0f}, pooled.row(1), 0f);
+    }
+
+    @Test
+    public void testMeanPoolingAllPaddingYieldsZeros() {
+        EmbeddingMatrix pooled = LocalOnnxEmbeddingFunction.pool(new float[]{7f, 8f}, 1, 1, 2, new long[]{0}, 1,
+                LocalOnnxEmbeddingFunction.Pooling.MEAN);
+        assertArrayEquals(new float[]{0f, 0f}, pooled.data(), 0f);
+    }
+
+    @Test
+    public void testNormalizeRowsMatchesNormalize() {
+        float[][] rows = new float[][]{{3f, 4f}, {0f, 0f}, {1f, -2f}};
+        EmbeddingMatrix matrix = EmbeddingMatrix.fromRows(Arrays.asList(rows));
+        DefaultEmbeddingFunction.normalizeRows(matrix);
+        float[][] expected = DefaultEmbeddingFunction.normalize(rows);
+        for (int i = 0; i < rows.length; i++) {
+            assertArrayEquals(expected[i], matrix.row(i), 0f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildRequiresModelPath() throws Exception {
+        LocalOnnxEmbeddingFunction.builder().tokenizerPath(tmp.getRoot().toPath()).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildRequiresTokenizerPath() throws Exception {
+        File model = tmp.newFile("model.onnx");
+        LocalOnnxEmbeddingFunction.builder().modelPath(model.toPath()).build();
+    }
+
+    @Test
+    public void testBuildRejectsMissingModelFile() throws Exception {
+        try {
+            LocalOnnxEmbeddingFunction.builder()
+                    .modelPath(Paths.get(tmp.getRoot().getPath(), "missing.onnx"))
+                    .tokenizerPath(tmp.getRoot().toPath())
+                    .build();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("missing.onnx"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxLengthMustBePositive() {
+        LocalOnnxEmbeddingFunction.builder().maxLength(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionMustBePositive() {
+        LocalOnnxEmbeddingFunction.builder().dimension(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPoolingMustNotBeNull() {
+        LocalOnnxEmbeddingFunction.builder().pooling(null);
+    }
+}
@@ -0,0 +1,314 @@
+package tech.amikos.chromadb.embeddings;
+
+import org.junit.Test;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MicroBatchingEmbeddingFunctionTest {
+
+    @Test
+    public void testConcurrentQueriesAreCoalesced() throws Exception {
+        RecordingEmbeddingFunction delegate = new RecordingEmbeddingFunction();
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(delegate)
+                .maxBatch(8)
+                .maxWaitMicros(TimeUnit.MILLISECONDS.toMicros(200))
+                .build();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Embedding>> futures = new ArrayList<Future<Embedding>>();
+            for (int i = 0; i < threads; i++) {
+                final String text = "q" + i;
+                futures.add(executor.submit(new Callable<Embedding>() {
+                    @Override
+                    public Embedding call() throws Exception {
+                        start.await();
+                        return ef.embedQuery(text);
+                    }
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < threads; i++) {
+                Embedding embedding = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals("q" + i, embedding.asArray()[0], (float) ("q" + i).hashCode(), 0f);
+            }
+            assertTrue("expected fewer delegate calls than queries", delegate.calls() < threads);
+        } finally {
+            executor.shutdownNow();
+            ef.close();
+        }
+    }
+
+    @Test
+    public void testAsyncQueriesJoinOneBatch() throws Exception {
+        RecordingEmbeddingFunction delegate = new RecordingEmbeddingFunction();
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(delegate)
+                .maxBatch(3)
+                .maxWaitMicros(TimeUnit.SECONDS.toMicros(5))
+                .build();
+        try {
+            List<CompletableFuture<Embedding>> futures = new ArrayList<CompletableFuture<Embedding>>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(ef.embedQueryAsync("q" + i));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals((float) ("q" + i).hashCode(),
+                        futures.get(i).get(5, TimeUnit.SECONDS).asArray()[0], 0f);
+            }
+            assertEquals(Collections.singletonList(3), delegate.batchSizes());
+        } finally {
+            ef.close();
+        }
+    }
+
+    @Test
+    public void testAsyncQueryAfterCloseFailsThroughFuture() throws Exception {
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(new RecordingEmbeddingFunction())
+                .build();
+        ef.close();
+        try {
+            ef.embedQueryAsync("q").get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EFException);
+        }
+    }
+
+    @Test
+    public void testSingleQueryFlushesAfterMaxWait() throws Exception {
+        RecordingEmbeddingFunction delegate = new RecordingEmbeddingFunction();
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(delegate)
+                .maxBatch(64)
+                .maxWaitMicros(500)
+                .build();
+        try {
+            Embedding embedding = ef.embedQuery("solo");
+            assertEquals((float) "solo".hashCode(), embedding.asArray()[0], 0f);
+            assertEquals(1, delegate.calls());
+            assertEquals(Collections.singletonList(1), delegate.batchSizes());
+        } finally {
+            ef.close();
+        }
+    }
+
+    @Test
+    public void testBatchNeverExceedsMaxBatch() throws Exception {
+        RecordingEmbeddingFunction delegate = new RecordingEmbeddingFunction();
+        final MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(delegate)
+                .maxBatch(3)
+                .maxWaitMicros(TimeUnit.MILLISECONDS.toMicros(50))
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Embedding>> futures = new ArrayList<Future<Embedding>>();
+            for (int i = 0; i < 10; i++) {
+                final String text = "t" + i;
+                futures.add(executor.submit(new Callable<Embedding>() {
+                    @Override
+                    public Embedding call() throws Exception {
+                        return ef.embedQuery(text);
+                    }
+                }));
+            }
+            for (Future<Embedding> f : futures) {
+                f.get(5, TimeUnit.SECONDS);
+            }
+            for (Integer size : delegate.batchSizes()) {
+                assertTrue("batch size " + size + " exceeds maxBatch", size <= 3);
+            }
+        } finally {
+            executor.shutdownNow();
+            ef.close();
+        }
+    }
+
+    @Test
+    public void testDelegateFailurePropagatesToCaller() throws Exception {
+        EmbeddingFunction failing = new RecordingEmbeddingFunction() {
+            @Override
+            public List<Embedding> embedQueries(List<String> queries) throws EFException {
+                throw new EFException("boom");
+            }
+        };
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(failing)
+                .maxWaitMicros(0)
+                .build();
+        try {
+            ef.embedQuery("x");
+            fail("Expected EFException");
+        } catch (EFException e) {
+            assertEquals("boom", e.getMessage());
+        } finally {
+            ef.close();
+        }
+    }
+
+    @Test
+    public void testCountMismatchFailsCallers() throws Exception {
+        EmbeddingFunction shortReply = new RecordingEmbeddingFunction() {
+            @Override
+            public List<Embedding> embedQueries(List<String> queries) {
+                return Collections.<Embedding>emptyList();
+            }
+        };
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(shortReply)
+                .maxWaitMicros(0)
+                .build();
+        try {
+            ef.embedQuery("x");
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("0 embeddings for 1 inputs"));
+        } finally {
+            ef.close();
+        }
+    }
+
+    @Test
+    public void testBatchMethodsPassThrough() throws Exception {
+        RecordingEmbeddingFunction delegate = new RecordingEmbeddingFunction();
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(delegate).build();
+        try {
+            List<Embedding> result = ef.embedDocuments(new String[]{"a", "b", "c"});
+            assertEquals(3, result.size());
+            assertEquals(Collections.singletonList(3), delegate.batchSizes());
+        } finally {
+            ef.close();
+        }
+    }
+
+    @Test(expected = EFException.class)
+    public void testEmbedQueryAfterCloseFails() throws Exception {
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction
+                .builder(new RecordingEmbeddingFunction())
+                .build();
+        ef.close();
+        ef.embedQuery("late");
+    }
+
+    @Test(expected = ChromaException.class)
+    public void testNullQueryRejected() throws Exception {
+        MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction
+                .builder(new RecordingEmbeddingFunction())
+                .build();
+        try {
+            ef.embedQuery(null);
+        } finally {
+            ef.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsNonPositiveMaxBatch() {
+        MicroBatchingEmbeddingFunction.builder(new RecordingEmbeddingFunction()).maxBatch(0);
+    }
+
+    @Test
+    public void testBatchesRunConcurrentlyUpToMaxInFlight() throws Exception {
+        final CyclicBarrier bothInFlight = new CyclicBarrier(2);
+        RecordingEmbeddingFunction delegate = new RecordingEmbeddingFunction() {
+            @Override
+            public List<Embedding> embedQueries(List<String> queries) throws EFException {
+                try {
+                    bothInFlight.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new EFException("second batch was not dispatched concurrently", e);
+                }
+                return super.embedQueries(queries);
+            }
+        };
+        final MicroBatchingEmbeddingFunction ef = MicroBatchingEmbeddingFunction.builder(delegate)
+                .maxBatch(1)
+                .maxWaitMicros(0)
+                .maxInFlight(2)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Embedding>> futures = new ArrayList<Future<Embedding>>();
+            for (int i = 0; i < 2; i++) {
+                final String text = "q" + i;
+                futures.add(executor.submit(new Callable<Embedding>() {
+                    @Override
+                    public Embedding call() throws Exception {
+                        return ef.embedQuery(text);
+                    }
+                }));
+            }
+            for (Future<Embedding> future : futures) {
+                assertNotNull(future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(2, delegate.calls());
+        } finally {
+            executor.shutdownNow();
+            ef.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsNonPositiveMaxInFlight() {
+        MicroBatchingEmbeddingFunction.builder(new RecordingEmbeddingFunction()).maxInFlight(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsNullDelegate() {
+        MicroBatchingEmbeddingFunction.builder(null);
+    }
+
+    private static class RecordingEmbeddingFunction implements EmbeddingFunction {
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        int calls() {
+            return batchSizes.size();
+        }
+
+        List<Integer> batchSizes() {
+            synchronized (batchSizes) {
+                return new ArrayList<Integer>(batchSizes);
+            }
+        }
+
+        @Override
+        public Embedding embedQuery(String query) throws EFException {
+            return embedQueries(Collections.singletonList(query)).get(0);
+        }
+
+        @Override
+        public List<Embedding> embedDocuments(List<String> documents) throws EFException {
+            return embedQueries(documents);
+        }
+
+        @Override
+        public List<Embedding> embedDocuments(String[] documents) throws EFException {
+            List<String> list = new ArrayList<String>();
+            Collections.addAll(list, documents);
+            return embedDocuments(list);
+        }
+
+        @Override
+        public List<Embedding> embedQueries(List<String> queries) throws EFException {
+            batchSizes.add(queries.size());
+            List<Embedding> result = new ArrayList<Embedding>(queries.size());
+            for (String q : queries) {
+                result.add(new Embedding(new float[]{q.hashCode(), 1f}));
+            }
+            return result;
+        }
+    }
+}
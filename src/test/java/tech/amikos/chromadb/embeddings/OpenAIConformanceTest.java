@@ -1,9 +1,19 @@
 package tech.amikos.chromadb.embeddings;
 
+import org.junit.Test;
 import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.embeddings.openai.CreateEmbeddingRequest;
 import tech.amikos.chromadb.embeddings.openai.OpenAIEmbeddingFunction;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.Assert.*;
 
 public class OpenAIConformanceTest extends AbstractEmbeddingFunctionConformanceTest {
 
@@ -64,4 +74,83 @@ public class OpenAIConformanceTest extends AbstractEmbeddingFunctionConformanceT
     protected String modelName() {
         return MODEL;
     }
+
+    @Test
+    public void testRequestsBase64AndDecodesIt() throws EFException {
+        stubFor(post(urlEqualTo(ENDPOINT))
+                .withRequestBody(matchingJsonPath("$.encoding_format", equalTo("base64")))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":\"" + base64(0.5f, -1.25f, 3f) + "\",\"index\":0},"
+                                + "{\"embedding\":\"" + base64(1f, 2f, 4f) + "\",\"index\":1}],\"model\":\"" + MODEL + "\"}")));
+        List<Embedding> result = createEmbeddingFunction(baseUrl()).embedDocuments(Arrays.asList("a", "b"));
+        assertArrayEquals(new float[]{0.5f, -1.25f, 3f}, result.get(0).asArray(), 0f);
+        assertArrayEquals(new float[]{1f, 2f, 4f}, result.get(1).asArray(), 0f);
+    }
+
+    @Test
+    public void testFloatEncodingCanBeSelected() throws EFException {
+        stubFor(post(urlEqualTo(ENDPOINT))
+                .withRequestBody(matchingJsonPath("$.encoding_format", equalTo("float")))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":[0.1,0.2],\"index\":0}],\"model\":\"" + MODEL + "\"}")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI(baseUrl() + ENDPOINT),
+                WithParam.apiKey("test-key"),
+                new OpenAIEmbeddingFunction.WithEncodingFormat(OpenAIEmbeddingFunction.EncodingFormat.FLOAT));
+        assertArrayEquals(new float[]{0.1f, 0.2f}, ef.embedQuery("a").asArray(), 0f);
+    }
+
+    @Test
+    public void testDimensionsAreSentWhenConfigured() throws EFException {
+        stubFor(post(urlEqualTo(ENDPOINT))
+                .withRequestBody(matchingJsonPath("$.dimensions", equalTo("2")))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":\"" + base64(0.6f, 0.8f) + "\",\"index\":0}],\"model\":\"" + MODEL + "\"}")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI(baseUrl() + ENDPOINT),
+                WithParam.apiKey("test-key"),
+                new OpenAIEmbeddingFunction.WithDimensions(2));
+        assertArrayEquals(new float[]{0.6f, 0.8f}, ef.embedQuery("a").asArray(), 0f);
+    }
+
+    @Test
+    public void testCreateEmbeddingLeavesCallerRequestUnchanged() throws EFException {
+        stubFor(post(urlEqualTo(ENDPOINT))
+                .withRequestBody(matchingJsonPath("$.dimensions", equalTo("2")))
+                .withRequestBody(matchingJsonPath("$.encoding_format", equalTo("base64")))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":\"" + base64(0.6f, 0.8f) + "\",\"index\":0}],\"model\":\"" + MODEL + "\"}")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI(baseUrl() + ENDPOINT),
+                WithParam.apiKey("test-key"),
+                new OpenAIEmbeddingFunction.WithDimensions(2));
+        CreateEmbeddingRequest request = new CreateEmbeddingRequest(MODEL)
+                .input(new CreateEmbeddingRequest.Input(new String[]{"a"}));
+
+        ef.createEmbedding(request);
+
+        assertNull(request.getEncodingFormat());
+        assertNull(request.getDimensions());
+    }
+
+    @Test(expected = EFException.class)
+    public void testDimensionsMustBePositive() throws EFException {
+        new OpenAIEmbeddingFunction(WithParam.apiKey("test-key"), new OpenAIEmbeddingFunction.WithDimensions(0));
+    }
+
+    private static String base64(float... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : values) {
+            buffer.putFloat(value);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
 }
@@ -0,0 +1,135 @@
+package tech.amikos.chromadb.embeddings;
+
+import org.junit.Test;
+import tech.amikos.chromadb.Constants;
+import tech.amikos.chromadb.EFException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RateBudgetTest {
+
+    @Test
+    public void testHeuristicEstimator() {
+        TokenEstimator estimator = TokenEstimator.heuristic();
+        assertEquals(0, estimator.estimate(null));
+        assertEquals(0, estimator.estimate(""));
+        assertEquals(1, estimator.estimate("a"));
+        assertEquals(1, estimator.estimate("abcd"));
+        assertEquals(2, estimator.estimate("abcde"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetRequiresALimit() {
+        RateBudget.builder().build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetRejectsNonPositiveTokens() {
+        RateBudget.builder().tokensPerMinute(0);
+    }
+
+    @Test(expected = EFException.class)
+    public void testRateBudgetParamMustNotBeNull() throws EFException {
+        WithParam.rateBudget(null).apply(new HashMap<String, Object>());
+    }
+
+    @Test
+    public void testLimiterAdmitsUpToTokenBudgetThenWaitsForWindow() throws Exception {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(100, 0, TimeUnit.MILLISECONDS.toNanos(200));
+        long start = System.nanoTime();
+        limiter.acquire(60);
+        limiter.acquire(40);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 150);
+        assertEquals(100, limiter.tokensInWindow());
+        limiter.acquire(10);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 190);
+        assertEquals(10, limiter.tokensInWindow());
+    }
+
+    @Test
+    public void testLimiterEnforcesRequestBudget() throws Exception {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(0, 2, TimeUnit.MILLISECONDS.toNanos(200));
+        long start = System.nanoTime();
+        limiter.acquire(1_000_000);
+        limiter.acquire(1_000_000);
+        limiter.acquire(1);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 190);
+    }
+
+    @Test
+    public void testOversizedRequestIsAdmittedIntoEmptyWindow() throws Exception {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(10, 0, TimeUnit.SECONDS.toNanos(60));
+        limiter.acquire(500);
+        assertEquals(500, limiter.tokensInWindow());
+    }
+
+    @Test
+    public void testLimiterIsSharedPerEndpointKeyAndBudget() throws EFException {
+        RateBudget budget = RateBudget.builder().tokensPerMinute(1000).build();
+        RateBudget same = RateBudget.builder().tokensPerMinute(1000).build();
+        RateBudget other = RateBudget.builder().tokensPerMinute(5).build();
+        assertSame(SlidingWindowLimiter.shared("shared-test", "k1", budget), SlidingWindowLimiter.shared("shared-test", "k1", same));
+        assertNotSame(SlidingWindowLimiter.shared("shared-test", "k1", budget), SlidingWindowLimiter.shared("shared-test", "k2", budget));
+        assertNotSame(SlidingWindowLimiter.shared("shared-test", "k1", budget), SlidingWindowLimiter.shared("shared-test", "k1", other));
+        assertEquals(5, SlidingWindowLimiter.shared("shared-test", "k1", other).getTokensPerWindow());
+    }
+
+    @Test
+    public void testSharedLimitersDoNotRetainPlaintextApiKeys() throws Exception {
+        SlidingWindowLimiter.shared("plaintext-test", "sk-secret-value", RateBudget.builder().tokensPerMinute(10).build());
+        for (String name : new String[]{"SHARED", "BUDGETS"}) {
+            Field field = SlidingWindowLimiter.class.getDeclaredField(name);
+            field.setAccessible(true);
+            for (Object key : ((Map<?, ?>) field.get(null)).keySet()) {
+                assertFalse(key.toString(), key.toString().contains("sk-secret-value"));
+            }
+        }
+    }
+
+    @Test
+    public void testChunksAreCutToTokenBudget() throws EFException {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(Constants.EF_PARAMS_BASE_API, "http://split-test");
+        WithParam.rateBudget(RateBudget.builder()
+                .tokensPerMinute(10)
+                .tokenEstimator(String::length)
+                .build()).apply(params);
+        RemoteEmbeddingExecutor executor = RemoteEmbeddingExecutor.fromConfig(params, 3);
+
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        List<Integer> tokens = new ArrayList<Integer>();
+        executor.split(Arrays.asList("aaaa", "bbbb", "cc", "d", "eeeeeeeeeeeeeeee", "f", "g", "h", "i"), chunks, tokens);
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("aaaa", "bbbb", "cc"),
+                Collections.singletonList("d"),
+                Collections.singletonList("eeeeeeeeeeeeeeee"),
+                Arrays.asList("f", "g", "h"),
+                Collections.singletonList("i")), chunks);
+        assertEquals(Arrays.asList(10, 1, 16, 3, 1), tokens);
+    }
+
+    @Test
+    public void testExecuteAdmitsEachChunk() throws EFException {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(Constants.EF_PARAMS_BASE_API, "http://execute-test");
+        params.put(Constants.EF_PARAMS_API_KEY, "key");
+        WithParam.rateBudget(RateBudget.builder().tokensPerMinute(1_000).build()).apply(params);
+        WithParam.maxBatchSize(2).apply(params);
+        RemoteEmbeddingExecutor executor = RemoteEmbeddingExecutor.fromConfig(params, 96);
+
+        List<String> result = executor.execute(Arrays.asList("abcd", "abcd", "abcd"), chunk -> chunk);
+        assertEquals(Arrays.asList("abcd", "abcd", "abcd"), result);
+        RateBudget budget = (RateBudget) params.get(Constants.EF_PARAMS_RATE_BUDGET);
+        assertEquals(3, SlidingWindowLimiter.shared("http://execute-test", "key", budget).tokensInWindow());
+    }
+}
@@ -0,0 +1,313 @@
+package tech.amikos.chromadb.embeddings;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import org.junit.Rule;
+import org.junit.Test;
+import tech.amikos.chromadb.Constants;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.embeddings.openai.OpenAIEmbeddingFunction;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.*;
+
+public class RemoteEmbeddingExecutorTest {
+
+    @Rule
+    public WireMockRule wireMock = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Test
+    public void testDefaultsComeFromProviderAndSharedClient() {
+        RemoteEmbeddingExecutor executor = RemoteEmbeddingExecutor.fromConfig(new HashMap<String, Object>(), 96);
+        assertEquals(96, executor.getMaxBatchSize());
+        assertEquals(RemoteEmbeddingExecutor.DEFAULT_MAX_CONCURRENCY, executor.getMaxConcurrency());
+        assertSame(RemoteEmbeddingExecutor.sharedHttpClient(), executor.httpClient());
+    }
+
+    @Test
+    public void testConfiguredParamsOverrideDefaults() throws EFException {
+        Map<String, Object> params = new HashMap<String, Object>();
+        OkHttpClient custom = RemoteEmbeddingExecutor.sharedHttpClient().newBuilder().build();
+        WithParam.httpClient(custom).apply(params);
+        WithParam.maxBatchSize(10).apply(params);
+        WithParam.maxConcurrency(2).apply(params);
+        RemoteEmbeddingExecutor executor = RemoteEmbeddingExecutor.fromConfig(params, 96);
+        assertEquals(10, executor.getMaxBatchSize());
+        assertEquals(2, executor.getMaxConcurrency());
+        assertSame(custom, executor.httpClient());
+    }
+
+    @Test(expected = EFException.class)
+    public void testMaxBatchSizeMustBePositive() throws EFException {
+        WithParam.maxBatchSize(0).apply(new HashMap<String, Object>());
+    }
+
+    @Test
+    public void testSmallInputRunsAsSingleCall() throws EFException {
+        RemoteEmbeddingExecutor executor = executor(4, 4);
+        final AtomicInteger calls = new AtomicInteger();
+        List<String> result = executor.execute(Arrays.asList("a", "b"), new RemoteEmbeddingExecutor.ChunkCall<String>() {
+            @Override
+            public List<String> call(List<String> chunk) {
+                calls.incrementAndGet();
+                return chunk;
+            }
+        });
+        assertEquals(Arrays.asList("a", "b"), result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testChunksAreReassembledInOrder() throws EFException {
+        RemoteEmbeddingExecutor executor = executor(3, 4);
+        List<String> inputs = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            inputs.add("t" + i);
+        }
+        final List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        List<String> result = executor.execute(inputs, new RemoteEmbeddingExecutor.ChunkCall<String>() {
+            @Override
+            public List<String> call(List<String> chunk) {
+                chunkSizes.add(chunk.size());
+                List<String> out = new ArrayList<String>();
+                for (String s : chunk) {
+                    out.add(s.toUpperCase());
+                }
+                return out;
+            }
+        });
+        assertEquals(7, chunkSizes.size());
+        for (Integer size : chunkSizes) {
+            assertTrue(size <= 3);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("T" + i, result.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() throws EFException {
+        RemoteEmbeddingExecutor executor = executor(1, 2);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        executor.execute(Arrays.asList("a", "b", "c", "d", "e", "f"), new RemoteEmbeddingExecutor.ChunkCall<String>() {
+            @Override
+            public List<String> call(List<String> chunk) {
+                int now = inFlight.incrementAndGet();
+                peak.accumulateAndGet(now, Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return chunk;
+            }
+        });
+        assertTrue("peak concurrency " + peak.get() + " exceeds limit", peak.get() <= 2);
+    }
+
+    @Test
+    public void testChunkFailureIsRethrown() {
+        RemoteEmbeddingExecutor executor = executor(1, 3);
+        try {
+            executor.execute(Arrays.asList("a", "b", "c"), new RemoteEmbeddingExecutor.ChunkCall<String>() {
+                @Override
+                public List<String> call(List<String> chunk) throws EFException {
+                    if ("b".equals(chunk.get(0))) {
+                        throw new EFException("chunk b failed");
+                    }
+                    return chunk;
+                }
+            });
+            fail("Expected EFException");
+        } catch (EFException e) {
+            assertEquals("chunk b failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOpenAIChunksLargeInputs() throws EFException {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":[0.1,0.2],\"index\":0},"
+                                + "{\"embedding\":[0.3,0.4],\"index\":1}],\"model\":\"m\"}")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/embeddings"),
+                WithParam.apiKey("test-key"),
+                WithParam.maxBatchSize(2)
+        );
+        List<Embedding> result = ef.embedDocuments(Arrays.asList("a", "b", "c", "d", "e", "f"));
+        assertEquals(6, result.size());
+        verify(3, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testOpenAIChunkCountMismatchFails() throws EFException {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":[0.1,0.2],\"index\":0}],\"model\":\"m\"}")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/embeddings"),
+                WithParam.apiKey("test-key"),
+                WithParam.maxBatchSize(2)
+        );
+        try {
+            ef.embedDocuments(Arrays.asList("a", "b", "c", "d"));
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("expected 2 embeddings, got 1"));
+        }
+    }
+
+    @Test
+    public void testThrottledRequestIsRetriedUntilSuccess() throws EFException {
+        stubFor(post(urlEqualTo("/v1/embeddings")).inScenario("throttle")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("retry-after-ms", "5"))
+                .willSetStateTo("recovered"));
+        stubFor(post(urlEqualTo("/v1/embeddings")).inScenario("throttle")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\":[{\"embedding\":[0.1,0.2],\"index\":0}],\"model\":\"m\"}")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/embeddings"),
+                WithParam.apiKey("test-key")
+        );
+        assertEquals(1, ef.embedDocuments(Collections.singletonList("a")).size());
+        verify(2, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testRetriesStopWhenBudgetIsSpent() throws EFException {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse().withStatus(503).withBody("unavailable")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/embeddings"),
+                WithParam.apiKey("test-key"),
+                WithParam.retryPolicy(RetryPolicy.builder()
+                        .maxRetries(2)
+                        .initialBackoff(1, TimeUnit.MILLISECONDS)
+                        .build())
+        );
+        try {
+            ef.embedDocuments(Collections.singletonList("a"));
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("503"));
+        }
+        verify(3, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testRetryAfterBeyondBudgetFailsWithoutWaiting() throws EFException {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "3600")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/embeddings"),
+                WithParam.apiKey("test-key")
+        );
+        long start = System.nanoTime();
+        try {
+            ef.embedDocuments(Collections.singletonList("a"));
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("429"));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+        verify(1, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testNonRetryableStatusIsNotRetried() throws EFException {
+        stubFor(post(urlEqualTo("/v1/embeddings"))
+                .willReturn(aResponse().withStatus(401).withBody("unauthorized")));
+        OpenAIEmbeddingFunction ef = new OpenAIEmbeddingFunction(
+                WithParam.baseAPI("http://localhost:" + wireMock.port() + "/v1/embeddings"),
+                WithParam.apiKey("test-key")
+        );
+        try {
+            ef.embedDocuments(Collections.singletonList("a"));
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("401"));
+        }
+        verify(1, postRequestedFor(urlEqualTo("/v1/embeddings")));
+    }
+
+    @Test
+    public void testServerDelayHeaders() {
+        assertEquals(250L, RemoteEmbeddingExecutor.serverDelayMillis(Headers.of("retry-after-ms", "250"), 0L));
+        assertEquals(2000L, RemoteEmbeddingExecutor.serverDelayMillis(Headers.of("Retry-After", "2"), 0L));
+        assertEquals(-1L, RemoteEmbeddingExecutor.serverDelayMillis(Headers.of(), 0L));
+        assertEquals(20L, RemoteEmbeddingExecutor.serverDelayMillis(Headers.of(
+                "x-ratelimit-remaining-requests", "0",
+                "x-ratelimit-reset-requests", "20ms",
+                "x-ratelimit-remaining-tokens", "1000",
+                "x-ratelimit-reset-tokens", "6m0s"), 0L));
+        assertEquals(360000L, RemoteEmbeddingExecutor.serverDelayMillis(Headers.of(
+                "x-ratelimit-reset-requests", "20ms",
+                "x-ratelimit-reset-tokens", "6m0s"), 0L));
+    }
+
+    @Test
+    public void testRetryAfterHttpDate() {
+        Headers headers = new Headers.Builder().set("Retry-After", new java.util.Date(61_000L)).build();
+        assertEquals(60_000L, RemoteEmbeddingExecutor.serverDelayMillis(headers, 1_000L));
+    }
+
+    @Test
+    public void testParseDurationMillis() {
+        assertEquals(1500L, RemoteEmbeddingExecutor.parseDurationMillis("1.5s"));
+        assertEquals(3_723_500L, RemoteEmbeddingExecutor.parseDurationMillis("1h2m3.5s"));
+        assertEquals(20L, RemoteEmbeddingExecutor.parseDurationMillis("20ms"));
+        assertEquals(3000L, RemoteEmbeddingExecutor.parseDurationMillis("3"));
+        assertEquals(-1L, RemoteEmbeddingExecutor.parseDurationMillis("soon"));
+        assertEquals(-1L, RemoteEmbeddingExecutor.parseDurationMillis(null));
+    }
+
+    @Test
+    public void testBackoffGrowsAndIsCapped() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialBackoff(100, TimeUnit.MILLISECONDS)
+                .maxBackoff(1, TimeUnit.SECONDS)
+                .build();
+        assertEquals(50L, policy.backoffMillis(0, 0d));
+        assertEquals(100L, policy.backoffMillis(0, 1d));
+        assertEquals(400L, policy.backoffMillis(2, 1d));
+        assertEquals(1000L, policy.backoffMillis(10, 1d));
+        assertEquals(500L, policy.backoffMillis(10, 0d));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRetryPolicyRejectsNegativeRetries() {
+        RetryPolicy.builder().maxRetries(-1);
+    }
+
+    private static RemoteEmbeddingExecutor executor(int maxBatchSize, int maxConcurrency) {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(Constants.EF_PARAMS_MAX_BATCH_SIZE, maxBatchSize);
+        params.put(Constants.EF_PARAMS_MAX_CONCURRENCY, maxConcurrency);
+        return RemoteEmbeddingExecutor.fromConfig(params, 100);
+    }
+}
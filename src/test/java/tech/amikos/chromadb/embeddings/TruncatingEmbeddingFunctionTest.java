@@ -0,0 +1,138 @@
+package tech.amikos.chromadb.embeddings;
+
+import org.junit.Test;
+import tech.amikos.chromadb.EFException;
+import tech.amikos.chromadb.Embedding;
+import tech.amikos.chromadb.v2.ChromaException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TruncatingEmbeddingFunctionTest {
+
+    private static final float[] VECTOR = {3f, 4f, 12f, 84f};
+
+    @Test
+    public void testQueryIsTruncatedAndNormalized() throws EFException {
+        EmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(2)
+                .build();
+        assertArrayEquals(new float[]{0.6f, 0.8f}, ef.embedQuery("a").asArray(), 1e-6f);
+    }
+
+    @Test
+    public void testNormalizationCanBeDisabled() throws EFException {
+        EmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(3)
+                .normalize(false)
+                .build();
+        assertArrayEquals(new float[]{3f, 4f, 12f}, ef.embedQuery("a").asArray(), 0f);
+    }
+
+    @Test
+    public void testBatchTruncatesEveryRow() throws EFException {
+        EmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(2)
+                .build();
+
+        EmbeddingMatrix matrix = ef.embedQueryBatch(Arrays.asList("a", "b", "c"));
+        assertEquals(3, matrix.rows());
+        assertEquals(2, matrix.getDimension());
+        assertArrayEquals(new float[]{0.6f, 0.8f, 0.6f, 0.8f, 0.6f, 0.8f}, matrix.data(), 1e-6f);
+
+        List<Embedding> documents = ef.embedDocuments(Arrays.asList("a", "b"));
+        assertEquals(2, documents.size());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, documents.get(1).asArray(), 1e-6f);
+    }
+
+    @Test
+    public void testAsyncCallsTruncate() throws Exception {
+        TruncatingEmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(2)
+                .build();
+
+        assertArrayEquals(new float[]{0.6f, 0.8f},
+                ef.embedQueryAsync("a").get(5, TimeUnit.SECONDS).asArray(), 1e-6f);
+        List<Embedding> documents = ef.embedDocumentsAsync(Arrays.asList("a", "b")).get(5, TimeUnit.SECONDS);
+        assertEquals(2, documents.size());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, documents.get(1).asArray(), 1e-6f);
+    }
+
+    @Test
+    public void testAsyncCallsReportShortVectorsThroughFuture() throws Exception {
+        TruncatingEmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(8)
+                .build();
+        try {
+            ef.embedQueriesAsync(Arrays.asList("a")).get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ChromaException);
+        }
+    }
+
+    @Test
+    public void testEmptyBatchHasRequestedDimension() throws EFException {
+        EmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(2)
+                .build();
+        EmbeddingMatrix matrix = ef.embedBatch(new ArrayList<String>());
+        assertEquals(0, matrix.rows());
+        assertEquals(2, matrix.getDimension());
+    }
+
+    @Test
+    public void testShortDelegateVectorsAreRejected() throws EFException {
+        EmbeddingFunction ef = TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR))
+                .dimension(8)
+                .build();
+        try {
+            ef.embedQuery("a");
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("cannot truncate to 8"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionIsRequired() {
+        TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR)).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionMustBePositive() {
+        TruncatingEmbeddingFunction.builder(new FixedEmbeddingFunction(VECTOR)).dimension(0);
+    }
+
+    private static final class FixedEmbeddingFunction implements EmbeddingFunction {
+        private final float[] vector;
+
+        private FixedEmbeddingFunction(float[] vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public Embedding embedQuery(String query) {
+            return new Embedding(vector);
+        }
+
+        @Override
+        public List<Embedding> embedDocuments(List<String> documents) {
+            List<Embedding> result = new ArrayList<Embedding>(documents.size());
+            for (int i = 0; i < documents.size(); i++) {
+                result.add(new Embedding(vector));
+            }
+            return result;
+        }
+
+        @Override
+        public List<Embedding> embedDocuments(String[] documents) {
+            return embedDocuments(Arrays.asList(documents));
+        }
+    }
+}
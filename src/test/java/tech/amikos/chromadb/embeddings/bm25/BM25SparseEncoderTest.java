@@ -0,0 +1,167 @@
+package tech.amikos.chromadb.embeddings.bm25;
+
+import org.junit.Test;
+import tech.amikos.chromadb.v2.SparseVector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BM25SparseEncoderTest {
+
+    private static final List<String> CORPUS = Arrays.asList(
+            "The quick brown fox",
+            "the lazy dog sleeps",
+            "Quick, quick! The fox runs");
+
+    @Test
+    public void testTokenizerLowercasesAndSplitsOnNonAlphanumerics() {
+        final StringBuilder seen = new StringBuilder();
+        int count = new TextTokenizer().tokenize("Hello, WORLD-42 café!", new TextTokenizer.TermSink() {
+            @Override
+            public void accept(char[] chars, int length) {
+                seen.append(new String(chars, 0, length)).append('|');
+            }
+        });
+        assertEquals(4, count);
+        assertEquals("hello|world|42|café|", seen.toString());
+    }
+
+    @Test
+    public void testHashIsStable() {
+        char[] fox = "fox".toCharArray();
+        assertEquals(TextTokenizer.hash(fox, 3), TextTokenizer.hash("foxes".toCharArray(), 3));
+        assertTrue(TextTokenizer.hash(fox, 3) >= 0);
+        assertNotEquals(TextTokenizer.hash(fox, 3), TextTokenizer.hash("dog".toCharArray(), 3));
+    }
+
+    @Test
+    public void testOutputIndicesAreSorted() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder().build();
+        encoder.update(CORPUS);
+        int[] indices = encoder.encodeDocument("zebra apple mango kiwi banana").getIndices();
+        assertEquals(5, indices.length);
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue(indices[i - 1] < indices[i]);
+        }
+    }
+
+    @Test
+    public void testQueryCarriesTermCounts() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder().build();
+        SparseVector query = encoder.encodeQuery("fox FOX dog");
+        assertEquals(2, query.getIndices().length);
+        assertEquals(3f, query.getValues()[0] + query.getValues()[1], 0f);
+    }
+
+    @Test
+    public void testRareTermsOutweighCommonTerms() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder().build();
+        encoder.update(CORPUS);
+        assertEquals(3, encoder.getDocumentCount());
+        assertEquals(13d / 3d, encoder.getAverageDocumentLength(), 1e-9);
+
+        SparseVector doc = encoder.encodeDocument("the dog");
+        float the = weightOf(encoder, doc, "the");
+        float dog = weightOf(encoder, doc, "dog");
+        assertTrue(dog > the);
+    }
+
+    @Test
+    public void testBm25MatchesFormula() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder().k1(1.2f).b(0.75f).build();
+        encoder.update(CORPUS);
+        SparseVector doc = encoder.encodeDocument("lazy lazy");
+        double idf = Math.log(1d + (3 - 1 + 0.5d) / (1 + 0.5d));
+        double norm = 1d - 0.75d + 0.75d * 2 / (13d / 3d);
+        double expected = idf * 2 * 2.2d / (2 + 1.2d * norm);
+        assertEquals(1, doc.getValues().length);
+        assertEquals(expected, doc.getValues()[0], 1e-5);
+    }
+
+    @Test
+    public void testTfIdfWeighting() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder()
+                .weighting(BM25SparseEncoder.Weighting.TF_IDF)
+                .build();
+        SparseVector doc = encoder.encodeDocument("fox fox fox");
+        assertEquals(1d + Math.log(3d), doc.getValues()[0], 1e-6);
+    }
+
+    @Test
+    public void testIncrementalUpdatesChangeWeights() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder().build();
+        encoder.update("fox");
+        float before = encoder.encodeDocument("fox").getValues()[0];
+        encoder.update(Arrays.asList("dog", "cat", "bird"));
+        float after = encoder.encodeDocument("fox").getValues()[0];
+        assertTrue(after > before);
+        assertEquals(4, encoder.getTermCount());
+    }
+
+    @Test
+    public void testVocabularyIdsAreDenseAndDropUnknownTerms() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder()
+                .termIds(BM25SparseEncoder.TermIds.VOCABULARY)
+                .build();
+        encoder.update(Collections.singletonList("alpha beta gamma beta"));
+        assertArrayEquals(new int[]{0, 2}, encoder.encodeQuery("gamma alpha delta").getIndices());
+        assertEquals(0, encoder.encodeQuery("unknown").getIndices().length);
+    }
+
+    @Test
+    public void testBatchEncodingMatchesSingleEncoding() {
+        BM25SparseEncoder encoder = BM25SparseEncoder.builder().build();
+        encoder.update(CORPUS);
+        List<SparseVector> batch = encoder.encodeDocuments(CORPUS);
+        assertEquals(3, batch.size());
+        for (int i = 0; i < CORPUS.size(); i++) {
+            assertEquals(encoder.encodeDocument(CORPUS.get(i)), batch.get(i));
+        }
+    }
+
+    @Test
+    public void testPrimitiveMapsGrowAndClear() {
+        IntFloatMap map = new IntFloatMap();
+        for (int i = 0; i < 1000; i++) {
+            map.add(i * 31, 1f);
+            map.add(i * 31, 0.5f);
+        }
+        assertEquals(1000, map.size());
+        assertEquals(1.5f, map.get(31 * 999), 0f);
+        assertEquals(0f, map.get(1), 0f);
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.sortedKeys().length);
+
+        IntIntMap counts = new IntIntMap();
+        for (int i = 0; i < 1000; i++) {
+            counts.add(i, 2);
+        }
+        assertEquals(1000, counts.size());
+        assertEquals(2, counts.get(999));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullDocumentIsRejected() {
+        BM25SparseEncoder.builder().build().encodeDocuments(Arrays.asList("a", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBIsRejected() {
+        BM25SparseEncoder.builder().b(1.5f);
+    }
+
+    private static float weightOf(BM25SparseEncoder encoder, SparseVector vector, String term) {
+        int id = encoder.encodeQuery(term).getIndices()[0];
+        int[] indices = vector.getIndices();
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == id) {
+                return vector.getValues()[i];
+            }
+        }
+        throw new AssertionError("term not found: " + term);
+    }
+}
@@ -135,6 +135,28 @@ public class ChromaApiClientTest {
         c.post("/api/v2/collections/id1/add", body); // no exception = pass
     }
 
+    @Test
+    public void testLargeAddRequestIsSentWithExactBodyAndContentLength() {
+        stubFor(post(urlEqualTo("/api/v2/collections/id1/add"))
+                .willReturn(aResponse().withStatus(201)));
+        int count = SegmentedJsonBody.PARALLEL_THRESHOLD + 1;
+        List<String> ids = new ArrayList<String>(count);
+        List<float[]> embeddings = new ArrayList<float[]>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("id" + i);
+            embeddings.add(new float[]{i, 0.5f});
+        }
+        ChromaDtos.AddRequest body = new ChromaDtos.AddRequest(ids, embeddings, null, null, null);
+        String expected = new String(JsonCodec.gson().encode(body), StandardCharsets.UTF_8);
+
+        newClient().post("/api/v2/collections/id1/add", body);
+
+        verify(postRequestedFor(urlEqualTo("/api/v2/collections/id1/add"))
+                .withHeader("Content-Length", equalTo(
+                        String.valueOf(expected.getBytes(StandardCharsets.UTF_8).length)))
+                .withRequestBody(equalTo(expected)));
+    }
+
     // --- Happy path: PUT ---
 
     @Test
@@ -788,12 +810,12 @@ public class ChromaApiClientTest {
         assertEquals("ok", result);
     }
 
-    // --- Gson accessor ---
+    // --- Codec accessor ---
 
     @Test
-    public void testGsonAccessor() {
+    public void testCodecAccessorDefaultsToGson() {
         ChromaApiClient c = newClient();
-        assertNotNull(c.gson());
+        assertSame(JsonCodec.gson(), c.codec());
     }
 
     // --- Constructor validation ---
@@ -1002,6 +1024,78 @@ public class ChromaApiClientTest {
         c.close();
     }
 
+    // --- JSON codec ---
+
+    @Test
+    public void testCustomCodecEncodesRequestAndDecodesResponse() {
+        stubFor(post(urlEqualTo("/api/v2/test"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"value\":\"ok\"}")));
+        final List<String> calls = new ArrayList<String>();
+        JsonCodec codec = new JsonCodec() {
+            @Override
+            public byte[] encode(Object value) {
+                calls.add("encode");
+                return "{\"custom\":true}".getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public <T> T decode(byte[] json, Type type) {
+                calls.add("decode:" + new String(json, StandardCharsets.UTF_8));
+                return JsonCodec.gson().decode(json, type);
+            }
+        };
+        client = new ChromaApiClient(
+                "http://localhost:" + wireMock.port(), null, null,
+                new OkHttpClient(), true, ChromaLogger.noop(), codec);
+
+        Map<String, String> result = client.post("/api/v2/test", Collections.singletonMap("a", "b"),
+                new TypeToken<Map<String, String>>() {}.getType());
+
+        assertEquals("ok", result.get("value"));
+        assertEquals(2, calls.size());
+        assertEquals("encode", calls.get(0));
+        assertEquals("decode:{\"value\":\"ok\"}", calls.get(1));
+        verify(postRequestedFor(urlEqualTo("/api/v2/test"))
+                .withRequestBody(equalToJson("{\"custom\":true}")));
+    }
+
+    @Test
+    public void testCustomCodecFailureBecomesDeserializationException() {
+        stubFor(get(urlEqualTo("/api/v2/test"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"value\":1}")));
+        final IllegalStateException failure = new IllegalStateException("unexpected token");
+        JsonCodec codec = new JsonCodec() {
+            @Override
+            public byte[] encode(Object value) {
+                return JsonCodec.gson().encode(value);
+            }
+
+            @Override
+            public <T> T decode(byte[] json, Type type) {
+                throw failure;
+            }
+        };
+        client = new ChromaApiClient(
+                "http://localhost:" + wireMock.port(), null, null,
+                new OkHttpClient(), true, ChromaLogger.noop(), codec);
+
+        try {
+            client.get("/api/v2/test", String.class);
+            fail("Expected ChromaDeserializationException");
+        } catch (ChromaDeserializationException e) {
+            assertEquals(200, e.getStatusCode());
+            assertTrue(e.getMessage().contains("could not be deserialized"));
+            assertTrue(e.getMessage().contains("{\"value\":1}"));
+            assertSame(failure, e.getCause());
+        }
+    }
+
     // --- Deserialization error ---
 
     @Test
@@ -4,6 +4,8 @@ import org.junit.Test;
 import okhttp3.OkHttpClient;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Collections;
@@ -182,6 +184,104 @@ public class ChromaClientBuilderTest {
         }
     }
 
+    @Test(expected = NullPointerException.class)
+    public void testBuilderRejectsNullJsonCodec() {
+        ChromaClient.builder().jsonCodec(null);
+    }
+
+    @Test
+    public void testBuilderDefaultsToGsonJsonCodec() throws Exception {
+        Client client = ChromaClient.builder().build();
+        try {
+            assertSame(JsonCodec.gson(), storedJsonCodec(client));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsWirePrecisionBelowOne() {
+        ChromaClient.builder().wirePrecision(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsWirePrecisionAboveNine() {
+        ChromaClient.builder().wirePrecision(10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuilderRejectsWirePrecisionWithCustomJsonCodec() {
+        ChromaClient.builder()
+                .jsonCodec(JsonCodec.gson())
+                .wirePrecision(6)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsNonPositiveKnownIdFilterSize() {
+        ChromaClient.builder().knownIdFilter(0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsKnownIdFilterRateOutsideUnitInterval() {
+        ChromaClient.cloud().knownIdFilter(1000, 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsKnownIdFilterTooLargeForOneArray() {
+        ChromaClient.builder().knownIdFilter(Integer.MAX_VALUE, 1e-300);
+    }
+
+    @Test
+    public void testBuilderWirePrecisionRoundsEncodedEmbeddings() throws Exception {
+        Client client = ChromaClient.builder().wirePrecision(2).build();
+        try {
+            JsonCodec codec = (JsonCodec) storedJsonCodec(client);
+            assertNotSame(JsonCodec.gson(), codec);
+            ChromaDtos.QueryRequest request = new ChromaDtos.QueryRequest(
+                    Collections.singletonList(new float[]{0.4567f}), 1, null, null, null);
+            assertEquals("{\"query_embeddings\":[[0.46]],\"n_results\":1}",
+                    new String(codec.encode(request), StandardCharsets.UTF_8));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testCloudBuilderJsonCodecIsStoredInApiClient() throws Exception {
+        JsonCodec codec = new JsonCodec() {
+            @Override
+            public byte[] encode(Object value) {
+                return JsonCodec.gson().encode(value);
+            }
+
+            @Override
+            public <T> T decode(byte[] json, Type type) {
+                return JsonCodec.gson().decode(json, type);
+            }
+        };
+        Client client = ChromaClient.cloud()
+                .apiKey("key")
+                .tenant("t")
+                .database("d")
+                .jsonCodec(codec)
+                .build();
+        try {
+            assertSame(codec, storedJsonCodec(client));
+        } finally {
+            client.close();
+        }
+    }
+
+    private static Object storedJsonCodec(Client client) throws Exception {
+        Field apiClientField = client.getClass().getDeclaredField("apiClient");
+        apiClientField.setAccessible(true);
+        Object apiClient = apiClientField.get(client);
+        Field codecField = ChromaApiClient.class.getDeclaredField("codec");
+        codecField.setAccessible(true);
+        return codecField.get(apiClient);
+    }
+
     @Test
     public void testCloudBuilderLoggerIsStoredInApiClient() throws Exception {
         ChromaLogger logger = new StubLogger();
@@ -1,11 +1,16 @@
 package tech.amikos.chromadb.v2;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.junit.Test;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -574,6 +579,262 @@ public class ChromaDtosContractTest {
         assertTrue(parsed.getEmbeddingFunction().getConfig().isEmpty());
     }
 
+    // --- Streaming DTO adapters ---
+
+    private static final Gson DTO_GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(ChromaDtoAdapters.FACTORY)
+            .create();
+
+    @Test
+    public void testAddRequestAdapterMatchesReflectiveWireShape() {
+        Map<String, Object> meta = new LinkedHashMap<String, Object>();
+        meta.put("n", 1);
+        meta.put("tags", Arrays.asList("a", "b"));
+        ChromaDtos.AddRequest request = new ChromaDtos.AddRequest(
+                Arrays.asList("id1", "id2"),
+                Arrays.asList(new float[]{0.1f, -2.5f}, new float[]{1e-8f, 3.0f}),
+                Arrays.asList("doc1", null),
+                Arrays.<Map<String, Object>>asList(meta, null),
+                null
+        );
+
+        Map<String, Object> legacy = new LinkedHashMap<String, Object>();
+        legacy.put("ids", Arrays.asList("id1", "id2"));
+        legacy.put("embeddings", Arrays.asList(
+                Arrays.asList(0.1f, -2.5f),
+                Arrays.asList(1e-8f, 3.0f)
+        ));
+        legacy.put("documents", Arrays.asList("doc1", null));
+        legacy.put("metadatas", Arrays.asList(meta, null));
+
+        assertEquals(new Gson().toJson(legacy), DTO_GSON.toJson(request));
+    }
+
+    @Test
+    public void testQueryRequestAdapterWireShape() {
+        Map<String, Object> where = new LinkedHashMap<String, Object>();
+        where.put("k", "v");
+        ChromaDtos.QueryRequest request = new ChromaDtos.QueryRequest(
+                Collections.singletonList(new float[]{0.5f}),
+                3,
+                where,
+                null,
+                Arrays.asList("documents", "distances")
+        );
+
+        assertEquals(
+                "{\"query_embeddings\":[[0.5]],\"n_results\":3,\"where\":{\"k\":\"v\"},"
+                        + "\"include\":[\"documents\",\"distances\"]}",
+                DTO_GSON.toJson(request)
+        );
+    }
+
+    @Test
+    public void testMatrixBackedQueryEmbeddingsWriteLikePlainRows() {
+        List<float[]> plain = Arrays.asList(new float[]{0.5f, -1.25f}, new float[]{1e-8f, 3.0f});
+        EmbeddingRows rows = new EmbeddingRows(
+                EmbeddingMatrix.of(new float[]{0.5f, -1.25f, 1e-8f, 3.0f}, 2, 2));
+
+        assertEquals(
+                DTO_GSON.toJson(new ChromaDtos.QueryRequest(plain, 3, null, null, null)),
+                DTO_GSON.toJson(new ChromaDtos.QueryRequest(rows, 3, null, null, null))
+        );
+        RequestTemplate template = RequestTemplate.around(
+                "{\"query_embeddings\":[]}".getBytes(StandardCharsets.UTF_8),
+                "[]".getBytes(StandardCharsets.UTF_8), 0);
+        assertArrayEquals(template.fill(plain), template.fill(rows));
+        assertArrayEquals(new float[]{1e-8f, 3.0f}, rows.get(1), 0f);
+    }
+
+    @Test
+    public void testUpsertAndUpdateRequestAdaptersOmitNullFields() {
+        ChromaDtos.UpsertRequest upsert = new ChromaDtos.UpsertRequest(
+                Collections.singletonList("id1"), null, Collections.singletonList("d"), null, null);
+        ChromaDtos.UpdateRequest update = new ChromaDtos.UpdateRequest(
+                Collections.singletonList("id1"), Collections.singletonList(new float[]{1.0f}), null, null);
+
+        assertEquals("{\"ids\":[\"id1\"],\"documents\":[\"d\"]}", DTO_GSON.toJson(upsert));
+        assertEquals("{\"ids\":[\"id1\"],\"embeddings\":[[1.0]]}", DTO_GSON.toJson(update));
+    }
+
+    @Test
+    public void testMemoizedFiltersSerializeLikePlainMapsAndCacheJson() {
+        Where child = Where.eq("topic", "news");
+        Where where = Where.and(child, Where.in("year", 2024, 2025));
+        WhereDocument whereDocument = WhereDocument.contains("ai");
+        Map<String, Object> plainWhere = deepCopy(where.toMap());
+        Map<String, Object> plainWhereDocument = deepCopy(whereDocument.toMap());
+
+        String query = DTO_GSON.toJson(new ChromaDtos.QueryRequest(
+                Collections.singletonList(new float[]{1.0f}), 3, where.toMap(), whereDocument.toMap(), null));
+        String get = DTO_GSON.toJson(new ChromaDtos.GetRequest(
+                null, where.toMap(), whereDocument.toMap(), null, null, null));
+
+        assertEquals(DTO_GSON.toJson(new ChromaDtos.QueryRequest(
+                Collections.singletonList(new float[]{1.0f}), 3, plainWhere, plainWhereDocument, null)), query);
+        assertEquals(DTO_GSON.toJson(new ChromaDtos.GetRequest(
+                null, plainWhere, plainWhereDocument, null, null, null)), get);
+        assertEquals("{\"$and\":[{\"topic\":{\"$eq\":\"news\"}},{\"year\":{\"$in\":[2024,2025]}}]}",
+                ((MemoizedJsonMap) where.toMap()).cachedJson());
+        assertSame(child.toMap(), ((List<?>) where.toMap().get("$and")).get(0));
+        assertEquals(query, DTO_GSON.toJson(new ChromaDtos.QueryRequest(
+                Collections.singletonList(new float[]{1.0f}), 3, where.toMap(), whereDocument.toMap(), null)));
+    }
+
+    @Test
+    public void testMemoizedSearchItemSerializesLikePlainMap() {
+        Search search = Search.builder()
+                .knn(Knn.queryEmbedding(new float[]{0.5f, 1.0f}).limit(5))
+                .where(Where.eq("category", "tech"))
+                .select(Select.ID, Select.SCORE)
+                .limit(10)
+                .build();
+        Map<String, Object> item = search.toItemMap(null);
+
+        assertSame(item, search.toItemMap(null));
+        assertSame(search.getKnn().toRankMap(), item.get("rank"));
+        assertEquals(
+                DTO_GSON.toJson(new ChromaDtos.SearchRequest(
+                        Collections.<Map<String, Object>>singletonList(deepCopy(item)), null)),
+                DTO_GSON.toJson(new ChromaDtos.SearchRequest(
+                        Collections.singletonList(item), null)));
+        assertNotNull(((MemoizedJsonMap) item).cachedJson());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deepCopy(Map<String, Object> map) {
+        Map<String, Object> copy = new LinkedHashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), deepCopyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object deepCopyValue(Object value) {
+        if (value instanceof Map) {
+            return deepCopy((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<Object>();
+            for (Object item : (List<Object>) value) {
+                copy.add(deepCopyValue(item));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    @Test
+    public void testRequestAdapterWritesShortestFloatsAndHonorsWirePrecision() {
+        ChromaDtos.AddRequest request = new ChromaDtos.AddRequest(
+                Collections.singletonList("id1"),
+                Collections.singletonList(new float[]{0.123456789f, Float.MIN_VALUE, -1234.5678f}),
+                null, null, null);
+        Gson rounded = new GsonBuilder()
+                .registerTypeAdapterFactory(new ChromaDtoAdapters(3))
+                .create();
+
+        assertEquals("{\"ids\":[\"id1\"],\"embeddings\":[[0.12345679,1.0E-45,-1234.5677]]}",
+                DTO_GSON.toJson(request));
+        assertEquals("{\"ids\":[\"id1\"],\"embeddings\":[[0.123,1.0E-45,-1230.0]]}",
+                rounded.toJson(request));
+    }
+
+    @Test
+    public void testDtoAdaptersHandleTheUnusedDirectionReflectively() {
+        ChromaDtos.AddRequest request = DTO_GSON.fromJson(
+                "{\"ids\":[\"id1\"],\"embeddings\":[[0.5,2.0]],\"metadatas\":[{\"k\":\"v\"}]}",
+                ChromaDtos.AddRequest.class);
+        ChromaDtos.GetResponse response = new ChromaDtos.GetResponse();
+        response.ids = Collections.singletonList("a");
+        response.embeddings = Collections.singletonList(new float[]{1.5f});
+
+        assertEquals(Collections.singletonList("id1"), request.ids);
+        assertArrayEquals(new float[]{0.5f, 2.0f}, request.embeddings.get(0), 0.0f);
+        assertEquals("v", request.metadatas.get(0).get("k"));
+        assertNull(request.documents);
+        assertEquals(new Gson().toJson(response), DTO_GSON.toJson(response));
+    }
+
+    @Test
+    public void testWirePrecisionAcceptsZeroAsShortest() {
+        assertEquals(0, new ChromaDtoAdapters(0).wirePrecision());
+        try {
+            new ChromaDtoAdapters(-1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("wirePrecision must be 0 (shortest) or between 1 and "));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequestAdapterRejectsNonFiniteEmbeddingValue() {
+        DTO_GSON.toJson(new ChromaDtos.AddRequest(
+                Collections.singletonList("id1"),
+                Collections.singletonList(new float[]{Float.NaN}),
+                null, null, null));
+    }
+
+    @Test
+    public void testQueryResponseAdapterReadsPrimitiveEmbeddings() {
+        String body = "{\"ids\":[[\"a\",\"b\"]],\"documents\":[[\"d1\",null]],"
+                + "\"metadatas\":[[{\"n\":1},null]],\"embeddings\":[[[0.25,1.5],[2,3]]],"
+                + "\"distances\":[[0.1,null]],\"uris\":null,\"included\":[\"documents\"]}";
+
+        ChromaDtos.QueryResponse dto = DTO_GSON.fromJson(body, ChromaDtos.QueryResponse.class);
+
+        assertEquals(Collections.singletonList(Arrays.asList("a", "b")), dto.ids);
+        assertEquals(Arrays.asList("d1", null), dto.documents.get(0));
+        assertEquals(Double.valueOf(1.0), dto.metadatas.get(0).get(0).get("n"));
+        assertNull(dto.metadatas.get(0).get(1));
+        assertArrayEquals(new float[]{0.25f, 1.5f}, dto.embeddings.get(0).get(0), 0.0f);
+        assertArrayEquals(new float[]{2f, 3f}, dto.embeddings.get(0).get(1), 0.0f);
+        assertEquals(Arrays.asList(Float.valueOf(0.1f), null), dto.distances.get(0));
+        assertNull(dto.uris);
+    }
+
+    @Test
+    public void testGetResponseAdapterMatchesReflectiveMetadataBinding() {
+        String body = "{\"ids\":[\"a\"],\"metadatas\":[{\"n\":2,\"nested\":{\"x\":[1,true]}}],"
+                + "\"embeddings\":[[]]}";
+
+        ChromaDtos.GetResponse dto = DTO_GSON.fromJson(body, ChromaDtos.GetResponse.class);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> reflective = (Map<String, Object>) ((List<?>) new Gson()
+                .fromJson(body, Map.class).get("metadatas")).get(0);
+
+        assertEquals(reflective, dto.metadatas.get(0));
+        assertEquals(0, dto.embeddings.get(0).length);
+    }
+
+    @Test
+    public void testGetResponseAdapterRejectsNullEmbeddingElementWithIndex() {
+        try {
+            DTO_GSON.fromJson("{\"ids\":[\"a\"],\"embeddings\":[[1.0,null]]}", ChromaDtos.GetResponse.class);
+            fail("Expected ChromaDeserializationException");
+        } catch (ChromaDeserializationException e) {
+            assertEquals(200, e.getStatusCode());
+            assertTrue(e.getMessage().contains("index 1"));
+        }
+    }
+
+    @Test
+    public void testSearchResponseAdapterReadsScoresAndNullInnerLists() {
+        String body = "{\"ids\":[[\"a\"],null],\"scores\":[[0.123456789012345],null],"
+                + "\"embeddings\":[[[1.0]],null]}";
+
+        ChromaDtos.SearchResponse dto = DTO_GSON.fromJson(body, ChromaDtos.SearchResponse.class);
+
+        assertEquals(Collections.singletonList("a"), dto.ids.get(0));
+        assertNull(dto.ids.get(1));
+        assertEquals(Double.valueOf(0.123456789012345), dto.scores.get(0).get(0));
+        assertNull(dto.scores.get(1));
+        assertArrayEquals(new float[]{1.0f}, dto.embeddings.get(0).get(0), 0.0f);
+        assertNull(dto.embeddings.get(1));
+        assertNull(dto.documents);
+    }
+
     private static void applyPassthrough(Object builder, Map<String, Object> passthrough) {
         try {
             builder.getClass().getMethod("passthrough", Map.class).invoke(builder, passthrough);
@@ -1,6 +1,7 @@
 package tech.amikos.chromadb.v2;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -8,9 +9,11 @@ import org.junit.Test;
 import tech.amikos.chromadb.EFException;
 import tech.amikos.chromadb.Embedding;
 import tech.amikos.chromadb.embeddings.EmbeddingFunction;
+import tech.amikos.chromadb.embeddings.EmbeddingMatrix;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -32,6 +35,23 @@ public class ChromaHttpCollectionTest {
     private Client client;
     private Collection collection;
 
+    private static List<String> sequentialIds(int count) {
+        List<String> ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("id" + i);
+        }
+        return ids;
+    }
+
+    private void stubGetChunk(String firstId, String body) {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .withRequestBody(matchingJsonPath("$.ids[0]", equalTo(firstId)))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(body)));
+    }
+
     private static Where where(Map<String, Object> map) {
         final Map<String, Object> copy = new LinkedHashMap<String, Object>(map);
         return new Where() {
@@ -608,6 +628,53 @@ public class ChromaHttpCollectionTest {
         verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/upsert")));
     }
 
+    @Test
+    public void testUpsertExecuteChangedSendsOnlyNewAndChangedRecords() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/upsert"))
+                .willReturn(aResponse().withStatus(200)));
+        UpsertDigestStore digests = UpsertDigestStore.inMemory();
+
+        UpsertResult first = collection.upsert()
+                .ids("id1", "id2", "id3")
+                .embeddings(new float[]{1.0f}, new float[]{2.0f}, new float[]{3.0f})
+                .documents("doc1", "doc2", "doc3")
+                .executeChanged(digests);
+        UpsertResult second = collection.upsert()
+                .ids("id1", "id2", "id3")
+                .embeddings(new float[]{1.0f}, new float[]{2.5f}, new float[]{3.0f})
+                .documents("doc1", "doc2", "doc3")
+                .executeChanged(digests);
+        UpsertResult third = collection.upsert()
+                .ids("id1", "id2", "id3")
+                .embeddings(new float[]{1.0f}, new float[]{2.5f}, new float[]{3.0f})
+                .documents("doc1", "doc2", "doc3")
+                .executeChanged(digests);
+
+        assertEquals(new UpsertResult(3, 0), first);
+        assertEquals(new UpsertResult(1, 2), second);
+        assertEquals(new UpsertResult(0, 3), third);
+        assertEquals(3, digests.size());
+        verify(2, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/upsert")));
+        verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/upsert"))
+                .withRequestBody(equalToJson("{\"ids\":[\"id2\"],\"embeddings\":[[2.5]],\"documents\":[\"doc2\"]}")));
+    }
+
+    @Test
+    public void testUpsertExecuteChangedDoesNotRecordFailedWrites() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/upsert"))
+                .willReturn(aResponse().withStatus(400).withBody("{\"error\":\"bad\"}")));
+        UpsertDigestStore digests = UpsertDigestStore.inMemory();
+
+        try {
+            collection.upsert().ids("id1").documents("doc1").executeChanged(digests);
+            fail("Expected ChromaBadRequestException");
+        } catch (ChromaBadRequestException expected) {
+            // expected
+        }
+
+        assertEquals(0, digests.size());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testUpsertRequiresIds() {
         collection.upsert().documents("doc1").execute();
@@ -651,6 +718,66 @@ public class ChromaHttpCollectionTest {
         }
     }
 
+    @Test
+    public void testAddDuplicateIdsMessageListsEachDuplicateInFirstOccurrenceOrder() {
+        try {
+            collection.add()
+                    .ids("b", "a", "c", "a", "b", "a")
+                    .documents("d0", "d1", "d2", "d3", "d4", "d5")
+                    .execute();
+            fail("Expected ChromaException for duplicate IDs");
+        } catch (ChromaException e) {
+            assertEquals(
+                    "Duplicate IDs in add/upsert batch: 'b' at indexes [0, 4], 'a' at indexes [1, 3, 5]",
+                    e.getMessage()
+            );
+        }
+    }
+
+    @Test
+    public void testAddLargeBatchWithUniqueIdsPassesValidation() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/add"))
+                .willReturn(aResponse().withStatus(201).withBody("{}")));
+        List<String> ids = new ArrayList<String>();
+        List<String> docs = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add("id-" + i);
+            docs.add("doc-" + i);
+        }
+        collection.add().ids(ids).documents(docs).execute();
+        verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/add")));
+    }
+
+    @Test
+    public void testAddMetadataTypeErrorTakesPrecedenceOverDuplicateIds() {
+        Map<String, Object> bad = new HashMap<String, Object>();
+        bad.put("tags", Arrays.<Object>asList("x", 1));
+        try {
+            collection.add()
+                    .ids("id1", "id1")
+                    .documents("d1", "d2")
+                    .metadatas(Arrays.<Map<String, Object>>asList(null, bad))
+                    .execute();
+            fail("Expected ChromaBadRequestException");
+        } catch (ChromaBadRequestException e) {
+            assertEquals("MIXED_TYPE_ARRAY", e.getErrorCode());
+            assertTrue(e.getMessage().startsWith("metadata[1].tags"));
+        }
+    }
+
+    @Test
+    public void testAddDuplicateIdsTakePrecedenceOverSizeMismatch() {
+        try {
+            collection.add()
+                    .ids("id1", "id1")
+                    .documents("d1")
+                    .execute();
+            fail("Expected ChromaException for duplicate IDs");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().startsWith("Duplicate IDs"));
+        }
+    }
+
     @Test
     public void testAddWithNullGeneratorOutputFailsWithChromaException() {
         IdGenerator nullGen = new IdGenerator() {
@@ -800,10 +927,9 @@ public class ChromaHttpCollectionTest {
     }
 
     @Test
-    public void testDeleteAllowsInlineIdWhereFilterShape() {
+    public void testDeleteLiftsInlineIdWhereFilterIntoIds() {
         stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
-                .withRequestBody(matchingJsonPath("$.where['#id']['$in'][0]", equalTo("id1")))
-                .withRequestBody(matchingJsonPath("$.where['#id']['$in'][1]", equalTo("id2")))
+                .withRequestBody(equalToJson("{\"ids\":[\"id1\",\"id2\"]}"))
                 .willReturn(aResponse().withStatus(200)));
 
         collection.delete()
@@ -813,6 +939,262 @@ public class ChromaHttpCollectionTest {
         verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete")));
     }
 
+    @Test
+    public void testGetChunksLargeIdListsAndMergesInIdOrder() {
+        stubGetChunk("id0", "{\"ids\":[\"id1\",\"id0\"],\"documents\":[\"d1\",\"d0\"]}");
+        stubGetChunk("id1000", "{\"ids\":[\"id1000\"],\"documents\":[\"d1000\"]}");
+        stubGetChunk("id2000", "{\"ids\":[\"id2499\"],\"documents\":[\"d2499\"]}");
+
+        GetResult result = collection.get()
+                .where(Where.idIn(sequentialIds(2500).toArray(new String[0])))
+                .include(Include.DOCUMENTS)
+                .execute();
+
+        assertEquals(Arrays.asList("id0", "id1", "id1000", "id2499"), result.getIds());
+        assertEquals(Arrays.asList("d0", "d1", "d1000", "d2499"), result.getDocuments());
+        verify(3, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+        verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .withRequestBody(matchingJsonPath("$.ids.length()", equalTo("500")))
+                .withRequestBody(matchingJsonPath("$.include[0]", equalTo("documents"))));
+    }
+
+    @Test
+    public void testGetWithLimitDoesNotChunk() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[]}")));
+
+        collection.get().ids(sequentialIds(1500)).limit(10).execute();
+
+        verify(1, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .withRequestBody(matchingJsonPath("$.ids.length()", equalTo("1500"))));
+    }
+
+    @Test
+    public void testDeleteChunksLargeIdListsAndRetriesFailedChunk() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
+                .withRequestBody(matchingJsonPath("$.ids[0]", equalTo("id0")))
+                .willReturn(aResponse().withStatus(200)));
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
+                .inScenario("chunk-retry")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .withRequestBody(matchingJsonPath("$.ids[0]", equalTo("id1000")))
+                .willReturn(aResponse().withStatus(503).withBody("{\"error\":\"busy\"}"))
+                .willSetStateTo("recovered"));
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
+                .inScenario("chunk-retry")
+                .whenScenarioStateIs("recovered")
+                .withRequestBody(matchingJsonPath("$.ids[0]", equalTo("id1000")))
+                .willReturn(aResponse().withStatus(200)));
+
+        collection.delete().ids(sequentialIds(1500)).where(Where.eq("topic", "old")).execute();
+
+        verify(3, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete")));
+        verify(2, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
+                .withRequestBody(matchingJsonPath("$.ids.length()", equalTo("500")))
+                .withRequestBody(matchingJsonPath("$.where.topic.$eq", equalTo("old"))));
+    }
+
+    @Test
+    public void testDeleteChunkFailingAfterRetriesIsRethrown() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
+                .willReturn(aResponse().withStatus(500).withBody("{\"error\":\"boom\"}")));
+
+        try {
+            collection.delete().ids(sequentialIds(1001)).execute();
+            fail("Expected ChromaServerException");
+        } catch (ChromaServerException e) {
+            assertEquals(500, e.getStatusCode());
+        }
+        verify(IdChunker.MAX_ATTEMPTS, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
+                .withRequestBody(matchingJsonPath("$.ids[0]", equalTo("id1000"))));
+    }
+
+    @Test
+    public void testExistsProbesWithoutIncludedFieldsAndReturnsPositions() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[\"c\",\"a\"]}")));
+
+        BitSet found = collection.exists(Arrays.asList("a", "b", "c", "a"));
+
+        assertEquals(4, found.length());
+        assertTrue(found.get(0));
+        assertFalse(found.get(1));
+        assertTrue(found.get(2));
+        assertTrue(found.get(3));
+        verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .withRequestBody(equalToJson("{\"ids\":[\"a\",\"b\",\"c\"],\"include\":[]}")));
+    }
+
+    @Test
+    public void testExistsChunksLargeIdLists() {
+        stubGetChunk("id0", "{\"ids\":[\"id5\"]}");
+        stubGetChunk("id1000", "{\"ids\":[\"id1001\"]}");
+
+        BitSet found = collection.exists(sequentialIds(1500));
+
+        assertEquals(2, found.cardinality());
+        assertTrue(found.get(5));
+        assertTrue(found.get(1001));
+        verify(2, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+    }
+
+    @Test
+    public void testExistsRejectsNullIds() {
+        try {
+            collection.exists(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            collection.exists(Arrays.asList("a", null));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertEquals(0, collection.exists(Collections.<String>emptyList()).length());
+        verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+    }
+
+    @Test
+    public void testExistsSkipsIdsNeverWrittenToCollectionCreatedByClient() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/add"))
+                .willReturn(aResponse().withStatus(201)));
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[\"a\"]}")));
+        Client filtered = ChromaClient.builder()
+                .baseUrl("http://localhost:" + wireMock.port())
+                .knownIdFilter(1000, 0.0001)
+                .build();
+        try {
+            Collection created = filtered.createCollection("test_col");
+            assertEquals(0, created.exists(Arrays.asList("a", "b")).cardinality());
+            verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+
+            created.add()
+                    .ids("a")
+                    .embeddings(new float[]{0.1f})
+                    .execute();
+            BitSet found = created.exists(Arrays.asList("a", "b"));
+
+            assertTrue(found.get(0));
+            assertFalse(found.get(1));
+            verify(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                    .withRequestBody(equalToJson("{\"ids\":[\"a\"],\"include\":[]}")));
+
+            // Other handles to the same collection share its filter.
+            assertFalse(filtered.getOrCreateCollection("test_col").exists(Collections.singletonList("b")).get(0));
+            verify(1, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+        } finally {
+            filtered.close();
+        }
+    }
+
+    @Test
+    public void testDeleteCollectionDropsKnownIdFilter() {
+        stubFor(get(urlEqualTo(COLLECTIONS_PATH + "/test_col"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\":\"col-id-1\",\"name\":\"test_col\"}")));
+        stubFor(delete(urlEqualTo(COLLECTIONS_PATH + "/test_col"))
+                .willReturn(aResponse().withStatus(200)));
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[]}")));
+        Client filtered = ChromaClient.builder()
+                .baseUrl("http://localhost:" + wireMock.port())
+                .knownIdFilter(1000, 0.0001)
+                .build();
+        try {
+            Collection created = filtered.createCollection("test_col");
+            created.exists(Collections.singletonList("a"));
+            verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+
+            filtered.deleteCollection("test_col");
+            created.exists(Collections.singletonList("a"));
+
+            verify(deleteRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/test_col")));
+            verify(1, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+        } finally {
+            filtered.close();
+        }
+    }
+
+    @Test
+    public void testDeleteWithUnsatisfiableWhereSkipsRequest() {
+        collection.delete()
+                .where(Where.and(Where.eq("topic", "news"), Where.eq("topic", "sports")))
+                .execute();
+
+        verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete")));
+    }
+
+    @Test
+    public void testGetPushesIdFilterIntoIdsAndSendsOptimizedWhere() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .withRequestBody(equalToJson("{\"ids\":[\"id2\",\"id3\"],"
+                        + "\"where\":{\"$and\":[{\"year\":{\"$gte\":2020}},{\"topic\":{\"$in\":[\"news\",\"ai\"]}}]}}"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[\"id2\"]}")));
+
+        GetResult result = collection.get()
+                .ids("id1", "id2", "id3")
+                .where(Where.and(
+                        Where.and(Where.gte("year", 2020), Where.idIn("id2", "id3", "id4")),
+                        Where.or(Where.eq("topic", "news"), Where.eq("topic", "ai"), Where.eq("topic", "news"))
+                ))
+                .execute();
+
+        assertEquals(Collections.singletonList("id2"), result.getIds());
+    }
+
+    @Test
+    public void testGetWithDisjointIdsAndIdFilterReturnsEmptyWithoutRequest() {
+        GetResult result = collection.get()
+                .ids("id1")
+                .where(Where.idIn("id2"))
+                .include(Include.DOCUMENTS)
+                .execute();
+
+        assertTrue(result.getIds().isEmpty());
+        assertTrue(result.getDocuments().isEmpty());
+        assertNull(result.getMetadatas());
+        verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get")));
+    }
+
+    @Test
+    public void testQueryWithUnsatisfiableWhereReturnsEmptyRowsWithoutRequest() {
+        QueryResult result = collection.query()
+                .queryEmbeddings(new float[]{1.0f}, new float[]{2.0f})
+                .where(Where.and(Where.in("year", 2020, 2021), Where.nin("year", 2020, 2021)))
+                .execute();
+        QueryResult prepared = collection.query()
+                .where(Where.and(Where.eq("topic", "news"), Where.ne("topic", "news")))
+                .prepare()
+                .execute(new float[]{1.0f});
+
+        assertEquals(2, result.getIds().size());
+        assertTrue(result.getIds().get(1).isEmpty());
+        assertTrue(result.getDistances().get(0).isEmpty());
+        assertNull(result.getEmbeddings());
+        assertEquals(1, prepared.getIds().size());
+        verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/query")));
+    }
+
     @Test
     public void testDeleteAllowsNestedInlineIdWhereFilterShape() {
         stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/delete"))
@@ -1010,6 +1392,229 @@ public class ChromaHttpCollectionTest {
         assertEquals(1, result.getIds().size());
     }
 
+    @Test
+    public void testPreparedQuerySendsSameBodyAsBuilderQuery() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/query"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[[\"id1\"]]}")));
+        Where where = Where.and(Where.eq("topic", "news"), Where.in("year", 2024, 2025));
+        WhereDocument whereDocument = WhereDocument.contains("ai");
+
+        collection.query()
+                .queryEmbeddings(new float[]{0.1f, -2.5f}, new float[]{3.0f, 1.0E-8f})
+                .nResults(3)
+                .where(where)
+                .whereDocument(whereDocument)
+                .include(Include.DOCUMENTS, Include.DISTANCES)
+                .execute();
+        PreparedQuery prepared = collection.query()
+                .nResults(3)
+                .where(where)
+                .whereDocument(whereDocument)
+                .include(Include.DOCUMENTS, Include.DISTANCES)
+                .prepare();
+        QueryResult result = prepared.execute(new float[]{0.1f, -2.5f}, new float[]{3.0f, 1.0E-8f});
+        prepared.execute(Collections.singletonList(new float[]{7.0f}));
+
+        assertEquals("id1", result.getIds().get(0).get(0));
+        List<com.github.tomakehurst.wiremock.verification.LoggedRequest> requests =
+                findAll(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/query")));
+        assertEquals(3, requests.size());
+        assertEquals(requests.get(0).getBodyAsString(), requests.get(1).getBodyAsString());
+        assertEquals(
+                "{\"query_embeddings\":[[7.0]],\"n_results\":3,"
+                        + "\"where\":{\"$and\":[{\"topic\":{\"$eq\":\"news\"}},{\"year\":{\"$in\":[2024,2025]}}]},"
+                        + "\"where_document\":{\"$contains\":\"ai\"},\"include\":[\"documents\",\"distances\"]}",
+                requests.get(2).getBodyAsString());
+    }
+
+    @Test
+    public void testPreparedQueryRequiresEmbeddings() {
+        PreparedQuery prepared = collection.query().prepare();
+        try {
+            prepared.execute(Collections.<float[]>emptyList());
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("queryEmbeddings must be provided", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreparedQueryRejectsNonFiniteEmbedding() {
+        collection.query().prepare().execute(new float[]{Float.NaN});
+    }
+
+    @Test
+    public void testPreparedQueryWithCustomCodecEncodesFullRequest() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/query"))
+                .withRequestBody(equalToJson("{\"query_embeddings\":[[1.5]],\"n_results\":2,"
+                        + "\"where\":{\"topic\":{\"$eq\":\"news\"}}}"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[[\"id1\"]]}")));
+        final JsonCodec gson = JsonCodec.gson();
+        Client customClient = ChromaClient.builder()
+                .baseUrl("http://localhost:" + wireMock.port())
+                .jsonCodec(new JsonCodec() {
+                    @Override
+                    public byte[] encode(Object value) {
+                        return gson.encode(value);
+                    }
+
+                    @Override
+                    public <T> T decode(byte[] json, java.lang.reflect.Type type) {
+                        return gson.decode(json, type);
+                    }
+                })
+                .build();
+        try {
+            QueryResult result = customClient.getOrCreateCollection("test_col").query()
+                    .nResults(2)
+                    .where(Where.eq("topic", "news"))
+                    .prepare()
+                    .execute(new float[]{1.5f});
+            assertEquals("id1", result.getIds().get(0).get(0));
+        } finally {
+            customClient.close();
+        }
+    }
+
+    @Test
+    public void testPlainReflectiveGsonCodecConformsToDtoContract() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/add"))
+                .withRequestBody(equalToJson("{\"ids\":[\"id1\"],\"embeddings\":[[0.5,2.0]],"
+                        + "\"documents\":[\"doc1\"],\"metadatas\":[{\"k\":\"v\"}]}"))
+                .willReturn(aResponse().withStatus(200)));
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/get"))
+                .withRequestBody(equalToJson("{\"where\":{\"k\":{\"$eq\":\"v\"}},"
+                        + "\"include\":[\"metadatas\",\"embeddings\"]}"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[\"id1\"],\"metadatas\":[{\"k\":\"v\"}],"
+                                + "\"embeddings\":[[0.5,2.0]]}")));
+        final com.google.gson.Gson gson = new com.google.gson.Gson();
+        Client customClient = ChromaClient.builder()
+                .baseUrl("http://localhost:" + wireMock.port())
+                .jsonCodec(new JsonCodec() {
+                    @Override
+                    public byte[] encode(Object value) {
+                        return gson.toJson(value).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                    }
+
+                    @Override
+                    public <T> T decode(byte[] json, java.lang.reflect.Type type) {
+                        return gson.fromJson(new String(json, java.nio.charset.StandardCharsets.UTF_8), type);
+                    }
+                })
+                .build();
+        try {
+            Collection col = customClient.getOrCreateCollection("test_col");
+            col.add()
+                    .ids("id1")
+                    .embeddings(new float[]{0.5f, 2.0f})
+                    .documents("doc1")
+                    .metadatas(Collections.<Map<String, Object>>singletonList(
+                            Collections.<String, Object>singletonMap("k", "v")))
+                    .execute();
+            GetResult result = col.get()
+                    .where(Where.eq("k", "v"))
+                    .include(Include.METADATAS, Include.EMBEDDINGS)
+                    .execute();
+
+            assertEquals(Collections.singletonList("id1"), result.getIds());
+            assertEquals("v", result.getMetadatas().get(0).get("k"));
+            assertArrayEquals(new float[]{0.5f, 2.0f}, result.getEmbeddings().get(0), 0.0f);
+        } finally {
+            customClient.close();
+        }
+    }
+
+    @Test
+    public void testWirePrecisionDoesNotRoundSearchKnnVectors() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/search"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[[\"id1\"]],\"scores\":[[0.25]]}")));
+        Client roundingClient = ChromaClient.builder()
+                .baseUrl("http://localhost:" + wireMock.port())
+                .wirePrecision(3)
+                .build();
+        try {
+            Collection col = roundingClient.getOrCreateCollection("test_col");
+            Search search = Search.builder()
+                    .knn(Knn.queryEmbedding(new float[]{0.123456789f}).limit(5))
+                    .build();
+            col.search().searches(search).execute();
+            col.search().searches(search).prepare().execute(new float[]{0.123456789f});
+        } finally {
+            roundingClient.close();
+        }
+
+        verify(2, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/search"))
+                .withRequestBody(containing("0.12345679")));
+    }
+
+    @Test
+    public void testPreparedSearchSendsSameBodyAsBuilderSearch() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/search"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[[\"id1\"]],\"scores\":[[0.25]]}")));
+        Search search = Search.builder()
+                .knn(Knn.queryEmbedding(new float[]{0.5f, 2.0f}).limit(50))
+                .where(Where.eq("category", "tech"))
+                .select(Select.ID, Select.SCORE)
+                .build();
+
+        collection.search().searches(search).where(Where.gt("year", 2020)).limit(10).execute();
+        PreparedSearch prepared = collection.search()
+                .searches(Search.builder()
+                        .knn(Knn.queryEmbedding(new float[0]).limit(50))
+                        .where(Where.eq("category", "tech"))
+                        .select(Select.ID, Select.SCORE)
+                        .build())
+                .where(Where.gt("year", 2020))
+                .limit(10)
+                .prepare();
+        SearchResult result = prepared.execute(new float[]{0.5f, 2.0f});
+
+        assertEquals("id1", result.getIds().get(0).get(0));
+        List<com.github.tomakehurst.wiremock.verification.LoggedRequest> requests =
+                findAll(postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-id-1/search")));
+        assertEquals(2, requests.size());
+        assertEquals(requests.get(0).getBodyAsString(), requests.get(1).getBodyAsString());
+        assertTrue(requests.get(1).getBodyAsString(),
+                requests.get(1).getBodyAsString().contains("\"query\":[0.5,2.0]"));
+    }
+
+    @Test
+    public void testPreparedSearchRequiresSingleEmbeddingKnnSearch() {
+        try {
+            collection.search().queryText("text").prepare();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("prepare() requires exactly one search ranked by Knn.queryEmbedding(...)", e.getMessage());
+        }
+        try {
+            collection.search().prepare();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // no searches configured
+        }
+        try {
+            collection.search().queryEmbedding(new float[]{1.0f}).prepare().execute(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("queryEmbedding must not be null", e.getMessage());
+        }
+    }
+
     @Test
     public void testQueryRejectsWhereToMapReturningNull() {
         try {
@@ -1261,6 +1866,62 @@ public class ChromaHttpCollectionTest {
         assertEquals("id1", result.getIds().get(0).get(0));
     }
 
+    @Test
+    public void testQueryTextsSendsEmbedQueryBatchRows() {
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH))
+                .withRequestBody(matchingJsonPath("$.name", equalTo("query_texts_batch_col")))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\":\"query-texts-batch-id\",\"name\":\"query_texts_batch_col\"}")));
+        stubFor(post(urlEqualTo(COLLECTIONS_PATH + "/query-texts-batch-id/query"))
+                .withRequestBody(equalToJson("{\"query_embeddings\":[[0.25,0.5],[0.75,1.0]]}", true, true))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ids\":[[\"id1\"],[\"id2\"]]}")));
+
+        EmbeddingFunction embeddingFunction = new EmbeddingFunction() {
+            @Override
+            public Embedding embedQuery(String query) {
+                throw new IllegalStateException("embedQuery must not be used");
+            }
+
+            @Override
+            public List<Embedding> embedDocuments(List<String> documents) {
+                throw new IllegalStateException("embedDocuments must not be used");
+            }
+
+            @Override
+            public List<Embedding> embedDocuments(String[] documents) {
+                throw new IllegalStateException("embedDocuments must not be used");
+            }
+
+            @Override
+            public List<Embedding> embedQueries(List<String> queries) {
+                throw new IllegalStateException("embedQueries must not be used");
+            }
+
+            @Override
+            public EmbeddingMatrix embedQueryBatch(List<String> queries) {
+                return EmbeddingMatrix.of(new float[]{0.25f, 0.5f, 0.75f, 1.0f}, 2, 2);
+            }
+        };
+
+        Collection textQueryCollection = client.getOrCreateCollection(
+                "query_texts_batch_col",
+                CreateCollectionOptions.builder()
+                        .embeddingFunction(embeddingFunction)
+                        .build()
+        );
+
+        QueryResult result = textQueryCollection.query()
+                .queryTexts("first", "second")
+                .execute();
+
+        assertEquals(2, result.getIds().size());
+    }
+
     @Test
     public void testQueryTextsUsesExplicitEmbedQueriesInsteadOfEmbedDocuments() {
         stubFor(post(urlEqualTo(COLLECTIONS_PATH))
@@ -2143,6 +2804,39 @@ public class ChromaHttpCollectionTest {
                 .execute();
     }
 
+    @Test
+    public void testMixedMetadataArrayTakesPrecedenceOverIdResolutionErrors() {
+        Map<String, Object> mixed = new HashMap<String, Object>();
+        mixed.put("tags", Arrays.<Object>asList("a", 1));
+        final List<String> generated = new ArrayList<String>();
+        IdGenerator recording = (document, metadata) -> {
+            generated.add(document);
+            return "gen-" + generated.size();
+        };
+
+        try {
+            collection.add()
+                    .ids("id1")
+                    .idGenerator(UuidIdGenerator.INSTANCE)
+                    .metadatas(Collections.singletonList(mixed))
+                    .execute();
+            fail("Expected ChromaBadRequestException");
+        } catch (ChromaBadRequestException expected) {
+            // metadata type errors win over "cannot set both ids and idGenerator"
+        }
+        try {
+            collection.upsert()
+                    .idGenerator(recording)
+                    .documents("doc1", "doc2")
+                    .metadatas(Collections.singletonList(mixed))
+                    .execute();
+            fail("Expected ChromaBadRequestException");
+        } catch (ChromaBadRequestException expected) {
+            // metadata type errors win over the record-count mismatch
+        }
+        assertTrue("generator must not run on rejected input", generated.isEmpty());
+    }
+
     @Test
     public void testAddRejectsNullIdsList() {
         try {
@@ -2257,6 +2951,35 @@ public class ChromaHttpCollectionTest {
         }
     }
 
+    @Test
+    public void testAddIdGeneratorBatchIsCalledOnceAndSizeChecked() {
+        final int[] calls = {0};
+        IdGenerator shortBatch = new IdGenerator() {
+            @Override
+            public String generate(String document, Map<String, Object> metadata) {
+                throw new AssertionError("generateBatch should be used");
+            }
+
+            @Override
+            public List<String> generateBatch(int count, List<String> documents,
+                                              List<Map<String, Object>> metadatas) {
+                calls[0]++;
+                return Collections.singletonList("only-one");
+            }
+        };
+
+        try {
+            collection.add()
+                    .idGenerator(shortBatch)
+                    .documents("doc1", "doc2")
+                    .execute();
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("returned 1 IDs for 2 records"));
+        }
+        assertEquals(1, calls[0]);
+    }
+
     @Test
     public void testAddIdGeneratorRejectsEmptyGeneratedId() {
         IdGenerator emptyGenerator = new IdGenerator() {
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -150,4 +151,42 @@ public class EmbeddingFunctionResolverTest {
         assertTrue(configParams.containsKey(Constants.EF_PARAMS_API_KEY));
         assertNotNull(configParams.get(Constants.EF_PARAMS_API_KEY));
     }
+
+    @Test
+    public void testResolveOpenAIDimensions() throws Exception {
+        Map<String, Object> cfg = new LinkedHashMap<String, Object>();
+        cfg.put("api_key", "k");
+        cfg.put("dimensions", 256.0d);
+        EmbeddingFunctionSpec spec = EmbeddingFunctionSpec.builder()
+                .type("known")
+                .name("openai")
+                .config(cfg)
+                .build();
+
+        EmbeddingFunction ef = EmbeddingFunctionResolver.resolve(spec);
+
+        java.lang.reflect.Field configField = OpenAIEmbeddingFunction.class.getDeclaredField("configParams");
+        configField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> configParams = (Map<String, Object>) configField.get(ef);
+        assertEquals(256, configParams.get(OpenAIEmbeddingFunction.DIMENSIONS_CONFIG_KEY));
+    }
+
+    @Test
+    public void testResolveRejectsFractionalDimensions() {
+        Map<String, Object> cfg = new LinkedHashMap<String, Object>();
+        cfg.put("api_key", "k");
+        cfg.put("dimensions", 1.5d);
+        EmbeddingFunctionSpec spec = EmbeddingFunctionSpec.builder()
+                .type("known")
+                .name("openai")
+                .config(cfg)
+                .build();
+        try {
+            EmbeddingFunctionResolver.resolve(spec);
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage().contains("dimensions must be an integer"));
+        }
+    }
 }
@@ -296,4 +296,58 @@ public class EmbeddingPrecedenceTest {
             );
         }
     }
+
+    @Test
+    public void testQueryTextsRejectEmbeddingsOfWrongDimension() {
+        stubFor(get(urlEqualTo(COLLECTIONS_PATH + "/dim_col"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\":\"col-dim\",\"name\":\"dim_col\",\"dimension\":3}")));
+
+        Collection col = client.getCollection("dim_col", fixedEmbeddingFunction(new float[]{0.1f, 0.2f}));
+
+        try {
+            col.query().queryTexts("hello").execute();
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("collection dimension is 3"));
+        }
+        verify(0, postRequestedFor(urlEqualTo(COLLECTIONS_PATH + "/col-dim/query")));
+    }
+
+    @Test
+    public void testUnsatisfiableWhereStillValidatesQueryTexts() {
+        stubFor(get(urlEqualTo(COLLECTIONS_PATH + "/no_ef_col"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\":\"col-no-ef\",\"name\":\"no_ef_col\"}")));
+        stubFor(get(urlEqualTo(COLLECTIONS_PATH + "/dim_col"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\":\"col-dim\",\"name\":\"dim_col\",\"dimension\":3}")));
+        Where unsatisfiable = Where.and(Where.eq("k", "a"), Where.eq("k", "b"));
+
+        try {
+            client.getCollection("no_ef_col").query().queryTexts("hello").where(unsatisfiable).execute();
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("queryTexts requires an embedding function"));
+        }
+        try {
+            client.getCollection("dim_col", fixedEmbeddingFunction(new float[]{0.1f, 0.2f}))
+                    .query().queryTexts("hello").where(unsatisfiable).execute();
+            fail("Expected ChromaException");
+        } catch (ChromaException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("collection dimension is 3"));
+        }
+        QueryResult empty = client.getCollection("dim_col", fixedEmbeddingFunction(new float[]{0.1f, 0.2f, 0.3f}))
+                .query().queryTexts("hello").where(unsatisfiable).execute();
+
+        assertEquals(1, empty.getIds().size());
+        assertTrue(empty.getIds().get(0).isEmpty());
+        verify(0, postRequestedFor(urlMatching(COLLECTIONS_PATH + "/col-.*/query")));
+    }
 }
@@ -0,0 +1,73 @@
+package tech.amikos.chromadb.v2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IdBloomFilterTest {
+
+    @Test
+    public void testAddedIdsAreAlwaysReported() {
+        IdBloomFilter filter = new IdBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("doc-" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("doc-" + i));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateStaysNearTarget() {
+        IdBloomFilter filter = new IdBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("doc-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 2000);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        IdBloomFilter source = new IdBloomFilter(100, 0.001);
+        source.add("a");
+        IdBloomFilter copy = source.copy();
+        copy.add("b");
+        source.add("c");
+
+        assertTrue(copy.mightContain("a"));
+        assertTrue(copy.mightContain("b"));
+        assertFalse(copy.mightContain("c"));
+        assertFalse(source.mightContain("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPositiveExpectedIds() {
+        new IdBloomFilter(0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsFalsePositiveRateOutsideUnitInterval() {
+        new IdBloomFilter(100, 0.0);
+    }
+
+    @Test
+    public void testValidateSizesWithoutAllocating() {
+        assertEquals(1, IdBloomFilter.validate(1, 0.5));
+        assertEquals(149767, IdBloomFilter.validate(1000000, 0.01));
+        try {
+            IdBloomFilter.validate(Integer.MAX_VALUE, 1e-300);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("too large"));
+        }
+    }
+}
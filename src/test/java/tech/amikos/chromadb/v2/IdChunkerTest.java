@@ -0,0 +1,164 @@
+package tech.amikos.chromadb.v2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class IdChunkerTest {
+
+    @Test
+    public void testSplitDropsDuplicatesAndKeepsOrder() {
+        List<List<String>> chunks = IdChunker.split(Arrays.asList("a", "b", "a", "c", "d", "b", "e"), 2);
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("a", "b"), Arrays.asList("c", "d"), Collections.singletonList("e")), chunks);
+    }
+
+    @Test
+    public void testExecuteReturnsResultsInChunkOrder() {
+        List<List<String>> chunks = IdChunker.split(Arrays.asList("a", "b", "c", "d", "e", "f", "g"), 1);
+
+        List<String> results = IdChunker.execute(chunks, chunk -> chunk.get(0).toUpperCase());
+
+        assertEquals(Arrays.asList("A", "B", "C", "D", "E", "F", "G"), results);
+    }
+
+    @Test(timeout = 10000L)
+    public void testExecuteRunsOnCallerWhenPoolIsSaturated() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger();
+        int callers = IdChunker.POOL_SIZE / (IdChunker.MAX_CONCURRENCY - 1) + 1;
+        final List<List<String>> blockingChunks =
+                IdChunker.split(sequentialIds(IdChunker.MAX_CONCURRENCY), 1);
+        List<Thread> blocked = new ArrayList<Thread>();
+        for (int i = 0; i < callers; i++) {
+            Thread caller = new Thread(() -> IdChunker.execute(blockingChunks, chunk -> {
+                started.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return chunk.get(0);
+            }));
+            caller.start();
+            blocked.add(caller);
+        }
+        while (started.get() < callers + IdChunker.POOL_SIZE) {
+            Thread.sleep(5L);
+        }
+
+        final Thread self = Thread.currentThread();
+        List<Boolean> onCaller = IdChunker.execute(
+                IdChunker.split(sequentialIds(IdChunker.MAX_CONCURRENCY), 1),
+                chunk -> Thread.currentThread() == self);
+        release.countDown();
+        for (Thread caller : blocked) {
+            caller.join();
+        }
+
+        assertEquals(Collections.nCopies(IdChunker.MAX_CONCURRENCY, Boolean.TRUE), onCaller);
+    }
+
+    @Test
+    public void testExecuteRetriesTransientFailures() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        List<String> results = IdChunker.execute(
+                Collections.singletonList(Collections.singletonList("a")),
+                chunk -> {
+                    if (calls.incrementAndGet() == 1) {
+                        throw new ChromaConnectionException("reset", null);
+                    }
+                    return "ok";
+                });
+
+        assertEquals(Collections.singletonList("ok"), results);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testExecuteRethrowsErrorsFromHelperThreads() {
+        final Thread self = Thread.currentThread();
+        final Error failure = new StackOverflowError("helper");
+
+        try {
+            IdChunker.execute(IdChunker.split(sequentialIds(IdChunker.MAX_CONCURRENCY * 8), 1), chunk -> {
+                if (Thread.currentThread() != self) {
+                    throw failure;
+                }
+                try {
+                    Thread.sleep(20L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return chunk.get(0);
+            });
+            fail("Expected StackOverflowError");
+        } catch (StackOverflowError e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test(expected = ChromaDeserializationException.class)
+    public void testMergeGetResponsesRejectsMissingPart() {
+        IdChunker.mergeGetResponses(Arrays.asList("a", "b"),
+                Arrays.asList(response(Collections.singletonList("a"), null), null));
+    }
+
+    @Test
+    public void testExecuteDoesNotRetryClientErrors() {
+        final AtomicInteger calls = new AtomicInteger();
+        final ChromaBadRequestException failure = new ChromaBadRequestException("bad", null);
+
+        try {
+            IdChunker.execute(Collections.singletonList(Collections.singletonList("a")), chunk -> {
+                calls.incrementAndGet();
+                throw failure;
+            });
+            fail("Expected ChromaBadRequestException");
+        } catch (ChromaBadRequestException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testMergeGetResponsesOrdersByIdsAndKeepsIncludedFields() {
+        ChromaDtos.GetResponse first = response(Arrays.asList("b", "a"), Arrays.asList("db", "da"));
+        ChromaDtos.GetResponse second = response(Collections.singletonList("d"), Collections.singletonList("dd"));
+
+        ChromaDtos.GetResponse merged = IdChunker.mergeGetResponses(
+                Arrays.asList("a", "b", "c", "a", "d"), Arrays.asList(first, second));
+
+        assertEquals(Arrays.asList("a", "b", "d"), merged.ids);
+        assertEquals(Arrays.asList("da", "db", "dd"), merged.documents);
+        assertNull(merged.metadatas);
+        assertNull(merged.embeddings);
+    }
+
+    private static ChromaDtos.GetResponse response(List<String> ids, List<String> documents) {
+        ChromaDtos.GetResponse response = new ChromaDtos.GetResponse();
+        response.ids = ids;
+        response.documents = documents;
+        return response;
+    }
+
+    private static List<String> sequentialIds(int count) {
+        List<String> ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("id" + i);
+        }
+        return ids;
+    }
+}
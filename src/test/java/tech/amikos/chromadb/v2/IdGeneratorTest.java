@@ -2,11 +2,19 @@ package tech.amikos.chromadb.v2;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
@@ -126,6 +134,75 @@ public class IdGeneratorTest {
         assertSame(UlidIdGenerator.INSTANCE, UlidIdGenerator.INSTANCE);
     }
 
+    @Test
+    public void testUlidEncodeMatchesBitLayout() {
+        byte[] random = new byte[10];
+        random[0] = (byte) 0x80;
+        assertEquals("0000000000G000000000000000", UlidIdGenerator.encode(0L, random));
+        random[0] = 0;
+        random[1] = 0x01;
+        assertEquals("0000000000000G000000000000", UlidIdGenerator.encode(0L, random));
+        random[1] = 0;
+        random[9] = 0x01;
+        assertEquals("00000000000000000000000001", UlidIdGenerator.encode(0L, random));
+    }
+
+    @Test
+    public void testUlidBatchSharesTimestampAndIsUnique() {
+        List<String> ids = UlidIdGenerator.INSTANCE.generateBatch(500, null, null);
+        assertEquals(500, ids.size());
+        assertEquals(500, new HashSet<String>(ids).size());
+        for (String id : ids) {
+            assertEquals(26, id.length());
+            assertEquals(ids.get(0).substring(0, 10), id.substring(0, 10));
+        }
+    }
+
+    @Test
+    public void testMonotonicUlidsStayIncreasingWhenInterleavedWithInstance() {
+        String previous = UlidIdGenerator.MONOTONIC.generate(null, null);
+        for (int i = 0; i < 20000; i++) {
+            UlidIdGenerator.INSTANCE.generate(null, null);
+            String next = UlidIdGenerator.MONOTONIC.generate(null, null);
+            assertTrue(previous + " !< " + next, previous.compareTo(next) < 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void testMonotonicUlidsAreStrictlyIncreasing() {
+        List<String> ids = new ArrayList<String>(UlidIdGenerator.MONOTONIC.generateBatch(1000, null, null));
+        for (int i = 0; i < 1000; i++) {
+            ids.add(UlidIdGenerator.MONOTONIC.generate(null, null));
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) + " !< " + ids.get(i), ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void testUlidConcurrentGenerationIsUnique() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        return UlidIdGenerator.MONOTONIC.generateBatch(2000, null, null);
+                    }
+                }));
+            }
+            Set<String> all = new HashSet<String>();
+            for (Future<List<String>> future : futures) {
+                all.addAll(future.get());
+            }
+            assertEquals(16000, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     // --- SHA-256 ---
 
     @Test
@@ -289,6 +366,90 @@ public class IdGeneratorTest {
         assertEquals("", Sha256IdGenerator.serializeMetadata(null));
     }
 
+    @Test
+    public void testSha256StreamingMatchesStringEncoding() throws Exception {
+        java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+        String document = "caf\u00e9 \u4e2d\u6587 \ud83d\ude00 broken\ud800 end";
+        assertEquals(ContentHashIdGenerator.hexEncode(digest.digest(("doc:" + document).getBytes("UTF-8"))),
+                Sha256IdGenerator.INSTANCE.generate(document, null));
+
+        Map<String, Object> meta = new HashMap<String, Object>();
+        meta.put("z\u00fc", Arrays.asList(1, 2));
+        meta.put("a", 1.5d);
+        meta.put("m", null);
+        String expected = ContentHashIdGenerator.hexEncode(digest.digest(
+                ("meta:" + Sha256IdGenerator.serializeMetadata(meta)).getBytes("UTF-8")));
+        assertEquals(expected, Sha256IdGenerator.INSTANCE.generate(null, meta));
+    }
+
+    // --- Murmur3 ---
+
+    @Test
+    public void testMurmur3KnownHashes() {
+        assertEquals("00b984c95e8089622e3c26549703ba4c", Murmur3IdGenerator.INSTANCE.generate("hello", null));
+        assertEquals("be0e37879c7e065522d3b2f73b51157f", Murmur3IdGenerator.INSTANCE.generate("", null));
+        assertEquals("0ed0181d4c874fb84d3907c0b0aa8562",
+                Murmur3IdGenerator.INSTANCE.generate("The quick brown fox jumps over the lazy dog", null));
+        Map<String, Object> meta = new LinkedHashMap<String, Object>();
+        meta.put("b", 2);
+        meta.put("a", 1);
+        assertEquals("233b3a00cd40c67b49d797e8f1353944", Murmur3IdGenerator.INSTANCE.generate(null, meta));
+    }
+
+    @Test
+    public void testMurmur3RequiresDocumentOrMetadata() {
+        try {
+            Murmur3IdGenerator.INSTANCE.generate(null, null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Murmur3IdGenerator requires a non-null document or metadata"));
+        }
+    }
+
+    // --- Batch ---
+
+    @Test
+    public void testContentHashParallelBatchMatchesSequential() {
+        int count = ContentHashIdGenerator.PARALLEL_THRESHOLD * 3;
+        List<String> documents = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add("document " + i);
+        }
+        for (IdGenerator generator : Arrays.<IdGenerator>asList(Sha256IdGenerator.INSTANCE, Murmur3IdGenerator.INSTANCE)) {
+            List<String> ids = generator.generateBatch(count, documents, null);
+            assertEquals(count, ids.size());
+            for (int i = 0; i < count; i += 97) {
+                assertEquals(generator.generate(documents.get(i), null), ids.get(i));
+            }
+            assertEquals(count, new HashSet<String>(ids).size());
+        }
+    }
+
+    @Test
+    public void testContentHashBatchReportsRecordIndex() {
+        try {
+            Sha256IdGenerator.INSTANCE.generateBatch(2, Arrays.asList("a", null), null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("record index 1"));
+        }
+    }
+
+    @Test
+    public void testDefaultBatchPassesRecordInputs() {
+        IdGenerator echo = new IdGenerator() {
+            @Override
+            public String generate(String document, Map<String, Object> metadata) {
+                return document + ":" + (metadata != null ? metadata.get("k") : null);
+            }
+        };
+        List<Map<String, Object>> metadatas = new ArrayList<Map<String, Object>>();
+        metadatas.add(Collections.<String, Object>singletonMap("k", 1));
+        metadatas.add(null);
+        assertEquals(Arrays.asList("a:1", "b:null"), echo.generateBatch(2, Arrays.asList("a", "b"), metadatas));
+        assertEquals(Arrays.asList("null:null", "null:null"), echo.generateBatch(2, null, null));
+    }
+
     // --- Lambda usage ---
 
     @Test
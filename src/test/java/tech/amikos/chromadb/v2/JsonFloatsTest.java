@@ -0,0 +1,115 @@
+package tech.amikos.chromadb.v2;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JsonFloatsTest {
+
+    private static String format(float value) {
+        StringBuilder sb = new StringBuilder();
+        JsonFloats.append(sb, value);
+        return sb.toString();
+    }
+
+    private static String format(float value, int significantDigits) {
+        StringBuilder sb = new StringBuilder();
+        JsonFloats.append(sb, value, significantDigits);
+        return sb.toString();
+    }
+
+    @Test
+    public void testFormatUsesFloatToStringLayout() {
+        assertEquals("0.0", format(0.0f));
+        assertEquals("-0.0", format(-0.0f));
+        assertEquals("1.0", format(1.0f));
+        assertEquals("-2.5", format(-2.5f));
+        assertEquals("0.1", format(0.1f));
+        assertEquals("0.001", format(0.001f));
+        assertEquals("1.0E-4", format(1.0E-4f));
+        assertEquals("1234567.0", format(1234567.0f));
+        assertEquals("1.0E7", format(1.0E7f));
+        assertEquals("1.0E-8", format(1.0E-8f));
+        assertEquals("3.4028235E38", format(Float.MAX_VALUE));
+        assertEquals("0.012345678", format(0.012345678f));
+    }
+
+    @Test
+    public void testFormatIsShortestWhereOlderFloatToStringIsNot() {
+        // Float.toString before Java 19 prints 1.4E-45 and 1.17549435E-38 for these.
+        assertEquals("1.0E-45", format(Float.MIN_VALUE));
+        assertEquals("1.1754944E-38", format(Float.MIN_NORMAL));
+        assertEquals(Float.MIN_VALUE, Float.parseFloat(format(Float.MIN_VALUE)), 0.0f);
+    }
+
+    @Test
+    public void testFormatRoundTripsAndIsShortest() {
+        Random random = new Random(7);
+        for (int n = 0; n < 200000; n++) {
+            float value = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(value) || Float.isInfinite(value)) {
+                continue;
+            }
+            String text = format(value);
+            assertEquals(text, Float.floatToIntBits(value), Float.floatToIntBits(Float.parseFloat(text)));
+            if (n % 50 == 0) {
+                assertNoShorterRoundTrip(value, text);
+            }
+        }
+    }
+
+    private static void assertNoShorterRoundTrip(float value, String text) {
+        BigDecimal decimal = new BigDecimal(text).stripTrailingZeros();
+        int digits = decimal.precision();
+        if (digits == 1) {
+            return;
+        }
+        BigDecimal exact = new BigDecimal(value);
+        for (RoundingMode mode : new RoundingMode[]{RoundingMode.FLOOR, RoundingMode.CEILING}) {
+            BigDecimal shorter = exact.round(new MathContext(digits - 1, mode));
+            assertNotEquals(text + " has a shorter round-trip form " + shorter,
+                    value, Float.parseFloat(shorter.toString()), 0.0f);
+        }
+    }
+
+    @Test
+    public void testFormatWithSignificantDigits() {
+        assertEquals("0.123", format(0.123456789f, 3));
+        assertEquals("10.0", format(9.996f, 3));
+        assertEquals("-12000.0", format(-12345.678f, 2));
+        assertEquals("0.12", format(0.125f, 2));
+        assertEquals("0.14", format(0.135f, 2));
+        assertEquals("1.0E-8", format(1.0E-8f, 4));
+        assertEquals("0.5", format(0.5f, 1));
+        assertEquals(format(0.33333334f), format(0.33333334f, 9));
+    }
+
+    @Test
+    public void testParseMatchesDoubleParseDouble() {
+        String[] inputs = {
+                "0", "-0", "1", "-2.5", "0.1", "3.0", "1e-8", "1.0E-8", "1.5E10", "0.012345678",
+                "123456789012345678901", "1e400", "-1e-400", "0.0000001", "9007199254740993",
+                "1.", ".5", "1e22", "1e23", "4.9E-324", " 1.5", "0x1p3", "1.5f", "NaN", "-Infinity"
+        };
+        for (String input : inputs) {
+            assertEquals(input, Double.doubleToLongBits(Double.parseDouble(input)),
+                    Double.doubleToLongBits(JsonFloats.parse(input)));
+        }
+        Random random = new Random(11);
+        for (int n = 0; n < 100000; n++) {
+            String text = Float.toString((float) (random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10)));
+            assertEquals(text, Double.doubleToLongBits(Double.parseDouble(text)),
+                    Double.doubleToLongBits(JsonFloats.parse(text)));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseRejectsInvalidNumber() {
+        JsonFloats.parse("1e");
+    }
+}
@@ -7,6 +7,7 @@ import tech.amikos.chromadb.embeddings.EmbeddingFunction;
 import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.BitSet;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -25,15 +26,15 @@ public class PublicInterfaceCompatibilityTest {
 
     // Expected declared method counts — update these when intentionally adding/removing public methods
     private static final int EXPECTED_CLIENT_METHOD_COUNT = 26;
-    private static final int EXPECTED_COLLECTION_METHOD_COUNT = 22;
+    private static final int EXPECTED_COLLECTION_METHOD_COUNT = 23;
     private static final int EXPECTED_ADD_BUILDER_METHOD_COUNT = 11;
-    private static final int EXPECTED_QUERY_BUILDER_METHOD_COUNT = 9;
+    private static final int EXPECTED_QUERY_BUILDER_METHOD_COUNT = 10;
     private static final int EXPECTED_GET_BUILDER_METHOD_COUNT = 8;
     private static final int EXPECTED_UPDATE_BUILDER_METHOD_COUNT = 8;
-    private static final int EXPECTED_UPSERT_BUILDER_METHOD_COUNT = 11;
+    private static final int EXPECTED_UPSERT_BUILDER_METHOD_COUNT = 12;
     private static final int EXPECTED_DELETE_BUILDER_METHOD_COUNT = 5;
-    private static final int EXPECTED_BUILDER_METHOD_COUNT = 33;
-    private static final int EXPECTED_CLOUD_BUILDER_METHOD_COUNT = 8;
+    private static final int EXPECTED_BUILDER_METHOD_COUNT = 37;
+    private static final int EXPECTED_CLOUD_BUILDER_METHOD_COUNT = 11;
 
     // === Method count assertions ===
 
@@ -377,6 +378,66 @@ public class PublicInterfaceCompatibilityTest {
         assertEquals(Collection.UpsertBuilder.class, method.getReturnType());
     }
 
+    @Test
+    public void testUpsertBuilderHasExecuteChangedMethod() throws Exception {
+        Method method = Collection.UpsertBuilder.class.getMethod("executeChanged", UpsertDigestStore.class);
+        assertEquals(UpsertResult.class, method.getReturnType());
+    }
+
+    @Test
+    public void testQueryBuilderHasPrepareMethod() throws Exception {
+        Method method = Collection.QueryBuilder.class.getMethod("prepare");
+        assertEquals(PreparedQuery.class, method.getReturnType());
+    }
+
+    @Test
+    public void testSearchBuilderHasPrepareMethod() throws Exception {
+        Method method = Collection.SearchBuilder.class.getMethod("prepare");
+        assertEquals(PreparedSearch.class, method.getReturnType());
+    }
+
+    @Test
+    public void testCollectionHasExistsMethod() throws Exception {
+        Method method = Collection.class.getMethod("exists", List.class);
+        assertEquals(BitSet.class, method.getReturnType());
+    }
+
+    @Test
+    public void testChromaClientBuilderHasJsonCodecMethod() throws Exception {
+        Method method = ChromaClient.Builder.class.getMethod("jsonCodec", JsonCodec.class);
+        assertEquals(ChromaClient.Builder.class, method.getReturnType());
+    }
+
+    @Test
+    public void testChromaClientBuilderHasWirePrecisionMethod() throws Exception {
+        Method method = ChromaClient.Builder.class.getMethod("wirePrecision", int.class);
+        assertEquals(ChromaClient.Builder.class, method.getReturnType());
+    }
+
+    @Test
+    public void testChromaClientBuilderHasKnownIdFilterMethod() throws Exception {
+        Method method = ChromaClient.Builder.class.getMethod("knownIdFilter", int.class, double.class);
+        assertEquals(ChromaClient.Builder.class, method.getReturnType());
+    }
+
+    @Test
+    public void testCloudBuilderHasJsonCodecMethod() throws Exception {
+        Method method = ChromaClient.CloudBuilder.class.getMethod("jsonCodec", JsonCodec.class);
+        assertEquals(ChromaClient.CloudBuilder.class, method.getReturnType());
+    }
+
+    @Test
+    public void testCloudBuilderHasWirePrecisionMethod() throws Exception {
+        Method method = ChromaClient.CloudBuilder.class.getMethod("wirePrecision", int.class);
+        assertEquals(ChromaClient.CloudBuilder.class, method.getReturnType());
+    }
+
+    @Test
+    public void testCloudBuilderHasKnownIdFilterMethod() throws Exception {
+        Method method = ChromaClient.CloudBuilder.class.getMethod("knownIdFilter", int.class, double.class);
+        assertEquals(ChromaClient.CloudBuilder.class, method.getReturnType());
+    }
+
     @Test
     public void testChromaClientBuilderHasSslCertMethod() throws Exception {
         Method method = ChromaClient.Builder.class.getMethod("sslCert", Path.class);
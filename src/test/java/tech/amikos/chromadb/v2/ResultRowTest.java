@@ -360,7 +360,7 @@ public class ResultRowTest {
         dto.ids = new ArrayList<String>();
         dto.documents = includeDocuments ? new ArrayList<String>() : null;
         dto.metadatas = includeMetadatas ? new ArrayList<Map<String, Object>>() : null;
-        dto.embeddings = includeEmbeddings ? new ArrayList<List<Float>>() : null;
+        dto.embeddings = includeEmbeddings ? new ArrayList<float[]>() : null;
         dto.uris = includeUris ? new ArrayList<String>() : null;
 
         for (int i = 0; i < n; i++) {
@@ -372,7 +372,7 @@ public class ResultRowTest {
                 dto.metadatas.add(m);
             }
             if (includeEmbeddings) {
-                dto.embeddings.add(Arrays.asList(Float.valueOf((i + 1) * 0.1f), Float.valueOf(0.2f), Float.valueOf(0.3f)));
+                dto.embeddings.add(new float[]{(i + 1) * 0.1f, 0.2f, 0.3f});
             }
             if (includeUris) dto.uris.add("uri" + i);
         }
@@ -0,0 +1,138 @@
+package tech.amikos.chromadb.v2;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SegmentedJsonBodyTest {
+
+    private static final int RECORDS = SegmentedJsonBody.PARALLEL_THRESHOLD + 517;
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("id-" + i);
+        }
+        return ids;
+    }
+
+    private static List<float[]> embeddings(int count) {
+        List<float[]> embeddings = new ArrayList<float[]>(count);
+        for (int i = 0; i < count; i++) {
+            embeddings.add(new float[]{i * 0.001f, -i, 1.0f / (i + 1)});
+        }
+        return embeddings;
+    }
+
+    private static List<String> documents(int count) {
+        List<String> documents = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(i % 7 == 0 ? null : "doc \"" + i + "\" é中\n<" + i + ">");
+        }
+        return documents;
+    }
+
+    private static List<Map<String, Object>> metadatas(int count) {
+        List<Map<String, Object>> metadatas = new ArrayList<Map<String, Object>>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 11 == 0) {
+                metadatas.add(null);
+                continue;
+            }
+            Map<String, Object> metadata = new LinkedHashMap<String, Object>();
+            metadata.put("n", i);
+            metadata.put("tags", Arrays.asList("a", "b" + i));
+            metadata.put("missing", null);
+            metadatas.add(metadata);
+        }
+        return metadatas;
+    }
+
+    private static byte[] write(RequestBody body) throws Exception {
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readByteArray();
+    }
+
+    @Test
+    public void testLargeAddRequestMatchesSingleThreadedEncoding() throws Exception {
+        ChromaDtos.AddRequest request = new ChromaDtos.AddRequest(
+                ids(RECORDS), embeddings(RECORDS), documents(RECORDS), metadatas(RECORDS), null);
+
+        RequestBody body = SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE, request, 4);
+
+        assertNotNull(body);
+        byte[] expected = GsonJsonCodec.INSTANCE.encode(request);
+        assertArrayEquals(expected, write(body));
+        assertEquals(expected.length, body.contentLength());
+    }
+
+    @Test
+    public void testLargeUpsertRequestMatchesSingleThreadedEncodingWithWirePrecision() throws Exception {
+        GsonJsonCodec codec = GsonJsonCodec.withWirePrecision(4);
+        ChromaDtos.UpsertRequest request = new ChromaDtos.UpsertRequest(
+                ids(RECORDS), embeddings(RECORDS), null, null, ids(RECORDS));
+
+        RequestBody body = SegmentedJsonBody.createOrNull(codec, request, 4);
+
+        assertNotNull(body);
+        assertArrayEquals(codec.encode(request), write(body));
+    }
+
+    @Test
+    public void testEmptyFieldIsWrittenAsEmptyArray() throws Exception {
+        ChromaDtos.AddRequest request = new ChromaDtos.AddRequest(
+                ids(RECORDS), embeddings(RECORDS), Collections.<String>emptyList(), null, null);
+
+        RequestBody body = SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE, request, 4);
+
+        assertNotNull(body);
+        assertArrayEquals(GsonJsonCodec.INSTANCE.encode(request), write(body));
+    }
+
+    @Test
+    public void testBodyCanBeWrittenMoreThanOnce() throws Exception {
+        ChromaDtos.AddRequest request = new ChromaDtos.AddRequest(
+                ids(RECORDS), embeddings(RECORDS), null, null, null);
+
+        RequestBody body = SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE, request, 4);
+
+        assertNotNull(body);
+        assertFalse(body.isOneShot());
+        assertArrayEquals(write(body), write(body));
+    }
+
+    @Test
+    public void testSmallOtherAndSingleThreadedRequestsUseCodecEncoding() {
+        int small = SegmentedJsonBody.PARALLEL_THRESHOLD - 1;
+        assertNull(SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE,
+                new ChromaDtos.AddRequest(ids(small), embeddings(small), null, null, null), 4));
+        assertNull(SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE,
+                new ChromaDtos.UpdateRequest(ids(RECORDS), embeddings(RECORDS), null, null), 4));
+        assertNull(SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE,
+                new ChromaDtos.AddRequest(ids(RECORDS), embeddings(RECORDS), null, null, null), 1));
+    }
+
+    @Test
+    public void testEncodingFailureIsRethrownUnwrapped() {
+        List<float[]> embeddings = embeddings(RECORDS);
+        embeddings.set(RECORDS - 3, new float[]{Float.NaN});
+        ChromaDtos.AddRequest request = new ChromaDtos.AddRequest(ids(RECORDS), embeddings, null, null, null);
+
+        try {
+            SegmentedJsonBody.createOrNull(GsonJsonCodec.INSTANCE, request, 4);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("NaN is not a valid double value"));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package tech.amikos.chromadb.v2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+public class UpsertDigestStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testReportsUnknownAndChangedRecords() {
+        UpsertDigestStore store = UpsertDigestStore.inMemory();
+        long[] keys = {5L, 6L, 0L};
+        long[] digests = {10L, 20L, 30L};
+
+        assertArrayEquals(new int[]{0, 1, 2}, store.changed(keys, digests, new long[keys.length]));
+        store.record(keys, digests, new long[keys.length], new int[]{0, 2});
+
+        assertArrayEquals(new int[]{1}, store.changed(keys, digests, new long[keys.length]));
+        assertArrayEquals(new int[]{0, 1}, store.changed(keys, new long[]{11L, 20L, 30L}, new long[keys.length]));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testOverlappingUpsertsWithDifferentContentForgetTheRecord() {
+        UpsertDigestStore store = UpsertDigestStore.inMemory();
+        long[] keys = {5L};
+        long[] first = {10L};
+        long[] second = {20L};
+        long[] firstObserved = new long[1];
+        long[] secondObserved = new long[1];
+        int[] sent = {0};
+
+        // Both upserts see the record as new, then record after their requests in either order.
+        store.changed(keys, first, firstObserved);
+        store.changed(keys, second, secondObserved);
+        store.record(keys, second, secondObserved, sent);
+        store.record(keys, first, firstObserved, sent);
+
+        assertArrayEquals(sent, store.changed(keys, first, new long[1]));
+        assertArrayEquals(sent, store.changed(keys, second, new long[1]));
+
+        // The next upsert is the only writer again, so its digest sticks.
+        long[] observed = new long[1];
+        store.changed(keys, second, observed);
+        store.record(keys, second, observed, sent);
+        assertEquals(0, store.changed(keys, second, new long[1]).length);
+
+        // An overlapping upsert of identical content keeps the digest.
+        long[] third = {30L};
+        long[] thirdObserved = new long[1];
+        long[] againObserved = new long[1];
+        store.changed(keys, third, thirdObserved);
+        store.changed(keys, third, againObserved);
+        store.record(keys, third, thirdObserved, sent);
+        store.record(keys, third, againObserved, sent);
+        assertEquals(0, store.changed(keys, third, new long[1]).length);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        UpsertDigestStore store = UpsertDigestStore.inMemory();
+        int count = 20000;
+        long[] keys = new long[count];
+        long[] digests = new long[count];
+        int[] all = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = RecordDigest.key("col", "id" + i);
+            digests[i] = i;
+            all[i] = i;
+        }
+
+        store.record(keys, digests, new long[keys.length], all);
+
+        assertEquals(count, store.size());
+        assertEquals(0, store.changed(keys, digests, new long[keys.length]).length);
+    }
+
+    @Test
+    public void testFileBackedStoreSurvivesReopen() throws Exception {
+        File file = new File(tmp.getRoot(), "digests.bin");
+        long[] keys = new long[10000];
+        long[] digests = new long[keys.length];
+        int[] all = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = RecordDigest.key("col", "id" + i);
+            digests[i] = i * 7L;
+            all[i] = i;
+        }
+        try (UpsertDigestStore store = UpsertDigestStore.open(file.toPath())) {
+            store.record(keys, digests, new long[keys.length], all);
+        }
+
+        try (UpsertDigestStore store = UpsertDigestStore.open(file.toPath())) {
+            assertEquals(keys.length, store.size());
+            assertEquals(0, store.changed(keys, digests, new long[keys.length]).length);
+            store.clear();
+            assertEquals(keys.length, store.changed(keys, digests, new long[keys.length]).length);
+        }
+    }
+
+    @Test
+    public void testOpenRejectsOtherFiles() throws Exception {
+        File file = tmp.newFile("other.txt");
+        Files.write(file.toPath(), "not a digest store, just text".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            UpsertDigestStore.open(file.toPath());
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not an upsert digest store: " + file.toPath(), e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedStoreRejectsUse() {
+        UpsertDigestStore store = UpsertDigestStore.inMemory();
+        store.close();
+        store.close();
+        store.size();
+    }
+
+    @Test
+    public void testDigestIgnoresMetadataOrderButNotValueTypes() {
+        Map<String, Object> ab = new LinkedHashMap<String, Object>();
+        ab.put("a", 1);
+        ab.put("b", "x");
+        Map<String, Object> ba = new LinkedHashMap<String, Object>();
+        ba.put("b", "x");
+        ba.put("a", 1);
+
+        assertEquals(RecordDigest.digest("d", ab, null, null), RecordDigest.digest("d", ba, null, null));
+        assertNotEquals(
+                RecordDigest.digest("d", Collections.<String, Object>singletonMap("a", 1), null, null),
+                RecordDigest.digest("d", Collections.<String, Object>singletonMap("a", "1"), null, null));
+        assertNotEquals(
+                RecordDigest.digest(null, null, new float[]{1.0f, 2.0f}, null),
+                RecordDigest.digest(null, null, new float[]{1.0f, 2.0000002f}, null));
+        assertNotEquals(
+                RecordDigest.digest("d", Collections.<String, Object>singletonMap("t", Arrays.asList("x", "y")), null, null),
+                RecordDigest.digest("d", Collections.<String, Object>singletonMap("t", Arrays.asList("y", "x")), null, null));
+        assertNotEquals(RecordDigest.digest("d", null, null, null), RecordDigest.digest(null, null, null, "d"));
+        assertNotEquals(RecordDigest.key("col-1", "id"), RecordDigest.key("col-2", "id"));
+    }
+}
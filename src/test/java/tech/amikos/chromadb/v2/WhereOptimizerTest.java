@@ -0,0 +1,194 @@
+package tech.amikos.chromadb.v2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class WhereOptimizerTest {
+
+    @Test
+    public void testFlattensNestedLogicalNodesAndDropsDuplicates() {
+        Where where = Where.and(
+                Where.and(Where.eq("a", "x"), Where.gt("b", 1)),
+                Where.and(Where.gt("b", 1), Where.lt("c", 5))
+        );
+
+        assertEquals(
+                logical("$and", Where.eq("a", "x"), Where.gt("b", 1), Where.lt("c", 5)),
+                WhereOptimizer.optimize(where.toMap())
+        );
+    }
+
+    @Test
+    public void testMergesOrOfEqualitiesIntoIn() {
+        Where where = Where.or(
+                Where.eq("topic", "news"),
+                Where.or(Where.in("topic", "ai", "news"), Where.gt("year", 2020)),
+                Where.eq("topic", "sports")
+        );
+
+        assertEquals(
+                logical("$or", Where.in("topic", "news", "ai", "sports"), Where.gt("year", 2020)),
+                WhereOptimizer.optimize(where.toMap())
+        );
+    }
+
+    @Test
+    public void testCollapsesSingleClauseAfterMerging() {
+        Where where = Where.or(Where.eq("n", 1), Where.eq("n", 2), Where.eq("n", 1));
+
+        assertEquals(Where.in("n", 1, 2).toMap(), WhereOptimizer.optimize(where.toMap()));
+        assertEquals(
+                Where.eq("n", 1).toMap(),
+                WhereOptimizer.optimize(Where.or(Where.eq("n", 1), Where.eq("n", 1)).toMap())
+        );
+    }
+
+    @Test
+    public void testDedupesInValues() {
+        assertEquals(Where.in("k", "a", "b").toMap(), WhereOptimizer.optimize(Where.in("k", "a", "b", "a").toMap()));
+    }
+
+    @Test
+    public void testIntersectsAndClausesOnSameKey() {
+        Where where = Where.and(
+                Where.in("topic", "news", "ai", "sports"),
+                Where.in("topic", "ai", "sports"),
+                Where.ne("topic", "sports")
+        );
+
+        assertEquals(Where.eq("topic", "ai").toMap(), WhereOptimizer.optimize(where.toMap()));
+    }
+
+    @Test
+    public void testFoldsContradictionsToUnsatisfiable() {
+        assertSame(WhereOptimizer.UNSATISFIABLE, WhereOptimizer.optimize(
+                Where.and(Where.eq("k", "a"), Where.eq("k", "b")).toMap()));
+        assertSame(WhereOptimizer.UNSATISFIABLE, WhereOptimizer.optimize(
+                Where.and(Where.eq("k", 1), Where.nin("k", 1, 2)).toMap()));
+        assertSame(WhereOptimizer.UNSATISFIABLE, WhereOptimizer.optimize(
+                Where.and(Where.gt("n", 0), Where.or(
+                        Where.and(Where.eq("k", true), Where.eq("k", false)),
+                        Where.and(Where.eq("k", "x"), Where.ne("k", "x"))
+                )).toMap()));
+    }
+
+    @Test
+    public void testDropsUnsatisfiableOrBranches() {
+        Where where = Where.or(
+                Where.and(Where.eq("k", "a"), Where.eq("k", "b")),
+                Where.gt("n", 3)
+        );
+
+        assertEquals(Where.gt("n", 3).toMap(), WhereOptimizer.optimize(where.toMap()));
+    }
+
+    @Test
+    public void testLeavesMixedValueTypesAlone() {
+        Map<String, Object> where = Where.and(Where.eq("k", 1), Where.eq("k", 1.0f)).toMap();
+
+        assertSame(where, WhereOptimizer.optimize(where));
+    }
+
+    @Test
+    public void testLeavesFloatClausesUnfolded() {
+        Map<String, Object> signedZeros = Where.and(Where.eq("k", 0.0f), Where.eq("k", -0.0f)).toMap();
+        Map<String, Object> floatIn = Where.or(Where.eq("k", 1.5f), Where.eq("k", 2.5f)).toMap();
+
+        assertSame(signedZeros, WhereOptimizer.optimize(signedZeros));
+        assertSame(floatIn, WhereOptimizer.optimize(floatIn));
+    }
+
+    @Test
+    public void testLeavesExclusionOnlyAndUnknownShapesAlone() {
+        Map<String, Object> raw = new LinkedHashMap<String, Object>();
+        raw.put("topic", "news");
+        Map<String, Object> where = Where.and(
+                Where.fromMap(raw), Where.ne("k", "a"), Where.nin("k", "b")).toMap();
+
+        assertSame(where, WhereOptimizer.optimize(where));
+        assertNull(WhereOptimizer.optimize(null));
+    }
+
+    @Test
+    public void testLeavesLogicalNodesWithoutChildrenAlone() {
+        Map<String, Object> emptyAnd = Where.fromMap(
+                Collections.<String, Object>singletonMap("$and", Collections.emptyList())).toMap();
+        Map<String, Object> emptyOr = Where.fromMap(
+                Collections.<String, Object>singletonMap("$or", Collections.emptyList())).toMap();
+        Map<String, Object> nested = Where.and(Where.fromMap(emptyAnd), Where.gt("b", 1)).toMap();
+
+        assertSame(emptyAnd, WhereOptimizer.optimize(emptyAnd));
+        assertSame(emptyOr, WhereOptimizer.optimize(emptyOr));
+        assertSame(nested, WhereOptimizer.optimize(nested));
+    }
+
+    @Test
+    public void testCachesResultOnMemoizedMaps() {
+        Map<String, Object> where = Where.or(Where.eq("k", "a"), Where.eq("k", "b")).toMap();
+
+        assertSame(WhereOptimizer.optimize(where), WhereOptimizer.optimize(where));
+    }
+
+    @Test
+    public void testPushDownLiftsTopLevelIdFilter() {
+        WhereOptimizer.IdScope scope = WhereOptimizer.pushDownIds(null, Where.idIn("id1", "id2").toMap());
+
+        assertEquals(Arrays.asList("id1", "id2"), scope.ids);
+        assertNull(scope.where);
+    }
+
+    @Test
+    public void testPushDownLiftsIdClauseOutOfAnd() {
+        WhereOptimizer.IdScope scope = WhereOptimizer.pushDownIds(
+                null,
+                Where.and(Where.eq("a", "x"), Where.idIn("id1"), Where.gt("b", 2)).toMap()
+        );
+
+        assertEquals(Collections.singletonList("id1"), scope.ids);
+        assertEquals(logical("$and", Where.eq("a", "x"), Where.gt("b", 2)), scope.where);
+    }
+
+    @Test
+    public void testPushDownIntersectsWithExplicitIdsInTheirOrder() {
+        WhereOptimizer.IdScope scope = WhereOptimizer.pushDownIds(
+                Arrays.asList("c", "b", "a"),
+                Where.and(Where.idIn("a", "c", "z"), Where.eq("k", "v")).toMap()
+        );
+
+        assertEquals(Arrays.asList("c", "a"), scope.ids);
+        assertEquals(Where.eq("k", "v").toMap(), scope.where);
+        assertNull(WhereOptimizer.pushDownIds(Collections.singletonList("b"), Where.idIn("a").toMap()));
+    }
+
+    @Test
+    public void testPushDownKeepsIdFiltersThatAreNotSafeToLift() {
+        Map<String, Object> or = Where.or(Where.idIn("a"), Where.eq("k", "v")).toMap();
+        Map<String, Object> notIn = Where.idNotIn("a").toMap();
+        List<String> ids = Collections.singletonList("x");
+
+        assertSame(or, WhereOptimizer.pushDownIds(ids, or).where);
+        assertSame(ids, WhereOptimizer.pushDownIds(ids, or).ids);
+        assertSame(notIn, WhereOptimizer.pushDownIds(null, notIn).where);
+        assertNull(WhereOptimizer.pushDownIds(null, notIn).ids);
+    }
+
+    private static Map<String, Object> logical(String operator, Where... clauses) {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        List<Map<String, Object>> maps = new ArrayList<Map<String, Object>>();
+        for (Where clause : clauses) {
+            maps.add(clause.toMap());
+        }
+        map.put(operator, maps);
+        return map;
+    }
+}